@@ -0,0 +1,289 @@
+package com.SAFE_Rescue.API_Ciudadano.carga;
+
+import com.SAFE_Rescue.API_Ciudadano.ApiCiudadanoApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Arnés de prueba de carga de extremo a extremo.
+ * Inicia ApiCiudadanoApplication con el perfil "test" (H2 en memoria en modo MySQL),
+ * carga los ciudadanos iniciales con la carga masiva, envía la mezcla de tráfico desde
+ * clientes concurrentes por localhost y escribe un reporte JSON con el rendimiento y los
+ * percentiles de latencia (HdrHistogram) de cada operación.
+ * Con modos=plataforma,virtual mide ambos modos de ejecución, cada uno en una aplicación
+ * nueva, y agrega al reporte la comparación entre ellos.
+ *
+ * Ejecutar con: ./mvnw -P carga verify -DskipTests -Dcarga.args="clientes=64 duracion=60"
+ * Comparar modos: -Dcarga.args="modos=plataforma,virtual clientes=400 retardoSql=5"
+ */
+public class ArnesCarga {
+
+    static final long RUN_INICIALES = 10_000_000L;
+    static final long TELEFONO_INICIALES = 900_000_000L;
+
+    private static final int FILAS_POR_CARGA = 5_000;
+    private static final String BASE = "/api-ciudadano/v1";
+
+    private static final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    public static void main(String[] args) throws Exception {
+        ConfiguracionCarga configuracion = ConfiguracionCarga.desde(args);
+
+        Map<String, Object> modos = new LinkedHashMap<>();
+        for (String modo : configuracion.modos) {
+            System.out.println("Modo " + modo);
+            modos.put(modo, medir(configuracion, modo));
+        }
+
+        Map<String, Object> reporte = new LinkedHashMap<>();
+        reporte.put("configuracion", configuracion.resumen());
+        reporte.put("java", Runtime.version().toString());
+        reporte.put("procesadores", Runtime.getRuntime().availableProcessors());
+        reporte.put("modos", modos);
+        if (modos.size() > 1) {
+            reporte.put("comparacion", comparar(modos));
+        }
+
+        Files.createDirectories(configuracion.reporte.toAbsolutePath().getParent());
+        mapper.writeValue(configuracion.reporte.toFile(), reporte);
+        System.out.println(mapper.writeValueAsString(modos.size() > 1 ? reporte.get("comparacion") : modos));
+        System.out.println("Reporte escrito en " + configuracion.reporte.toAbsolutePath());
+        System.exit(0);
+    }
+
+    /**
+     * Inicia una aplicación nueva en el modo indicado, con su propia base H2, y ejecuta la prueba
+     * @param modo plataforma o virtual
+     * @return Resultados por operación y total del modo
+     */
+    private static Map<String, Object> medir(ConfiguracionCarga configuracion, String modo) throws Exception {
+        List<String> argumentos = new ArrayList<>(List.of(
+                "--spring.profiles.active=test" + (ConfiguracionCarga.MODO_VIRTUAL.equals(modo) ? ",virtual" : ""),
+                "--spring.datasource.url=jdbc:h2:mem:carga_" + modo + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "--server.port=0",
+                // Todos los clientes salen de la misma IP: el límite de inicios de sesión rechazaría la mezcla
+                "--credenciales.login.limite.habilitado=false",
+                "--logging.level.root=WARN"));
+        argumentos.addAll(configuracion.argumentosAplicacion);
+
+        SpringApplicationBuilder aplicacion = new SpringApplicationBuilder(ApiCiudadanoApplication.class);
+        if (!configuracion.retardoSql.isZero()) {
+            RetardoSql retardo = new RetardoSql(configuracion.retardoSql);
+            aplicacion.initializers(contexto -> contexto.getBeanFactory().addBeanPostProcessor(retardo));
+        }
+
+        ConfigurableApplicationContext contexto = aplicacion.run(argumentos.toArray(new String[0]));
+        try {
+            int puerto = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+            String base = "http://localhost:" + puerto + BASE;
+            HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+            long inicioCarga = System.nanoTime();
+            int[] ids = cargarCiudadanos(http, base, configuracion.ciudadanos);
+            System.out.printf("Cargados %d ciudadanos en %d ms%n",
+                    ids.length, (System.nanoTime() - inicioCarga) / 1_000_000);
+
+            return resultados(configuracion, ejecutar(http, base, ids, configuracion));
+        } finally {
+            contexto.close();
+        }
+    }
+
+    // DATOS DE LOS CIUDADANOS INICIALES
+
+    static String correo(int i) {
+        return "carga" + i + "@correo.cl";
+    }
+
+    static String contrasenia(int i) {
+        return "clave" + i;
+    }
+
+    static String ciudadanoJson(long run, long telefono, String correo, String contrasenia) {
+        return "{\"run\":" + run + ",\"dv\":\"k\",\"nombre\":\"Nombre\",\"apaterno\":\"Paterno\"," +
+                "\"amaterno\":\"Materno\",\"fechaRegistro\":\"2024-01-01\",\"telefono\":" + telefono +
+                ",\"credencial\":{\"correo\":\"" + correo + "\",\"contrasenia\":\"" + contrasenia +
+                "\",\"activo\":true}}";
+    }
+
+    // MÉTODOS PRIVADOS
+
+    /**
+     * Carga los ciudadanos iniciales con el endpoint de carga masiva
+     * @return IDs asignados, en el mismo orden que las credenciales correo(i)
+     */
+    private static int[] cargarCiudadanos(HttpClient http, String base, int cantidad)
+            throws IOException, InterruptedException {
+        int[] ids = new int[cantidad];
+        for (int desde = 0; desde < cantidad; desde += FILAS_POR_CARGA) {
+            int hasta = Math.min(cantidad, desde + FILAS_POR_CARGA);
+            StringBuilder ndjson = new StringBuilder();
+            for (int i = desde; i < hasta; i++) {
+                ndjson.append(ciudadanoJson(RUN_INICIALES + i, TELEFONO_INICIALES + i, correo(i), contrasenia(i)))
+                        .append('\n');
+            }
+            HttpRequest solicitud = HttpRequest.newBuilder(URI.create(base + "/ciudadanos/carga-masiva"))
+                    .header("Content-Type", "application/x-ndjson")
+                    .POST(HttpRequest.BodyPublishers.ofString(ndjson.toString()))
+                    .build();
+            HttpResponse<String> respuesta = http.send(solicitud, HttpResponse.BodyHandlers.ofString());
+            JsonNode resultado = mapper.readTree(respuesta.body());
+            if (respuesta.statusCode() != 200 || resultado.path("rechazados").asInt() != 0) {
+                throw new IllegalStateException("No se pudieron cargar los ciudadanos iniciales: " + respuesta.body());
+            }
+            int i = desde;
+            for (JsonNode fila : resultado.path("filas")) {
+                ids[i++] = fila.path("id").asInt();
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Ejecuta el calentamiento y la medición con un hilo por cliente
+     * @return Clientes terminados, con sus histogramas
+     */
+    private static List<ClienteCarga> ejecutar(HttpClient http, String base, int[] ids,
+                                               ConfiguracionCarga configuracion) throws InterruptedException {
+        long inicio = System.nanoTime();
+        long inicioMedicion = inicio + configuracion.calentamiento.toNanos();
+        long fin = inicioMedicion + configuracion.duracion.toNanos();
+        long intervalo = configuracion.tasa == 0 ? 0 : 1_000_000_000L * configuracion.clientes / configuracion.tasa;
+        AtomicLong contadorNuevos = new AtomicLong();
+
+        List<ClienteCarga> clientes = new ArrayList<>();
+        List<Thread> hilos = new ArrayList<>();
+        for (int i = 0; i < configuracion.clientes; i++) {
+            ClienteCarga cliente = new ClienteCarga(http, base, ids, configuracion.mezcla,
+                    contadorNuevos, inicioMedicion, fin, intervalo);
+            clientes.add(cliente);
+            hilos.add(new Thread(cliente, "cliente-carga-" + i));
+        }
+        hilos.forEach(Thread::start);
+        for (Thread hilo : hilos) {
+            hilo.join();
+        }
+        return clientes;
+    }
+
+    /**
+     * Combina los histogramas de los clientes en el resultado de un modo
+     */
+    private static Map<String, Object> resultados(ConfiguracionCarga configuracion, List<ClienteCarga> clientes) {
+        Map<Operacion, Histogram> latencias = new EnumMap<>(Operacion.class);
+        Map<Operacion, Map<Integer, Long>> errores = new EnumMap<>(Operacion.class);
+        Histogram total = new Histogram(3);
+        Map<Integer, Long> erroresTotal = new TreeMap<>();
+
+        for (ClienteCarga cliente : clientes) {
+            cliente.latencias.forEach((operacion, histograma) -> {
+                latencias.computeIfAbsent(operacion, o -> new Histogram(3)).add(histograma);
+                total.add(histograma);
+            });
+            cliente.errores.forEach((operacion, codigos) -> codigos.forEach((codigo, cantidad) -> {
+                errores.computeIfAbsent(operacion, o -> new TreeMap<>()).merge(codigo, cantidad, Long::sum);
+                erroresTotal.merge(codigo, cantidad, Long::sum);
+            }));
+        }
+
+        double segundos = configuracion.duracion.toMillis() / 1000.0;
+        Map<String, Object> operaciones = new LinkedHashMap<>();
+        latencias.forEach((operacion, histograma) -> operaciones.put(operacion.nombre(),
+                resumen(histograma, errores.getOrDefault(operacion, Map.of()), segundos)));
+
+        Map<String, Object> resultados = new LinkedHashMap<>();
+        resultados.put("operaciones", operaciones);
+        resultados.put("total", resumen(total, erroresTotal, segundos));
+        return resultados;
+    }
+
+    /**
+     * Compara el rendimiento y la latencia de cola de cada modo contra el primero
+     * @return Por operación y total: valores de cada modo y su razón respecto del primer modo
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> comparar(Map<String, Object> modos) {
+        String referencia = modos.keySet().iterator().next();
+        Map<String, Object> resultadosReferencia = (Map<String, Object>) modos.get(referencia);
+
+        Map<String, Map<String, Object>> resumenes = new LinkedHashMap<>();
+        ((Map<String, Object>) resultadosReferencia.get("operaciones")).keySet()
+                .forEach(operacion -> resumenes.put(operacion, new LinkedHashMap<>()));
+        resumenes.put("total", new LinkedHashMap<>());
+
+        Map<String, Object> comparacion = new LinkedHashMap<>();
+        comparacion.put("referencia", referencia);
+        for (String operacion : resumenes.keySet()) {
+            Map<String, Object> porMetrica = new LinkedHashMap<>();
+            for (String metrica : List.of("rendimiento", "p50", "p99", "p99.9")) {
+                Map<String, Object> porModo = new LinkedHashMap<>();
+                double valorReferencia = valor(resultadosReferencia, operacion, metrica);
+                modos.forEach((modo, resultados) -> {
+                    double valor = valor((Map<String, Object>) resultados, operacion, metrica);
+                    porModo.put(modo, valor);
+                    if (!modo.equals(referencia)) {
+                        porModo.put(modo + "/" + referencia, valorReferencia == 0 ? null : valor / valorReferencia);
+                    }
+                });
+                porMetrica.put(metrica, porModo);
+            }
+            comparacion.put(operacion, porMetrica);
+        }
+        return comparacion;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static double valor(Map<String, Object> resultados, String operacion, String metrica) {
+        Map<String, Object> resumen = "total".equals(operacion)
+                ? (Map<String, Object>) resultados.get("total")
+                : (Map<String, Object>) ((Map<String, Object>) resultados.get("operaciones")).get(operacion);
+        if (resumen == null) {
+            return 0;
+        }
+        Object valor = "rendimiento".equals(metrica)
+                ? resumen.get("rendimiento")
+                : ((Map<String, Object>) resumen.get("latenciaMs")).get(metrica);
+        return ((Number) valor).doubleValue();
+    }
+
+    /**
+     * Resume un histograma en microsegundos como rendimiento y percentiles en milisegundos
+     */
+    private static Map<String, Object> resumen(Histogram histograma, Map<Integer, Long> errores, double segundos) {
+        Map<String, Object> latencia = new LinkedHashMap<>();
+        latencia.put("media", histograma.getMean() / 1000.0);
+        latencia.put("p50", histograma.getValueAtPercentile(50) / 1000.0);
+        latencia.put("p90", histograma.getValueAtPercentile(90) / 1000.0);
+        latencia.put("p99", histograma.getValueAtPercentile(99) / 1000.0);
+        latencia.put("p99.9", histograma.getValueAtPercentile(99.9) / 1000.0);
+        latencia.put("max", histograma.getMaxValue() / 1000.0);
+
+        Map<String, Object> resumen = new LinkedHashMap<>();
+        resumen.put("solicitudes", histograma.getTotalCount());
+        resumen.put("errores", errores.values().stream().mapToLong(Long::longValue).sum());
+        resumen.put("erroresPorCodigo", errores);
+        resumen.put("rendimiento", histograma.getTotalCount() / segundos);
+        resumen.put("latenciaMs", latencia);
+        return resumen;
+    }
+
+}
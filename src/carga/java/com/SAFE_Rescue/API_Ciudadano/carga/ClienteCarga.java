@@ -0,0 +1,158 @@
+package com.SAFE_Rescue.API_Ciudadano.carga;
+
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Cliente de la prueba de carga, ejecutado en su propio hilo.
+ * Envía solicitudes según la mezcla configurada y registra la latencia de cada
+ * operación en histogramas propios, que el arnés combina al terminar.
+ * Solo se registran las solicitudes iniciadas dentro del período de medición.
+ * Con una tasa fija, la latencia se mide desde el momento planificado de envío,
+ * de modo que una respuesta lenta también cuenta la espera de las solicitudes siguientes.
+ */
+class ClienteCarga implements Runnable {
+
+    static final long RUN_NUEVOS = 50_000_000L;
+    static final long TELEFONO_NUEVOS = 800_000_000L;
+
+    private static final Duration TIEMPO_MAXIMO = Duration.ofSeconds(30);
+
+    private final HttpClient http;
+    private final String base;
+    private final int[] ids;
+    private final Operacion[] operaciones;
+    private final int[] pesosAcumulados;
+    private final AtomicLong contadorNuevos;
+    private final long inicioMedicion;
+    private final long fin;
+    private final long intervalo;
+
+    final Map<Operacion, Histogram> latencias = new EnumMap<>(Operacion.class);
+    final Map<Operacion, Map<Integer, Long>> errores = new EnumMap<>(Operacion.class);
+
+    /**
+     * @param http Cliente HTTP compartido
+     * @param base URL base de la API, por ejemplo http://localhost:8081/api-ciudadano/v1
+     * @param ids IDs de los ciudadanos cargados; el ciudadano ids[i] tiene la credencial i
+     * @param mezcla Peso de cada operación
+     * @param contadorNuevos Contador compartido para generar ciudadanos nuevos sin repetir valores únicos
+     * @param inicioMedicion Inicio del período de medición según System.nanoTime()
+     * @param fin Fin de la prueba según System.nanoTime()
+     * @param intervalo Nanosegundos entre solicitudes de este cliente, 0 para lazo cerrado
+     */
+    ClienteCarga(HttpClient http, String base, int[] ids, Map<Operacion, Integer> mezcla,
+                 AtomicLong contadorNuevos, long inicioMedicion, long fin, long intervalo) {
+        this.http = http;
+        this.base = base;
+        this.ids = ids;
+        this.contadorNuevos = contadorNuevos;
+        this.inicioMedicion = inicioMedicion;
+        this.fin = fin;
+        this.intervalo = intervalo;
+
+        operaciones = mezcla.keySet().toArray(new Operacion[0]);
+        pesosAcumulados = new int[operaciones.length];
+        int acumulado = 0;
+        for (int i = 0; i < operaciones.length; i++) {
+            acumulado += mezcla.get(operaciones[i]);
+            pesosAcumulados[i] = acumulado;
+        }
+        for (Operacion operacion : operaciones) {
+            latencias.put(operacion, new Histogram(3));
+            errores.put(operacion, new TreeMap<>());
+        }
+    }
+
+    @Override
+    public void run() {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        long planificado = System.nanoTime() + (intervalo == 0 ? 0 : aleatorio.nextLong(intervalo));
+
+        while (true) {
+            if (intervalo > 0) {
+                long espera = planificado - System.nanoTime();
+                if (espera > 0) {
+                    LockSupport.parkNanos(espera);
+                }
+            } else {
+                planificado = System.nanoTime();
+            }
+            if (planificado >= fin) {
+                return;
+            }
+
+            Operacion operacion = elegir(aleatorio.nextInt(pesosAcumulados[pesosAcumulados.length - 1]));
+            int estado = enviar(operacion, aleatorio);
+            long termino = System.nanoTime();
+
+            if (planificado >= inicioMedicion) {
+                latencias.get(operacion).recordValue(Math.max(1, (termino - planificado) / 1_000));
+                if (estado < 200 || estado >= 300) {
+                    errores.get(operacion).merge(estado, 1L, Long::sum);
+                }
+            }
+            planificado += intervalo;
+        }
+    }
+
+    // MÉTODOS PRIVADOS
+
+    private Operacion elegir(int valor) {
+        for (int i = 0; i < pesosAcumulados.length; i++) {
+            if (valor < pesosAcumulados[i]) {
+                return operaciones[i];
+            }
+        }
+        return operaciones[operaciones.length - 1];
+    }
+
+    /**
+     * Envía una solicitud de la operación y espera la respuesta completa
+     * @return Código de estado HTTP, o 0 si la solicitud falló sin respuesta
+     */
+    private int enviar(Operacion operacion, ThreadLocalRandom aleatorio) {
+        int i = aleatorio.nextInt(ids.length);
+        HttpRequest solicitud = switch (operacion) {
+            case LOGIN -> json(base + "/credenciales/login", "POST",
+                    "{\"correo\":\"" + ArnesCarga.correo(i) + "\",\"contrasenia\":\"" + ArnesCarga.contrasenia(i) + "\"}");
+            case OBTENER -> HttpRequest.newBuilder(URI.create(base + "/ciudadanos/" + ids[i]))
+                    .timeout(TIEMPO_MAXIMO).GET().build();
+            case CREAR -> {
+                long n = contadorNuevos.incrementAndGet();
+                yield json(base + "/ciudadanos", "POST", ArnesCarga.ciudadanoJson(
+                        RUN_NUEVOS + n, TELEFONO_NUEVOS + n, "nuevo" + n + "@correo.cl", "clave" + n));
+            }
+            case ACTUALIZAR -> json(base + "/ciudadanos/" + ids[i], "PUT",
+                    "{\"nombre\":\"Nombre " + aleatorio.nextInt(1_000) + "\"}");
+        };
+        try {
+            return http.send(solicitud, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (java.io.IOException e) {
+            return 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+    }
+
+    private HttpRequest json(String url, String metodo, String cuerpo) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(TIEMPO_MAXIMO)
+                .header("Content-Type", "application/json")
+                .method(metodo, HttpRequest.BodyPublishers.ofString(cuerpo))
+                .build();
+    }
+
+}
@@ -0,0 +1,161 @@
+package com.SAFE_Rescue.API_Ciudadano.carga;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parámetros de una prueba de carga.
+ * Se leen de argumentos con forma clave=valor; los argumentos que comienzan con
+ * "--" se entregan sin cambios a la aplicación (por ejemplo --ciudadanos.concurrencia.maxima=100).
+ */
+public class ConfiguracionCarga {
+
+    static final String MODO_PLATAFORMA = "plataforma";
+    static final String MODO_VIRTUAL = "virtual";
+
+    /**
+     * Ciudadanos cargados antes de comenzar la prueba
+     */
+    int ciudadanos = 10_000;
+
+    /**
+     * Clientes concurrentes, cada uno con su propio hilo
+     */
+    int clientes = 32;
+
+    /**
+     * Solicitudes por segundo del total de clientes; 0 para que cada cliente envíe
+     * la siguiente solicitud apenas recibe la respuesta (lazo cerrado)
+     */
+    int tasa = 0;
+
+    Duration calentamiento = Duration.ofSeconds(10);
+
+    Duration duracion = Duration.ofSeconds(30);
+
+    /**
+     * Peso relativo de cada operación en la mezcla de tráfico
+     */
+    Map<Operacion, Integer> mezcla = new LinkedHashMap<>(Map.of(
+            Operacion.LOGIN, 40,
+            Operacion.OBTENER, 40,
+            Operacion.CREAR, 10,
+            Operacion.ACTUALIZAR, 10));
+
+    Path reporte = Path.of("target", "carga", "reporte.json");
+
+    /**
+     * Modos de ejecución a medir, cada uno en una aplicación nueva:
+     * plataforma (pool de hilos de Tomcat) o virtual (perfil virtual)
+     */
+    List<String> modos = List.of(MODO_PLATAFORMA);
+
+    /**
+     * Espera agregada a cada sentencia SQL para simular la latencia de red hacia MySQL
+     */
+    Duration retardoSql = Duration.ZERO;
+
+    /**
+     * Argumentos para la aplicación
+     */
+    List<String> argumentosAplicacion = new ArrayList<>();
+
+    /**
+     * Lee la configuración desde los argumentos de línea de comandos
+     * @param args Argumentos clave=valor y argumentos de la aplicación
+     * @return Configuración con los valores por defecto para las claves omitidas
+     * @throws IllegalArgumentException Si una clave no existe o su valor no es válido
+     */
+    static ConfiguracionCarga desde(String[] args) {
+        ConfiguracionCarga configuracion = new ConfiguracionCarga();
+        for (String arg : args) {
+            if (arg.isBlank()) {
+                continue;
+            }
+            if (arg.startsWith("--")) {
+                configuracion.argumentosAplicacion.add(arg);
+                continue;
+            }
+            int separador = arg.indexOf('=');
+            if (separador < 0) {
+                throw new IllegalArgumentException("Argumento sin valor: " + arg);
+            }
+            String clave = arg.substring(0, separador);
+            String valor = arg.substring(separador + 1);
+            switch (clave) {
+                case "ciudadanos" -> configuracion.ciudadanos = Integer.parseInt(valor);
+                case "clientes" -> configuracion.clientes = Integer.parseInt(valor);
+                case "tasa" -> configuracion.tasa = Integer.parseInt(valor);
+                case "calentamiento" -> configuracion.calentamiento = Duration.ofSeconds(Long.parseLong(valor));
+                case "duracion" -> configuracion.duracion = Duration.ofSeconds(Long.parseLong(valor));
+                case "mezcla" -> configuracion.mezcla = leerMezcla(valor);
+                case "reporte" -> configuracion.reporte = Path.of(valor);
+                case "modos" -> configuracion.modos = leerModos(valor);
+                case "retardoSql" -> configuracion.retardoSql = Duration.ofMillis(Long.parseLong(valor));
+                default -> throw new IllegalArgumentException("Clave desconocida: " + clave);
+            }
+        }
+        if (configuracion.ciudadanos < 1 || configuracion.clientes < 1) {
+            throw new IllegalArgumentException("ciudadanos y clientes deben ser mayores que cero");
+        }
+        return configuracion;
+    }
+
+    /**
+     * Lee una mezcla con forma login:40,obtener:40,crear:10,actualizar:10
+     */
+    private static Map<Operacion, Integer> leerMezcla(String valor) {
+        Map<Operacion, Integer> mezcla = new LinkedHashMap<>();
+        for (String parte : valor.split(",")) {
+            String[] pesoOperacion = parte.split(":");
+            int peso = Integer.parseInt(pesoOperacion[1].trim());
+            if (peso < 0) {
+                throw new IllegalArgumentException("El peso de una operación no puede ser negativo");
+            }
+            mezcla.put(Operacion.desde(pesoOperacion[0].trim()), peso);
+        }
+        if (mezcla.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("La mezcla debe incluir al menos una operación");
+        }
+        return mezcla;
+    }
+
+    /**
+     * Lee una lista de modos con forma plataforma,virtual
+     */
+    private static List<String> leerModos(String valor) {
+        List<String> modos = new ArrayList<>();
+        for (String modo : valor.split(",")) {
+            modo = modo.trim();
+            if (!modo.equals(MODO_PLATAFORMA) && !modo.equals(MODO_VIRTUAL)) {
+                throw new IllegalArgumentException("Modo desconocido: " + modo);
+            }
+            modos.add(modo);
+        }
+        return modos;
+    }
+
+    /**
+     * Resumen de la configuración para el reporte
+     */
+    Map<String, Object> resumen() {
+        Map<String, Object> resumen = new LinkedHashMap<>();
+        resumen.put("ciudadanos", ciudadanos);
+        resumen.put("clientes", clientes);
+        resumen.put("tasa", tasa);
+        resumen.put("calentamientoSegundos", calentamiento.toSeconds());
+        resumen.put("duracionSegundos", duracion.toSeconds());
+        Map<String, Integer> pesos = new LinkedHashMap<>();
+        mezcla.forEach((operacion, peso) -> pesos.put(operacion.nombre(), peso));
+        resumen.put("mezcla", pesos);
+        resumen.put("modos", modos);
+        resumen.put("retardoSqlMs", retardoSql.toMillis());
+        resumen.put("argumentosAplicacion", argumentosAplicacion);
+        return resumen;
+    }
+
+}
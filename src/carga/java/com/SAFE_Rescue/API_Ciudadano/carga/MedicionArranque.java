@@ -0,0 +1,372 @@
+package com.SAFE_Rescue.API_Ciudadano.carga;
+
+import com.SAFE_Rescue.API_Ciudadano.ApiCiudadanoApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Mide el tiempo hasta la primera solicitud de ApiCiudadanoApplication con y sin el perfil arranque-rapido.
+ * Cada medición inicia un proceso Java nuevo con el jar extraído por el perfil Maven cds (target/arranque)
+ * y cuenta desde que se lanza el proceso hasta que GET /ciudadanos responde 200.
+ * La base de datos es un archivo H2 en modo MySQL con las migraciones de db/migration y los ciudadanos
+ * iniciales, creado antes de las mediciones como lo harían las migraciones fuera de banda.
+ * Variantes:
+ * base (configuración por defecto, ddl-auto=update), arranque-rapido, y arranque-rapido+cds con un
+ * archivo CDS entrenado igual que en el perfil cds, pero con el classpath de la medición (jar y H2),
+ * ya que el archivo solo se usa si el classpath coincide con el del entrenamiento.
+ *
+ * Ejecutar con: ./mvnw -P cds,carga verify -DskipTests -Dcarga.principal=com.SAFE_Rescue.API_Ciudadano.carga.MedicionArranque
+ * Claves de -Dcarga.args: repeticiones, ciudadanos, arranque (directorio del jar extraído), reporte
+ */
+public class MedicionArranque {
+
+    private static final String BASE = "/api-ciudadano/v1";
+    private static final Duration ESPERA_MAXIMA = Duration.ofMinutes(2);
+    private static final Pattern INICIO_CONTEXTO = Pattern.compile("Started \\S+ in ([0-9.]+) seconds");
+
+    private static final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private int repeticiones = 5;
+    private int ciudadanos = 10_000;
+    private Path arranque = Path.of("target", "arranque");
+    private Path reporte = Path.of("target", "carga", "arranque.json");
+
+    private Path jar;
+    private Path trabajo;
+    private String urlBaseDatos;
+
+    public static void main(String[] args) throws Exception {
+        MedicionArranque medicion = desde(args);
+        medicion.preparar();
+
+        Map<String, Object> variantes = new LinkedHashMap<>();
+        variantes.put("base", medicion.medir("base", List.of(), List.of()));
+        variantes.put("arranque-rapido", medicion.medir("arranque-rapido", List.of(),
+                List.of("--spring.profiles.active=arranque-rapido")));
+        Path archivoCds = medicion.entrenarCds();
+        variantes.put("arranque-rapido+cds", medicion.medir("arranque-rapido+cds",
+                List.of("-XX:SharedArchiveFile=" + archivoCds, "-Xshare:auto"),
+                List.of("--spring.profiles.active=arranque-rapido")));
+
+        Map<String, Object> configuracion = new LinkedHashMap<>();
+        configuracion.put("repeticiones", medicion.repeticiones);
+        configuracion.put("ciudadanos", medicion.ciudadanos);
+        configuracion.put("jar", medicion.jar.toString());
+
+        Map<String, Object> reporte = new LinkedHashMap<>();
+        reporte.put("configuracion", configuracion);
+        reporte.put("java", Runtime.version().toString());
+        reporte.put("procesadores", Runtime.getRuntime().availableProcessors());
+        reporte.put("variantes", variantes);
+        reporte.put("comparacion", comparar(variantes));
+
+        Files.createDirectories(medicion.reporte.toAbsolutePath().getParent());
+        mapper.writeValue(medicion.reporte.toFile(), reporte);
+        System.out.println(mapper.writeValueAsString(reporte.get("comparacion")));
+        System.out.println("Reporte escrito en " + medicion.reporte.toAbsolutePath());
+        System.exit(0);
+    }
+
+    /**
+     * Lee la configuración desde argumentos clave=valor
+     * @throws IllegalArgumentException Si una clave no existe o su valor no es válido
+     */
+    private static MedicionArranque desde(String[] args) {
+        MedicionArranque medicion = new MedicionArranque();
+        for (String arg : args) {
+            if (arg.isBlank()) {
+                continue;
+            }
+            int separador = arg.indexOf('=');
+            if (separador < 0) {
+                throw new IllegalArgumentException("Argumento sin valor: " + arg);
+            }
+            String clave = arg.substring(0, separador);
+            String valor = arg.substring(separador + 1);
+            switch (clave) {
+                case "repeticiones" -> medicion.repeticiones = Integer.parseInt(valor);
+                case "ciudadanos" -> medicion.ciudadanos = Integer.parseInt(valor);
+                case "arranque" -> medicion.arranque = Path.of(valor);
+                case "reporte" -> medicion.reporte = Path.of(valor);
+                default -> throw new IllegalArgumentException("Clave desconocida: " + clave);
+            }
+        }
+        if (medicion.repeticiones < 1 || medicion.ciudadanos < 0) {
+            throw new IllegalArgumentException("repeticiones debe ser mayor que cero y ciudadanos no puede ser negativo");
+        }
+        return medicion;
+    }
+
+    /**
+     * Ubica el jar extraído y crea la base de datos de la medición con las migraciones y los ciudadanos iniciales
+     */
+    private void preparar() throws IOException, SQLException {
+        String nombreJar = ApiCiudadanoApplication.class.getSimpleName();
+        try (var archivos = Files.list(arranque.toAbsolutePath())) {
+            jar = archivos.filter(archivo -> archivo.getFileName().toString().endsWith(".jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No hay un jar extraído en " + arranque.toAbsolutePath()
+                            + "; generarlo con ./mvnw -P cds package -DskipTests (" + nombreJar + ")"));
+        }
+        trabajo = reporte.toAbsolutePath().getParent().resolve("arranque");
+        Files.createDirectories(trabajo);
+        urlBaseDatos = "jdbc:h2:file:" + trabajo.resolve("db_SAFE_RESCUE") + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE";
+
+        long inicio = System.nanoTime();
+        try (Connection conexion = DriverManager.getConnection(urlBaseDatos, "sa", "");
+             Statement sentencia = conexion.createStatement()) {
+            sentencia.execute("drop all objects");
+            for (Resource migracion : migraciones()) {
+                sentencia.execute("runscript from 'classpath:db/migration/" + migracion.getFilename() + "'");
+            }
+            cargarCiudadanos(conexion);
+        }
+        System.out.printf("Base de datos con %d ciudadanos creada en %d ms%n",
+                ciudadanos, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * Obtiene las migraciones V&lt;n&gt;__&lt;descripcion&gt;.sql en el orden de su versión
+     */
+    private static List<Resource> migraciones() throws IOException {
+        return Arrays.stream(new PathMatchingResourcePatternResolver().getResources("classpath:db/migration/V*__*.sql"))
+                .sorted(Comparator.comparingInt(migracion -> Integer.parseInt(
+                        migracion.getFilename().substring(1, migracion.getFilename().indexOf("__")))))
+                .toList();
+    }
+
+    /**
+     * Inserta los ciudadanos iniciales con sus credenciales y ajusta la tabla de secuencias
+     */
+    private void cargarCiudadanos(Connection conexion) throws SQLException {
+        conexion.setAutoCommit(false);
+        Timestamp ahora = new Timestamp(System.currentTimeMillis());
+        try (PreparedStatement credencial = conexion.prepareStatement(
+                "insert into credencial_ciudadana (id, version, correo, contrasenia, intentos_fallidos, activo) values (?, 0, ?, ?, 0, true)");
+             PreparedStatement ciudadano = conexion.prepareStatement(
+                     "insert into ciudadano (id, version, run, dv, nombre, a_paterno, a_materno, fecha_registro, telefono, credenciales_id) " +
+                             "values (?, 0, ?, 'k', 'Nombre', 'Paterno', 'Materno', ?, ?, ?)")) {
+            for (int i = 1; i <= ciudadanos; i++) {
+                credencial.setInt(1, i);
+                credencial.setString(2, ArnesCarga.correo(i));
+                credencial.setString(3, ArnesCarga.contrasenia(i));
+                credencial.addBatch();
+                ciudadano.setInt(1, i);
+                ciudadano.setLong(2, ArnesCarga.RUN_INICIALES + i);
+                ciudadano.setTimestamp(3, ahora);
+                ciudadano.setLong(4, ArnesCarga.TELEFONO_INICIALES + i);
+                ciudadano.setInt(5, i);
+                ciudadano.addBatch();
+                if (i % 1_000 == 0 || i == ciudadanos) {
+                    credencial.executeBatch();
+                    ciudadano.executeBatch();
+                }
+            }
+        }
+        conexion.commit();
+    }
+
+    /**
+     * Genera el archivo CDS de la medición con una ejecución de entrenamiento que termina al refrescar el contexto
+     * @return Ruta del archivo CDS
+     */
+    private Path entrenarCds() throws IOException, InterruptedException {
+        Path archivo = trabajo.resolve("medicion.jsa");
+        Files.deleteIfExists(archivo);
+        Process proceso = iniciar("entrenamiento-cds",
+                List.of("-XX:ArchiveClassesAtExit=" + archivo, "-Xlog:cds=error", "-Dspring.context.exit=onRefresh"),
+                List.of("--spring.profiles.active=arranque-rapido"), puertoLibre());
+        if (!proceso.waitFor(ESPERA_MAXIMA.toMillis(), TimeUnit.MILLISECONDS) || !Files.exists(archivo)) {
+            proceso.destroyForcibly();
+            throw new IllegalStateException("El entrenamiento CDS no generó " + archivo + "; ver " + log("entrenamiento-cds"));
+        }
+        return archivo;
+    }
+
+    /**
+     * Inicia la aplicación las veces configuradas y mide el tiempo hasta la primera solicitud de cada inicio
+     * @param variante Nombre de la variante, usado en los registros de cada inicio
+     * @param argumentosJvm Argumentos de la JVM propios de la variante
+     * @param argumentosAplicacion Argumentos de la aplicación propios de la variante
+     * @return Tiempos de cada inicio y su resumen
+     */
+    private Map<String, Object> medir(String variante, List<String> argumentosJvm, List<String> argumentosAplicacion)
+            throws IOException, InterruptedException {
+        List<Double> primeraSolicitud = new ArrayList<>();
+        List<Double> contexto = new ArrayList<>();
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(1))
+                .build();
+
+        for (int repeticion = 1; repeticion <= repeticiones; repeticion++) {
+            String nombre = variante + "-" + repeticion;
+            int puerto = puertoLibre();
+            HttpRequest solicitud = HttpRequest.newBuilder(URI.create("http://localhost:" + puerto + BASE + "/ciudadanos"))
+                    .GET()
+                    .build();
+
+            long inicio = System.nanoTime();
+            Process proceso = iniciar(nombre, argumentosJvm, argumentosAplicacion, puerto);
+            try {
+                esperarPrimeraSolicitud(http, solicitud, proceso, nombre);
+                primeraSolicitud.add((System.nanoTime() - inicio) / 1_000_000.0);
+            } finally {
+                proceso.destroy();
+                if (!proceso.waitFor(30, TimeUnit.SECONDS)) {
+                    proceso.destroyForcibly().waitFor();
+                }
+            }
+            Matcher inicioContexto = INICIO_CONTEXTO.matcher(Files.readString(log(nombre)));
+            if (inicioContexto.find()) {
+                contexto.add(Double.parseDouble(inicioContexto.group(1)) * 1000);
+            }
+            System.out.printf("%s: primera solicitud en %.0f ms%n", nombre, primeraSolicitud.getLast());
+        }
+
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("primeraSolicitudMs", resumen(primeraSolicitud));
+        resultado.put("inicioContextoMs", resumen(contexto));
+        return resultado;
+    }
+
+    /**
+     * Lanza la aplicación en un proceso nuevo con la base de datos de la medición y su salida en un registro
+     */
+    private Process iniciar(String nombre, List<String> argumentosJvm, List<String> argumentosAplicacion, int puerto)
+            throws IOException {
+        String h2;
+        try {
+            h2 = Path.of(org.h2.Driver.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+        } catch (Exception e) {
+            throw new IllegalStateException("No se encontró el jar de H2", e);
+        }
+
+        List<String> comando = new ArrayList<>();
+        comando.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        comando.add("-Xmx512m");
+        comando.addAll(argumentosJvm);
+        comando.add("-cp");
+        comando.add(jar + java.io.File.pathSeparator + h2);
+        comando.add(ApiCiudadanoApplication.class.getName());
+        comando.add("--spring.datasource.url=" + urlBaseDatos);
+        comando.add("--spring.datasource.username=sa");
+        comando.add("--spring.datasource.password=");
+        comando.add("--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect");
+        comando.add("--spring.jpa.show-sql=false");
+        comando.add("--server.port=" + puerto);
+        comando.add("--logging.level.root=WARN");
+        comando.add("--logging.level." + ApiCiudadanoApplication.class.getName() + "=INFO");
+        comando.addAll(argumentosAplicacion);
+
+        return new ProcessBuilder(comando)
+                .redirectErrorStream(true)
+                .redirectOutput(log(nombre).toFile())
+                .start();
+    }
+
+    /**
+     * Envía la solicitud hasta que la aplicación responde 200
+     * @throws IllegalStateException Si el proceso termina, responde con error o no responde a tiempo
+     */
+    private void esperarPrimeraSolicitud(HttpClient http, HttpRequest solicitud, Process proceso, String nombre)
+            throws IOException, InterruptedException {
+        long limite = System.nanoTime() + ESPERA_MAXIMA.toNanos();
+        while (System.nanoTime() < limite) {
+            if (!proceso.isAlive()) {
+                throw new IllegalStateException("La aplicación terminó antes de responder; ver " + log(nombre));
+            }
+            try {
+                HttpResponse<Void> respuesta = http.send(solicitud, HttpResponse.BodyHandlers.discarding());
+                if (respuesta.statusCode() != 200) {
+                    throw new IllegalStateException("La primera solicitud respondió " + respuesta.statusCode()
+                            + "; ver " + log(nombre));
+                }
+                return;
+            } catch (ConnectException e) {
+                Thread.sleep(5);
+            }
+        }
+        throw new IllegalStateException("La aplicación no respondió en " + ESPERA_MAXIMA.toSeconds() + " s; ver " + log(nombre));
+    }
+
+    private Path log(String nombre) {
+        return trabajo.resolve(nombre + ".log");
+    }
+
+    private static int puertoLibre() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Resume tiempos en milisegundos como mínimo, mediana y máximo, junto a cada valor medido
+     */
+    private static Map<String, Object> resumen(List<Double> tiempos) {
+        List<Double> ordenados = tiempos.stream().sorted().toList();
+        Map<String, Object> resumen = new LinkedHashMap<>();
+        if (!ordenados.isEmpty()) {
+            resumen.put("min", ordenados.getFirst());
+            resumen.put("mediana", ordenados.get(ordenados.size() / 2));
+            resumen.put("max", ordenados.getLast());
+        }
+        resumen.put("valores", tiempos);
+        return resumen;
+    }
+
+    /**
+     * Compara la mediana del tiempo hasta la primera solicitud de cada variante contra la variante base
+     * @return Mediana de cada variante y su razón respecto de la base
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> comparar(Map<String, Object> variantes) {
+        String referencia = variantes.keySet().iterator().next();
+        double medianaReferencia = mediana((Map<String, Object>) variantes.get(referencia));
+
+        Map<String, Object> comparacion = new LinkedHashMap<>();
+        comparacion.put("referencia", referencia);
+        variantes.forEach((variante, resultado) -> {
+            double mediana = mediana((Map<String, Object>) resultado);
+            comparacion.put(variante + " primeraSolicitudMs", mediana);
+            if (!variante.equals(referencia)) {
+                comparacion.put(variante + "/" + referencia, mediana / medianaReferencia);
+            }
+        });
+        return comparacion;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static double mediana(Map<String, Object> resultado) {
+        return ((Number) ((Map<String, Object>) resultado.get("primeraSolicitudMs")).get("mediana")).doubleValue();
+    }
+
+}
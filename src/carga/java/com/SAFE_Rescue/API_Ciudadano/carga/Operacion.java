@@ -0,0 +1,33 @@
+package com.SAFE_Rescue.API_Ciudadano.carga;
+
+import java.util.Locale;
+
+/**
+ * Operaciones que envían los clientes de la prueba de carga
+ */
+public enum Operacion {
+
+    /** POST /credenciales/login con una credencial existente */
+    LOGIN,
+
+    /** GET /ciudadanos/{id} de un ciudadano existente */
+    OBTENER,
+
+    /** POST /ciudadanos con un ciudadano y una credencial nuevos */
+    CREAR,
+
+    /** PUT /ciudadanos/{id} cambiando el nombre de un ciudadano existente */
+    ACTUALIZAR;
+
+    /**
+     * Nombre de la operación en la configuración y en el reporte
+     */
+    public String nombre() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    static Operacion desde(String nombre) {
+        return valueOf(nombre.toUpperCase(Locale.ROOT));
+    }
+
+}
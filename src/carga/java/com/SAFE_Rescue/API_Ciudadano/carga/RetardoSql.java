@@ -0,0 +1,76 @@
+package com.SAFE_Rescue.API_Ciudadano.carga;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Agrega una espera fija a cada ejecución de sentencia SQL, para simular el tiempo de
+ * ida y vuelta a un MySQL remoto con H2 en memoria. La conexión queda ocupada durante
+ * la espera, igual que mientras se espera la respuesta de la base de datos.
+ * Sin esta espera H2 responde en microsegundos y las solicitudes no se bloquean en E/S,
+ * que es justamente lo que se quiere comparar entre hilos de plataforma y virtuales.
+ */
+class RetardoSql implements BeanPostProcessor {
+
+    private final long retardoNanos;
+
+    RetardoSql(Duration retardo) {
+        this.retardoNanos = retardo.toNanos();
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource dataSource)) {
+            return bean;
+        }
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return envolver(Connection.class, super.getConnection());
+            }
+
+            @Override
+            public Connection getConnection(String usuario, String clave) throws SQLException {
+                return envolver(Connection.class, super.getConnection(usuario, clave));
+            }
+        };
+    }
+
+    /**
+     * Envuelve un objeto JDBC: las sentencias creadas por una conexión también se envuelven
+     * y cada método execute* espera el retardo antes de ejecutarse
+     */
+    private <T> T envolver(Class<T> tipo, T objetivo) {
+        return tipo.cast(Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, (proxy, metodo, args) -> {
+            if (metodo.getName().startsWith("execute")) {
+                Thread.sleep(Duration.ofNanos(retardoNanos));
+            }
+            Object resultado;
+            try {
+                resultado = metodo.invoke(objetivo, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            return envolverSentencia(metodo, resultado);
+        }));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object envolverSentencia(Method metodo, Object resultado) {
+        Class<?> tipo = metodo.getReturnType();
+        if (resultado != null && tipo.isInterface() && Statement.class.isAssignableFrom(tipo)) {
+            return envolver((Class<Object>) tipo, resultado);
+        }
+        return resultado;
+    }
+
+}
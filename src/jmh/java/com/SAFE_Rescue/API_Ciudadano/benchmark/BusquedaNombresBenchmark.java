@@ -0,0 +1,91 @@
+package com.SAFE_Rescue.API_Ciudadano.benchmark;
+
+import com.SAFE_Rescue.API_Ciudadano.modelo.Ciudadano;
+import com.SAFE_Rescue.API_Ciudadano.service.IndiceNombres;
+import com.SAFE_Rescue.API_Ciudadano.util.IndiceTrigramas;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark de la búsqueda por nombre sobre el índice de trigramas.
+ * Los nombres se generan combinando nombres y apellidos frecuentes, con una semilla fija,
+ * y las búsquedas mezclan nombres completos, palabras sin tilde, errores de tipeo y palabras incompletas.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class BusquedaNombresBenchmark {
+
+    private static final String[] NOMBRES = {"María", "José", "Juan", "Francisca", "Ignacio", "Sofía",
+            "Benjamín", "Valentina", "Matías", "Catalina", "Tomás", "Constanza", "Agustín", "Javiera",
+            "Vicente", "Fernanda", "Cristóbal", "Antonia", "Martín", "Isidora", "Joaquín", "Florencia",
+            "Sebastián", "Camila", "Nicolás", "Daniela", "Felipe", "Josefa", "Diego", "Trinidad"};
+
+    private static final String[] APELLIDOS = {"González", "Muñoz", "Rojas", "Díaz", "Pérez", "Soto",
+            "Contreras", "Silva", "Martínez", "Sepúlveda", "Morales", "Rodríguez", "López", "Fuentes",
+            "Hernández", "Torres", "Araya", "Flores", "Espinoza", "Valenzuela", "Castillo", "Tapia",
+            "Reyes", "Gutiérrez", "Castro", "Pizarro", "Álvarez", "Vásquez", "Sánchez", "Fernández",
+            "Ramírez", "Carrasco", "Gómez", "Cortés", "Herrera", "Núñez", "Jara", "Vergara", "Rivera",
+            "Figueroa", "Riquelme", "García", "Miranda", "Bravo", "Vera", "Molina", "Vega", "Campos",
+            "Sandoval", "Orellana", "Zúñiga", "Olivares", "Alarcón", "Gallardo", "Ortiz", "Garrido",
+            "Salazar", "Guzmán", "Henríquez", "Saavedra", "Navarro", "Aguilera", "Parra", "Romero",
+            "Aravena", "Vargas", "Vázquez", "Cáceres", "Yáñez", "Leiva", "Escobar", "Ruiz", "Valdés",
+            "Vidal", "Salinas", "Zapata", "Palma", "Lagos", "Cárdenas", "Ibarra", "Peña", "Poblete"};
+
+    private static final String[] BUSQUEDAS = {"maria gonzalez munoz", "JOSÉ PÉREZ", "benjamin sepulbeda",
+            "valentina", "catal rodri", "cristobal alvares", "isidora hernandes vasques", "fuentes tapia",
+            "joaq", "camila riquelme zuniga"};
+
+    @Param({"1000000"})
+    public int registros;
+
+    @Param({"20"})
+    public int limite;
+
+    private IndiceNombres indiceNombres;
+    private int siguiente;
+
+    @Setup
+    public void preparar() {
+        indiceNombres = new IndiceNombres();
+        ReflectionTestUtils.setField(indiceNombres, "capacidadInicial", registros);
+        ReflectionTestUtils.setField(indiceNombres, "similitudMinima", 0.5);
+        ReflectionTestUtils.invokeMethod(indiceNombres, "iniciar");
+
+        Random random = new Random(42);
+        Ciudadano ciudadano = new Ciudadano();
+        for (int i = 1; i <= registros; i++) {
+            ciudadano.setId(i);
+            ciudadano.setNombre(random.nextInt(4) == 0
+                    ? NOMBRES[random.nextInt(NOMBRES.length)] + ' ' + NOMBRES[random.nextInt(NOMBRES.length)]
+                    : NOMBRES[random.nextInt(NOMBRES.length)]);
+            ciudadano.setAPaterno(APELLIDOS[random.nextInt(APELLIDOS.length)]);
+            ciudadano.setAMaterno(APELLIDOS[random.nextInt(APELLIDOS.length)]);
+            indiceNombres.registrar(ciudadano);
+        }
+        ReflectionTestUtils.setField(indiceNombres, "listo", true);
+    }
+
+    @Benchmark
+    public List<IndiceTrigramas.Coincidencia> buscar() {
+        return indiceNombres.buscar(BUSQUEDAS[siguiente++ % BUSQUEDAS.length], limite);
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.SAFE_Rescue.API_Ciudadano.benchmark;
+
+import com.SAFE_Rescue.API_Ciudadano.modelo.Ciudadano;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de CiudadanoService con repositorios en memoria:
+ * validación de un ciudadano nuevo, la mezcla de campos de update,
+ * la serialización JSON de un ciudadano con su credencial (con Blackbird, como la aplicación,
+ * y con el acceso por reflexión de Jackson) y su lectura desde el cache de JSON
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CiudadanoServiceBenchmark {
+
+    private static final int CANDIDATOS = 1024;
+
+    @Param({"10000"})
+    public int ciudadanosExistentes;
+
+    private EntornoServicios entorno;
+    private Ciudadano[] nuevos;
+    private Ciudadano[] cambios;
+    private Ciudadano existente;
+    private String etagExistente;
+    private ObjectMapper objectMapperReflexion;
+    private int siguiente;
+
+    @Setup
+    public void preparar() {
+        entorno = new EntornoServicios(ciudadanosExistentes);
+
+        // Valores fuera de los registrados, para medir el camino de un registro válido
+        nuevos = new Ciudadano[CANDIDATOS];
+        for (int i = 0; i < CANDIDATOS; i++) {
+            int n = ciudadanosExistentes + 1 + i;
+            nuevos[i] = EntornoServicios.ciudadano(0, EntornoServicios.RUN_BASE + n,
+                    EntornoServicios.TELEFONO_BASE + n, "nuevo" + n + "@correo.cl");
+        }
+
+        // Cambios parciales que alternan el telefono entre dos valores libres
+        cambios = new Ciudadano[2];
+        for (int i = 0; i < cambios.length; i++) {
+            Ciudadano cambio = new Ciudadano();
+            cambio.setNombre("Nombre actualizado " + i);
+            cambio.setAPaterno("Paterno " + i);
+            cambio.setDv(i == 0 ? "k" : "1");
+            cambio.setTelefono(EntornoServicios.TELEFONO_BASE - 1 - i);
+            cambios[i] = cambio;
+        }
+
+        existente = entorno.repositorios.ciudadanoRepository().findById(1L).orElseThrow();
+        etagExistente = existente.getVersion() + "-" + existente.getCredencial().getVersion();
+        objectMapperReflexion = Jackson2ObjectMapperBuilder.json().build();
+        try {
+            entorno.ciudadanoService.findJsonByID(1L);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Cada update vuelve a indexar el nombre del ciudadano: como la revisión periódica de la aplicación,
+     * se compacta el índice de nombres entre iteraciones para que no crezca durante toda la medición
+     */
+    @Setup(Level.Iteration)
+    public void revisarIndiceNombres() {
+        entorno.indiceNombres.revisarEliminados();
+    }
+
+    @Benchmark
+    public Ciudadano validarCiudadano() {
+        Ciudadano ciudadano = nuevos[siguiente++ & (CANDIDATOS - 1)];
+        entorno.ciudadanoService.validarCiudadano(ciudadano);
+        return ciudadano;
+    }
+
+    @Benchmark
+    public Ciudadano update() {
+        return entorno.ciudadanoService.update(cambios[siguiente++ & 1], 1L);
+    }
+
+    @Benchmark
+    public byte[] serializarCiudadano() throws JsonProcessingException {
+        return entorno.objectMapper.writeValueAsBytes(existente);
+    }
+
+    @Benchmark
+    public byte[] serializarCiudadanoReflexion() throws JsonProcessingException {
+        return objectMapperReflexion.writeValueAsBytes(existente);
+    }
+
+    @Benchmark
+    public byte[] findJsonCacheado() {
+        return entorno.ciudadanoService.findJsonCacheado(1L, etagExistente);
+    }
+
+}
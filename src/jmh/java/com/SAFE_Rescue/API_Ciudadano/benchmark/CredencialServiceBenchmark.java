@@ -0,0 +1,78 @@
+package com.SAFE_Rescue.API_Ciudadano.benchmark;
+
+import com.SAFE_Rescue.API_Ciudadano.modelo.Credencial;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de CredencialService con repositorios en memoria:
+ * validación de campos de una credencial y verificación de un inicio de sesión
+ * correcto sobre una credencial ya presente en el cache.
+ * La verificación incluye el hash BCrypt en el ejecutor dedicado, por lo que su
+ * tiempo depende del costo; con -p costo=4,8,10,12 se comparan varios costos
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CredencialServiceBenchmark {
+
+    private static final int CUENTAS = 1024;
+
+    @Param({"10000"})
+    public int ciudadanosExistentes;
+
+    @Param({"10"})
+    public int costo;
+
+    private EntornoServicios entorno;
+    private Credencial credencial;
+    private String[] correos;
+    private String[] contrasenias;
+    private int siguiente;
+
+    @Setup
+    public void preparar() {
+        entorno = new EntornoServicios(ciudadanosExistentes, costo);
+        credencial = EntornoServicios.ciudadano(0, 1, 1, "nuevo@correo.cl").getCredencial();
+
+        // Un único hash para todas las cuentas medidas: codificar cada una tomaría minutos con costo alto
+        String hash = entorno.hashContrasenias.codificarEnHiloActual("clave");
+        correos = new String[CUENTAS];
+        contrasenias = new String[CUENTAS];
+        for (int i = 0; i < CUENTAS; i++) {
+            int id = i + 1;
+            correos[i] = "ciudadano" + id + "@correo.cl";
+            contrasenias[i] = "clave";
+            entorno.repositorios.credencialRepository().findByCorreo(correos[i]).setContrasenia(hash);
+            entorno.credencialService.verificarCredenciales(correos[i], contrasenias[i]);
+        }
+    }
+
+    @Benchmark
+    public Credencial validarCredencial() {
+        entorno.credencialService.validarCredencial(credencial);
+        return credencial;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public boolean verificarCredenciales() {
+        int i = siguiente++ & (CUENTAS - 1);
+        return entorno.credencialService.verificarCredenciales(correos[i], contrasenias[i]);
+    }
+
+}
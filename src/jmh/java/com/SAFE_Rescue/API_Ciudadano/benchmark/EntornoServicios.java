@@ -0,0 +1,151 @@
+package com.SAFE_Rescue.API_Ciudadano.benchmark;
+
+import com.SAFE_Rescue.API_Ciudadano.modelo.Ciudadano;
+import com.SAFE_Rescue.API_Ciudadano.modelo.Credencial;
+import com.SAFE_Rescue.API_Ciudadano.service.CacheCredenciales;
+import com.SAFE_Rescue.API_Ciudadano.service.CacheJsonCiudadanos;
+import com.SAFE_Rescue.API_Ciudadano.service.CiudadanoService;
+import com.SAFE_Rescue.API_Ciudadano.service.CredencialService;
+import com.SAFE_Rescue.API_Ciudadano.service.HashContrasenias;
+import com.SAFE_Rescue.API_Ciudadano.service.IndiceNombres;
+import com.SAFE_Rescue.API_Ciudadano.service.IndiceUnicidad;
+import com.SAFE_Rescue.API_Ciudadano.service.RegistroCambios;
+import com.SAFE_Rescue.API_Ciudadano.service.RegistroIntentosFallidos;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Date;
+
+/**
+ * Arma los servicios sin contexto de Spring, inyectando repositorios en memoria.
+ * Las dependencias se asignan por reflexión del mismo modo que lo hace @Autowired,
+ * y la configuración replica los valores por defecto de application.properties.
+ * El registro de cambios no guarda eventos: sin transacción ni base de datos no hay una tabla de
+ * salida donde insertarlos, y su costo real es el del lote JDBC al confirmar.
+ */
+public class EntornoServicios {
+
+    public static final long RUN_BASE = 10_000_000L;
+    public static final long TELEFONO_BASE = 900_000_000L;
+
+    final RepositoriosEnMemoria repositorios = new RepositoriosEnMemoria();
+    final IndiceUnicidad indiceUnicidad = new IndiceUnicidad();
+    final IndiceNombres indiceNombres = new IndiceNombres();
+    final CacheCredenciales cacheCredenciales = new CacheCredenciales();
+    final CacheJsonCiudadanos cacheJsonCiudadanos = new CacheJsonCiudadanos();
+    final HashContrasenias hashContrasenias = new HashContrasenias();
+    final RegistroIntentosFallidos registroIntentosFallidos = new RegistroIntentosFallidos();
+    final RegistroCambios registroCambios = new RegistroCambios() {
+        @Override
+        public void ciudadano(String operacion, Ciudadano ciudadano) {
+        }
+
+        @Override
+        public void credencial(String operacion, Credencial credencial) {
+        }
+    };
+    final CredencialService credencialService = new CredencialService();
+    final CiudadanoService ciudadanoService = new CiudadanoService();
+    final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().modulesToInstall(new BlackbirdModule()).build();
+
+    /**
+     * Crea el entorno con una cantidad de ciudadanos ya registrados y el costo de hash por defecto
+     * @param ciudadanosExistentes Ciudadanos cargados en los repositorios y en el índice
+     */
+    EntornoServicios(int ciudadanosExistentes) {
+        this(ciudadanosExistentes, 10);
+    }
+
+    /**
+     * Crea el entorno con una cantidad de ciudadanos ya registrados
+     * @param ciudadanosExistentes Ciudadanos cargados en los repositorios y en el índice
+     * @param costoHash Factor de trabajo de BCrypt
+     */
+    EntornoServicios(int ciudadanosExistentes, int costoHash) {
+        ReflectionTestUtils.setField(indiceUnicidad, "capacidadInicial", 100_000);
+        ReflectionTestUtils.setField(indiceUnicidad, "tasaFalsosPositivos", 0.01);
+        ReflectionTestUtils.invokeMethod(indiceUnicidad, "iniciar");
+
+        ReflectionTestUtils.setField(indiceNombres, "capacidadInicial", Math.max(ciudadanosExistentes, 1));
+        ReflectionTestUtils.setField(indiceNombres, "similitudMinima", 0.5);
+        ReflectionTestUtils.invokeMethod(indiceNombres, "iniciar");
+
+        ReflectionTestUtils.setField(cacheCredenciales, "tamanioMaximo", 10_000L);
+        ReflectionTestUtils.setField(cacheCredenciales, "ttl", Duration.ofMinutes(5));
+        ReflectionTestUtils.invokeMethod(cacheCredenciales, "iniciar");
+
+        ReflectionTestUtils.setField(cacheJsonCiudadanos, "habilitado", true);
+        ReflectionTestUtils.setField(cacheJsonCiudadanos, "tamanioMaximo", DataSize.ofMegabytes(64));
+        ReflectionTestUtils.invokeMethod(cacheJsonCiudadanos, "iniciar");
+
+        ReflectionTestUtils.setField(hashContrasenias, "costo", costoHash);
+        ReflectionTestUtils.setField(hashContrasenias, "hilos", 0);
+        ReflectionTestUtils.setField(hashContrasenias, "cola", 64);
+        ReflectionTestUtils.invokeMethod(hashContrasenias, "iniciar");
+
+        ReflectionTestUtils.setField(registroIntentosFallidos, "cacheCredenciales", cacheCredenciales);
+        ReflectionTestUtils.setField(registroIntentosFallidos, "intentosMaximos", 5);
+        ReflectionTestUtils.setField(registroIntentosFallidos, "duracionBloqueo", Duration.ofMinutes(15));
+
+        ReflectionTestUtils.setField(credencialService, "credencialRepository", repositorios.credencialRepository());
+        ReflectionTestUtils.setField(credencialService, "cacheCredenciales", cacheCredenciales);
+        ReflectionTestUtils.setField(credencialService, "registroIntentosFallidos", registroIntentosFallidos);
+        ReflectionTestUtils.setField(credencialService, "indiceUnicidad", indiceUnicidad);
+        ReflectionTestUtils.setField(credencialService, "hashContrasenias", hashContrasenias);
+        ReflectionTestUtils.setField(credencialService, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(credencialService, "registroCambios", registroCambios);
+
+        ReflectionTestUtils.setField(ciudadanoService, "ciudadanoRepository", repositorios.ciudadanoRepository());
+        ReflectionTestUtils.setField(ciudadanoService, "credencialRepository", repositorios.credencialRepository());
+        ReflectionTestUtils.setField(ciudadanoService, "credencialService", credencialService);
+        ReflectionTestUtils.setField(ciudadanoService, "cacheCredenciales", cacheCredenciales);
+        ReflectionTestUtils.setField(ciudadanoService, "indiceUnicidad", indiceUnicidad);
+        ReflectionTestUtils.setField(ciudadanoService, "indiceNombres", indiceNombres);
+        ReflectionTestUtils.setField(ciudadanoService, "cacheJsonCiudadanos", cacheJsonCiudadanos);
+        ReflectionTestUtils.setField(ciudadanoService, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(ciudadanoService, "registroCambios", registroCambios);
+
+        for (int i = 1; i <= ciudadanosExistentes; i++) {
+            Ciudadano ciudadano = ciudadano(i, RUN_BASE + i, TELEFONO_BASE + i, "ciudadano" + i + "@correo.cl");
+            repositorios.agregar(ciudadano);
+            indiceUnicidad.registrarCiudadano(ciudadano);
+            indiceUnicidad.registrarCorreo(ciudadano.getCredencial().getCorreo());
+            indiceNombres.registrar(ciudadano);
+        }
+        ReflectionTestUtils.setField(indiceUnicidad, "listo", true);
+        ReflectionTestUtils.setField(indiceNombres, "listo", true);
+    }
+
+    /**
+     * Crea un ciudadano válido con su credencial
+     * @param id ID del ciudadano y de su credencial (0 para uno nuevo)
+     * @param run RUN del ciudadano
+     * @param telefono Telefono del ciudadano
+     * @param correo Correo de la credencial
+     * @return Ciudadano con todos los campos completos
+     */
+    static Ciudadano ciudadano(int id, long run, long telefono, String correo) {
+        Credencial credencial = new Credencial();
+        credencial.setId(id);
+        credencial.setCorreo(correo);
+        credencial.setContrasenia("clave" + id);
+        credencial.setActivo(true);
+
+        Ciudadano ciudadano = new Ciudadano();
+        ciudadano.setId(id);
+        ciudadano.setRun(run);
+        ciudadano.setDv("k");
+        ciudadano.setNombre("Nombre " + id);
+        ciudadano.setAPaterno("Paterno");
+        ciudadano.setAMaterno("Materno");
+        ciudadano.setFechaRegistro(new Date(1_700_000_000_000L));
+        ciudadano.setTelefono(telefono);
+        ciudadano.setCredencial(credencial);
+        return ciudadano;
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.SAFE_Rescue.API_Ciudadano.benchmark;
+
+import com.SAFE_Rescue.API_Ciudadano.modelo.Ciudadano;
+import com.SAFE_Rescue.API_Ciudadano.modelo.Credencial;
+import com.SAFE_Rescue.API_Ciudadano.repository.CiudadanoRepository;
+import com.SAFE_Rescue.API_Ciudadano.repository.CredencialRepository;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Repositorios respaldados por mapas en memoria para los benchmarks.
+ * Implementan solo los métodos que usan los servicios medidos, de modo que los
+ * resultados reflejen el costo de CPU y de asignación de memoria sin base de datos.
+ * Cualquier otro método lanza UnsupportedOperationException.
+ */
+public class RepositoriosEnMemoria {
+
+    private final Map<Long, Ciudadano> ciudadanos = new HashMap<>();
+    private final Map<Long, Ciudadano> ciudadanosPorRun = new HashMap<>();
+    private final Map<Long, Ciudadano> ciudadanosPorTelefono = new HashMap<>();
+    private final Map<String, Credencial> credencialesPorCorreo = new HashMap<>();
+    private final Map<Long, long[]> clavesPorId = new HashMap<>();
+
+    private final CiudadanoRepository ciudadanoRepository =
+            crear(CiudadanoRepository.class, this::invocarCiudadano);
+    private final CredencialRepository credencialRepository =
+            crear(CredencialRepository.class, this::invocarCredencial);
+
+    public CiudadanoRepository ciudadanoRepository() {
+        return ciudadanoRepository;
+    }
+
+    public CredencialRepository credencialRepository() {
+        return credencialRepository;
+    }
+
+    /**
+     * Agrega o reemplaza un ciudadano y su credencial en los mapas
+     * @param ciudadano Ciudadano con ID y credencial asignados
+     */
+    public void agregar(Ciudadano ciudadano) {
+        long[] anteriores = clavesPorId.put((long) ciudadano.getId(),
+                new long[]{ciudadano.getRun(), ciudadano.getTelefono()});
+        if (anteriores != null) {
+            ciudadanosPorRun.remove(anteriores[0]);
+            ciudadanosPorTelefono.remove(anteriores[1]);
+        }
+        ciudadanos.put((long) ciudadano.getId(), ciudadano);
+        ciudadanosPorRun.put(ciudadano.getRun(), ciudadano);
+        ciudadanosPorTelefono.put(ciudadano.getTelefono(), ciudadano);
+        if (ciudadano.getCredencial() != null) {
+            credencialesPorCorreo.put(ciudadano.getCredencial().getCorreo(), ciudadano.getCredencial());
+        }
+    }
+
+    // MÉTODOS PRIVADOS
+
+    private Object invocarCiudadano(Method metodo, Object[] args) {
+        switch (metodo.getName()) {
+            case "findById":
+                return Optional.ofNullable(ciudadanos.get((Long) args[0]));
+            case "save":
+                agregar((Ciudadano) args[0]);
+                return args[0];
+            case "existsByRun":
+                return ciudadanosPorRun.containsKey((Long) args[0]);
+            case "existsByTelefono":
+                return ciudadanosPorTelefono.containsKey((Long) args[0]);
+            case "buscarConflictos":
+                return buscarConflictos((int) args[0], (Long) args[1], (Long) args[2],
+                        (String) args[3], (int) args[4]);
+            default:
+                throw new UnsupportedOperationException(metodo.getName());
+        }
+    }
+
+    private Object invocarCredencial(Method metodo, Object[] args) {
+        switch (metodo.getName()) {
+            case "findByCorreo":
+                return credencialesPorCorreo.get((String) args[0]);
+            case "existsByCorreo":
+                return credencialesPorCorreo.containsKey((String) args[0]);
+            case "existsByCorreoAndIdNot":
+                Credencial credencial = credencialesPorCorreo.get((String) args[0]);
+                return credencial != null && credencial.getId() != (int) args[1];
+            case "actualizarContrasenia":
+                return actualizarContrasenia((int) args[0], (String) args[1], (String) args[2]);
+            default:
+                throw new UnsupportedOperationException(metodo.getName());
+        }
+    }
+
+    private int actualizarContrasenia(int id, String anterior, String nueva) {
+        Ciudadano ciudadano = ciudadanos.get((long) id);
+        if (ciudadano == null || !anterior.equals(ciudadano.getCredencial().getContrasenia())) {
+            return 0;
+        }
+        ciudadano.getCredencial().setContrasenia(nueva);
+        return 1;
+    }
+
+    private List<String> buscarConflictos(int id, Long run, Long telefono, String correo, int credencialId) {
+        List<String> conflictos = new ArrayList<>(3);
+        Ciudadano porRun = run == null ? null : ciudadanosPorRun.get(run);
+        if (porRun != null && porRun.getId() != id) {
+            conflictos.add("run");
+        }
+        Ciudadano porTelefono = telefono == null ? null : ciudadanosPorTelefono.get(telefono);
+        if (porTelefono != null && porTelefono.getId() != id) {
+            conflictos.add("telefono");
+        }
+        Credencial porCorreo = correo == null ? null : credencialesPorCorreo.get(correo);
+        if (porCorreo != null && porCorreo.getId() != credencialId) {
+            conflictos.add("correo");
+        }
+        return conflictos;
+    }
+
+    /**
+     * Crea un proxy del repositorio que delega en el manejador indicado,
+     * resolviendo aparte los métodos de Object
+     */
+    private static <T> T crear(Class<T> tipo, Manejador manejador) {
+        InvocationHandler handler = (proxy, metodo, args) -> {
+            if (metodo.getDeclaringClass() == Object.class) {
+                switch (metodo.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return tipo.getSimpleName() + "EnMemoria";
+                }
+            }
+            return manejador.invocar(metodo, args);
+        };
+        return tipo.cast(Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, handler));
+    }
+
+    @FunctionalInterface
+    private interface Manejador {
+        Object invocar(Method metodo, Object[] args);
+    }
+
+}
@@ -2,8 +2,10 @@ package com.SAFE_Rescue.API_Ciudadano;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ApiCiudadanoApplication {
 
 	public static void main(String[] args) {
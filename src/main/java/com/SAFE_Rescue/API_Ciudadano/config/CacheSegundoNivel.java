@@ -0,0 +1,157 @@
+package com.SAFE_Rescue.API_Ciudadano.config;
+
+import com.SAFE_Rescue.API_Ciudadano.modelo.Ciudadano;
+import com.SAFE_Rescue.API_Ciudadano.modelo.Credencial;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Cache de segundo nivel de Hibernate sobre JCache, con Caffeine como implementación.
+ * Crea cada región con su propio tamaño máximo y duración, leídos de
+ * cache-segundo-nivel.&lt;region&gt;.tamanio-maximo y cache-segundo-nivel.&lt;region&gt;.ttl;
+ * una región sin esas propiedades usa 10000 entradas y 10 minutos. Una región que no está en
+ * {@link #REGIONES} hace fallar el inicio, porque Hibernate no puede crearla.
+ * Hibernate actualiza las regiones en cada escritura hecha con JPA, incluidas las
+ * consultas JPQL de actualización; las escrituras con JDBC directo deben desalojar
+ * las entidades que modifican.
+ */
+@Component
+public class CacheSegundoNivel implements HibernatePropertiesCustomizer, MeterBinder {
+
+    /**
+     * Regiones de entidades y de consultas, en el orden en que se publican sus métricas
+     */
+    private static final List<String> REGIONES = List.of(
+            Ciudadano.REGION_CACHE, Credencial.REGION_CACHE,
+            Credencial.REGION_CONSULTAS,
+            RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME);
+
+    private static final long TAMANIO_MAXIMO_DEFECTO = 10_000;
+    private static final Duration TTL_DEFECTO = Duration.ofMinutes(10);
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+    private CacheManager cacheManager;
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        // URI propia por contexto: varios contextos en la misma JVM (pruebas) no comparten regiones
+        cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("cache-segundo-nivel:" + UUID.randomUUID()), getClass().getClassLoader());
+
+        for (String region : REGIONES) {
+            CaffeineConfiguration<Object, Object> configuracion = new CaffeineConfiguration<>();
+            configuracion.setStoreByValue(false);
+            configuracion.setMaximumSize(OptionalLong.of(environment.getProperty(
+                    "cache-segundo-nivel." + region + ".tamanio-maximo", Long.class, TAMANIO_MAXIMO_DEFECTO)));
+            configuracion.setExpireAfterWrite(OptionalLong.of(environment.getProperty(
+                    "cache-segundo-nivel." + region + ".ttl", Duration.class, TTL_DEFECTO).toNanos()));
+            cacheManager.createCache(region, configuracion);
+        }
+
+        // Las marcas de tiempo de actualización por tabla no deben expirar antes que las consultas que validan
+        CaffeineConfiguration<Object, Object> marcas = new CaffeineConfiguration<>();
+        marcas.setStoreByValue(false);
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, marcas);
+
+        hibernateProperties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+        hibernateProperties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+    }
+
+    @PreDestroy
+    void cerrar() {
+        if (cacheManager != null) {
+            cacheManager.close();
+        }
+    }
+
+    /**
+     * Publica la tasa de aciertos de cada región como cache.segundo.nivel.tasa.aciertos
+     * con la etiqueta region; los aciertos y fallos absolutos los publica hibernate-micrometer
+     * en hibernate.second.level.cache.requests y hibernate.cache.query.requests
+     * @param registry Registro de métricas
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (String region : REGIONES) {
+            Gauge.builder("cache.segundo.nivel.tasa.aciertos", this, cache -> cache.tasaAciertos(region))
+                    .tag("region", region)
+                    .description("Aciertos sobre lecturas de la región del cache de segundo nivel")
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Obtiene los contadores de cada región
+     * @return Aciertos, fallos, escrituras y tasa de aciertos por región
+     */
+    public Map<String, Object> estadisticas() {
+        Map<String, Object> estadisticas = new LinkedHashMap<>();
+        for (String region : REGIONES) {
+            CacheRegionStatistics stats = estadisticasRegion(region);
+            Map<String, Object> contadores = new LinkedHashMap<>();
+            contadores.put("aciertos", stats == null ? 0 : stats.getHitCount());
+            contadores.put("fallos", stats == null ? 0 : stats.getMissCount());
+            contadores.put("escrituras", stats == null ? 0 : stats.getPutCount());
+            contadores.put("tasaAciertos", tasaAciertos(region));
+            estadisticas.put(region, contadores);
+        }
+        return estadisticas;
+    }
+
+    /**
+     * Calcula la tasa de aciertos de una región
+     * @param region Nombre de la región
+     * @return Aciertos sobre lecturas, 0 si aún no tiene lecturas
+     */
+    private double tasaAciertos(String region) {
+        CacheRegionStatistics stats = estadisticasRegion(region);
+        if (stats == null) {
+            return 0;
+        }
+        long lecturas = stats.getHitCount() + stats.getMissCount();
+        return lecturas == 0 ? 0 : (double) stats.getHitCount() / lecturas;
+    }
+
+    /**
+     * Obtiene las estadísticas de Hibernate de una región
+     * @param region Nombre de la región
+     * @return Estadísticas de la región, null si la fábrica de sesiones aún no existe
+     */
+    private CacheRegionStatistics estadisticasRegion(String region) {
+        EntityManagerFactory fabrica = entityManagerFactory.getIfAvailable();
+        if (fabrica == null || !fabrica.isOpen()) {
+            return null;
+        }
+        return fabrica.unwrap(SessionFactory.class).getStatistics().getCacheRegionStatistics(region);
+    }
+
+}
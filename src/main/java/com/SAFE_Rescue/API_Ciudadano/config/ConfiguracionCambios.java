@@ -0,0 +1,46 @@
+package com.SAFE_Rescue.API_Ciudadano.config;
+
+import com.SAFE_Rescue.API_Ciudadano.service.DestinoCambios;
+import com.SAFE_Rescue.API_Ciudadano.service.DestinoCambiosArchivo;
+import com.SAFE_Rescue.API_Ciudadano.service.DestinoCambiosMemoria;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * Destino de los cambios publicados por el relevo, según cambios.destino.tipo:
+ * memoria (pruebas), archivo (NDJSON) o ninguno, en cuyo caso los cambios solo se leen con GET /cambios.
+ * Otro destino, como un broker de mensajes, se agrega definiendo un bean de {@link DestinoCambios}.
+ */
+@Configuration
+public class ConfiguracionCambios {
+
+    /**
+     * Destino en memoria con los últimos eventos publicados
+     * @param capacidad Eventos conservados
+     * @return Destino en memoria
+     */
+    @Bean
+    @ConditionalOnProperty(name = "cambios.destino.tipo", havingValue = "memoria")
+    public DestinoCambiosMemoria destinoCambiosMemoria(@Value("${cambios.destino.memoria.capacidad:10000}") int capacidad) {
+        return new DestinoCambiosMemoria(capacidad);
+    }
+
+    /**
+     * Destino que agrega los eventos a un archivo NDJSON
+     * @param archivo Ruta del archivo
+     * @param objectMapper Serializador de la aplicación
+     * @return Destino en archivo
+     */
+    @Bean
+    @ConditionalOnProperty(name = "cambios.destino.tipo", havingValue = "archivo")
+    public DestinoCambiosArchivo destinoCambiosArchivo(@Value("${cambios.destino.archivo:cambios.ndjson}") Path archivo,
+                                                       ObjectMapper objectMapper) {
+        return new DestinoCambiosArchivo(archivo, objectMapper);
+    }
+
+}
@@ -0,0 +1,23 @@
+package com.SAFE_Rescue.API_Ciudadano.config;
+
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración de Jackson: Spring Boot registra en el ObjectMapper los módulos declarados como beans
+ */
+@Configuration
+public class ConfiguracionJackson {
+
+    /**
+     * Reemplaza el acceso por reflexión a getters y setters por llamadas generadas con LambdaMetafactory,
+     * lo que reduce el costo de serializar ciudadanos y credenciales
+     * @return Módulo Blackbird
+     */
+    @Bean
+    public BlackbirdModule blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.SAFE_Rescue.API_Ciudadano.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuración de réplicas de lectura, activa con replicas.habilitado=true.
+ * Reemplaza el DataSource de Spring Boot por un proxy que obtiene la conexión recién al ejecutar la
+ * primera sentencia, cuando ya se sabe si la transacción es readOnly: esas transacciones van a las
+ * réplicas (ver {@link EnrutadorReplicas}) y el resto, incluidas las consultas sin transacción, a la primaria.
+ * Cada base de datos tiene su propio pool, publicado en las métricas hikaricp.* con la etiqueta pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "replicas.habilitado", havingValue = "true")
+public class ConfiguracionReplicas {
+
+    @Value("${replicas.urls}")
+    private List<String> urls;
+
+    @Value("${replicas.ventana-lectura-escrituras:2s}")
+    private Duration ventana;
+
+    @Value("${replicas.clientes-maximos:100000}")
+    private long clientesMaximos;
+
+    @Value("${replicas.tiempo-espera-conexion:1s}")
+    private Duration tiempoEsperaConexion;
+
+    private EnrutadorReplicas enrutador;
+
+    /**
+     * Pool de la base de datos primaria, configurado con spring.datasource.*
+     * No se ofrece para inyección, para que el único DataSource inyectable sea el enrutado.
+     * @param propiedades Propiedades spring.datasource
+     * @param meterRegistry Registro de métricas del pool
+     * @return Pool de la primaria
+     */
+    @Bean(autowireCandidate = false)
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimaria(DataSourceProperties propiedades, MeterRegistry meterRegistry) {
+        HikariDataSource primaria = propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primaria.setMetricRegistry(meterRegistry);
+        return primaria;
+    }
+
+    /**
+     * Enrutador de las transacciones de solo lectura hacia las réplicas.
+     * Un pool de réplica no falla al iniciar si su base de datos no responde: queda fuera del
+     * reparto hasta que una revisión la encuentre disponible.
+     * @param propiedades Propiedades spring.datasource, de las que se toman usuario y contraseña
+     * @param meterRegistry Registro de métricas de los pools y del reparto
+     * @return Enrutador con un pool por réplica
+     */
+    @Bean(autowireCandidate = false)
+    public EnrutadorReplicas enrutadorReplicas(DataSourceProperties propiedades, MeterRegistry meterRegistry) {
+        HikariDataSource primaria = dataSourcePrimaria(propiedades, meterRegistry);
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + (replicas.size() + 1));
+            replica.setJdbcUrl(url.trim());
+            replica.setUsername(propiedades.determineUsername());
+            replica.setPassword(propiedades.determinePassword());
+            replica.setMaximumPoolSize(primaria.getMaximumPoolSize());
+            replica.setConnectionTimeout(tiempoEsperaConexion.toMillis());
+            replica.setInitializationFailTimeout(-1);
+            replica.setReadOnly(true);
+            replica.setMetricRegistry(meterRegistry);
+            replicas.add(replica);
+        }
+        enrutador = new EnrutadorReplicas(primaria, replicas, ventana, clientesMaximos, meterRegistry);
+        return enrutador;
+    }
+
+    /**
+     * DataSource de la aplicación: lecturas readOnly a las réplicas y el resto a la primaria
+     * @param propiedades Propiedades spring.datasource
+     * @param meterRegistry Registro de métricas
+     * @return Proxy de conexión diferida sobre el enrutador
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties propiedades, MeterRegistry meterRegistry) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(enrutadorReplicas(propiedades, meterRegistry));
+        proxy.setDefaultAutoCommit(dataSourcePrimaria(propiedades, meterRegistry).isAutoCommit());
+        return proxy;
+    }
+
+    /**
+     * Revisa periódicamente la disponibilidad de las réplicas
+     */
+    @Scheduled(fixedDelayString = "${replicas.revision-salud:5s}")
+    public void revisarReplicas() {
+        if (enrutador != null) {
+            enrutador.revisarSalud();
+        }
+    }
+
+}
@@ -0,0 +1,22 @@
+package com.SAFE_Rescue.API_Ciudadano.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Configuración de Spring MVC: registra los interceptores de la API
+ */
+@Configuration
+public class ConfiguracionWeb implements WebMvcConfigurer {
+
+    @Autowired
+    private InterceptorInserciones interceptorInserciones;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(interceptorInserciones).addPathPatterns("/api-ciudadano/**");
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.SAFE_Rescue.API_Ciudadano.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Cuenta las sentencias SQL que Hibernate prepara durante una solicitud HTTP.
+ * Se registra como StatementInspector de Hibernate y lleva un contador por hilo,
+ * activo solo entre {@link #iniciar()} y {@link #terminar()}; fuera de una solicitud
+ * (tareas programadas, carga inicial) no cuenta nada.
+ */
+@Component
+public class ContadorSentenciasSql implements StatementInspector, HibernatePropertiesCustomizer {
+
+    private final ThreadLocal<int[]> contador = new ThreadLocal<>();
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] actual = contador.get();
+        if (actual != null) {
+            actual[0]++;
+        }
+        return sql;
+    }
+
+    /**
+     * Comienza a contar las sentencias del hilo actual desde cero
+     */
+    public void iniciar() {
+        contador.set(new int[1]);
+    }
+
+    /**
+     * Deja de contar las sentencias del hilo actual
+     * @return Sentencias preparadas desde {@link #iniciar()}, 0 si no se había iniciado
+     */
+    public int terminar() {
+        int[] actual = contador.get();
+        contador.remove();
+        return actual == null ? 0 : actual[0];
+    }
+
+}
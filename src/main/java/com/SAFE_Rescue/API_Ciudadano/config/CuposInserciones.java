@@ -0,0 +1,78 @@
+package com.SAFE_Rescue.API_Ciudadano.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cupos para las transacciones que insertan registros con IDs de la tabla de secuencias.
+ * El generador de IDs reserva bloques en una transacción aparte, con una segunda conexión
+ * del pool, mientras la transacción que inserta mantiene la suya. Si todas las conexiones
+ * quedaran tomadas por inserciones esperando al generador, este no obtendría conexión y las
+ * inserciones quedarían detenidas hasta el tiempo de espera de Hikari; con una inserción menos
+ * que el tamaño del pool siempre queda una conexión libre para el generador.
+ * El cupo se toma antes de abrir la transacción y se libera después de confirmarla o revertirla.
+ */
+@Component
+public class CuposInserciones {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int tamanioPool;
+
+    @Value("${ciudadanos.concurrencia.espera-inserciones:5s}")
+    private Duration espera;
+
+    private Semaphore cupos;
+    private int maximas;
+    private Counter rechazadas;
+
+    @PostConstruct
+    void iniciar() {
+        maximas = Math.max(1, tamanioPool - 1);
+        cupos = new Semaphore(maximas, true);
+        Gauge.builder("ciudadanos.inserciones.en.curso", cupos, c -> maximas - c.availablePermits())
+                .description("Inserciones en proceso")
+                .register(meterRegistry);
+        rechazadas = Counter.builder("ciudadanos.inserciones.rechazadas")
+                .description("Inserciones rechazadas por falta de conexiones")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Toma un cupo, esperando como máximo ciudadanos.concurrencia.espera-inserciones
+     * @return true si se obtuvo el cupo, que debe liberarse con {@link #liberar()};
+     * false si no se obtuvo dentro de la espera
+     */
+    public boolean tomar() {
+        boolean obtenido;
+        try {
+            obtenido = cupos.tryAcquire(espera.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            obtenido = false;
+        }
+        if (!obtenido) {
+            rechazadas.increment();
+        }
+        return obtenido;
+    }
+
+    /**
+     * Libera un cupo obtenido con {@link #tomar()}
+     */
+    public void liberar() {
+        cupos.release();
+    }
+
+}
@@ -0,0 +1,254 @@
+package com.SAFE_Rescue.API_Ciudadano.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * DataSource que envía las transacciones readOnly a las réplicas y el resto a la base de datos primaria.
+ * Decide al entregar la conexión según la transacción en curso, por lo que debe usarse detrás de un
+ * LazyConnectionDataSourceProxy: así la conexión se pide en la primera sentencia, cuando Spring ya
+ * registró si la transacción es de solo lectura.
+ * Las lecturas se reparten por turnos entre las réplicas disponibles, y van a la primaria si no hay
+ * ninguna. Las réplicas se revisan periódicamente con {@link #revisarSalud()}; una réplica que falla al
+ * entregar una conexión queda fuera del reparto hasta la próxima revisión exitosa.
+ * Para que un cliente lea lo que acaba de escribir, tras una transacción de escritura confirmada
+ * sus lecturas van a la primaria durante la ventana configurada. El cliente se identifica por la
+ * IP de la solicitud HTTP; las lecturas fuera de una solicitud no tienen ventana.
+ * Las lecturas cuyo resultado se guarda en un cache se piden a la primaria con {@link #leerDePrimaria(Supplier)}.
+ */
+public class EnrutadorReplicas extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(EnrutadorReplicas.class);
+
+    // Marca los hilos que están dentro de leerDePrimaria
+    private static final ThreadLocal<Boolean> LECTURA_PRIMARIA = new ThreadLocal<>();
+
+    /**
+     * Réplica de lectura con su pool de conexiones
+     */
+    private static final class Replica {
+        private final HikariDataSource dataSource;
+        private final Counter lecturas;
+        private volatile boolean disponible;
+
+        private Replica(HikariDataSource dataSource, Counter lecturas) {
+            this.dataSource = dataSource;
+            this.lecturas = lecturas;
+        }
+    }
+
+    private final DataSource primaria;
+    private final List<Replica> replicas;
+    private final AtomicInteger siguiente = new AtomicInteger();
+    private final int segundosValidacion;
+
+    // Clientes con una escritura reciente; la entrada expira al terminar la ventana
+    private final Cache<String, Boolean> escriturasRecientes;
+
+    // MÉTRICAS
+    private final Counter lecturasVentana;
+    private final Counter lecturasForzadas;
+    private final Counter lecturasSinReplicas;
+
+    /**
+     * Crea el enrutador y revisa por primera vez las réplicas
+     * @param primaria Pool de la base de datos primaria
+     * @param replicas Pools de las réplicas, en el orden del reparto
+     * @param ventana Tiempo que las lecturas de un cliente van a la primaria tras una escritura
+     * @param clientesMaximos Cantidad máxima de clientes con ventana guardados en memoria
+     * @param meterRegistry Registro de métricas
+     */
+    public EnrutadorReplicas(DataSource primaria, List<HikariDataSource> replicas, Duration ventana,
+                             long clientesMaximos, MeterRegistry meterRegistry) {
+        this.primaria = primaria;
+        this.replicas = replicas.stream()
+                .map(dataSource -> new Replica(dataSource, contador(meterRegistry, dataSource.getPoolName(), "replica")))
+                .toList();
+        this.segundosValidacion = (int) Math.max(1, Duration.ofMillis(
+                replicas.stream().mapToLong(HikariDataSource::getValidationTimeout).max().orElse(1000)).toSeconds());
+        this.escriturasRecientes = Caffeine.newBuilder()
+                .maximumSize(clientesMaximos)
+                .expireAfterWrite(ventana)
+                .build();
+
+        lecturasVentana = contador(meterRegistry, "primaria", "ventana");
+        lecturasForzadas = contador(meterRegistry, "primaria", "forzada");
+        lecturasSinReplicas = contador(meterRegistry, "primaria", "sin-replicas");
+        for (Replica replica : this.replicas) {
+            Gauge.builder("replicas.disponible", replica, r -> r.disponible ? 1 : 0)
+                    .description("Indica si la réplica de lectura recibe transacciones de solo lectura")
+                    .tag("replica", replica.dataSource.getPoolName())
+                    .register(meterRegistry);
+        }
+        revisarSalud();
+    }
+
+    /**
+     * Ejecuta una lectura en la primaria aunque su transacción sea readOnly.
+     * Es para lecturas cuyo resultado se guarda en un cache, que con una réplica atrasada quedaría
+     * con datos anteriores a la última escritura durante todo su tiempo de vida.
+     * La conexión debe pedirse dentro de la lectura: si se une a una transacción que ya tiene una
+     * conexión, sigue usándola. Sin réplicas configuradas solo ejecuta la lectura.
+     * @param lectura Lectura a ejecutar
+     * @return Resultado de la lectura
+     */
+    public static <T> T leerDePrimaria(Supplier<T> lectura) {
+        if (LECTURA_PRIMARIA.get() != null) {
+            return lectura.get();
+        }
+        LECTURA_PRIMARIA.set(Boolean.TRUE);
+        try {
+            return lectura.get();
+        } finally {
+            LECTURA_PRIMARIA.remove();
+        }
+    }
+
+    /**
+     * Entrega una conexión según la transacción en curso
+     * @return Conexión a la siguiente réplica disponible si la transacción es readOnly, salvo que se pida
+     * con {@link #leerDePrimaria(Supplier)}, que el cliente haya escrito recientemente o que no haya
+     * réplicas disponibles; si no, conexión a la primaria
+     * @throws SQLException Si la primaria no entrega una conexión
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            registrarEscritura();
+            return primaria.getConnection();
+        }
+        if (LECTURA_PRIMARIA.get() != null) {
+            lecturasForzadas.increment();
+            return primaria.getConnection();
+        }
+        String cliente = clienteActual();
+        if (cliente != null && escriturasRecientes.getIfPresent(cliente) != null) {
+            lecturasVentana.increment();
+            return primaria.getConnection();
+        }
+        for (int intento = 0; intento < replicas.size(); intento++) {
+            Replica replica = replicas.get(Math.floorMod(siguiente.getAndIncrement(), replicas.size()));
+            if (!replica.disponible) {
+                continue;
+            }
+            try {
+                Connection conexion = replica.dataSource.getConnection();
+                replica.lecturas.increment();
+                return conexion;
+            } catch (SQLException e) {
+                replica.disponible = false;
+                log.warn("Réplica {} fuera del reparto de lecturas: {}", replica.dataSource.getPoolName(), e.getMessage());
+            }
+        }
+        lecturasSinReplicas.increment();
+        return primaria.getConnection();
+    }
+
+    /**
+     * Entrega una conexión de la primaria con otras credenciales, sin pasar por las réplicas,
+     * que solo se usan con las credenciales de su pool
+     * @param username Usuario de la base de datos
+     * @param password Contraseña del usuario
+     * @return Conexión a la primaria
+     * @throws SQLException Si la primaria no entrega una conexión con esas credenciales
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primaria.getConnection(username, password);
+    }
+
+    /**
+     * Verifica la conexión con cada réplica y actualiza cuáles participan del reparto
+     */
+    public void revisarSalud() {
+        for (Replica replica : replicas) {
+            boolean disponible;
+            try (Connection conexion = replica.dataSource.getConnection()) {
+                disponible = conexion.isValid(segundosValidacion);
+            } catch (SQLException e) {
+                disponible = false;
+            }
+            if (disponible != replica.disponible) {
+                log.info("Réplica {} {}", replica.dataSource.getPoolName(),
+                        disponible ? "disponible para lecturas" : "no disponible, las lecturas van a las demás o a la primaria");
+            }
+            replica.disponible = disponible;
+        }
+    }
+
+    /**
+     * Cierra los pools de las réplicas
+     */
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    // MÉTODOS PRIVADOS
+
+    /**
+     * Si hay una transacción de escritura en curso en una solicitud HTTP, abre la ventana
+     * de lectura de su cliente cuando se confirma
+     */
+    private void registrarEscritura() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        String cliente = clienteActual();
+        if (cliente == null) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    escriturasRecientes.put(cliente, Boolean.TRUE);
+                }
+            }
+        });
+    }
+
+    /**
+     * Obtiene la IP de la solicitud HTTP del hilo actual
+     * @return IP del cliente, o null fuera de una solicitud
+     */
+    private static String clienteActual() {
+        RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+        return atributos instanceof ServletRequestAttributes solicitud ? solicitud.getRequest().getRemoteAddr() : null;
+    }
+
+    /**
+     * Crea el contador de conexiones de lectura entregadas por destino
+     * @param destino Réplica o primaria
+     * @param motivo replica, ventana (el cliente escribió recientemente), forzada (leerDePrimaria) o sin-replicas
+     * @return Contador registrado
+     */
+    private static Counter contador(MeterRegistry meterRegistry, String destino, String motivo) {
+        return Counter.builder("replicas.lecturas")
+                .description("Conexiones entregadas a transacciones de solo lectura por destino")
+                .tag("destino", destino)
+                .tag("motivo", motivo)
+                .register(meterRegistry);
+    }
+
+}
@@ -0,0 +1,96 @@
+package com.SAFE_Rescue.API_Ciudadano.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limita la cantidad de solicitudes a la API que se procesan a la vez.
+ * Con hilos virtuales Tomcat ya no acota la concurrencia con su pool de hilos, y cada
+ * solicitud en curso puede terminar esperando una conexión del pool de Hikari; este filtro
+ * restablece un límite explícito. Una solicitud que no obtiene cupo dentro del tiempo de
+ * espera se rechaza con 503 y Retry-After en vez de acumularse en la cola del pool.
+ * Solo se activa si ciudadanos.concurrencia.maxima está configurado.
+ */
+@Component
+@ConditionalOnProperty(name = "ciudadanos.concurrencia.maxima")
+public class FiltroConcurrencia extends OncePerRequestFilter {
+
+    private static final String PREFIJO_API = "/api-ciudadano/";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ciudadanos.concurrencia.maxima}")
+    private int maxima;
+
+    @Value("${ciudadanos.concurrencia.espera:1s}")
+    private Duration espera;
+
+    private Semaphore cupos;
+    private Counter rechazadas;
+
+    @PostConstruct
+    void iniciar() {
+        if (maxima < 1) {
+            throw new IllegalArgumentException("ciudadanos.concurrencia.maxima debe ser mayor que cero");
+        }
+        cupos = new Semaphore(maxima, true);
+        Gauge.builder("ciudadanos.concurrencia.en.curso", cupos, c -> maxima - c.availablePermits())
+                .description("Solicitudes a la API en proceso")
+                .register(meterRegistry);
+        rechazadas = Counter.builder("ciudadanos.concurrencia.rechazadas")
+                .description("Solicitudes rechazadas por superar la concurrencia máxima")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(PREFIJO_API);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean obtenido;
+        try {
+            obtenido = cupos.tryAcquire(espera.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            obtenido = false;
+        }
+
+        if (!obtenido) {
+            rechazadas.increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType("text/plain;charset=UTF-8");
+            response.getWriter().write("Servicio saturado, reintente en unos segundos");
+            return;
+        }
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            cupos.release();
+        }
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.SAFE_Rescue.API_Ciudadano.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Registra cuántas sentencias SQL ejecuta cada solicitud HTTP, en la métrica
+ * http.server.requests.sql con las mismas etiquetas method y uri de http.server.requests.
+ * Las sentencias ejecutadas en otro hilo (por ejemplo la exportación en streaming) no se cuentan.
+ */
+@Component
+public class FiltroMetricasSql extends OncePerRequestFilter {
+
+    static final String METRICA = "http.server.requests.sql";
+
+    @Autowired
+    private ContadorSentenciasSql contadorSentenciasSql;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        contadorSentenciasSql.iniciar();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            int sentencias = contadorSentenciasSql.terminar();
+            Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder(METRICA)
+                    .description("Sentencias SQL preparadas por solicitud")
+                    .baseUnit("sentencias")
+                    .tag("method", request.getMethod())
+                    .tag("uri", patron == null ? "UNKNOWN" : patron.toString())
+                    .register(meterRegistry)
+                    .record(sentencias);
+        }
+    }
+
+}
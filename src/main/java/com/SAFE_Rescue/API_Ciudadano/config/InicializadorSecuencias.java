@@ -0,0 +1,80 @@
+package com.SAFE_Rescue.API_Ciudadano.config;
+
+import com.SAFE_Rescue.API_Ciudadano.modelo.Ciudadano;
+import com.SAFE_Rescue.API_Ciudadano.modelo.Credencial;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Alinea la tabla de secuencias con los IDs ya existentes al iniciar la aplicación.
+ * Los registros creados cuando los IDs eran AUTO_INCREMENT no quedan reflejados en
+ * secuencia_id, por lo que sin este ajuste el generador podría entregar IDs repetidos.
+ * Solo aumenta el valor de la secuencia, nunca lo disminuye.
+ * Se ejecuta al terminar de crear los singletons, después de que Hibernate prepara el esquema
+ * y antes de que el servidor web acepte solicitudes, de modo que ningún registro obtiene un
+ * bloque de IDs previo al ajuste. Nunca se inicializa de forma diferida.
+ */
+@Component
+@Lazy(false)
+public class InicializadorSecuencias implements SmartInitializingSingleton {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Se inyecta solo para que el esquema exista antes de alinear las secuencias
+     */
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(estado -> {
+            alinear("ciudadano", "ciudadano", Ciudadano.TAMANIO_ASIGNACION_ID);
+            alinear("credencial_ciudadana", "credencial_ciudadana", Credencial.TAMANIO_ASIGNACION_ID);
+        });
+    }
+
+    /**
+     * Asegura que el próximo bloque de IDs de la secuencia quede sobre el máximo ID de la tabla
+     * @param tabla Tabla cuyos IDs se generan con la secuencia
+     * @param secuencia Nombre de la fila en secuencia_id
+     * @param tamanioAsignacion Tamaño del bloque de IDs de la secuencia
+     */
+    private void alinear(String tabla, String secuencia, int tamanioAsignacion) {
+        Long maximoId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from " + tabla, Long.class);
+        if (maximoId == null || maximoId == 0) {
+            return;
+        }
+
+        // El optimizador pooled entrega IDs desde (valor - tamanioAsignacion + 1)
+        long valorMinimo = maximoId + tamanioAsignacion + 1;
+
+        List<Long> valorActual = jdbcTemplate.queryForList(
+                "select valor from secuencia_id where nombre = ?", Long.class, secuencia);
+
+        if (valorActual.isEmpty()) {
+            try {
+                jdbcTemplate.update("insert into secuencia_id (nombre, valor) values (?, ?)", secuencia, valorMinimo);
+                return;
+            } catch (DuplicateKeyException e) {
+                // Otra instancia creó la fila al mismo tiempo: se ajusta con la actualización condicional
+            }
+        }
+        jdbcTemplate.update("update secuencia_id set valor = ? where nombre = ? and valor < ?",
+                valorMinimo, secuencia, valorMinimo);
+    }
+
+}
@@ -0,0 +1,17 @@
+package com.SAFE_Rescue.API_Ciudadano.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca los endpoints que insertan registros con IDs de la tabla de secuencias en una sola
+ * transacción. {@link InterceptorInserciones} toma para ellos un cupo de {@link CuposInserciones}
+ * durante toda la solicitud. Los endpoints que abren varias transacciones, como la carga masiva,
+ * no se marcan: el servicio toma un cupo por transacción.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface InsertaRegistros {
+}
@@ -0,0 +1,54 @@
+package com.SAFE_Rescue.API_Ciudadano.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+
+/**
+ * Toma un cupo de {@link CuposInserciones} para los endpoints marcados con {@link InsertaRegistros}
+ * antes de que abran su transacción, y lo libera al terminar la solicitud.
+ * Sin cupo tras la espera, la solicitud se rechaza con 503.
+ */
+@Component
+public class InterceptorInserciones implements HandlerInterceptor {
+
+    private static final String ATRIBUTO_CUPO = InterceptorInserciones.class.getName() + ".cupo";
+
+    @Autowired
+    private CuposInserciones cuposInserciones;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        if (!(handler instanceof HandlerMethod metodo) || !metodo.hasMethodAnnotation(InsertaRegistros.class)) {
+            return true;
+        }
+
+        if (!cuposInserciones.tomar()) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType("text/plain;charset=UTF-8");
+            response.getWriter().write("Servicio saturado, reintente en unos segundos");
+            return false;
+        }
+        request.setAttribute(ATRIBUTO_CUPO, Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(ATRIBUTO_CUPO) != null) {
+            request.removeAttribute(ATRIBUTO_CUPO);
+            cuposInserciones.liberar();
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.SAFE_Rescue.API_Ciudadano.controller;
+
+import com.SAFE_Rescue.API_Ciudadano.modelo.PaginaCambios;
+import com.SAFE_Rescue.API_Ciudadano.service.RegistroCambios;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controlador REST para la lectura incremental de cambios de ciudadanos y credenciales
+ * Permite a otros servicios seguir los cambios sin volver a leer todos los ciudadanos
+ */
+@RestController
+@RequestMapping("/api-ciudadano/v1/cambios")
+public class CambiosController {
+
+    // SERVICIOS INYECTADOS
+
+    @Autowired
+    private RegistroCambios registroCambios;
+
+    /**
+     * Obtiene los cambios publicados después de una posición, en orden.
+     * Para seguir leyendo se envía como desde el valor siguienteDesde de la respuesta anterior;
+     * si hayMas es falso conviene esperar antes de la siguiente consulta.
+     * Un mismo cambio puede llegar más de una vez a los destinos del relevo, pero en esta lectura
+     * cada posición aparece una sola vez.
+     * @param desde Posición del último cambio leído (exclusiva), por defecto 0
+     * @param limite Cantidad máxima de cambios, opcional
+     * @return ResponseEntity con la página de cambios, BAD_REQUEST si los parámetros no son válidos
+     * o GONE si los cambios siguientes a la posición ya se eliminaron por antigüedad
+     */
+    @GetMapping
+    public ResponseEntity<?> listar(@RequestParam(defaultValue = "0") long desde,
+                                    @RequestParam(required = false) Integer limite) {
+        try {
+            PaginaCambios pagina = registroCambios.consultar(desde, limite);
+            return ResponseEntity.ok(pagina);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.GONE).body(e.getMessage());
+        }
+    }
+
+}
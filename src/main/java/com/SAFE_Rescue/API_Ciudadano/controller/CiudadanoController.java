@@ -1,14 +1,35 @@
 package com.SAFE_Rescue.API_Ciudadano.controller;
 
+import com.SAFE_Rescue.API_Ciudadano.config.InsertaRegistros;
+import com.SAFE_Rescue.API_Ciudadano.modelo.PaginaCampos;
+import com.SAFE_Rescue.API_Ciudadano.modelo.PaginaCiudadanos;
+import com.SAFE_Rescue.API_Ciudadano.modelo.ResultadoBusquedaId;
+import com.SAFE_Rescue.API_Ciudadano.modelo.ResultadoCargaMasiva;
+import com.SAFE_Rescue.API_Ciudadano.service.CacheJsonCiudadanos;
+import com.SAFE_Rescue.API_Ciudadano.service.CargaMasivaService;
 import com.SAFE_Rescue.API_Ciudadano.service.CiudadanoService;
+import com.SAFE_Rescue.API_Ciudadano.service.CredencialService;
 import com.SAFE_Rescue.API_Ciudadano.modelo.Ciudadano;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Controlador REST para la gestión de ciudadanos
@@ -18,54 +39,243 @@ import java.util.NoSuchElementException;
 @RequestMapping("/api-ciudadano/v1/ciudadanos")
 public class CiudadanoController {
 
+    /**
+     * Cabecera con el cursor de la siguiente página del listado
+     */
+    public static final String CABECERA_SIGUIENTE_CURSOR = "X-Siguiente-Cursor";
+
+    /**
+     * Tipo de contenido de la exportación: un objeto JSON por línea
+     */
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
     // SERVICIOS INYECTADOS
 
     @Autowired
     private CiudadanoService ciudadanoService;
 
+    @Autowired
+    private CargaMasivaService cargaMasivaService;
+
+    @Autowired
+    private CredencialService credencialService;
+
     // OPERACIONES CRUD BÁSICAS
 
     /**
-     * Obtiene todos los ciudadanos registrados en el sistema.
+     * Obtiene los ciudadanos registrados en el sistema, paginados por ID.
+     * El cuerpo sigue siendo una lista de ciudadanos; si quedan más registros
+     * se entrega el cursor de la siguiente página en la cabecera X-Siguiente-Cursor.
+     * @param cursor Cursor de la página anterior, opcional
+     * @param limite Cantidad de ciudadanos por página, opcional
+     * @param desde Fecha de registro mínima (inclusiva, formato yyyy-MM-dd), opcional
+     * @param hasta Fecha de registro máxima (exclusiva, formato yyyy-MM-dd), opcional
+     * @param fields Campos a incluir separados por coma (por ejemplo run,nombre,telefono), opcional
      * @return ResponseEntity con lista de ciudadanos o estado NO_CONTENT si no hay registros
      */
     @GetMapping
-    public ResponseEntity<List<Ciudadano>> listar(){
+    public ResponseEntity<?> listar(@RequestParam(required = false) String cursor,
+                                    @RequestParam(required = false) Integer limite,
+                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Date desde,
+                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Date hasta,
+                                    @RequestParam(required = false) String fields){
+
+        List<?> ciudadanos;
+        String siguienteCursor;
+        try {
+            if (fields != null) {
+                PaginaCampos pagina = ciudadanoService.findPaginaCampos(cursor, limite, desde, hasta, fields);
+                ciudadanos = pagina.getCiudadanos();
+                siguienteCursor = pagina.getSiguienteCursor();
+            } else {
+                PaginaCiudadanos pagina = ciudadanoService.findPagina(cursor, limite, desde, hasta);
+                ciudadanos = pagina.getCiudadanos();
+                siguienteCursor = pagina.getSiguienteCursor();
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
 
-        List<Ciudadano> ciudadanos = ciudadanoService.findAll();
         if(ciudadanos.isEmpty()){
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
         }
+        if (siguienteCursor == null) {
+            return ResponseEntity.ok(ciudadanos);
+        }
+        return ResponseEntity.ok()
+                .header(CABECERA_SIGUIENTE_CURSOR, siguienteCursor)
+                .body(ciudadanos);
+    }
+
+    /**
+     * Exporta todos los ciudadanos en formato NDJSON, escribiendo cada fila directamente en la respuesta.
+     * Para reanudar una exportación interrumpida se envía el ID del último ciudadano recibido.
+     * @param desdeId ID del último ciudadano recibido (exclusivo), por defecto 0
+     * @return ResponseEntity con el flujo NDJSON de ciudadanos
+     */
+    @GetMapping(value = "/export", produces = APPLICATION_NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportar(@RequestParam(defaultValue = "0") int desdeId) {
+        if (desdeId < 0) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        StreamingResponseBody cuerpo = salida -> ciudadanoService.exportar(desdeId, salida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON))
+                .body(cuerpo);
+    }
+
+    /**
+     * Busca ciudadanos por nombre y apellidos, ordenados de mayor a menor similitud.
+     * No distingue tildes ni mayúsculas, acepta palabras incompletas y tolera errores de tipeo.
+     * Cada resultado incluye su similitud, entre 0 y 1.
+     * @param q Texto a buscar, con al menos 3 letras o dígitos
+     * @param limite Cantidad máxima de resultados, opcional
+     * @param fields Campos a incluir separados por coma, opcional (por defecto id, run, dv, nombre, apellidos y telefono)
+     * @return ResponseEntity con los ciudadanos encontrados, NO_CONTENT si no hay coincidencias,
+     * BAD_REQUEST si la búsqueda no es válida o SERVICE_UNAVAILABLE si el índice aún se está cargando
+     */
+    @GetMapping("/buscar")
+    public ResponseEntity<?> buscarPorNombre(@RequestParam String q,
+                                             @RequestParam(required = false) Integer limite,
+                                             @RequestParam(required = false) String fields) {
+        List<Map<String, Object>> ciudadanos;
+        try {
+            ciudadanos = ciudadanoService.buscarPorNombre(q, limite, fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(e.getMessage());
+        }
+
+        if (ciudadanos.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
         return ResponseEntity.ok(ciudadanos);
     }
 
     /**
      * Busca un ciudadano por su ID.
+     * Responde con ETag según la versión del ciudadano y su credencial, y con 304 si no cambió.
+     * El ETag de una respuesta con cuerpo es el de la versión serializada en ese cuerpo.
      * @param id ID del ciudadano a buscar
-     * @return ResponseEntity con el ciudadano encontrado o mensaje de error
+     * @param fields Campos a incluir separados por coma (por ejemplo run,nombre,telefono), opcional
+     * @param request Solicitud, para comparar el ETag con If-None-Match
+     * @return ResponseEntity con el ciudadano encontrado, 304 si no cambió o mensaje de error
      */
     @GetMapping("/{id}")
-    public ResponseEntity<?> buscarCiudadano(@PathVariable long id) {
-        Ciudadano ciudadano;
+    public ResponseEntity<?> buscarCiudadano(@PathVariable long id,
+                                             @RequestParam(required = false) String fields,
+                                             HttpServletRequest request) {
+        Object ciudadano;
+        String etag;
 
         try {
-            ciudadano = ciudadanoService.findByID(id);
+            // La versión se consulta sin cargar la entidad; si coincide con If-None-Match se responde 304 sin cuerpo.
+            // La comparación no escribe el ETag en la respuesta, que lleva el de la versión que se entrega
+            etag = fields == null ? ciudadanoService.obtenerEtag(id) : ciudadanoService.obtenerEtag(id, fields);
+            if (new ServletWebRequest(request).checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+            if (fields == null) {
+                // El JSON completo se entrega ya serializado, desde el cache si la versión no cambió
+                byte[] json = ciudadanoService.findJsonCacheado(id, etag);
+                if (json == null) {
+                    CacheJsonCiudadanos.JsonCiudadano leido = ciudadanoService.findJsonByID(id);
+                    json = leido.json();
+                    etag = leido.etag();
+                }
+                return ResponseEntity.ok().eTag(etag).contentType(MediaType.APPLICATION_JSON).body(json);
+            }
+            ciudadano = ciudadanoService.findByIDCampos(id, fields);
         }catch(NoSuchElementException e){
             return new ResponseEntity<String>("Ciudadano no encontrado", HttpStatus.NOT_FOUND);
+        }catch(IllegalArgumentException e){
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }catch(JsonProcessingException e){
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al serializar el Ciudadano");
+        }
+        return ResponseEntity.ok().eTag(etag).body(ciudadano);
+    }
+
+    /**
+     * Busca un ciudadano por su RUN.
+     * Responde igual que la búsqueda por ID, con ETag y 304 si no cambió.
+     * @param run RUN del ciudadano, sin dígito verificador
+     * @param fields Campos a incluir separados por coma, opcional
+     * @param request Solicitud, para comparar el ETag con If-None-Match
+     * @return ResponseEntity con el ciudadano encontrado, 304 si no cambió o mensaje de error
+     */
+    @GetMapping("/run/{run}")
+    public ResponseEntity<?> buscarPorRun(@PathVariable long run,
+                                          @RequestParam(required = false) String fields,
+                                          HttpServletRequest request) {
+        long id;
+        try {
+            id = ciudadanoService.findIdPorRun(run);
+        } catch (NoSuchElementException e) {
+            return new ResponseEntity<String>("Ciudadano no encontrado", HttpStatus.NOT_FOUND);
         }
-        return ResponseEntity.ok(ciudadano);
+        return buscarCiudadano(id, fields, request);
+    }
+
+    /**
+     * Busca un ciudadano por su telefono, por ejemplo para devolver una llamada de emergencia.
+     * Responde igual que la búsqueda por ID, con ETag y 304 si no cambió.
+     * @param telefono Telefono del ciudadano
+     * @param fields Campos a incluir separados por coma, opcional
+     * @param request Solicitud, para comparar el ETag con If-None-Match
+     * @return ResponseEntity con el ciudadano encontrado, 304 si no cambió o mensaje de error
+     */
+    @GetMapping("/telefono/{telefono}")
+    public ResponseEntity<?> buscarPorTelefono(@PathVariable long telefono,
+                                               @RequestParam(required = false) String fields,
+                                               HttpServletRequest request) {
+        long id;
+        try {
+            id = ciudadanoService.findIdPorTelefono(telefono);
+        } catch (NoSuchElementException e) {
+            return new ResponseEntity<String>("Ciudadano no encontrado", HttpStatus.NOT_FOUND);
+        }
+        return buscarCiudadano(id, fields, request);
+    }
+
+    /**
+     * Busca varios ciudadanos por ID en una sola solicitud, por ejemplo todos los de un incidente.
+     * Cada ID tiene un resultado, en el orden recibido, con estado ENCONTRADO o NO_ENCONTRADO.
+     * @param ids Lista JSON de IDs, hasta el máximo configurado
+     * @param fields Campos a incluir separados por coma, opcional
+     * @return ResponseEntity con un resultado por ID o BAD_REQUEST si la solicitud no es válida
+     */
+    @PostMapping("/batch-get")
+    public ResponseEntity<?> buscarVarios(@RequestBody List<Long> ids,
+                                          @RequestParam(required = false) String fields) {
+        List<ResultadoBusquedaId> resultados;
+        try {
+            resultados = ciudadanoService.findByIDs(ids, fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+        return ResponseEntity.ok(resultados);
     }
 
     /**
      * Crea un nuevo Ciudadano
+     * La contraseña de la credencial se codifica antes de abrir la transacción.
      * @param ciudadano Datos del Ciudadano a crear
-     * @return ResponseEntity con mensaje de confirmación o error
+     * @return ResponseEntity con mensaje de confirmación o error,
+     * o estado SERVICE_UNAVAILABLE si el ejecutor de hash está saturado
      */
     @PostMapping
+    @InsertaRegistros
     public ResponseEntity<String> agregarCiudadano(@RequestBody Ciudadano ciudadano) {
         try {
+            credencialService.codificarContrasenia(ciudadano.getCredencial());
             Ciudadano nuevoCiudadano = ciudadanoService.save(ciudadano);
             return ResponseEntity.status(HttpStatus.CREATED).body("Ciudadano creado con éxito.");
+        } catch (RejectedExecutionException e) {
+            return servicioSaturado();
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(e.getMessage());
@@ -75,6 +285,27 @@ public class CiudadanoController {
         }
     }
 
+    /**
+     * Crea ciudadanos de forma masiva a partir de un arreglo JSON o un flujo NDJSON.
+     * Las filas se procesan por lotes y el resultado informa el estado de cada una.
+     * No se marca con {@link InsertaRegistros}: el servicio toma un cupo de inserción por lote.
+     * @param cuerpo Contenido de la carga
+     * @return ResponseEntity con el informe de la carga o mensaje de error
+     */
+    @PostMapping(value = "/carga-masiva", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON})
+    public ResponseEntity<?> cargaMasiva(InputStream cuerpo) {
+        try {
+            ResultadoCargaMasiva resultado = cargaMasivaService.importar(cuerpo);
+            return ResponseEntity.ok(resultado);
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("No se pudo leer la carga: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error interno del servidor.");
+        }
+    }
+
     /**
      * Actualiza un Ciudadano existente.
      * @param id ID del Ciudadano a actualizar
@@ -89,6 +320,34 @@ public class CiudadanoController {
         } catch (NoSuchElementException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body("Ciudadano no encontrado");
+        } catch (OptimisticLockingFailureException e) {
+            return registroModificado();
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error interno del servidor.");
+        }
+    }
+
+    /**
+     * Modifica solo los campos recibidos de un Ciudadano
+     * El UPDATE incluye solo las columnas que cambian y la unicidad se verifica solo si cambia el RUN o el telefono.
+     * @param id ID del Ciudadano a modificar
+     * @param cambios Campos a modificar: run, dv, nombre, apaterno, amaterno, fechaRegistro y/o telefono
+     * @return ResponseEntity con mensaje de confirmación o error
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<String> modificarCiudadano(@PathVariable long id, @RequestBody Map<String, Object> cambios) {
+        try {
+            ciudadanoService.patch(cambios, id);
+            return ResponseEntity.ok("Actualizado con éxito");
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body("Ciudadano no encontrado");
+        } catch (OptimisticLockingFailureException e) {
+            return registroModificado();
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(e.getMessage());
@@ -112,6 +371,8 @@ public class CiudadanoController {
         } catch (NoSuchElementException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body("Ciudadano no encontrado");
+        } catch (OptimisticLockingFailureException e) {
+            return registroModificado();
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(e.getMessage());
@@ -139,4 +400,23 @@ public class CiudadanoController {
         }
     }
 
+    /**
+     * Respuesta para una solicitud rechazada porque el ejecutor de hash de contraseñas está saturado
+     * @return ResponseEntity con estado SERVICE_UNAVAILABLE y cabecera Retry-After
+     */
+    private ResponseEntity<String> servicioSaturado() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Servicio saturado, reintente en unos segundos");
+    }
+
+    /**
+     * Respuesta para una escritura que encontró el registro modificado por otra transacción
+     * @return ResponseEntity con estado CONFLICT, para que el cliente lea el registro y reintente
+     */
+    private ResponseEntity<String> registroModificado() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body("El registro cambió mientras se modificaba, reintente la operación");
+    }
+
 }
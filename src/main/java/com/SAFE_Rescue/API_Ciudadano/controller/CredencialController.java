@@ -1,15 +1,26 @@
 package com.SAFE_Rescue.API_Ciudadano.controller;
 
+import com.SAFE_Rescue.API_Ciudadano.config.InsertaRegistros;
 import com.SAFE_Rescue.API_Ciudadano.modelo.Login;
 import com.SAFE_Rescue.API_Ciudadano.service.CredencialService;
+import com.SAFE_Rescue.API_Ciudadano.service.LimitadorLogin;
 import com.SAFE_Rescue.API_Ciudadano.modelo.Credencial;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Controlador REST para la gestión de credenciales ciudadanas
@@ -24,6 +35,26 @@ public class CredencialController {
     @Autowired
     private CredencialService credencialService;
 
+    @Autowired
+    private LimitadorLogin limitadorLogin;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // MÉTRICAS DE INICIO DE SESIÓN
+    private Counter loginExitoso;
+    private Counter loginFallido;
+    private Counter loginBloqueado;
+    private Counter loginRechazado;
+
+    @PostConstruct
+    void registrarMetricas() {
+        loginExitoso = contadorLogin("exito");
+        loginFallido = contadorLogin("fallo");
+        loginBloqueado = contadorLogin("bloqueada");
+        loginRechazado = contadorLogin("saturado");
+    }
+
     // OPERACIONES CRUD BÁSICAS
 
     /**
@@ -42,31 +73,46 @@ public class CredencialController {
 
     /**
      * Busca un Credencial por su ID.
+     * Responde con ETag según la versión de la credencial, y con 304 si no cambió.
+     * El ETag de una respuesta con cuerpo es el de la versión entregada en ese cuerpo.
      * @param id ID del Credencial a buscar
-     * @return ResponseEntity con el Credencial encontrado o mensaje de error
+     * @param request Solicitud, para comparar el ETag con If-None-Match
+     * @return ResponseEntity con el Credencial encontrado, 304 si no cambió o mensaje de error
      */
     @GetMapping("/{id}")
-    public ResponseEntity<?> buscarCredencial(@PathVariable long id) {
+    public ResponseEntity<?> buscarCredencial(@PathVariable long id, HttpServletRequest request) {
         Credencial credencial;
 
         try {
+            // La versión se consulta sin cargar la entidad; si coincide con If-None-Match se responde 304 sin cuerpo.
+            // La comparación no escribe el ETag en la respuesta, que lleva el de la versión que se entrega
+            String etag = credencialService.obtenerEtag(id);
+            if (new ServletWebRequest(request).checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
             credencial = credencialService.findByID(id);
         }catch(NoSuchElementException e){
             return new ResponseEntity<String>("Credencial no encontrada", HttpStatus.NOT_FOUND);
         }
-        return ResponseEntity.ok(credencial);
+        return ResponseEntity.ok().eTag(String.valueOf(credencial.getVersion())).body(credencial);
     }
 
     /**
      * Crea una nueva Credencial
+     * La contraseña se codifica antes de abrir la transacción.
      * @param credencial Datos de la Credencial a crear
-     * @return ResponseEntity con mensaje de confirmación o error
+     * @return ResponseEntity con mensaje de confirmación o error,
+     * o estado SERVICE_UNAVAILABLE si el ejecutor de hash está saturado
      */
     @PostMapping
+    @InsertaRegistros
     public ResponseEntity<String> agregarCredencial(@RequestBody Credencial credencial) {
         try {
+            credencialService.codificarContrasenia(credencial);
             credencialService.save(credencial);
             return ResponseEntity.status(HttpStatus.CREATED).body("Credencial creada con éxito.");
+        } catch (RejectedExecutionException e) {
+            return servicioSaturado();
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         } catch (Exception e) {
@@ -78,16 +124,55 @@ public class CredencialController {
      * Actualiza una Credencial existente.
      * @param id ID de la Credencial a actualizar
      * @param credencial Datos actualizados de la Credencial
-     * @return ResponseEntity con mensaje de confirmación o error
+     * @return ResponseEntity con mensaje de confirmación o error,
+     * o estado CONFLICT si la credencial cambió mientras se actualizaba,
+     * o estado SERVICE_UNAVAILABLE si el ejecutor de hash está saturado
      */
     @PutMapping("/{id}")
     public ResponseEntity<String> actualizarCredencial(@PathVariable long id, @RequestBody Credencial credencial) {
         try {
+            credencialService.codificarContrasenia(credencial);
             Credencial nuevoCredencial = credencialService.update(credencial, id);
             return ResponseEntity.ok("Actualizado con éxito");
+        } catch (RejectedExecutionException e) {
+            return servicioSaturado();
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body("Credencial no encontrada");
+        } catch (OptimisticLockingFailureException e) {
+            return registroModificado();
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error interno del servidor.");
+        }
+    }
+
+    /**
+     * Modifica solo los campos recibidos de una credencial
+     * El estado activo solo cambia si se recibe, y el UPDATE incluye solo las columnas que cambian.
+     * La contraseña se codifica antes de abrir la transacción.
+     * @param id ID de la credencial a modificar
+     * @param cambios Campos a modificar: correo, contrasenia y/o activo
+     * @return ResponseEntity con mensaje de confirmación o error,
+     * o estado CONFLICT si la credencial cambió mientras se actualizaba,
+     * o estado SERVICE_UNAVAILABLE si el ejecutor de hash está saturado
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<String> modificarCredencial(@PathVariable long id, @RequestBody Map<String, Object> cambios) {
+        try {
+            credencialService.codificarContrasenia(cambios);
+            credencialService.patch(cambios, id);
+            return ResponseEntity.ok("Actualizado con éxito");
+        } catch (RejectedExecutionException e) {
+            return servicioSaturado();
         } catch (NoSuchElementException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body("Credencial no encontrada");
+        } catch (OptimisticLockingFailureException e) {
+            return registroModificado();
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(e.getMessage());
@@ -111,6 +196,8 @@ public class CredencialController {
         } catch (NoSuchElementException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body("Credencial no encontrada");
+        } catch (OptimisticLockingFailureException e) {
+            return registroModificado();
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(e.getMessage());
@@ -122,19 +209,72 @@ public class CredencialController {
 
     /**
      * Permite iniciar sesion
+     * Antes de verificar la credencial se aplica el límite de frecuencia por IP y por correo.
      * @param login credenciales de inicio sesion
-     * @return ResponseEntity con mensaje de confirmación o error y aumenta la cantidad de intentos fallidos
+     * @param request Solicitud, para obtener la IP de origen
+     * @return ResponseEntity con mensaje de confirmación o error y aumenta la cantidad de intentos fallidos,
+     * o estado TOO_MANY_REQUESTS con Retry-After si se supera el límite de frecuencia,
+     * o estado LOCKED si la cuenta está bloqueada por intentos fallidos,
+     * o estado SERVICE_UNAVAILABLE si el ejecutor de hash está saturado
      */
     @PostMapping("/login")
-    public ResponseEntity<String> login(@RequestBody Login login) {
-        boolean isAuthenticated = credencialService.verificarCredenciales(login.getCorreo(), login.getContrasenia());
+    public ResponseEntity<String> login(@RequestBody Login login, HttpServletRequest request) {
+        long espera = limitadorLogin.segundosEspera(request.getRemoteAddr(), login.getCorreo());
+        if (espera > 0) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(espera))
+                    .body("Demasiados intentos de inicio de sesión, reintente más tarde");
+        }
+
+        boolean isAuthenticated;
+        try {
+            isAuthenticated = credencialService.verificarCredenciales(login.getCorreo(), login.getContrasenia());
+        } catch (IllegalStateException e) {
+            loginBloqueado.increment();
+            return ResponseEntity.status(HttpStatus.LOCKED).body(e.getMessage());
+        } catch (RejectedExecutionException e) {
+            loginRechazado.increment();
+            return servicioSaturado();
+        }
 
         if (isAuthenticated) {
+            loginExitoso.increment();
             return ResponseEntity.ok("Login exitoso");
         } else {
+            loginFallido.increment();
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Credenciales incorrectas");
         }
     }
 
+    /**
+     * Crea el contador de inicios de sesión con el resultado indicado
+     * @param resultado exito, fallo, bloqueada o saturado
+     * @return Contador registrado
+     */
+    private Counter contadorLogin(String resultado) {
+        return Counter.builder("credenciales.login")
+                .description("Intentos de inicio de sesión por resultado")
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Respuesta para una solicitud rechazada porque el ejecutor de hash de contraseñas está saturado
+     * @return ResponseEntity con estado SERVICE_UNAVAILABLE y cabecera Retry-After
+     */
+    private ResponseEntity<String> servicioSaturado() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Servicio saturado, reintente en unos segundos");
+    }
+
+    /**
+     * Respuesta para una escritura que encontró el registro modificado por otra transacción
+     * @return ResponseEntity con estado CONFLICT, para que el cliente lea el registro y reintente
+     */
+    private ResponseEntity<String> registroModificado() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body("El registro cambió mientras se modificaba, reintente la operación");
+    }
 
 }
@@ -0,0 +1,99 @@
+package com.SAFE_Rescue.API_Ciudadano.controller;
+
+import com.SAFE_Rescue.API_Ciudadano.config.CacheSegundoNivel;
+import com.SAFE_Rescue.API_Ciudadano.service.CacheCredenciales;
+import com.SAFE_Rescue.API_Ciudadano.service.CacheJsonCiudadanos;
+import com.SAFE_Rescue.API_Ciudadano.service.IndiceNombres;
+import com.SAFE_Rescue.API_Ciudadano.service.IndiceUnicidad;
+import com.SAFE_Rescue.API_Ciudadano.service.LimitadorLogin;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Controlador REST para consultar el estado de las estructuras en memoria de la API
+ * Proporciona endpoints de solo lectura con contadores de uso
+ */
+@RestController
+@RequestMapping("/api-ciudadano/v1/estadisticas")
+public class EstadisticasController {
+
+    // SERVICIOS INYECTADOS
+
+    @Autowired
+    private CacheCredenciales cacheCredenciales;
+
+    @Autowired
+    private IndiceUnicidad indiceUnicidad;
+
+    @Autowired
+    private IndiceNombres indiceNombres;
+
+    @Autowired
+    private CacheSegundoNivel cacheSegundoNivel;
+
+    @Autowired
+    private LimitadorLogin limitadorLogin;
+
+    @Autowired
+    private CacheJsonCiudadanos cacheJsonCiudadanos;
+
+    /**
+     * Obtiene los contadores del cache de credenciales usado en el inicio de sesión
+     * @return ResponseEntity con aciertos, fallos, desalojos y tamaño del cache
+     */
+    @GetMapping("/cache-credenciales")
+    public ResponseEntity<Map<String, Object>> cacheCredenciales() {
+        return ResponseEntity.ok(cacheCredenciales.estadisticas());
+    }
+
+    /**
+     * Obtiene los contadores de cada región del cache de segundo nivel de Hibernate
+     * @return ResponseEntity con aciertos, fallos, escrituras y tasa de aciertos por región
+     */
+    @GetMapping("/cache-segundo-nivel")
+    public ResponseEntity<Map<String, Object>> cacheSegundoNivel() {
+        return ResponseEntity.ok(cacheSegundoNivel.estadisticas());
+    }
+
+    /**
+     * Obtiene el uso de memoria y la tasa de falsos positivos del índice de unicidad
+     * @return ResponseEntity con tamaños, bytes usados y contadores de consultas
+     */
+    @GetMapping("/indice-unicidad")
+    public ResponseEntity<Map<String, Object>> indiceUnicidad() {
+        return ResponseEntity.ok(indiceUnicidad.estadisticas());
+    }
+
+    /**
+     * Obtiene el tamaño, la memoria usada y la duración de las búsquedas del índice de nombres
+     * @return ResponseEntity con ciudadanos indexados, bytes usados y contadores de búsquedas
+     */
+    @GetMapping("/indice-nombres")
+    public ResponseEntity<Map<String, Object>> indiceNombres() {
+        return ResponseEntity.ok(indiceNombres.estadisticas());
+    }
+
+    /**
+     * Obtiene las decisiones del límite de frecuencia de inicios de sesión
+     * @return ResponseEntity con intentos permitidos, rechazados por IP y por correo, y cubetas en memoria
+     */
+    @GetMapping("/limite-login")
+    public ResponseEntity<Map<String, Object>> limiteLogin() {
+        return ResponseEntity.ok(limitadorLogin.estadisticas());
+    }
+
+    /**
+     * Obtiene los contadores del cache de JSON serializado de ciudadanos
+     * @return ResponseEntity con aciertos, fallos, desalojos, entradas y bytes ocupados
+     */
+    @GetMapping("/cache-json")
+    public ResponseEntity<Map<String, Object>> cacheJson() {
+        return ResponseEntity.ok(cacheJsonCiudadanos.estadisticas());
+    }
+
+}
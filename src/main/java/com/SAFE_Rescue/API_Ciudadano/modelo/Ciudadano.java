@@ -1,6 +1,10 @@
 package com.SAFE_Rescue.API_Ciudadano.modelo;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -10,21 +14,48 @@ import java.util.Date;
 /**
  * Entidad que representa un Ciudadano en el sistema.
  * Contiene información sobre la composición y estado del Ciudadano
+ * Los UPDATE incluyen solo las columnas modificadas
  */
 @Entity
 @Table(name = "ciudadano")
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Ciudadano.REGION_CACHE)
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
 public class Ciudadano {
 
+    /**
+     * Cantidad de IDs que reserva cada instancia por acceso a la tabla de secuencias
+     */
+    public static final int TAMANIO_ASIGNACION_ID = 50;
+
+    /**
+     * Región del cache de segundo nivel con los ciudadanos
+     */
+    public static final String REGION_CACHE = "ciudadano";
+
     /**
      * Identificador único del ciudadano
+     * Se genera con una tabla de secuencias con asignación por bloques (pooled),
+     * lo que permite a Hibernate agrupar los INSERT en lotes JDBC
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TableGenerator(name = "ciudadano_id", table = "secuencia_id", pkColumnName = "nombre",
+            valueColumnName = "valor", pkColumnValue = "ciudadano", allocationSize = TAMANIO_ASIGNACION_ID)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "ciudadano_id")
     private int id;
 
+    /**
+     * Versión del registro, aumenta con cada modificación
+     * Se usa para el control de concurrencia optimista y como ETag en las consultas por ID
+     */
+    @Version
+    @Column(nullable = false)
+    @JsonIgnore
+    private long version;
+
     /**
      * Run del ciudadano
      * Debe ser un valor no nulo, único y con una longitud máxima recomendada de 8 caracteres
@@ -77,9 +108,10 @@ public class Ciudadano {
 
     /**
      * Credenciales
-     * Relación uno-a-muchos
+     * Relación uno-a-uno de carga diferida: los listados la obtienen en la misma consulta
+     * y las operaciones que no la usan no la leen
      */
-    @OneToOne(cascade = CascadeType.ALL)
+    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JoinColumn(name = "credenciales_id", referencedColumnName = "id")
     private Credencial credencial;
 
@@ -1,28 +1,71 @@
 package com.SAFE_Rescue.API_Ciudadano.modelo;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.Date;
 
 /**
  * Entidad que representa un credencial en el sistema.
  * Contiene información sobre la composición y estado del credencial
+ * Los UPDATE incluyen solo las columnas modificadas
  */
 @Entity
 @Table(name = "credencial_ciudadana")
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Credencial.REGION_CACHE)
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
 public class Credencial {
 
+    /**
+     * Cantidad de IDs que reserva cada instancia por acceso a la tabla de secuencias
+     */
+    public static final int TAMANIO_ASIGNACION_ID = 50;
+
+    /**
+     * Región del cache de segundo nivel con las credenciales
+     */
+    public static final String REGION_CACHE = "credencial";
+
+    /**
+     * Región del cache de consultas con los resultados de las búsquedas por correo
+     */
+    public static final String REGION_CONSULTAS = "consultas-credencial";
+
     /**
      * Identificador único del credencial
+     * Se genera con una tabla de secuencias con asignación por bloques (pooled),
+     * lo que permite a Hibernate agrupar los INSERT en lotes JDBC
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TableGenerator(name = "credencial_id", table = "secuencia_id", pkColumnName = "nombre",
+            valueColumnName = "valor", pkColumnValue = "credencial_ciudadana", allocationSize = TAMANIO_ASIGNACION_ID)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "credencial_id")
     private int id;
 
+    /**
+     * Versión del registro, aumenta con cada modificación
+     * Se usa para el control de concurrencia optimista y como ETag en las consultas por ID
+     */
+    @Version
+    @Column(nullable = false)
+    @JsonIgnore
+    private long version;
+
     /**
      * Correo de la credencial
      * Debe ser un valor no nulo y con una longitud máxima recomendada de 80 caracteres
@@ -32,9 +75,12 @@ public class Credencial {
 
     /**
      * Contrasenia de la credencial
-     * Debe ser un valor no nulo y con una longitud máxima recomendada de 16 caracteres
+     * Se recibe en texto plano con una longitud máxima de 16 caracteres y se guarda como hash BCrypt.
+     * Las credenciales antiguas pueden conservar la contraseña en texto plano hasta su próximo inicio de sesión.
+     * Nunca se incluye en las respuestas JSON
      */
-    @Column(length = 16, nullable = false)
+    @Column(length = 60, nullable = false)
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String contrasenia;
 
     /**
@@ -51,5 +97,21 @@ public class Credencial {
     @Column(nullable = false)
     private boolean activo;
 
+    /**
+     * Fecha hasta la que la credencial está bloqueada por intentos fallidos
+     * Es nula cuando la credencial no está bloqueada
+     */
+    @Column(name = "bloqueado_hasta", nullable = true)
+    private Date bloqueadoHasta;
+
+    /**
+     * Indica que contrasenia ya contiene el hash calculado por el servidor antes de abrir la transacción
+     * No se guarda ni se lee del JSON: un valor recibido del cliente siempre se codifica o se rechaza
+     */
+    @Transient
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private boolean contraseniaCodificada;
 
 }
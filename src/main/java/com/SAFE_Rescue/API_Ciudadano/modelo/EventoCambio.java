@@ -0,0 +1,87 @@
+package com.SAFE_Rescue.API_Ciudadano.modelo;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * Entidad que representa un cambio en un ciudadano o una credencial, guardado en la tabla
+ * de salida (outbox) en la misma transacción que el cambio.
+ * El relevo de cambios le asigna una posición al publicarlo; los consumidores leen los
+ * cambios en el orden de esa posición.
+ */
+@Entity
+@Table(name = "evento_cambio")
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class EventoCambio {
+
+    public static final String CIUDADANO = "ciudadano";
+    public static final String CREDENCIAL = "credencial";
+
+    public static final String CREADO = "creado";
+    public static final String ACTUALIZADO = "actualizado";
+    public static final String ELIMINADO = "eliminado";
+
+    /**
+     * Identificador del evento, en el orden en que se registró
+     * Dos eventos de una misma entidad quedan en el orden de sus transacciones, porque el
+     * evento se inserta después de escribir la entidad
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @JsonIgnore
+    private long id;
+
+    /**
+     * Posición del evento en la secuencia publicada, sin saltos
+     * Es nula mientras el evento no se publica
+     */
+    @Column(unique = true)
+    private Long posicion;
+
+    /**
+     * Tipo de entidad modificada: ciudadano o credencial
+     */
+    @Column(length = 20, nullable = false)
+    private String entidad;
+
+    /**
+     * ID de la entidad modificada
+     */
+    @Column(name = "entidad_id", nullable = false)
+    private int entidadId;
+
+    /**
+     * Operación realizada: creado, actualizado o eliminado
+     */
+    @Column(length = 20, nullable = false)
+    private String operacion;
+
+    /**
+     * Versión de la entidad después del cambio, o la última versión si fue eliminada
+     */
+    @Column(nullable = false)
+    private long version;
+
+    /**
+     * JSON de la entidad después del cambio, igual al que entrega la API
+     * Es nulo si la entidad fue eliminada
+     */
+    @Column(length = 2000)
+    @JsonRawValue
+    private String datos;
+
+    /**
+     * Fecha en que se confirmó el cambio
+     */
+    @Column(nullable = false)
+    private Date fecha;
+
+}
@@ -0,0 +1,34 @@
+package com.SAFE_Rescue.API_Ciudadano.modelo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Representa una página de la lectura incremental de cambios.
+ * Contiene los cambios publicados después de la posición solicitada y la posición desde la que
+ * se debe pedir la siguiente página
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class PaginaCambios {
+
+    /**
+     * Cambios de la página, ordenados por posición ascendente
+     */
+    private List<EventoCambio> eventos;
+
+    /**
+     * Posición del último cambio entregado, o la posición solicitada si no hubo cambios nuevos
+     */
+    private long siguienteDesde;
+
+    /**
+     * Indica si quedan cambios publicados después de esta página
+     */
+    private boolean hayMas;
+
+}
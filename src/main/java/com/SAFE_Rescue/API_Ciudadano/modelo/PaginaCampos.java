@@ -0,0 +1,30 @@
+package com.SAFE_Rescue.API_Ciudadano.modelo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Representa una página del listado de ciudadanos con solo los campos pedidos.
+ * Contiene los campos de cada ciudadano y el cursor para solicitar la siguiente
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class PaginaCampos {
+
+    /**
+     * Campos pedidos de cada ciudadano de la página, ordenados por ID ascendente
+     */
+    private List<Map<String, Object>> ciudadanos;
+
+    /**
+     * Cursor opaco para obtener la siguiente página
+     * Es nulo cuando no quedan más registros
+     */
+    private String siguienteCursor;
+
+}
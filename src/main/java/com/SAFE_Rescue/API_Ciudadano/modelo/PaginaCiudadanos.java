@@ -0,0 +1,29 @@
+package com.SAFE_Rescue.API_Ciudadano.modelo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Representa una página del listado de ciudadanos.
+ * Contiene los ciudadanos de la página y el cursor para solicitar la siguiente
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class PaginaCiudadanos {
+
+    /**
+     * Ciudadanos de la página, ordenados por ID ascendente
+     */
+    private List<Ciudadano> ciudadanos;
+
+    /**
+     * Cursor opaco para obtener la siguiente página
+     * Es nulo cuando no quedan más registros
+     */
+    private String siguienteCursor;
+
+}
@@ -0,0 +1,34 @@
+package com.SAFE_Rescue.API_Ciudadano.modelo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado de un ID en una búsqueda de varios ciudadanos por ID.
+ * Indica si el ciudadano fue encontrado y, en ese caso, lo incluye
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class ResultadoBusquedaId {
+
+    public static final String ENCONTRADO = "ENCONTRADO";
+    public static final String NO_ENCONTRADO = "NO_ENCONTRADO";
+
+    /**
+     * ID solicitado
+     */
+    private long id;
+
+    /**
+     * Estado del ID: ENCONTRADO o NO_ENCONTRADO
+     */
+    private String estado;
+
+    /**
+     * Ciudadano encontrado, o solo los campos pedidos con fields; nulo si no fue encontrado
+     */
+    private Object ciudadano;
+
+}
@@ -0,0 +1,53 @@
+package com.SAFE_Rescue.API_Ciudadano.modelo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Informe de una carga masiva de ciudadanos.
+ * Contiene los totales y el resultado de cada fila recibida
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class ResultadoCargaMasiva {
+
+    /**
+     * Cantidad de filas recibidas
+     */
+    private int total;
+
+    /**
+     * Cantidad de ciudadanos creados
+     */
+    private int creados;
+
+    /**
+     * Cantidad de filas rechazadas
+     */
+    private int rechazados;
+
+    /**
+     * Resultado de cada fila en el orden recibido
+     */
+    private List<ResultadoFila> filas = new ArrayList<>();
+
+    /**
+     * Registra el resultado de una fila y actualiza los totales
+     * @param resultado Resultado de la fila
+     */
+    public void agregar(ResultadoFila resultado) {
+        filas.add(resultado);
+        total++;
+        if (ResultadoFila.CREADO.equals(resultado.getEstado())) {
+            creados++;
+        } else {
+            rechazados++;
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.SAFE_Rescue.API_Ciudadano.modelo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado del procesamiento de una fila en una carga masiva.
+ * Indica si el ciudadano fue creado o el motivo por el que se rechazó
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class ResultadoFila {
+
+    public static final String CREADO = "CREADO";
+    public static final String RECHAZADO = "RECHAZADO";
+
+    /**
+     * Posición de la fila en la carga, comenzando en 1
+     */
+    private int fila;
+
+    /**
+     * Estado final de la fila: CREADO o RECHAZADO
+     */
+    private String estado;
+
+    /**
+     * ID asignado al ciudadano creado, nulo si la fila fue rechazada
+     */
+    private Integer id;
+
+    /**
+     * Motivo del rechazo, nulo si la fila fue creada
+     */
+    private String mensaje;
+
+}
@@ -1,9 +1,18 @@
 package com.SAFE_Rescue.API_Ciudadano.repository;
 
 import com.SAFE_Rescue.API_Ciudadano.modelo.Ciudadano;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Repositorio para la gestión de credenciales
  * Maneja operaciones CRUD desde la base de datos usando Jakarta
@@ -12,8 +21,113 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface CiudadanoRepository extends JpaRepository<Ciudadano, Long> {
 
+    /**
+     * Obtiene todos los ciudadanos junto a su credencial en una sola consulta
+     * @return Lista completa de ciudadanos
+     */
+    @Override
+    @EntityGraph(attributePaths = "credencial")
+    List<Ciudadano> findAll();
+
+    /**
+     * Verifica si existe un ciudadano con el RUN indicado
+     * @param run RUN a verificar
+     * @return true si el RUN ya está registrado
+     */
     public boolean existsByRun(Long run);
 
+    /**
+     * Verifica si existe un ciudadano con el telefono indicado
+     * @param telefono Telefono a verificar
+     * @return true si el telefono ya está registrado
+     */
     public boolean existsByTelefono(Long telefono);
 
-}
\ No newline at end of file
+    /**
+     * Busca un ciudadano por su RUN
+     * @param run RUN del ciudadano
+     * @return Ciudadano encontrado, vacío si el RUN no está registrado
+     */
+    Optional<Ciudadano> findByRun(Long run);
+
+    /**
+     * Busca un ciudadano por su telefono
+     * @param telefono Telefono del ciudadano
+     * @return Ciudadano encontrado, vacío si el telefono no está registrado
+     */
+    Optional<Ciudadano> findByTelefono(Long telefono);
+
+    /**
+     * Busca en una sola consulta cuáles valores únicos ya pertenecen a otro ciudadano o credencial.
+     * Los parámetros nulos no se verifican.
+     * @param id ID del ciudadano que se guarda, se excluye de la búsqueda (0 para uno nuevo)
+     * @param run RUN a verificar
+     * @param telefono Telefono a verificar
+     * @param correo Correo de la credencial a verificar
+     * @param credencialId ID de la credencial del ciudadano, se excluye de la búsqueda (0 para una nueva)
+     * @return Nombres de los campos en conflicto: run, telefono y/o correo
+     */
+    @Query(value = "select 'run' from ciudadano where run = :run and id <> :id " +
+            "union all select 'telefono' from ciudadano where telefono = :telefono and id <> :id " +
+            "union all select 'correo' from credencial_ciudadana where correo = :correo and id <> :credencialId",
+            nativeQuery = true)
+    List<String> buscarConflictos(@Param("id") int id,
+                                  @Param("run") Long run,
+                                  @Param("telefono") Long telefono,
+                                  @Param("correo") String correo,
+                                  @Param("credencialId") int credencialId);
+
+    /**
+     * Obtiene cuáles de los RUN indicados ya están registrados
+     * @param runs RUN a verificar
+     * @return RUN que ya existen
+     */
+    @Query("select c.run from Ciudadano c where c.run in :runs")
+    List<Long> findRunsExistentes(@Param("runs") Collection<Long> runs);
+
+    /**
+     * Obtiene cuáles de los telefonos indicados ya están registrados
+     * @param telefonos Telefonos a verificar
+     * @return Telefonos que ya existen
+     */
+    @Query("select c.telefono from Ciudadano c where c.telefono in :telefonos")
+    List<Long> findTelefonosExistentes(@Param("telefonos") Collection<Long> telefonos);
+
+    /**
+     * Obtiene los ciudadanos con los IDs indicados junto a su credencial en una sola consulta
+     * @param ids IDs de los ciudadanos
+     * @return Ciudadanos encontrados, en cualquier orden; los IDs inexistentes no se incluyen
+     */
+    @Query("select c from Ciudadano c left join fetch c.credencial where c.id in :ids")
+    List<Ciudadano> buscarPorIds(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Obtiene una página de ciudadanos usando paginación por clave (keyset).
+     * Recorre la llave primaria, por lo que el costo no crece con el número de páginas ya leídas.
+     * La credencial de cada ciudadano se obtiene en la misma consulta.
+     * @param despuesDe ID del último ciudadano de la página anterior (exclusivo)
+     * @param desde Fecha de registro mínima (inclusiva), puede ser nula
+     * @param hasta Fecha de registro máxima (exclusiva), puede ser nula
+     * @param limite Cantidad máxima de filas a leer
+     * @return Ciudadanos ordenados por ID ascendente
+     */
+    @Query("select c from Ciudadano c left join fetch c.credencial where c.id > :despuesDe " +
+            "and (:desde is null or c.fechaRegistro >= :desde) " +
+            "and (:hasta is null or c.fechaRegistro < :hasta) " +
+            "order by c.id")
+    List<Ciudadano> buscarPagina(@Param("despuesDe") int despuesDe,
+                                 @Param("desde") Date desde,
+                                 @Param("hasta") Date hasta,
+                                 Limit limite);
+
+    /**
+     * Obtiene la versión de un ciudadano y la de su credencial sin cargar las entidades.
+     * La respuesta del ciudadano incluye su credencial, por lo que ambas versiones forman el ETag
+     * @param id ID del ciudadano
+     * @return Versiones como "ciudadano-credencial", vacío si el ciudadano no existe
+     */
+    @Query("select concat(str(c.version), '-', str(coalesce(cr.version, 0))) " +
+            "from Ciudadano c left join c.credencial cr where c.id = :id")
+    Optional<String> findVersiones(@Param("id") int id);
+
+}
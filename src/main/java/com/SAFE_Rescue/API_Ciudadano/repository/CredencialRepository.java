@@ -1,8 +1,19 @@
 package com.SAFE_Rescue.API_Ciudadano.repository;
 
 import com.SAFE_Rescue.API_Ciudadano.modelo.Credencial;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Repositorio para la gestión de credenciales
@@ -12,8 +23,47 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface CredencialRepository extends JpaRepository<Credencial, Long> {
 
+    /**
+     * Busca la credencial de un correo
+     * El ID encontrado se guarda en el cache de consultas hasta la próxima escritura en la tabla
+     * credencial_ciudadana, y la credencial se obtiene del cache de segundo nivel
+     * @param correo Correo de la credencial
+     * @return Credencial encontrada o null si no existe
+     */
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = Credencial.REGION_CONSULTAS)})
     Credencial findByCorreo(String correo);
 
     public boolean existsByCorreo(String correo);
+
+    public boolean existsByCorreoAndIdNot(String correo, int id);
+
+    /**
+     * Obtiene cuáles de los correos indicados ya están registrados
+     * @param correos Correos a verificar
+     * @return Correos que ya existen
+     */
+    @Query("select c.correo from Credencial c where c.correo in :correos")
+    List<String> findCorreosExistentes(@Param("correos") Collection<String> correos);
+
+    /**
+     * Reemplaza la contraseña guardada solo si no cambió desde que se leyó
+     * @param id ID de la credencial
+     * @param anterior Valor leído antes de calcular el nuevo hash
+     * @param nueva Nuevo hash
+     * @return Filas actualizadas, 0 si la contraseña cambió entretanto
+     */
+    @Transactional
+    @Modifying
+    @Query("update versioned Credencial c set c.contrasenia = :nueva where c.id = :id and c.contrasenia = :anterior")
+    int actualizarContrasenia(@Param("id") int id, @Param("anterior") String anterior, @Param("nueva") String nueva);
+
+    /**
+     * Obtiene la versión de una credencial sin cargar la entidad
+     * @param id ID de la credencial
+     * @return Versión de la credencial, vacío si no existe
+     */
+    @Query("select c.version from Credencial c where c.id = :id")
+    Optional<Long> findVersion(@Param("id") int id);
 }
 
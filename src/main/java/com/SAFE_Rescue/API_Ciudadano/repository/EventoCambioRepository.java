@@ -0,0 +1,39 @@
+package com.SAFE_Rescue.API_Ciudadano.repository;
+
+import com.SAFE_Rescue.API_Ciudadano.modelo.EventoCambio;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repositorio para la tabla de salida de cambios
+ * Los eventos se insertan por lotes con JDBC al confirmar cada transacción (ver RegistroCambios)
+ */
+@Repository
+public interface EventoCambioRepository extends JpaRepository<EventoCambio, Long> {
+
+    /**
+     * Obtiene los eventos aún no publicados, en el orden en que se registraron
+     * @param limite Cantidad máxima de eventos
+     * @return Eventos sin posición ordenados por ID
+     */
+    List<EventoCambio> findByPosicionIsNullOrderById(Limit limite);
+
+    /**
+     * Obtiene los eventos publicados después de una posición
+     * @param posicion Posición del último evento leído (exclusiva)
+     * @param limite Cantidad máxima de eventos
+     * @return Eventos ordenados por posición
+     */
+    List<EventoCambio> findByPosicionGreaterThanOrderByPosicion(long posicion, Limit limite);
+
+    /**
+     * Obtiene la menor posición publicada que aún se conserva
+     * @return Menor posición, o null si no hay eventos publicados
+     */
+    @Query("select min(e.posicion) from EventoCambio e")
+    Long findPosicionMinima();
+}
@@ -0,0 +1,148 @@
+package com.SAFE_Rescue.API_Ciudadano.service;
+
+import com.SAFE_Rescue.API_Ciudadano.modelo.Credencial;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Cache en memoria de las credenciales consultadas al iniciar sesión.
+ * Las entradas se indexan por correo normalizado, están acotadas por cantidad
+ * y expiran tras un tiempo fijo desde que se cargaron.
+ * Guarda copias inmutables, nunca entidades administradas por JPA.
+ */
+@Component
+public class CacheCredenciales implements MeterBinder {
+
+    /**
+     * Datos de una credencial necesarios para verificar un inicio de sesión
+     * @param id Identificador de la credencial
+     * @param correo Correo de la credencial
+     * @param contrasenia Contrasenia de la credencial
+     * @param intentosFallidos Intentos fallidos guardados al momento de la carga
+     * @param bloqueadoHasta Fin del bloqueo en milisegundos al momento de la carga, 0 si no está bloqueada
+     */
+    public record CredencialCacheada(int id, String correo, String contrasenia,
+                                     int intentosFallidos, long bloqueadoHasta) {
+
+        static CredencialCacheada de(Credencial credencial) {
+            return new CredencialCacheada(credencial.getId(), credencial.getCorreo(), credencial.getContrasenia(),
+                    credencial.getIntentosFallidos(),
+                    credencial.getBloqueadoHasta() == null ? 0 : credencial.getBloqueadoHasta().getTime());
+        }
+    }
+
+    @Value("${credenciales.cache.tamanio-maximo:10000}")
+    private long tamanioMaximo;
+
+    @Value("${credenciales.cache.ttl:5m}")
+    private Duration ttl;
+
+    private Cache<String, CredencialCacheada> cache;
+
+    @PostConstruct
+    void iniciar() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(tamanioMaximo)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Obtiene la credencial asociada a un correo, cargándola si no está en cache.
+     * Las credenciales inexistentes no se guardan en cache.
+     * La carga se hace fuera del cache y no dentro de Cache.get: ese método la ejecuta con
+     * el bloqueo synchronized de ConcurrentHashMap tomado, y con hilos virtuales una consulta
+     * que espera conexión del pool dentro de ese bloqueo fija el hilo portador.
+     * Dos cargas simultáneas del mismo correo leen la base de datos dos veces.
+     * @param correo Correo de la credencial
+     * @param cargador Función que busca la credencial en la base de datos
+     * @return Credencial encontrada o null si no existe
+     */
+    public CredencialCacheada obtener(String correo, Function<String, Credencial> cargador) {
+        String clave = normalizar(correo);
+        CredencialCacheada cacheada = cache.getIfPresent(clave);
+        if (cacheada != null) {
+            return cacheada;
+        }
+        Credencial credencial = cargador.apply(correo);
+        if (credencial == null) {
+            return null;
+        }
+        cacheada = CredencialCacheada.de(credencial);
+        cache.put(clave, cacheada);
+        return cacheada;
+    }
+
+    /**
+     * Elimina del cache la credencial de un correo.
+     * Si hay una transacción activa se vuelve a eliminar al terminarla, para descartar
+     * una carga concurrente que haya leído los datos anteriores al cambio.
+     * @param correo Correo de la credencial modificada, se ignora si es nulo
+     */
+    public void invalidar(String correo) {
+        if (correo == null) {
+            return;
+        }
+        String clave = normalizar(correo);
+        cache.invalidate(clave);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(clave);
+                }
+            });
+        }
+    }
+
+    /**
+     * Publica los contadores del cache como métricas cache.* con la etiqueta cache=credenciales
+     * @param registry Registro de métricas
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "credenciales");
+    }
+
+    /**
+     * Obtiene los contadores del cache
+     * @return Aciertos, fallos, desalojos y tamaño actual
+     */
+    public Map<String, Object> estadisticas() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> estadisticas = new LinkedHashMap<>();
+        estadisticas.put("aciertos", stats.hitCount());
+        estadisticas.put("fallos", stats.missCount());
+        estadisticas.put("desalojos", stats.evictionCount());
+        estadisticas.put("tasaAciertos", stats.hitRate());
+        estadisticas.put("tamanio", cache.estimatedSize());
+        return estadisticas;
+    }
+
+    /**
+     * Normaliza un correo para usarlo como llave
+     * @param correo Correo recibido
+     * @return Correo sin espacios exteriores y en minúsculas
+     */
+    private String normalizar(String correo) {
+        return correo.trim().toLowerCase(Locale.ROOT);
+    }
+
+}
@@ -0,0 +1,117 @@
+package com.SAFE_Rescue.API_Ciudadano.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache en memoria del JSON ya serializado de los ciudadanos consultados por ID.
+ * Guarda los bytes UTF-8 de la respuesta junto al ETag (versiones del ciudadano y su credencial)
+ * con que se generaron, y solo los entrega si ese ETag sigue vigente, por lo que un cambio que no
+ * pase por CiudadanoService tampoco entrega datos antiguos.
+ * El cache está acotado por la suma de bytes guardados y descarta los ciudadanos menos consultados.
+ */
+@Component
+public class CacheJsonCiudadanos implements MeterBinder {
+
+    /**
+     * Bytes aproximados que ocupa cada entrada además del JSON: llave, registro, ETag y nodo del cache
+     */
+    private static final int BYTES_POR_ENTRADA = 128;
+
+    /**
+     * JSON serializado de un ciudadano
+     * @param etag ETag de la versión serializada del ciudadano y su credencial
+     * @param json Bytes UTF-8 del JSON
+     */
+    public record JsonCiudadano(String etag, byte[] json) {
+    }
+
+    @Value("${ciudadanos.cache-json.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${ciudadanos.cache-json.tamanio-maximo:64MB}")
+    private DataSize tamanioMaximo;
+
+    private Cache<Integer, JsonCiudadano> cache;
+
+    @PostConstruct
+    void iniciar() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(tamanioMaximo.toBytes())
+                .weigher((Integer id, JsonCiudadano entrada) -> BYTES_POR_ENTRADA + entrada.json().length)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Obtiene el JSON de un ciudadano si fue serializado con el ETag indicado
+     * @param id ID del ciudadano
+     * @param etag ETag vigente del ciudadano
+     * @return Bytes del JSON, o null si no está en cache, corresponde a otra versión o el cache está deshabilitado
+     */
+    public byte[] obtener(int id, String etag) {
+        if (!habilitado) {
+            return null;
+        }
+        JsonCiudadano entrada = cache.getIfPresent(id);
+        return entrada != null && entrada.etag().equals(etag) ? entrada.json() : null;
+    }
+
+    /**
+     * Guarda el JSON serializado de un ciudadano, reemplazando el de otra versión
+     * @param id ID del ciudadano
+     * @param json JSON serializado con su ETag; los bytes no deben modificarse después de guardarlos
+     */
+    public void guardar(int id, JsonCiudadano json) {
+        if (habilitado) {
+            cache.put(id, json);
+        }
+    }
+
+    /**
+     * Elimina el JSON de un ciudadano modificado o eliminado, para liberar su espacio
+     * @param id ID del ciudadano
+     */
+    public void invalidar(int id) {
+        cache.invalidate(id);
+    }
+
+    /**
+     * Publica los contadores del cache como métricas cache.* con la etiqueta cache=json-ciudadanos
+     * @param registry Registro de métricas
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "json-ciudadanos");
+    }
+
+    /**
+     * Obtiene los contadores del cache
+     * @return Aciertos, fallos, desalojos, entradas y bytes ocupados
+     */
+    public Map<String, Object> estadisticas() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> estadisticas = new LinkedHashMap<>();
+        estadisticas.put("habilitado", habilitado);
+        estadisticas.put("aciertos", stats.hitCount());
+        estadisticas.put("fallos", stats.missCount());
+        estadisticas.put("desalojos", stats.evictionCount());
+        estadisticas.put("tasaAciertos", stats.hitRate());
+        estadisticas.put("tamanio", cache.estimatedSize());
+        estadisticas.put("bytesUsados", cache.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L));
+        estadisticas.put("bytesMaximos", tamanioMaximo.toBytes());
+        return estadisticas;
+    }
+
+}
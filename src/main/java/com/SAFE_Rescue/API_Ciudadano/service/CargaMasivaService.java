@@ -0,0 +1,349 @@
+package com.SAFE_Rescue.API_Ciudadano.service;
+
+import com.SAFE_Rescue.API_Ciudadano.config.CuposInserciones;
+import com.SAFE_Rescue.API_Ciudadano.modelo.Ciudadano;
+import com.SAFE_Rescue.API_Ciudadano.modelo.Credencial;
+import com.SAFE_Rescue.API_Ciudadano.modelo.EventoCambio;
+import com.SAFE_Rescue.API_Ciudadano.modelo.ResultadoCargaMasiva;
+import com.SAFE_Rescue.API_Ciudadano.modelo.ResultadoFila;
+import com.SAFE_Rescue.API_Ciudadano.repository.CiudadanoRepository;
+import com.SAFE_Rescue.API_Ciudadano.repository.CredencialRepository;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Servicio para la carga masiva de ciudadanos
+ * Procesa la carga por lotes: valida los campos de cada fila, verifica la unicidad
+ * del lote completo con consultas por conjunto e inserta los válidos en lotes JDBC.
+ * Cada inserción toma un cupo de {@link CuposInserciones}, porque el generador de IDs
+ * usa una segunda conexión mientras la transacción del lote mantiene la suya.
+ */
+@Service
+@Timed(value = "servicio", description = "Duración de los métodos públicos de los servicios")
+public class CargaMasivaService {
+
+    private static final Logger log = LoggerFactory.getLogger(CargaMasivaService.class);
+
+    // REPOSITORIOS INYECTADOS
+    @Autowired private CiudadanoRepository ciudadanoRepository;
+    @Autowired private CredencialRepository credencialRepository;
+
+    // SERVICIOS INYECTADOS
+    @Autowired private CiudadanoService ciudadanoService;
+    @Autowired private CredencialService credencialService;
+    @Autowired private IndiceUnicidad indiceUnicidad;
+    @Autowired private IndiceNombres indiceNombres;
+    @Autowired private HashContrasenias hashContrasenias;
+    @Autowired private RegistroCambios registroCambios;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private CuposInserciones cuposInserciones;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${ciudadanos.carga-masiva.tamanio-lote:500}")
+    private int tamanioLote;
+
+    /**
+     * Importa ciudadanos desde un arreglo JSON o un flujo NDJSON.
+     * Cada lote se confirma en su propia transacción, de modo que un lote con errores
+     * no revierte los lotes anteriores.
+     * @param entrada Contenido de la carga
+     * @return Informe con el resultado de cada fila
+     * @throws IOException Si no se puede leer la entrada
+     */
+    public ResultadoCargaMasiva importar(InputStream entrada) throws IOException {
+        ResultadoCargaMasiva resultado = new ResultadoCargaMasiva();
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+
+        List<Ciudadano> lote = new ArrayList<>(tamanioLote);
+        List<Integer> filasLote = new ArrayList<>(tamanioLote);
+        int fila = 0;
+
+        try (MappingIterator<Ciudadano> lector = objectMapper.readerFor(Ciudadano.class).readValues(entrada)) {
+            while (lector.hasNextValue()) {
+                fila++;
+                try {
+                    lote.add(lector.nextValue());
+                    filasLote.add(fila);
+                } catch (JsonParseException e) {
+                    throw e;
+                } catch (JsonMappingException e) {
+                    procesarLote(lote, filasLote, resultado, transaccion);
+                    resultado.agregar(rechazada(fila, "Fila con formato inválido: " + e.getOriginalMessage()));
+                    continue;
+                }
+
+                if (lote.size() == tamanioLote) {
+                    procesarLote(lote, filasLote, resultado, transaccion);
+                }
+            }
+        } catch (JsonParseException e) {
+            procesarLote(lote, filasLote, resultado, transaccion);
+            resultado.agregar(rechazada(fila, "Contenido JSON inválido, se detuvo la carga: " + e.getOriginalMessage()));
+            return resultado;
+        }
+
+        procesarLote(lote, filasLote, resultado, transaccion);
+        return resultado;
+    }
+
+    // MÉTODOS PRIVADOS DE PROCESAMIENTO
+
+    /**
+     * Valida e inserta un lote de ciudadanos, luego vacía el lote
+     * @param lote Ciudadanos leídos
+     * @param filasLote Número de fila de cada ciudadano del lote
+     * @param resultado Informe donde se registra cada fila
+     * @param transaccion Plantilla para abrir la transacción del lote
+     */
+    private void procesarLote(List<Ciudadano> lote, List<Integer> filasLote,
+                              ResultadoCargaMasiva resultado, TransactionTemplate transaccion) {
+        if (lote.isEmpty()) {
+            return;
+        }
+
+        ResultadoFila[] resultados = new ResultadoFila[lote.size()];
+        Set<Long> runs = new HashSet<>();
+        Set<Long> telefonos = new HashSet<>();
+        Set<String> correos = new HashSet<>();
+
+        // Validación de campos y de repetidos dentro del mismo lote
+        for (int i = 0; i < lote.size(); i++) {
+            Ciudadano ciudadano = lote.get(i);
+            int fila = filasLote.get(i);
+            try {
+                if (ciudadano.getCredencial() == null) {
+                    throw new IllegalArgumentException("La credencial del ciudadano es requerida");
+                }
+                ciudadanoService.validarCamposCiudadano(ciudadano);
+                credencialService.validarCredencial(ciudadano.getCredencial());
+            } catch (RuntimeException e) {
+                resultados[i] = rechazada(fila, e.getMessage());
+                continue;
+            }
+
+            String correo = normalizarCorreo(ciudadano.getCredencial().getCorreo());
+            if (runs.contains(ciudadano.getRun())) {
+                resultados[i] = rechazada(fila, "El RUN está repetido en la carga");
+            } else if (telefonos.contains(ciudadano.getTelefono())) {
+                resultados[i] = rechazada(fila, "El Telefono está repetido en la carga");
+            } else if (correos.contains(correo)) {
+                resultados[i] = rechazada(fila, "El Correo está repetido en la carga");
+            } else {
+                runs.add(ciudadano.getRun());
+                telefonos.add(ciudadano.getTelefono());
+                correos.add(correo);
+            }
+        }
+
+        // Unicidad contra la base de datos: una consulta por campo para todo el lote,
+        // solo con los valores que el índice de unicidad no descarta
+        runs.removeIf(run -> !indiceUnicidad.puedeExistirRun(run));
+        telefonos.removeIf(telefono -> !indiceUnicidad.puedeExistirTelefono(telefono));
+        correos.removeIf(correo -> !indiceUnicidad.puedeExistirCorreo(correo));
+
+        if (!runs.isEmpty() || !telefonos.isEmpty() || !correos.isEmpty()) {
+            Set<Long> runsExistentes = runs.isEmpty()
+                    ? Set.of() : new HashSet<>(ciudadanoRepository.findRunsExistentes(runs));
+            Set<Long> telefonosExistentes = telefonos.isEmpty()
+                    ? Set.of() : new HashSet<>(ciudadanoRepository.findTelefonosExistentes(telefonos));
+            Set<String> correosExistentes = new HashSet<>();
+            if (!correos.isEmpty()) {
+                for (String correo : credencialRepository.findCorreosExistentes(correos)) {
+                    correosExistentes.add(normalizarCorreo(correo));
+                }
+            }
+
+            for (int i = 0; i < lote.size(); i++) {
+                if (resultados[i] != null) {
+                    continue;
+                }
+                Ciudadano ciudadano = lote.get(i);
+                if (runsExistentes.contains(ciudadano.getRun())) {
+                    resultados[i] = rechazada(filasLote.get(i), "El RUN ya existe");
+                } else if (telefonosExistentes.contains(ciudadano.getTelefono())) {
+                    resultados[i] = rechazada(filasLote.get(i), "El Telefono ya existe");
+                } else if (correosExistentes.contains(normalizarCorreo(ciudadano.getCredencial().getCorreo()))) {
+                    resultados[i] = rechazada(filasLote.get(i), "El correo ya está en uso");
+                }
+            }
+        }
+
+        List<Ciudadano> validos = new ArrayList<>();
+        List<Integer> posiciones = new ArrayList<>();
+        List<String> contrasenias = new ArrayList<>();
+        for (int i = 0; i < lote.size(); i++) {
+            if (resultados[i] == null) {
+                Ciudadano ciudadano = lote.get(i);
+                validos.add(ciudadano);
+                posiciones.add(i);
+                contrasenias.add(ciudadano.getCredencial().getContrasenia());
+            }
+        }
+
+        // Las contraseñas del lote se codifican en paralelo antes de abrir su transacción, en el
+        // ejecutor de la carga: no ocupan la cola del ejecutor de hash que usan los inicios de sesión
+        List<String> hashes = hashContrasenias.codificarLote(contrasenias);
+        for (int i = 0; i < validos.size(); i++) {
+            Credencial credencial = validos.get(i).getCredencial();
+            credencial.setContrasenia(hashes.get(i));
+            credencial.setContraseniaCodificada(true);
+        }
+
+        // Inserción en lotes JDBC dentro de una transacción por lote, con un cupo de inserción tomado por
+        // lote y no por toda la carga. Si el lote falla, por ejemplo por un RUN que otra instancia registró
+        // después de la verificación, se reintenta fila por fila para rechazar solo las filas que fallan,
+        // cada una con su causa
+        if (!validos.isEmpty()) {
+            if (!cuposInserciones.tomar()) {
+                for (int posicion : posiciones) {
+                    resultados[posicion] = rechazada(filasLote.get(posicion), "Servicio saturado, reintente la fila");
+                }
+            } else {
+                try {
+                    insertarLote(validos, posiciones, filasLote, resultados, transaccion);
+                } finally {
+                    cuposInserciones.liberar();
+                }
+            }
+        }
+
+        for (int i = 0; i < lote.size(); i++) {
+            if (resultados[i] == null) {
+                resultados[i] = new ResultadoFila(filasLote.get(i), ResultadoFila.CREADO, lote.get(i).getId(), null);
+            }
+            resultado.agregar(resultados[i]);
+        }
+
+        lote.clear();
+        filasLote.clear();
+    }
+
+    /**
+     * Inserta los ciudadanos válidos de un lote en una transacción; si falla, los inserta
+     * fila por fila y registra el rechazo de las filas que no se pudieron insertar
+     * @param validos Ciudadanos validados, con la contraseña ya codificada
+     * @param posiciones Posición en el lote de cada ciudadano válido
+     * @param filasLote Número de fila de cada ciudadano del lote
+     * @param resultados Resultados del lote, por posición
+     * @param transaccion Plantilla para abrir las transacciones
+     */
+    private void insertarLote(List<Ciudadano> validos, List<Integer> posiciones, List<Integer> filasLote,
+                              ResultadoFila[] resultados, TransactionTemplate transaccion) {
+        try {
+            insertar(validos, transaccion);
+        } catch (RuntimeException e) {
+            log.warn("No se pudo insertar un lote de {} filas de la carga masiva, se reintenta fila por fila",
+                    validos.size(), e);
+            for (int i = 0; i < validos.size(); i++) {
+                Ciudadano ciudadano = validos.get(i);
+                int posicion = posiciones.get(i);
+                try {
+                    insertar(List.of(ciudadano), transaccion);
+                } catch (RuntimeException errorFila) {
+                    log.warn("No se pudo insertar la fila {} de la carga masiva", filasLote.get(posicion), errorFila);
+                    resultados[posicion] = rechazada(filasLote.get(posicion), motivoRechazo(ciudadano, errorFila));
+                }
+            }
+        }
+    }
+
+    /**
+     * Inserta ciudadanos nuevos con sus credenciales en una transacción, usando lotes JDBC,
+     * y los registra en los índices en memoria una vez confirmada
+     * @param ciudadanos Ciudadanos validados, con la contraseña ya codificada
+     * @param transaccion Plantilla para abrir la transacción
+     * @throws RuntimeException Si la inserción falla; la transacción se revierte completa
+     */
+    private void insertar(List<Ciudadano> ciudadanos, TransactionTemplate transaccion) {
+        // Un reintento debe insertar los ciudadanos como nuevos y no con el ID del intento revertido
+        for (Ciudadano ciudadano : ciudadanos) {
+            ciudadano.setId(0);
+            ciudadano.getCredencial().setId(0);
+        }
+        transaccion.executeWithoutResult(estado -> {
+            ciudadanoRepository.saveAll(ciudadanos);
+            for (Ciudadano ciudadano : ciudadanos) {
+                registroCambios.credencial(EventoCambio.CREADO, ciudadano.getCredencial());
+                registroCambios.ciudadano(EventoCambio.CREADO, ciudadano);
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+        for (Ciudadano ciudadano : ciudadanos) {
+            indiceUnicidad.registrarCiudadano(ciudadano);
+            indiceUnicidad.registrarCorreo(ciudadano.getCredencial().getCorreo());
+            indiceNombres.registrar(ciudadano);
+        }
+    }
+
+    /**
+     * Obtiene el motivo por el que no se pudo insertar una fila.
+     * Un RUN, telefono o correo registrado después de la verificación del lote se informa igual que en
+     * la verificación; cualquier otro error se informa con la causa que entregó la base de datos.
+     * @param ciudadano Ciudadano que no se pudo insertar
+     * @param error Error de la inserción
+     * @return Motivo del rechazo
+     */
+    private String motivoRechazo(Ciudadano ciudadano, RuntimeException error) {
+        try {
+            List<String> conflictos = ciudadanoRepository.buscarConflictos(0, ciudadano.getRun(),
+                    ciudadano.getTelefono(), ciudadano.getCredencial().getCorreo(), 0);
+            if (conflictos.contains("run")) {
+                return "El RUN ya existe";
+            }
+            if (conflictos.contains("telefono")) {
+                return "El Telefono ya existe";
+            }
+            if (conflictos.contains("correo")) {
+                return "El correo ya está en uso";
+            }
+        } catch (RuntimeException e) {
+            log.warn("No se pudo consultar el conflicto de una fila rechazada de la carga masiva", e);
+        }
+        return "No se pudo insertar la fila: " + NestedExceptionUtils.getMostSpecificCause(error).getMessage();
+    }
+
+    /**
+     * Crea el resultado de una fila rechazada
+     * @param fila Número de fila
+     * @param mensaje Motivo del rechazo
+     * @return Resultado de la fila
+     */
+    private ResultadoFila rechazada(int fila, String mensaje) {
+        return new ResultadoFila(fila, ResultadoFila.RECHAZADO, null, mensaje);
+    }
+
+    /**
+     * Normaliza un correo para compararlo sin distinguir mayúsculas
+     * @param correo Correo a normalizar
+     * @return Correo sin espacios exteriores y en minúsculas
+     */
+    private String normalizarCorreo(String correo) {
+        return correo.trim().toLowerCase(Locale.ROOT);
+    }
+
+}
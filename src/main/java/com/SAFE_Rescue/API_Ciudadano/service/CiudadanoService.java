@@ -1,17 +1,53 @@
 package com.SAFE_Rescue.API_Ciudadano.service;
 
 import com.SAFE_Rescue.API_Ciudadano.modelo.Credencial;
+import com.SAFE_Rescue.API_Ciudadano.modelo.EventoCambio;
+import com.SAFE_Rescue.API_Ciudadano.modelo.PaginaCampos;
+import com.SAFE_Rescue.API_Ciudadano.modelo.PaginaCiudadanos;
+import com.SAFE_Rescue.API_Ciudadano.modelo.ResultadoBusquedaId;
 import com.SAFE_Rescue.API_Ciudadano.repository.CiudadanoRepository;
 import com.SAFE_Rescue.API_Ciudadano.modelo.Ciudadano;
 import com.SAFE_Rescue.API_Ciudadano.repository.CredencialRepository;
+import com.SAFE_Rescue.API_Ciudadano.util.CambiosParciales;
+import com.SAFE_Rescue.API_Ciudadano.util.IndiceTrigramas;
+import com.SAFE_Rescue.API_Ciudadano.util.MapaLongInt;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.CacheMode;
+import org.hibernate.Hibernate;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * Servicio para la gestión integral de ciudadano
@@ -19,6 +55,7 @@ import java.util.NoSuchElementException;
  * y validación de datos para ciudadano
  */
 @Service
+@Timed(value = "servicio", description = "Duración de los métodos públicos de los servicios")
 @Transactional
 public class CiudadanoService {
 
@@ -28,49 +65,409 @@ public class CiudadanoService {
 
     // SERVICIOS INYECTADOS
     @Autowired private CredencialService credencialService;
+    @Autowired private CacheCredenciales cacheCredenciales;
+    @Autowired private IndiceUnicidad indiceUnicidad;
+    @Autowired private ProyeccionCiudadanos proyeccionCiudadanos;
+    @Autowired private IndiceNombres indiceNombres;
+    @Autowired private CacheJsonCiudadanos cacheJsonCiudadanos;
+    @Autowired private RegistroCambios registroCambios;
+    @Autowired private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // CONFIGURACIÓN DE PAGINACIÓN
+    @Value("${ciudadanos.paginacion.tamanio-defecto:100}")
+    private int tamanioPaginaDefecto;
+
+    @Value("${ciudadanos.paginacion.tamanio-maximo:500}")
+    private int tamanioPaginaMaximo;
+
+    private static final String PREFIJO_CURSOR = "c:";
+
+    // CONFIGURACIÓN DE BÚSQUEDA POR NOMBRE
+    @Value("${ciudadanos.busqueda.limite-defecto:20}")
+    private int limiteBusquedaDefecto;
+
+    @Value("${ciudadanos.busqueda.limite-maximo:100}")
+    private int limiteBusquedaMaximo;
+
+    private static final int LARGO_MINIMO_BUSQUEDA = 3;
+    private static final String CAMPOS_BUSQUEDA = "id,run,dv,nombre,apaterno,amaterno,telefono";
+
+    // CONFIGURACIÓN DE BÚSQUEDA POR VARIOS IDS
+    @Value("${ciudadanos.batch-get.maximo-ids:1000}")
+    private int maximoIdsPorBusqueda;
+
+    @Value("${ciudadanos.batch-get.tamanio-bloque:100}")
+    private int tamanioBloqueIds;
+
+    // CAMPOS MODIFICABLES CON PATCH, CON LOS NOMBRES DEL JSON DEL CIUDADANO
+    private static final Map<String, Class<?>> CAMPOS_MODIFICABLES = new LinkedHashMap<>();
+
+    static {
+        CAMPOS_MODIFICABLES.put("run", Long.class);
+        CAMPOS_MODIFICABLES.put("dv", String.class);
+        CAMPOS_MODIFICABLES.put("nombre", String.class);
+        CAMPOS_MODIFICABLES.put("apaterno", String.class);
+        CAMPOS_MODIFICABLES.put("amaterno", String.class);
+        CAMPOS_MODIFICABLES.put("fechaRegistro", Date.class);
+        CAMPOS_MODIFICABLES.put("telefono", Long.class);
+    }
+
+    // CONFIGURACIÓN DE EXPORTACIÓN
+    @Value("${ciudadanos.export.tamanio-fetch:500}")
+    private int tamanioFetchExportacion;
 
 
     // MÉTODOS CRUD PRINCIPALES
 
     /**
-     * Obtiene todos los ciudadanos registrados en el sistema.
+     * Obtiene todos los ciudadanos registrados en el sistema junto a sus credenciales, en una sola consulta.
      * @return Lista completa de ciudadanos
      */
+    @Transactional(readOnly = true)
     public List<Ciudadano> findAll(){
         return ciudadanoRepository.findAll();
     }
 
     /**
-     * Busca un Ciudadano por su ID único.
+     * Obtiene una página de ciudadanos ordenada por ID.
+     * Lee una fila extra para saber si existe una página siguiente sin ejecutar un COUNT.
+     * @param cursor Cursor entregado por la página anterior, nulo para la primera página
+     * @param limite Tamaño de página solicitado, se acota al máximo configurado
+     * @param desde Fecha de registro mínima (inclusiva), puede ser nula
+     * @param hasta Fecha de registro máxima (exclusiva), puede ser nula
+     * @return Página de ciudadanos con el cursor de la siguiente página
+     * @throws IllegalArgumentException Si el cursor o el límite no son válidos
+     */
+    @Transactional(readOnly = true)
+    public PaginaCiudadanos findPagina(String cursor, Integer limite, Date desde, Date hasta) {
+        int tamanio = tamanioPagina(limite);
+        int despuesDe = cursor == null ? 0 : decodificarCursor(cursor);
+
+        List<Ciudadano> ciudadanos = ciudadanoRepository.buscarPagina(despuesDe, desde, hasta, Limit.of(tamanio + 1));
+
+        String siguienteCursor = null;
+        if (ciudadanos.size() > tamanio) {
+            ciudadanos = ciudadanos.subList(0, tamanio);
+            siguienteCursor = codificarCursor(ciudadanos.get(tamanio - 1).getId());
+        }
+        return new PaginaCiudadanos(ciudadanos, siguienteCursor);
+    }
+
+    /**
+     * Obtiene una página de ciudadanos ordenada por ID con solo los campos indicados.
+     * Selecciona únicamente las columnas de esos campos, sin crear entidades.
+     * @param cursor Cursor entregado por la página anterior, nulo para la primera página
+     * @param limite Tamaño de página solicitado, se acota al máximo configurado
+     * @param desde Fecha de registro mínima (inclusiva), puede ser nula
+     * @param hasta Fecha de registro máxima (exclusiva), puede ser nula
+     * @param campos Campos separados por coma, con los nombres del JSON del ciudadano
+     * @return Página con los campos de cada ciudadano y el cursor de la siguiente página
+     * @throws IllegalArgumentException Si el cursor, el límite o algún campo no son válidos
+     */
+    @Transactional(readOnly = true)
+    public PaginaCampos findPaginaCampos(String cursor, Integer limite, Date desde, Date hasta, String campos) {
+        List<String> pedidos = proyeccionCiudadanos.interpretar(campos);
+        int tamanio = tamanioPagina(limite);
+        int despuesDe = cursor == null ? 0 : decodificarCursor(cursor);
+
+        List<Map.Entry<Integer, Map<String, Object>>> filas =
+                proyeccionCiudadanos.buscarPagina(despuesDe, desde, hasta, tamanio + 1, pedidos);
+
+        String siguienteCursor = null;
+        if (filas.size() > tamanio) {
+            filas = filas.subList(0, tamanio);
+            siguienteCursor = codificarCursor(filas.get(tamanio - 1).getKey());
+        }
+        return new PaginaCampos(filas.stream().map(Map.Entry::getValue).toList(), siguienteCursor);
+    }
+
+    /**
+     * Busca ciudadanos por nombre y apellidos, sin distinguir tildes ni mayúsculas y tolerando
+     * palabras incompletas y errores de tipeo. El índice de nombres en memoria entrega los IDs
+     * ordenados por similitud y los campos se leen en una sola consulta por ID.
+     * @param texto Texto a buscar, con al menos 3 letras o dígitos
+     * @param limite Cantidad máxima de resultados, se acota al máximo configurado
+     * @param campos Campos separados por coma con los nombres del JSON del ciudadano, nulo para los campos por defecto
+     * @return Campos de cada ciudadano encontrado y su similitud, de mayor a menor similitud
+     * @throws IllegalArgumentException Si el texto es muy corto o el límite o algún campo no son válidos
+     * @throws IllegalStateException Si el índice de nombres aún se está cargando
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> buscarPorNombre(String texto, Integer limite, String campos) {
+        if (texto == null || IndiceTrigramas.normalizar(texto).replace(" ", "").length() < LARGO_MINIMO_BUSQUEDA) {
+            throw new IllegalArgumentException("La búsqueda debe tener al menos " + LARGO_MINIMO_BUSQUEDA + " letras o dígitos");
+        }
+        int cantidad = limite == null ? limiteBusquedaDefecto : limite;
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("El límite debe ser un número positivo");
+        }
+        List<String> pedidos = proyeccionCiudadanos.interpretar(campos == null ? CAMPOS_BUSQUEDA : campos);
+
+        List<IndiceTrigramas.Coincidencia> coincidencias =
+                indiceNombres.buscar(texto, Math.min(cantidad, limiteBusquedaMaximo));
+        Map<Integer, Map<String, Object>> filas = proyeccionCiudadanos.buscarPorIds(
+                coincidencias.stream().map(IndiceTrigramas.Coincidencia::id).toList(), pedidos);
+
+        List<Map<String, Object>> resultado = new ArrayList<>(coincidencias.size());
+        for (IndiceTrigramas.Coincidencia coincidencia : coincidencias) {
+            Map<String, Object> fila = filas.get(coincidencia.id());
+            if (fila != null) {
+                fila.put("similitud", Math.round(coincidencia.similitud() * 1000) / 1000.0);
+                resultado.add(fila);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Exporta los ciudadanos como NDJSON (un objeto JSON por línea), ordenados por ID.
+     * Recorre un cursor JDBC de solo avance y limpia el contexto de persistencia cada
+     * tamanio-fetch filas, por lo que la memoria usada no depende del tamaño de la tabla.
+     * @param desdeId ID del último ciudadano ya recibido (exclusivo), 0 para exportar todo
+     * @param salida Flujo donde se escribe cada ciudadano
+     * @return Cantidad de ciudadanos escritos
+     * @throws IOException Si falla la escritura, por ejemplo al desconectarse el cliente
+     */
+    @Transactional(readOnly = true)
+    public long exportar(int desdeId, OutputStream salida) throws IOException {
+        Session session = entityManager.unwrap(Session.class);
+        long escritos = 0;
+
+        try (ScrollableResults<Ciudadano> filas = session
+                .createQuery("select c from Ciudadano c left join fetch c.credencial " +
+                        "where c.id > :desdeId order by c.id", Ciudadano.class)
+                .setParameter("desdeId", desdeId)
+                .setFetchSize(tamanioFetchExportacion)
+                .setReadOnly(true)
+                .setCacheMode(CacheMode.IGNORE)
+                .scroll(ScrollMode.FORWARD_ONLY);
+             JsonGenerator generador = objectMapper.getFactory().createGenerator(salida)) {
+
+            generador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            while (filas.next()) {
+                objectMapper.writeValue(generador, filas.get());
+                generador.writeRaw('\n');
+
+                if (++escritos % tamanioFetchExportacion == 0) {
+                    session.clear();
+                    generador.flush();
+                }
+            }
+            generador.flush();
+        }
+        return escritos;
+    }
+
+    /**
+     * Busca un Ciudadano por su ID único, con su credencial cargada.
+     * Ambos se leen por ID, por lo que pueden obtenerse del cache de segundo nivel sin consultar la base de datos.
      * @param id Identificador del Ciudadano
      * @return Ciudadano encontrado
      * @throws NoSuchElementException Si no se encuentra el Ciudadano
      */
+    @Transactional(readOnly = true)
     public Ciudadano findByID(long id){
-        return ciudadanoRepository.findById(id)
+        Ciudadano ciudadano = ciudadanoRepository.findById(id)
+                .orElseThrow(() -> new NoSuchElementException("No se encontró Ciudadano con ID: " + id));
+        Hibernate.initialize(ciudadano.getCredencial());
+        return ciudadano;
+    }
+
+    /**
+     * Obtiene el ID del Ciudadano registrado con el RUN.
+     * El índice de unicidad entrega el ID, que se confirma leyendo el ciudadano por ID (desde el
+     * cache de segundo nivel si está disponible); si el índice no tiene un ID vigente siempre se busca por RUN
+     * en la base de datos, ya que el índice puede no tener aún un ciudadano guardado por otra instancia.
+     * Solo las validaciones de unicidad omiten la consulta cuando el índice descarta el valor.
+     * @param run RUN del Ciudadano
+     * @return ID del Ciudadano
+     * @throws NoSuchElementException Si no se encuentra el Ciudadano
+     */
+    @Transactional(readOnly = true)
+    public long findIdPorRun(long run){
+        return resolverId(indiceUnicidad.idPorRun(run),
+                ciudadano -> ciudadano.getRun() != null && ciudadano.getRun() == run,
+                () -> ciudadanoRepository.findByRun(run),
+                "No se encontró Ciudadano con RUN: " + run);
+    }
+
+    /**
+     * Obtiene el ID del Ciudadano registrado con el telefono.
+     * Se resuelve igual que {@link #findIdPorRun(long)}.
+     * @param telefono Telefono del Ciudadano
+     * @return ID del Ciudadano
+     * @throws NoSuchElementException Si no se encuentra el Ciudadano
+     */
+    @Transactional(readOnly = true)
+    public long findIdPorTelefono(long telefono){
+        return resolverId(indiceUnicidad.idPorTelefono(telefono),
+                ciudadano -> ciudadano.getTelefono() != null && ciudadano.getTelefono() == telefono,
+                () -> ciudadanoRepository.findByTelefono(telefono),
+                "No se encontró Ciudadano con telefono: " + telefono);
+    }
+
+    /**
+     * Obtiene el ETag de un Ciudadano a partir de su versión y la de su credencial, sin cargar la entidad.
+     * @param id Identificador del Ciudadano
+     * @return ETag del Ciudadano
+     * @throws NoSuchElementException Si no se encuentra el Ciudadano
+     */
+    @Transactional(readOnly = true)
+    public String obtenerEtag(long id){
+        return ciudadanoRepository.findVersiones(idColumna(id))
                 .orElseThrow(() -> new NoSuchElementException("No se encontró Ciudadano con ID: " + id));
     }
 
+    /**
+     * Obtiene el ETag de la representación de un Ciudadano con solo los campos indicados.
+     * Incluye los campos, para que cada combinación tenga un ETag distinto.
+     * @param id Identificador del Ciudadano
+     * @param campos Campos separados por coma, con los nombres del JSON del ciudadano
+     * @return ETag del Ciudadano con esos campos
+     * @throws NoSuchElementException Si no se encuentra el Ciudadano
+     * @throws IllegalArgumentException Si algún campo no es válido
+     */
+    @Transactional(readOnly = true)
+    public String obtenerEtag(long id, String campos){
+        return obtenerEtag(id) + ":" + String.join(",", proyeccionCiudadanos.interpretar(campos));
+    }
+
+    /**
+     * Obtiene el JSON de un Ciudadano desde el cache de JSON, sin abrir una transacción ni crear la entidad.
+     * @param id Identificador del Ciudadano
+     * @param etag ETag vigente del Ciudadano, obtenido con {@link #obtenerEtag(long)}
+     * @return Bytes del JSON del Ciudadano, o null si el cache no tiene la versión del ETag
+     * @throws NoSuchElementException Si el ID está fuera del rango de la columna
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public byte[] findJsonCacheado(long id, String etag){
+        return cacheJsonCiudadanos.obtener(idColumna(id), etag);
+    }
+
+    /**
+     * Obtiene el JSON de un Ciudadano con su credencial, ya serializado en UTF-8.
+     * Lee el ciudadano como {@link #findByID(long)}, lo serializa y lo guarda en el cache de JSON
+     * con el ETag de la versión leída.
+     * El ETag es el de las versiones serializadas, que pueden no ser las de un {@link #obtenerEtag(long)}
+     * anterior: una escritura pudo confirmarse entre ambas lecturas, o estas pudieron ir a réplicas con
+     * distinto retraso o al cache de segundo nivel; la respuesta debe llevar este ETag.
+     * @param id Identificador del Ciudadano
+     * @return Bytes del JSON del Ciudadano y su ETag
+     * @throws NoSuchElementException Si no se encuentra el Ciudadano
+     * @throws JsonProcessingException Si el Ciudadano no se puede serializar
+     */
+    @Transactional(readOnly = true)
+    public CacheJsonCiudadanos.JsonCiudadano findJsonByID(long id) throws JsonProcessingException {
+        Ciudadano ciudadano = findByID(id);
+        CacheJsonCiudadanos.JsonCiudadano json = new CacheJsonCiudadanos.JsonCiudadano(ciudadano.getVersion() + "-"
+                + (ciudadano.getCredencial() == null ? 0 : ciudadano.getCredencial().getVersion()),
+                objectMapper.writeValueAsBytes(ciudadano));
+        cacheJsonCiudadanos.guardar(ciudadano.getId(), json);
+        return json;
+    }
+
+    /**
+     * Busca un Ciudadano por su ID único con solo los campos indicados.
+     * Selecciona únicamente las columnas de esos campos, sin crear la entidad.
+     * @param id Identificador del Ciudadano
+     * @param campos Campos separados por coma, con los nombres del JSON del ciudadano
+     * @return Campos del Ciudadano
+     * @throws NoSuchElementException Si no se encuentra el Ciudadano
+     * @throws IllegalArgumentException Si algún campo no es válido
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> findByIDCampos(long id, String campos){
+        Map<String, Object> ciudadano = proyeccionCiudadanos.buscarPorId(idColumna(id), proyeccionCiudadanos.interpretar(campos));
+        if (ciudadano == null) {
+            throw new NoSuchElementException("No se encontró Ciudadano con ID: " + id);
+        }
+        return ciudadano;
+    }
+
+    /**
+     * Busca varios ciudadanos por ID, con su credencial o con solo los campos indicados.
+     * Los IDs se consultan en bloques con una consulta IN por bloque, en lugar de una consulta por ID.
+     * @param ids IDs solicitados, pueden repetirse
+     * @param campos Campos separados por coma con los nombres del JSON del ciudadano, nulo para el ciudadano completo
+     * @return Un resultado por cada ID, en el orden solicitado, indicando si fue encontrado
+     * @throws IllegalArgumentException Si no se indican IDs, se supera el máximo configurado o algún campo no es válido
+     */
+    @Transactional(readOnly = true)
+    public List<ResultadoBusquedaId> findByIDs(List<Long> ids, String campos){
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos un ID");
+        }
+        if (ids.size() > maximoIdsPorBusqueda) {
+            throw new IllegalArgumentException("Se pueden buscar como máximo " + maximoIdsPorBusqueda + " IDs por solicitud");
+        }
+        List<String> pedidos = campos == null ? null : proyeccionCiudadanos.interpretar(campos);
+
+        // Los IDs nulos o fuera del rango de la columna no pueden existir y no se consultan
+        List<Integer> consultar = new ArrayList<>(new LinkedHashSet<>(ids.stream()
+                .filter(id -> id != null && id > 0 && id <= Integer.MAX_VALUE)
+                .map(Long::intValue)
+                .toList()));
+
+        Map<Integer, Object> encontrados = new HashMap<>();
+        for (int desde = 0; desde < consultar.size(); desde += tamanioBloqueIds) {
+            List<Integer> bloque = consultar.subList(desde, Math.min(desde + tamanioBloqueIds, consultar.size()));
+            if (pedidos == null) {
+                ciudadanoRepository.buscarPorIds(bloque).forEach(ciudadano -> encontrados.put(ciudadano.getId(), ciudadano));
+            } else {
+                encontrados.putAll(proyeccionCiudadanos.buscarPorIds(bloque, pedidos));
+            }
+        }
+
+        List<ResultadoBusquedaId> resultado = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Object ciudadano = id == null || id > Integer.MAX_VALUE ? null : encontrados.get(id.intValue());
+            resultado.add(ciudadano == null
+                    ? new ResultadoBusquedaId(id == null ? 0 : id, ResultadoBusquedaId.NO_ENCONTRADO, null)
+                    : new ResultadoBusquedaId(id, ResultadoBusquedaId.ENCONTRADO, ciudadano));
+        }
+        return resultado;
+    }
+
     /**
      * Guarda un nuevo ciudadano en el sistema.
      * Realiza validaciones y guarda relaciones con otros componentes.
+     * Con IDs de la tabla de secuencias el INSERT espera hasta el flush, por lo que se ejecuta aquí:
+     * un RUN o telefono registrado a la vez por otra instancia se informa con el mensaje de este método
+     * y no como un error de la base de datos al confirmar la transacción.
      * @param ciudadano Datos del ciudadano a guardar
      * @return ciudadano guardado con ID generado
      * @throws RuntimeException Si ocurre algún error durante el proceso
      * @throws DataIntegrityViolationException Si ocurre algún error durante el proceso
+     * @throws RejectedExecutionException Si el ejecutor de hash de contraseñas está saturado
      */
     public Ciudadano save(Ciudadano ciudadano) {
         try {
 
+            if (ciudadano.getCredencial() == null) {
+                throw new IllegalArgumentException("La credencial del ciudadano es requerida");
+            }
+            credencialService.validarCredencial(ciudadano.getCredencial());
+
+            validarCiudadano(ciudadano);
+
             Credencial guardadaCredencial = credencialService.save(ciudadano.getCredencial());
 
             ciudadano.setCredencial(guardadaCredencial);
 
-            validarCiudadano(ciudadano);
-
-            return ciudadanoRepository.save(ciudadano);
+            Ciudadano guardado = ciudadanoRepository.saveAndFlush(ciudadano);
+            registroCambios.ciudadano(EventoCambio.CREADO, guardado);
+            indiceUnicidad.registrarCiudadano(guardado);
+            indiceNombres.registrar(guardado);
+            return guardado;
         } catch (DataIntegrityViolationException e) {
-            throw new RuntimeException("Error: el correo de la credencial ya está en uso.");
+            // El correo repetido lo informa CredencialService.save; aquí solo puede chocar el RUN o el telefono
+            throw new RuntimeException("Error: el RUN o el telefono ya está en uso.");
+        } catch (RejectedExecutionException e) {
+            throw e;
         } catch (EntityNotFoundException e) {
             throw new RuntimeException("Error al guardar el Ciudadano: " + e.getMessage());
         } catch (Exception e) {
@@ -86,6 +483,7 @@ public class CiudadanoService {
      * @throws IllegalArgumentException Si el ciudadano proporcionado es nulo
      * @throws NoSuchElementException Si no se encuentra el ciudadano a actualizar
      * @throws RuntimeException Si ocurre algún error durante la actualización
+     * @throws OptimisticLockingFailureException Si el ciudadano cambió mientras se actualizaba
      */
     public Ciudadano update(Ciudadano ciudadano, long id) {
         try {
@@ -96,6 +494,11 @@ public class CiudadanoService {
             Ciudadano antiguoCiudadano = ciudadanoRepository.findById(id)
                     .orElseThrow(() -> new NoSuchElementException("Ciudadano no encontrado"));
 
+            Long runAnterior = antiguoCiudadano.getRun();
+            Long telefonoAnterior = antiguoCiudadano.getTelefono();
+            String nombreAnterior = antiguoCiudadano.getNombre() + ' '
+                    + antiguoCiudadano.getAPaterno() + ' ' + antiguoCiudadano.getAMaterno();
+
             //Control de errores
             if (ciudadano.getNombre() != null) {
                 if (ciudadano.getNombre().length() > 50) {
@@ -105,28 +508,28 @@ public class CiudadanoService {
                 }
             }
 
-            if (ciudadano.getTelefono() != null) {
-                if (ciudadanoRepository.existsByTelefono(ciudadano.getTelefono())) {
-                    throw new RuntimeException("El Telefono ya existe");
-                }else{
-                    if (String.valueOf(ciudadano.getTelefono()).length()> 9) {
-                        throw new RuntimeException("El valor telefono excede máximo de caracteres (9)");
-                    }else {
-                        antiguoCiudadano.setTelefono(ciudadano.getTelefono());
-                    }
-                }
+            // Solo se verifica la unicidad de los valores que cambian
+            Long telefonoNuevo = ciudadano.getTelefono() != null && !ciudadano.getTelefono().equals(telefonoAnterior)
+                    ? ciudadano.getTelefono() : null;
+            Long runNuevo = ciudadano.getRun() != null && !ciudadano.getRun().equals(runAnterior)
+                    ? ciudadano.getRun() : null;
+
+            if (telefonoNuevo != null && String.valueOf(telefonoNuevo).length() > 9) {
+                throw new RuntimeException("El valor telefono excede máximo de caracteres (9)");
             }
 
-            if (ciudadano.getRun() != null) {
-                if (ciudadanoRepository.existsByRun(ciudadano.getRun())) {
-                    throw new RuntimeException("El RUN ya existe");
-                }else{
-                    if (String.valueOf(ciudadano.getRun()).length() > 8) {
-                        throw new RuntimeException("El valor RUN excede máximo de caracteres (8)");
-                    }else{
-                        antiguoCiudadano.setRun(ciudadano.getRun());
-                    }
-                }
+            if (runNuevo != null && String.valueOf(runNuevo).length() > 8) {
+                throw new RuntimeException("El valor RUN excede máximo de caracteres (8)");
+            }
+
+            verificarConflictos((int) id, runNuevo, telefonoNuevo, null, 0);
+
+            if (telefonoNuevo != null) {
+                antiguoCiudadano.setTelefono(telefonoNuevo);
+            }
+
+            if (runNuevo != null) {
+                antiguoCiudadano.setRun(runNuevo);
             }
 
             if (ciudadano.getDv() != null) {
@@ -157,23 +560,62 @@ public class CiudadanoService {
                 antiguoCiudadano.setFechaRegistro(ciudadano.getFechaRegistro());
             }
 
-            return ciudadanoRepository.save(antiguoCiudadano);
+            Ciudadano actualizado = ciudadanoRepository.save(antiguoCiudadano);
+            registroCambios.ciudadano(EventoCambio.ACTUALIZADO, actualizado);
+            cacheJsonCiudadanos.invalidar(actualizado.getId());
+            indiceUnicidad.registrarCiudadano(actualizado);
+            indiceUnicidad.liberar(
+                    runAnterior.equals(actualizado.getRun()) ? null : runAnterior,
+                    telefonoAnterior.equals(actualizado.getTelefono()) ? null : telefonoAnterior);
+            if (!nombreAnterior.equals(actualizado.getNombre() + ' '
+                    + actualizado.getAPaterno() + ' ' + actualizado.getAMaterno())) {
+                indiceNombres.registrar(actualizado);
+            }
+            return actualizado;
 
+        } catch (OptimisticLockingFailureException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Error al actualizar el Ciudadano: " + e.getMessage());
         }
     }
 
+    /**
+     * Modifica solo los campos recibidos de un ciudadano existente.
+     * Solo se validan los campos recibidos y la unicidad se verifica solo para el RUN o telefono que cambian.
+     * La entidad se actualiza dinámicamente: el UPDATE incluye solo las columnas que cambiaron, y si el
+     * ciudadano está en el cache de segundo nivel no se ejecuta un SELECT previo.
+     * @param cambios Campos a modificar con sus valores, con los nombres del JSON del ciudadano
+     * @param id Identificador del ciudadano a modificar
+     * @return ciudadano actualizado
+     * @throws IllegalArgumentException Si no hay cambios o algún campo no es modificable, es nulo o no tiene el tipo esperado
+     * @throws RuntimeException Si algún valor no es válido, ya está en uso o el ciudadano no existe
+     */
+    public Ciudadano patch(Map<String, Object> cambios, long id) {
+        return update(CambiosParciales.interpretar(objectMapper, cambios, CAMPOS_MODIFICABLES, Ciudadano.class), id);
+    }
+
     /**
      * Elimina un ciudadano del sistema.
      * @param id Identificador del ciudadano a eliminar
      * @throws NoSuchElementException Si no se encuentra el ciudadano
      */
     public void delete(long id){
-        if (!ciudadanoRepository.existsById(id)) {
-            throw new NoSuchElementException("Ciudadano no encontrado");
+        Ciudadano ciudadano = ciudadanoRepository.findById(id)
+                .orElseThrow(() -> new NoSuchElementException("Ciudadano no encontrado"));
+
+        // La credencial se elimina en cascada junto al ciudadano
+        if (ciudadano.getCredencial() != null) {
+            cacheCredenciales.invalidar(ciudadano.getCredencial().getCorreo());
+        }
+        ciudadanoRepository.delete(ciudadano);
+        registroCambios.ciudadano(EventoCambio.ELIMINADO, ciudadano);
+        if (ciudadano.getCredencial() != null) {
+            registroCambios.credencial(EventoCambio.ELIMINADO, ciudadano.getCredencial());
         }
-        ciudadanoRepository.deleteById(id);
+        indiceUnicidad.liberar(ciudadano.getRun(), ciudadano.getTelefono());
+        cacheJsonCiudadanos.invalidar(ciudadano.getId());
+        indiceNombres.eliminar(ciudadano.getId());
     }
 
     // MÉTODOS PRIVADOS DE VALIDACIÓN Y UTILIDADES
@@ -185,16 +627,68 @@ public class CiudadanoService {
      */
     public void validarCiudadano(Ciudadano ciudadano) {
 
+        validarCamposCiudadano(ciudadano);
+
+        Credencial credencial = ciudadano.getCredencial();
+        verificarConflictos(ciudadano.getId(), ciudadano.getRun(), ciudadano.getTelefono(),
+                credencial == null ? null : credencial.getCorreo(),
+                credencial == null ? 0 : credencial.getId());
+
+    }
+
+    /**
+     * Verifica que el RUN, el telefono y el correo no pertenezcan a otro ciudadano o credencial.
+     * Los valores que el índice de unicidad descarta no se consultan; el resto se verifica
+     * en una sola consulta a la base de datos.
+     * @param id ID del ciudadano que se guarda (0 para uno nuevo)
+     * @param run RUN a verificar, nulo si no cambia
+     * @param telefono Telefono a verificar, nulo si no cambia
+     * @param correo Correo a verificar, nulo si no cambia
+     * @param credencialId ID de la credencial del ciudadano (0 para una nueva)
+     * @throws RuntimeException Si alguno de los valores ya está en uso
+     */
+    private void verificarConflictos(int id, Long run, Long telefono, String correo, int credencialId) {
+        Long runConsulta = run != null && indiceUnicidad.puedeExistirRun(run) ? run : null;
+        Long telefonoConsulta = telefono != null && indiceUnicidad.puedeExistirTelefono(telefono) ? telefono : null;
+        String correoConsulta = correo != null && indiceUnicidad.puedeExistirCorreo(correo) ? correo : null;
+
+        if (runConsulta == null && telefonoConsulta == null && correoConsulta == null) {
+            indiceUnicidad.registrarVerificacion(false, false);
+            return;
+        }
+
+        List<String> conflictos = ciudadanoRepository.buscarConflictos(
+                id, runConsulta, telefonoConsulta, correoConsulta, credencialId);
+        indiceUnicidad.registrarVerificacion(true, !conflictos.isEmpty());
+
+        if (conflictos.contains("run")) {
+            throw new RuntimeException("El RUN ya existe");
+        }
+        if (conflictos.contains("telefono")) {
+            throw new RuntimeException("El Telefono ya existe");
+        }
+        if (conflictos.contains("correo")) {
+            throw new RuntimeException("El correo ya está en uso");
+        }
+    }
+
+    /**
+     * Valida los campos del ciudadano sin consultar la base de datos.
+     * No verifica la unicidad del RUN ni del telefono.
+     * @param ciudadano Ciudadano
+     * @throws IllegalArgumentException Si el ciudadano no cumple con las reglas de validación
+     */
+    public void validarCamposCiudadano(Ciudadano ciudadano) {
+
+        if (ciudadano.getRun() == null) {
+            throw new IllegalArgumentException("El RUN del ciudadano es requerido");
+        }
 
         if (ciudadano.getRun() < 0) {
             throw new IllegalArgumentException("La Cantidad debe ser un número positivo");
         } else {
             if (String.valueOf(ciudadano.getRun()).length() > 8) {
                 throw new RuntimeException("El valor RUN excede máximo de caracteres (8)");
-            }else{
-                if (ciudadanoRepository.existsByRun(ciudadano.getRun())) {
-                    throw new RuntimeException("El RUN ya existe");
-                }
             }
         }
 
@@ -230,20 +724,105 @@ public class CiudadanoService {
             throw new IllegalArgumentException("El a_paterno  del ciudadano es requerido");
         }
 
+        if (ciudadano.getTelefono() == null) {
+            throw new IllegalArgumentException("El telefono del ciudadano es requerido");
+        }
+
         if (ciudadano.getTelefono() < 0) {
             throw new IllegalArgumentException("La Cantidad debe ser un número positivo");
         } else {
             if (String.valueOf(ciudadano.getTelefono()).length()> 9) {
                 throw new RuntimeException("El valor telefono excede máximo de caracteres (9)");
-            }else{
-                if (ciudadanoRepository.existsByTelefono(ciudadano.getTelefono())) {
-                    throw new RuntimeException("El Telefono ya existe");
-                }
             }
         }
 
     }
 
+    /**
+     * Confirma el ID entregado por el índice de unicidad o, si no está vigente, consulta la base de datos
+     * y actualiza el índice con el resultado
+     * @param idIndice ID según el índice, {@link MapaLongInt#AUSENTE} si no lo tiene
+     * @param coincide Verifica que el ciudadano leído siga teniendo la clave buscada
+     * @param consulta Búsqueda por la clave en la base de datos, que no se omite aunque el índice descarte la clave
+     * @param mensaje Mensaje si el ciudadano no existe
+     * @return ID del ciudadano
+     * @throws NoSuchElementException Si no se encuentra el ciudadano
+     */
+    private long resolverId(int idIndice, Predicate<Ciudadano> coincide,
+                            Supplier<Optional<Ciudadano>> consulta, String mensaje) {
+        if (idIndice != MapaLongInt.AUSENTE) {
+            Optional<Ciudadano> ciudadano = ciudadanoRepository.findById((long) idIndice);
+            if (ciudadano.isPresent() && coincide.test(ciudadano.get())) {
+                indiceUnicidad.registrarBusqueda(false);
+                return idIndice;
+            }
+        }
+        indiceUnicidad.registrarBusqueda(true);
+        Ciudadano ciudadano = consulta.get().orElseThrow(() -> new NoSuchElementException(mensaje));
+        indiceUnicidad.registrarCiudadano(ciudadano);
+        return ciudadano.getId();
+    }
+
+    /**
+     * Codifica el ID del último ciudadano de una página como cursor opaco
+     * @param id ID del último ciudadano entregado
+     * @return Cursor en Base64 apto para URL
+     */
+    private String codificarCursor(int id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIJO_CURSOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Calcula el tamaño de una página
+     * @param limite Tamaño solicitado, nulo para usar el tamaño por defecto
+     * @return Tamaño acotado al máximo configurado
+     * @throws IllegalArgumentException Si el límite no es positivo
+     */
+    private int tamanioPagina(Integer limite) {
+        int tamanio = limite == null ? tamanioPaginaDefecto : limite;
+        if (tamanio <= 0) {
+            throw new IllegalArgumentException("El límite debe ser un número positivo");
+        }
+        return Math.min(tamanio, tamanioPaginaMaximo);
+    }
+
+    /**
+     * Decodifica un cursor generado por {@link #codificarCursor(int)}
+     * @param cursor Cursor recibido del cliente
+     * @return ID a partir del cual continuar (exclusivo)
+     * @throws IllegalArgumentException Si el cursor no es válido
+     */
+    private int decodificarCursor(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!valor.startsWith(PREFIJO_CURSOR)) {
+                throw new IllegalArgumentException("El cursor no es válido");
+            }
+            int id = Integer.parseInt(valor.substring(PREFIJO_CURSOR.length()));
+            if (id < 0) {
+                throw new IllegalArgumentException("El cursor no es válido");
+            }
+            return id;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("El cursor no es válido");
+        }
+    }
+
+    /**
+     * Convierte un ID recibido al tipo de la columna, como lo hace {@link #findByIDs(List, String)}.
+     * Sin esta verificación un ID mayor que Integer.MAX_VALUE se truncaría al de otro ciudadano.
+     * @param id ID recibido del cliente
+     * @return ID como entero
+     * @throws NoSuchElementException Si el ID está fuera del rango de la columna y no puede existir
+     */
+    private int idColumna(long id) {
+        if (id <= 0 || id > Integer.MAX_VALUE) {
+            throw new NoSuchElementException("No se encontró Ciudadano con ID: " + id);
+        }
+        return (int) id;
+    }
+
     // MÉTODOS DE ASIGNACIÓN DE RELACIONES
 
     /**
@@ -258,8 +837,15 @@ public class CiudadanoService {
         Credencial credencial = credencialRepository.findById(credencialId)
                 .orElseThrow(() -> new RuntimeException("Credencial no encontrada"));
 
+        if (ciudadano.getCredencial() != null) {
+            cacheCredenciales.invalidar(ciudadano.getCredencial().getCorreo());
+        }
+        cacheCredenciales.invalidar(credencial.getCorreo());
+
         ciudadano.setCredencial(credencial);
         ciudadanoRepository.save(ciudadano);
+        registroCambios.ciudadano(EventoCambio.ACTUALIZADO, ciudadano);
+        cacheJsonCiudadanos.invalidar(ciudadano.getId());
     }
 
 }
\ No newline at end of file
@@ -1,36 +1,79 @@
 package com.SAFE_Rescue.API_Ciudadano.service;
 
+import com.SAFE_Rescue.API_Ciudadano.config.EnrutadorReplicas;
 import com.SAFE_Rescue.API_Ciudadano.repository.CredencialRepository;
 import com.SAFE_Rescue.API_Ciudadano.modelo.Credencial;
+import com.SAFE_Rescue.API_Ciudadano.modelo.EventoCambio;
+import com.SAFE_Rescue.API_Ciudadano.util.CambiosParciales;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Servicio para la gestión integral de credencial
  * Maneja operaciones CRUD, asignación de credeniales
  * y validación de datos para credencial
+ * Las transacciones se declaran por método: la verificación de inicio de sesión no abre
+ * ninguna, porque su alcance mantendría la conexión tomada mientras se calcula el hash
  */
 @Service
-@Transactional
+@Timed(value = "servicio", description = "Duración de los métodos públicos de los servicios")
 public class CredencialService {
 
     // REPOSITORIOS INYECTADOS
     @Autowired
     private CredencialRepository credencialRepository;
 
+    // CACHE DE CREDENCIALES PARA LOGIN
+    @Autowired
+    private CacheCredenciales cacheCredenciales;
+
+    @Autowired
+    private RegistroIntentosFallidos registroIntentosFallidos;
+
+    // HASH DE CONTRASEÑAS
+    @Autowired
+    private HashContrasenias hashContrasenias;
+
+    // ÍNDICE DE VALORES ÚNICOS
+    @Autowired
+    private IndiceUnicidad indiceUnicidad;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // TABLA DE SALIDA DE CAMBIOS
+    @Autowired
+    private RegistroCambios registroCambios;
+
+    // CAMPOS MODIFICABLES CON PATCH; los intentos fallidos y el bloqueo los mantiene el inicio de sesión
+    private static final Map<String, Class<?>> CAMPOS_MODIFICABLES = new LinkedHashMap<>();
+
+    static {
+        CAMPOS_MODIFICABLES.put("correo", String.class);
+        CAMPOS_MODIFICABLES.put("contrasenia", String.class);
+        CAMPOS_MODIFICABLES.put("activo", Boolean.class);
+    }
+
     // MÉTODOS CRUD PRINCIPALES
 
     /**
      * Obtiene todas las credenciales registradas en el sistema.
      * @return Lista completa de credenciales
      */
+    @Transactional(readOnly = true)
     public List<Credencial> findAll(){
         return credencialRepository.findAll();
     }
@@ -41,25 +84,57 @@ public class CredencialService {
      * @return credencial encontrado
      * @throws NoSuchElementException Si no se encuentra el credencial
      */
+    @Transactional(readOnly = true)
     public Credencial findByID(long id){
         return credencialRepository.findById(id)
                 .orElseThrow(() -> new NoSuchElementException("No se encontró Credencial con ID: " + id));
     }
 
+    /**
+     * Obtiene el ETag de una credencial a partir de su versión, sin cargar la entidad.
+     * @param id Identificador del credencial
+     * @return ETag del credencial
+     * @throws NoSuchElementException Si no se encuentra el credencial
+     */
+    @Transactional(readOnly = true)
+    public String obtenerEtag(long id){
+        // Un ID fuera del rango de la columna no puede existir; convertirlo lo truncaría al de otra credencial
+        if (id <= 0 || id > Integer.MAX_VALUE) {
+            throw new NoSuchElementException("No se encontró Credencial con ID: " + id);
+        }
+        return credencialRepository.findVersion((int) id)
+                .map(String::valueOf)
+                .orElseThrow(() -> new NoSuchElementException("No se encontró Credencial con ID: " + id));
+    }
+
     /**
      * Guarda un nuevo credencial en el sistema.
      * Realiza validaciones y guarda relaciones con otros componentes.
+     * La contraseña se guarda como hash; si no se codificó antes con {@link #codificarContrasenia(Credencial)}
+     * se codifica aquí.
      * @param credencial Datos del credencial a guardar
      * @return credencial guardado con ID generado
      * @throws RuntimeException Si ocurre algún error durante el proceso
      * @throws DataIntegrityViolationException Si ocurre algún error durante el proceso
+     * @throws RejectedExecutionException Si el ejecutor de hash está saturado
      */
+    @Transactional
     public Credencial save(Credencial credencial) {
         try {
             validarCredencial(credencial);
-            return credencialRepository.save(credencial);
+            if (!credencial.isContraseniaCodificada()) {
+                credencial.setContrasenia(hashContrasenias.codificar(credencial.getContrasenia()));
+                credencial.setContraseniaCodificada(true);
+            }
+            // El INSERT se ejecuta aquí y no al confirmar, para que un correo repetido se informe con el mensaje de abajo
+            Credencial guardada = credencialRepository.saveAndFlush(credencial);
+            registroCambios.credencial(EventoCambio.CREADO, guardada);
+            indiceUnicidad.registrarCorreo(guardada.getCorreo());
+            return guardada;
         } catch (DataIntegrityViolationException e) {
             throw new RuntimeException("El correo ya está en uso. Por favor, use otro.");
+        } catch (RejectedExecutionException e) {
+            throw e;
         } catch (EntityNotFoundException e) {
             throw new RuntimeException("Error al guardar la credencial: " + e.getMessage());
         } catch (Exception e) {
@@ -75,8 +150,49 @@ public class CredencialService {
      * @throws IllegalArgumentException Si el credencial proporcionado es nulo
      * @throws NoSuchElementException Si no se encuentra el credencial a actualizar
      * @throws RuntimeException Si ocurre algún error durante la actualización
+     * @throws RejectedExecutionException Si el ejecutor de hash está saturado
+     * @throws OptimisticLockingFailureException Si la credencial cambió mientras se actualizaba, por ejemplo
+     * por la escritura periódica de los intentos fallidos
      */
+    @Transactional
     public Credencial update(Credencial credencial ,long id) {
+        return actualizar(credencial, credencial == null ? null : credencial.isActivo(), id);
+    }
+
+    /**
+     * Modifica solo los campos recibidos de una credencial existente.
+     * A diferencia de update, el estado activo solo cambia si se recibe.
+     * La entidad se actualiza dinámicamente: el UPDATE incluye solo las columnas que cambiaron, y si la
+     * credencial está en el cache de segundo nivel no se ejecuta un SELECT previo.
+     * La contraseña debe codificarse antes con {@link #codificarContrasenia(Map)}, fuera de la transacción.
+     * @param cambios Campos a modificar con sus valores: correo, contrasenia y/o activo
+     * @param id Identificador del credencial a modificar
+     * @return credencial actualizado
+     * @throws IllegalArgumentException Si no hay cambios o algún campo no es modificable, es nulo o no tiene el tipo esperado
+     * @throws RuntimeException Si algún valor no es válido, el correo ya está en uso o la credencial no existe
+     * @throws RejectedExecutionException Si el ejecutor de hash está saturado
+     */
+    @Transactional
+    public Credencial patch(Map<String, Object> cambios, long id) {
+        Object contrasenia = cambios == null ? null : cambios.get("contrasenia");
+        Map<String, Object> campos = cambios;
+        if (contrasenia instanceof ContraseniaCodificada codificada) {
+            campos = new LinkedHashMap<>(cambios);
+            campos.put("contrasenia", codificada.hash());
+        }
+        Credencial credencial = CambiosParciales.interpretar(objectMapper, campos, CAMPOS_MODIFICABLES, Credencial.class);
+        credencial.setContraseniaCodificada(contrasenia instanceof ContraseniaCodificada);
+        return actualizar(credencial, cambios.containsKey("activo") ? credencial.isActivo() : null, id);
+    }
+
+    /**
+     * Aplica los cambios no nulos a una credencial existente
+     * @param credencial Datos actualizados del credencial
+     * @param activo Nuevo estado, nulo para mantener el actual
+     * @param id Identificador del credencial a actualizar
+     * @return credencial actualizado
+     */
+    private Credencial actualizar(Credencial credencial, Boolean activo, long id) {
         try {
             if (credencial == null) {
                 throw new IllegalArgumentException("El Credencial no puede ser nulo");
@@ -84,31 +200,44 @@ public class CredencialService {
 
             Credencial antiguaCredencial = credencialRepository.findById(id)
                     .orElseThrow(() -> new NoSuchElementException("Credencial no encontrada"));
+            cacheCredenciales.invalidar(antiguaCredencial.getCorreo());
 
             //Control de errores
             if (credencial.getContrasenia() != null) {
-                if (credencial.getContrasenia().length() > 16) {
+                if (credencial.isContraseniaCodificada()) {
+                    antiguaCredencial.setContrasenia(credencial.getContrasenia());
+                } else if (credencial.getContrasenia().length() > 16) {
                     throw new RuntimeException("El valor contrasenia excede máximo de caracteres (16)");
                 }else {
-                    antiguaCredencial.setContrasenia(credencial.getContrasenia());
+                    antiguaCredencial.setContrasenia(hashContrasenias.codificar(credencial.getContrasenia()));
                 }
             }
 
-            if (credencial.getCorreo() != null) {
-                if (credencialRepository.existsByCorreo(credencial.getCorreo())) {
+            // Un correo igual al actual no cuenta como repetido
+            if (credencial.getCorreo() != null && !credencial.getCorreo().equals(antiguaCredencial.getCorreo())) {
+                if (indiceUnicidad.existeCorreo(credencial.getCorreo(),
+                        correo -> credencialRepository.existsByCorreoAndIdNot(correo, antiguaCredencial.getId()))) {
                     throw new RuntimeException("El Correo ya existe");
                 }else{
                     if (credencial.getCorreo().length() > 80) {
                         throw new RuntimeException("El valor correo excede máximo de caracteres (80)");
                     }else {
                         antiguaCredencial.setCorreo(credencial.getCorreo());
+                        cacheCredenciales.invalidar(credencial.getCorreo());
+                        indiceUnicidad.registrarCorreo(credencial.getCorreo());
                     }
                 }
             }
 
-            antiguaCredencial.setActivo(credencial.isActivo());
-            return credencialRepository.save(antiguaCredencial);
+            if (activo != null) {
+                antiguaCredencial.setActivo(activo);
+            }
+            Credencial actualizada = credencialRepository.save(antiguaCredencial);
+            registroCambios.credencial(EventoCambio.ACTUALIZADO, actualizada);
+            return actualizada;
 
+        } catch (RejectedExecutionException | OptimisticLockingFailureException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Error al actualizar el Credencial: " + e.getMessage());
         }
@@ -119,12 +248,14 @@ public class CredencialService {
      * @param id Identificador del credencial a eliminar
      * @throws NoSuchElementException Si no se encuentra el credencial
      */
+    @Transactional
     public void delete(long id){
 
-        if (!credencialRepository.existsById(id)) {
-            throw new NoSuchElementException("Credencial no encontrada");
-        }
-        credencialRepository.deleteById(id);
+        Credencial credencial = credencialRepository.findById(id)
+                .orElseThrow(() -> new NoSuchElementException("Credencial no encontrada"));
+        cacheCredenciales.invalidar(credencial.getCorreo());
+        credencialRepository.delete(credencial);
+        registroCambios.credencial(EventoCambio.ELIMINADO, credencial);
     }
 
     /**
@@ -139,7 +270,7 @@ public class CredencialService {
         }
 
         if (credencial.getContrasenia() != null) {
-            if (credencial.getContrasenia().length() > 16) {
+            if (!credencial.isContraseniaCodificada() && credencial.getContrasenia().length() > 16) {
                 throw new RuntimeException("El valor Contrasenia excede máximo de caracteres (16)");
             }
         } else {
@@ -155,25 +286,108 @@ public class CredencialService {
         }
     }
 
+    /**
+     * Reemplaza la contraseña en texto plano de una credencial por su hash.
+     * Se llama antes de save o update y fuera de una transacción, para no mantener una
+     * conexión tomada mientras se calcula el hash, y marca la credencial para que el servicio
+     * no vuelva a codificarla. Una contraseña nula o que excede el máximo se deja igual para
+     * que la validación la rechace.
+     * @param credencial Credencial recibida, puede ser nula
+     * @throws RejectedExecutionException Si el ejecutor de hash está saturado
+     */
+    public void codificarContrasenia(Credencial credencial) {
+        if (credencial == null || credencial.isContraseniaCodificada() || !requiereCodificar(credencial.getContrasenia())) {
+            return;
+        }
+        credencial.setContrasenia(hashContrasenias.codificar(credencial.getContrasenia()));
+        credencial.setContraseniaCodificada(true);
+    }
+
+    /**
+     * Reemplaza la contraseña en texto plano de un PATCH por su hash, con las mismas reglas
+     * que {@link #codificarContrasenia(Credencial)}. El hash queda envuelto en un valor que no
+     * se puede recibir en el JSON, para que patch lo distinga de una contraseña del cliente.
+     * @param cambios Campos recibidos en el PATCH, puede ser nulo
+     * @throws RejectedExecutionException Si el ejecutor de hash está saturado
+     */
+    public void codificarContrasenia(Map<String, Object> cambios) {
+        if (cambios != null && cambios.get("contrasenia") instanceof String contrasenia && requiereCodificar(contrasenia)) {
+            cambios.put("contrasenia", new ContraseniaCodificada(hashContrasenias.codificar(contrasenia)));
+        }
+    }
+
+    /**
+     * Indica si una contraseña recibida debe codificarse antes de guardarla
+     * @param contrasenia Contraseña recibida, puede ser nula
+     * @return true si no es nula y no excede el máximo
+     */
+    private boolean requiereCodificar(String contrasenia) {
+        return contrasenia != null && contrasenia.length() <= 16;
+    }
+
+    /**
+     * Hash calculado por {@link #codificarContrasenia(Map)} para un PATCH
+     * @param hash Hash BCrypt de la contraseña recibida
+     */
+    private record ContraseniaCodificada(String hash) {
+    }
+
     // MÉTODOS DE VERIFICACION DE CREDENCIALES PARA LOGIN
 
     /**
      * Verifica la contraseña al iniciar sesión
+     * La credencial se obtiene del cache y los intentos fallidos se cuentan en memoria,
+     * por lo que un inicio de sesión no escribe en la base de datos ni abre una transacción.
+     * La excepción es el primer inicio exitoso de una credencial con la contraseña en texto
+     * plano o con otro costo de hash: en ese caso se guarda el hash con el costo actual.
+     * Si la credencial no está en cache se lee de la primaria y no de una réplica, ya que queda
+     * guardada en el cache y una réplica atrasada podría entregar la contraseña anterior a un cambio.
      * @param correo correo del ciudadano
      * @param contrasenia contrasenia del ciudadano
+     * @throws IllegalStateException Si la credencial está bloqueada por intentos fallidos
+     * @throws RejectedExecutionException Si el ejecutor de hash está saturado
      */
     public boolean verificarCredenciales(String correo, String contrasenia) {
-        Credencial credencial = credencialRepository.findByCorreo(correo);
+        if (correo == null || contrasenia == null) {
+            return false;
+        }
+        CacheCredenciales.CredencialCacheada credencial = cacheCredenciales.obtener(correo,
+                c -> EnrutadorReplicas.leerDePrimaria(() -> credencialRepository.findByCorreo(c)));
         if (credencial != null) {
-            boolean sonCorrectas = contrasenia.equals(credencial.getContrasenia());
-            if (!sonCorrectas) {
-                credencial.setIntentosFallidos(credencial.getIntentosFallidos() + 1);
-                credencialRepository.save(credencial);
+            if (registroIntentosFallidos.estaBloqueada(credencial)) {
+                throw new IllegalStateException("La cuenta está bloqueada temporalmente por intentos fallidos");
+            }
+            boolean sonCorrectas = hashContrasenias.verificar(contrasenia, credencial.contrasenia());
+            if (sonCorrectas) {
+                registroIntentosFallidos.registrarExito(credencial);
+                if (hashContrasenias.requiereActualizacion(credencial.contrasenia())) {
+                    actualizarHash(credencial, contrasenia);
+                }
+            } else {
+                registroIntentosFallidos.registrarFallo(credencial);
             }
             return sonCorrectas;
         }
         return false;
     }
 
+    /**
+     * Guarda el hash con el costo actual de una credencial que acaba de iniciar sesión.
+     * Si el ejecutor está saturado se deja para el próximo inicio de sesión, y si la
+     * contraseña cambió entretanto no se sobrescribe.
+     * @param credencial Credencial leída del cache
+     * @param contrasenia Contraseña ya verificada
+     */
+    private void actualizarHash(CacheCredenciales.CredencialCacheada credencial, String contrasenia) {
+        String hash;
+        try {
+            hash = hashContrasenias.codificar(contrasenia);
+        } catch (RejectedExecutionException e) {
+            return;
+        }
+        if (credencialRepository.actualizarContrasenia(credencial.id(), credencial.contrasenia(), hash) > 0) {
+            cacheCredenciales.invalidar(credencial.correo());
+        }
+    }
 
 }
@@ -0,0 +1,21 @@
+package com.SAFE_Rescue.API_Ciudadano.service;
+
+import com.SAFE_Rescue.API_Ciudadano.modelo.EventoCambio;
+
+import java.util.List;
+
+/**
+ * Destino al que el relevo de cambios envía los eventos publicados, por ejemplo un broker de mensajes.
+ * Se elige con cambios.destino.tipo, o definiendo un bean que implemente esta interfaz.
+ * Un lote puede entregarse más de una vez si la transacción del relevo falla después de enviarlo,
+ * por lo que los consumidores deben descartar las posiciones ya recibidas.
+ */
+public interface DestinoCambios {
+
+    /**
+     * Envía un lote de eventos; si lanza una excepción el lote se reintenta en la próxima ejecución del relevo
+     * @param eventos Eventos con su posición asignada, ordenados por posición
+     */
+    void publicar(List<EventoCambio> eventos);
+
+}
@@ -0,0 +1,53 @@
+package com.SAFE_Rescue.API_Ciudadano.service;
+
+import com.SAFE_Rescue.API_Ciudadano.modelo.EventoCambio;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Destino de cambios que agrega cada evento como una línea JSON (NDJSON) al final de un archivo.
+ * Cada lote se escribe y se sincroniza con el disco antes de que el relevo confirme su publicación.
+ */
+public class DestinoCambiosArchivo implements DestinoCambios {
+
+    private final Path archivo;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param archivo Archivo NDJSON; se crea con sus directorios si no existe
+     * @param objectMapper Serializador de los eventos
+     */
+    public DestinoCambiosArchivo(Path archivo, ObjectMapper objectMapper) {
+        this.archivo = archivo;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void publicar(List<EventoCambio> eventos) {
+        try {
+            Path directorio = archivo.toAbsolutePath().getParent();
+            if (directorio != null) {
+                Files.createDirectories(directorio);
+            }
+            try (OutputStream salida = Files.newOutputStream(archivo, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND, StandardOpenOption.WRITE, StandardOpenOption.SYNC)) {
+                StringBuilder lineas = new StringBuilder();
+                for (EventoCambio evento : eventos) {
+                    lineas.append(objectMapper.writeValueAsString(evento)).append('\n');
+                }
+                salida.write(lineas.toString().getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudieron escribir los cambios en " + archivo, e);
+        }
+    }
+
+}
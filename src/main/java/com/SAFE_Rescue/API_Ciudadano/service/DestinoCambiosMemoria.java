@@ -0,0 +1,50 @@
+package com.SAFE_Rescue.API_Ciudadano.service;
+
+import com.SAFE_Rescue.API_Ciudadano.modelo.EventoCambio;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Destino de cambios en memoria, para pruebas y desarrollo.
+ * Conserva los últimos eventos publicados hasta la capacidad indicada.
+ */
+public class DestinoCambiosMemoria implements DestinoCambios {
+
+    private final int capacidad;
+    private final ArrayDeque<EventoCambio> eventos = new ArrayDeque<>();
+
+    /**
+     * @param capacidad Cantidad máxima de eventos conservados
+     */
+    public DestinoCambiosMemoria(int capacidad) {
+        this.capacidad = capacidad;
+    }
+
+    @Override
+    public synchronized void publicar(List<EventoCambio> lote) {
+        for (EventoCambio evento : lote) {
+            if (eventos.size() == capacidad) {
+                eventos.removeFirst();
+            }
+            eventos.addLast(evento);
+        }
+    }
+
+    /**
+     * Obtiene los eventos conservados
+     * @return Copia de los eventos en el orden en que se publicaron
+     */
+    public synchronized List<EventoCambio> eventos() {
+        return new ArrayList<>(eventos);
+    }
+
+    /**
+     * Descarta los eventos conservados
+     */
+    public synchronized void limpiar() {
+        eventos.clear();
+    }
+
+}
@@ -0,0 +1,242 @@
+package com.SAFE_Rescue.API_Ciudadano.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Hash de contraseñas con BCrypt en un ejecutor dedicado y acotado.
+ * BCrypt es lento a propósito, por lo que el cálculo no se hace en el hilo de la solicitud:
+ * se envía a un grupo fijo de hilos con una cola de tamaño máximo. Si la cola está llena
+ * se lanza RejectedExecutionException de inmediato, para responder 503 en vez de acumular
+ * solicitudes esperando CPU.
+ * La carga masiva codifica sus contraseñas en un segundo ejecutor, para no ocupar la cola
+ * de los inicios de sesión.
+ * Las contraseñas guardadas antes del hash (texto plano) se siguen aceptando, y
+ * {@link #requiereActualizacion(String)} indica cuándo deben volver a codificarse.
+ */
+@Component
+public class HashContrasenias implements MeterBinder {
+
+    /**
+     * Largo de un hash BCrypt, por ejemplo $2a$10$ seguido de 53 caracteres
+     */
+    public static final int LARGO_HASH = 60;
+
+    private static final Pattern FORMATO_BCRYPT = Pattern.compile("^\\$2[aby]\\$\\d\\d\\$[./A-Za-z0-9]{53}$");
+
+    /**
+     * Factor de trabajo de BCrypt: cada unidad adicional duplica el tiempo de cálculo
+     */
+    @Value("${credenciales.hash.costo:10}")
+    private int costo;
+
+    /**
+     * Hilos del ejecutor, 0 para usar uno por procesador
+     */
+    @Value("${credenciales.hash.hilos:0}")
+    private int hilos;
+
+    /**
+     * Tareas que pueden esperar en cola antes de rechazar nuevas
+     */
+    @Value("${credenciales.hash.cola:64}")
+    private int cola;
+
+    /**
+     * Hilos del ejecutor de la carga masiva, 0 para usar la mitad de los procesadores
+     */
+    @Value("${credenciales.hash.hilos-carga:0}")
+    private int hilosCarga;
+
+    private BCryptPasswordEncoder codificador;
+    private ThreadPoolExecutor ejecutor;
+    private ThreadPoolExecutor ejecutorCarga;
+    private Counter rechazadas;
+
+    @PostConstruct
+    void iniciar() {
+        codificador = new BCryptPasswordEncoder(costo);
+        int cantidadHilos = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        ejecutor = new ThreadPoolExecutor(cantidadHilos, cantidadHilos, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(cola), fabricaHilos("hash-contrasenias-"), new ThreadPoolExecutor.AbortPolicy());
+
+        // La cola de la carga no tiene límite: cada lote espera sus propios hashes antes de leer el siguiente
+        int cantidadHilosCarga = hilosCarga > 0 ? hilosCarga : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        ejecutorCarga = new ThreadPoolExecutor(cantidadHilosCarga, cantidadHilosCarga, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), fabricaHilos("hash-carga-"));
+    }
+
+    @PreDestroy
+    void detener() {
+        ejecutor.shutdownNow();
+        ejecutorCarga.shutdownNow();
+    }
+
+    /**
+     * Codifica una contraseña en el ejecutor de hash
+     * @param contrasenia Contraseña en texto plano
+     * @return Hash BCrypt con sal aleatoria
+     * @throws RejectedExecutionException Si el ejecutor está saturado
+     */
+    public String codificar(String contrasenia) {
+        return ejecutar(() -> codificador.encode(contrasenia));
+    }
+
+    /**
+     * Codifica en paralelo las contraseñas de un lote de la carga masiva, en el ejecutor de la carga
+     * @param contrasenias Contraseñas en texto plano
+     * @return Hashes BCrypt en el mismo orden
+     */
+    public List<String> codificarLote(List<String> contrasenias) {
+        List<Future<String>> resultados = new ArrayList<>(contrasenias.size());
+        for (String contrasenia : contrasenias) {
+            resultados.add(ejecutorCarga.submit(() -> codificador.encode(contrasenia)));
+        }
+        List<String> hashes = new ArrayList<>(contrasenias.size());
+        for (Future<String> resultado : resultados) {
+            hashes.add(esperar(resultado));
+        }
+        return hashes;
+    }
+
+    /**
+     * Codifica una contraseña en el hilo actual, sin pasar por ningún ejecutor.
+     * Es para preparar datos fuera de las solicitudes, como en los benchmarks
+     * @param contrasenia Contraseña en texto plano
+     * @return Hash BCrypt con sal aleatoria
+     */
+    public String codificarEnHiloActual(String contrasenia) {
+        return codificador.encode(contrasenia);
+    }
+
+    /**
+     * Compara una contraseña con el valor guardado.
+     * Un hash BCrypt se verifica en el ejecutor; un valor en texto plano se compara en
+     * tiempo constante en el hilo actual.
+     * @param contrasenia Contraseña recibida
+     * @param guardada Hash BCrypt o contraseña antigua en texto plano
+     * @return true si coinciden
+     * @throws RejectedExecutionException Si el ejecutor está saturado
+     */
+    public boolean verificar(String contrasenia, String guardada) {
+        if (guardada == null) {
+            return false;
+        }
+        if (!esHash(guardada)) {
+            return MessageDigest.isEqual(contrasenia.getBytes(StandardCharsets.UTF_8),
+                    guardada.getBytes(StandardCharsets.UTF_8));
+        }
+        return ejecutar(() -> codificador.matches(contrasenia, guardada));
+    }
+
+    /**
+     * Indica si el valor guardado debe volver a codificarse tras un inicio de sesión exitoso:
+     * contraseñas en texto plano y hashes con un costo distinto al configurado
+     * @param guardada Valor guardado en la credencial
+     * @return true si debe actualizarse
+     */
+    public boolean requiereActualizacion(String guardada) {
+        if (!esHash(guardada)) {
+            return true;
+        }
+        return Integer.parseInt(guardada.substring(4, 6)) != costo;
+    }
+
+    /**
+     * Indica si un valor tiene formato de hash BCrypt
+     * @param valor Valor a revisar
+     * @return true si es un hash BCrypt
+     */
+    public boolean esHash(String valor) {
+        return valor != null && valor.length() == LARGO_HASH && FORMATO_BCRYPT.matcher(valor).matches();
+    }
+
+    /**
+     * Publica el estado del ejecutor como métricas executor.* con la etiqueta
+     * name=hash.contrasenias, y las tareas rechazadas por saturación
+     * @param registry Registro de métricas
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new ExecutorServiceMetrics(ejecutor, "hash.contrasenias", Tags.empty()).bindTo(registry);
+        new ExecutorServiceMetrics(ejecutorCarga, "hash.carga", Tags.empty()).bindTo(registry);
+        rechazadas = Counter.builder("credenciales.hash.rechazadas")
+                .description("Cálculos de hash rechazados por ejecutor saturado")
+                .register(registry);
+    }
+
+    /**
+     * Ejecuta una tarea en el ejecutor de hash y espera su resultado
+     * @param tarea Cálculo a ejecutar
+     * @return Resultado del cálculo
+     * @throws RejectedExecutionException Si la cola del ejecutor está llena
+     */
+    private <T> T ejecutar(Callable<T> tarea) {
+        Future<T> resultado;
+        try {
+            resultado = ejecutor.submit(tarea);
+        } catch (RejectedExecutionException e) {
+            if (rechazadas != null) {
+                rechazadas.increment();
+            }
+            throw e;
+        }
+        return esperar(resultado);
+    }
+
+    /**
+     * Espera el resultado de un cálculo enviado a uno de los ejecutores
+     * @param resultado Cálculo pendiente
+     * @return Resultado del cálculo
+     */
+    private <T> T esperar(Future<T> resultado) {
+        try {
+            return resultado.get();
+        } catch (InterruptedException e) {
+            resultado.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Se interrumpió el cálculo del hash de la contraseña");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error al calcular el hash de la contraseña", e.getCause());
+        }
+    }
+
+    /**
+     * Crea hilos demonio numerados con el prefijo indicado
+     * @param prefijo Prefijo del nombre de los hilos
+     * @return Fábrica de hilos
+     */
+    private static ThreadFactory fabricaHilos(String prefijo) {
+        AtomicInteger contador = new AtomicInteger();
+        return tarea -> {
+            Thread hilo = new Thread(tarea, prefijo + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        };
+    }
+
+}
@@ -0,0 +1,255 @@
+package com.SAFE_Rescue.API_Ciudadano.service;
+
+import com.SAFE_Rescue.API_Ciudadano.modelo.Ciudadano;
+import com.SAFE_Rescue.API_Ciudadano.util.IndiceTrigramas;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice en memoria de los nombres completos de los ciudadanos para la búsqueda por nombre.
+ * Indexa nombre, apellido paterno y apellido materno con trigramas, de modo que la búsqueda
+ * no distingue tildes ni mayúsculas, acepta palabras incompletas y tolera errores de tipeo.
+ * Se carga desde la base de datos al iniciar y se actualiza al confirmar cada transacción
+ * que guarda o elimina un ciudadano. Entrega solo IDs: los datos se leen de la base de datos,
+ * que descarta cualquier ID que ya no exista.
+ * Las búsquedas comparten un bloqueo de lectura y pueden ejecutarse en paralelo.
+ */
+@Component
+public class IndiceNombres {
+
+    private static final Logger log = LoggerFactory.getLogger(IndiceNombres.class);
+
+    /**
+     * Filas cargadas por cada toma del bloqueo de escritura durante la carga inicial
+     */
+    private static final int FILAS_POR_BLOQUEO = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${ciudadanos.busqueda.capacidad-inicial:100000}")
+    private int capacidadInicial;
+
+    @Value("${ciudadanos.busqueda.similitud-minima:0.5}")
+    private double similitudMinima;
+
+    private final ReadWriteLock candado = new ReentrantReadWriteLock();
+    private IndiceTrigramas indice;
+    private volatile boolean listo;
+
+    // CONTADORES
+    private final AtomicLong busquedas = new AtomicLong();
+    private final AtomicLong nanosBusqueda = new AtomicLong();
+
+    /**
+     * Crea el índice vacío, de modo que los ciudadanos guardados antes de terminar
+     * la carga inicial también queden registrados
+     */
+    @PostConstruct
+    void iniciar() {
+        indice = new IndiceTrigramas(capacidadInicial);
+    }
+
+    /**
+     * Carga los nombres desde la base de datos al iniciar la aplicación.
+     * Los ciudadanos registrados o eliminados durante la carga mantienen el valor más reciente.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        long inicio = System.currentTimeMillis();
+        List<Object[]> pendientes = new ArrayList<>(FILAS_POR_BLOQUEO);
+
+        jdbcTemplate.query("select id, nombre, a_paterno, a_materno from ciudadano", fila -> {
+            pendientes.add(new Object[]{fila.getInt(1),
+                    nombreCompleto(fila.getString(2), fila.getString(3), fila.getString(4))});
+            if (pendientes.size() == FILAS_POR_BLOQUEO) {
+                cargarPendientes(pendientes);
+            }
+        });
+        cargarPendientes(pendientes);
+
+        listo = true;
+        log.info("Índice de nombres cargado en {} ms: {} ciudadanos",
+                System.currentTimeMillis() - inicio, tamanio());
+    }
+
+    /**
+     * Quita de las listas del índice los ciudadanos eliminados o actualizados
+     * cuando ocupan más de un cuarto de los documentos
+     */
+    @Scheduled(fixedDelayString = "${ciudadanos.busqueda.revision:10m}")
+    public void revisarEliminados() {
+        candado.writeLock().lock();
+        try {
+            if (indice.eliminados() > indice.tamanio() / 4) {
+                indice.compactar();
+            }
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    // BÚSQUEDA
+
+    /**
+     * Busca los ciudadanos cuyo nombre completo se parece al texto
+     * @param texto Palabras a buscar, en cualquier orden y completas o no
+     * @param limite Cantidad máxima de resultados
+     * @return IDs con su similitud, de mayor a menor similitud
+     * @throws IllegalStateException Si el índice aún se está cargando
+     */
+    public List<IndiceTrigramas.Coincidencia> buscar(String texto, int limite) {
+        if (!listo) {
+            throw new IllegalStateException("El índice de búsqueda aún se está cargando");
+        }
+        long inicio = System.nanoTime();
+        IndiceTrigramas.Coincidencia[] coincidencias;
+        candado.readLock().lock();
+        try {
+            coincidencias = indice.buscar(texto, similitudMinima, limite);
+        } finally {
+            candado.readLock().unlock();
+        }
+        busquedas.incrementAndGet();
+        nanosBusqueda.addAndGet(System.nanoTime() - inicio);
+        return List.of(coincidencias);
+    }
+
+    // ACTUALIZACIÓN
+
+    /**
+     * Registra o reemplaza el nombre de un ciudadano guardado.
+     * Si hay una transacción activa se registra al confirmarla.
+     * @param ciudadano Ciudadano guardado
+     */
+    public void registrar(Ciudadano ciudadano) {
+        int id = ciudadano.getId();
+        String nombre = nombreCompleto(ciudadano.getNombre(), ciudadano.getAPaterno(), ciudadano.getAMaterno());
+        alConfirmar(() -> {
+            candado.writeLock().lock();
+            try {
+                indice.agregar(id, nombre);
+            } finally {
+                candado.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Quita un ciudadano eliminado del índice.
+     * Si hay una transacción activa se quita al confirmarla.
+     * @param id ID del ciudadano eliminado
+     */
+    public void eliminar(int id) {
+        alConfirmar(() -> {
+            candado.writeLock().lock();
+            try {
+                indice.eliminar(id);
+            } finally {
+                candado.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Cantidad de ciudadanos en el índice
+     * @return Ciudadanos indexados
+     */
+    public int tamanio() {
+        candado.readLock().lock();
+        try {
+            return indice.tamanio();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene el tamaño, la memoria usada y la duración promedio de las búsquedas
+     * @return Contadores del índice
+     */
+    public Map<String, Object> estadisticas() {
+        Map<String, Object> estadisticas = new LinkedHashMap<>();
+        candado.readLock().lock();
+        try {
+            estadisticas.put("ciudadanos", indice.tamanio());
+            estadisticas.put("eliminadosPorCompactar", indice.eliminados());
+            estadisticas.put("bytesUsados", indice.bytesUsados());
+        } finally {
+            candado.readLock().unlock();
+        }
+        long realizadas = busquedas.get();
+        estadisticas.put("busquedas", realizadas);
+        estadisticas.put("microsPromedioBusqueda", realizadas == 0 ? 0.0 : nanosBusqueda.get() / 1000.0 / realizadas);
+        estadisticas.put("listo", listo);
+        return estadisticas;
+    }
+
+    // MÉTODOS PRIVADOS
+
+    /**
+     * Agrega al índice las filas leídas en la carga inicial y vacía la lista.
+     * Se omiten los ciudadanos ya registrados por un guardado concurrente.
+     * @param pendientes Pares de ID y nombre completo
+     */
+    private void cargarPendientes(List<Object[]> pendientes) {
+        candado.writeLock().lock();
+        try {
+            for (Object[] fila : pendientes) {
+                int id = (Integer) fila[0];
+                if (!indice.contiene(id)) {
+                    indice.agregar(id, (String) fila[1]);
+                }
+            }
+        } finally {
+            candado.writeLock().unlock();
+        }
+        pendientes.clear();
+    }
+
+    /**
+     * Ejecuta un cambio al confirmar la transacción activa, o de inmediato si no hay una.
+     * Así una transacción revertida no deja su cambio en el índice.
+     * @param cambio Cambio a aplicar
+     */
+    private void alConfirmar(Runnable cambio) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cambio.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cambio.run();
+            }
+        });
+    }
+
+    /**
+     * Une nombre y apellidos para indexarlos juntos
+     */
+    private static String nombreCompleto(String nombre, String aPaterno, String aMaterno) {
+        return (nombre == null ? "" : nombre) + ' '
+                + (aPaterno == null ? "" : aPaterno) + ' '
+                + (aMaterno == null ? "" : aMaterno);
+    }
+
+}
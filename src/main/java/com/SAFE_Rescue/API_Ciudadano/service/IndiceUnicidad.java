@@ -0,0 +1,381 @@
+package com.SAFE_Rescue.API_Ciudadano.service;
+
+import com.SAFE_Rescue.API_Ciudadano.modelo.Ciudadano;
+import com.SAFE_Rescue.API_Ciudadano.util.FiltroBloom;
+import com.SAFE_Rescue.API_Ciudadano.util.MapaLongInt;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Índice en memoria de los valores únicos de ciudadanos y credenciales.
+ * Mantiene mapas de long a ID de ciudadano para RUN y telefono y un filtro de Bloom para correos.
+ * Cuando el índice asegura que un valor no existe se omite la consulta a la base de
+ * datos; en cualquier otro caso se consulta. Las restricciones UNIQUE de la base de
+ * datos siguen siendo la validación definitiva.
+ * Los mapas también resuelven las búsquedas por RUN y telefono: el ID que entregan
+ * puede estar desactualizado, por lo que quien lo usa debe confirmarlo con el ciudadano,
+ * y si no tienen el valor la búsqueda igual consulta la base de datos.
+ */
+@Component
+public class IndiceUnicidad {
+
+    private static final Logger log = LoggerFactory.getLogger(IndiceUnicidad.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${ciudadanos.indice-unicidad.capacidad-inicial:100000}")
+    private int capacidadInicial;
+
+    @Value("${ciudadanos.indice-unicidad.tasa-falsos-positivos:0.01}")
+    private double tasaFalsosPositivos;
+
+    private final Object candado = new Object();
+    private MapaLongInt runs;
+    private MapaLongInt telefonos;
+    private FiltroBloom correos;
+    private FiltroBloom correosEnReconstruccion;
+    private long capacidadCorreos;
+    private volatile boolean listo;
+
+    // CONTADORES
+    private final AtomicLong consultasOmitidas = new AtomicLong();
+    private final AtomicLong consultasRealizadas = new AtomicLong();
+    private final AtomicLong falsosPositivos = new AtomicLong();
+    private final AtomicLong busquedasResueltas = new AtomicLong();
+    private final AtomicLong busquedasConsultadas = new AtomicLong();
+
+    /**
+     * Crea las estructuras vacías, de modo que los valores guardados antes de terminar
+     * la carga inicial también queden registrados
+     */
+    @PostConstruct
+    void iniciar() {
+        runs = new MapaLongInt(capacidadInicial);
+        telefonos = new MapaLongInt(capacidadInicial);
+        correos = new FiltroBloom(capacidadInicial, tasaFalsosPositivos);
+        capacidadCorreos = capacidadInicial;
+    }
+
+    /**
+     * Carga el índice desde la base de datos al iniciar la aplicación.
+     * Hasta que termina la carga todas las verificaciones consultan la base de datos.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        long inicio = System.currentTimeMillis();
+        Long totalCorreos = jdbcTemplate.queryForObject("select count(*) from credencial_ciudadana", Long.class);
+        reconstruirCorreos(totalCorreos);
+
+        jdbcTemplate.query("select id, run, telefono from ciudadano", fila -> {
+            int id = fila.getInt(1);
+            long run = fila.getLong(2);
+            long telefono = fila.getLong(3);
+            synchronized (candado) {
+                runs.poner(run, id);
+                telefonos.poner(telefono, id);
+            }
+        });
+
+        listo = true;
+        log.info("Índice de unicidad cargado en {} ms: {} RUN, {} telefonos, {} correos",
+                System.currentTimeMillis() - inicio, runs.tamanio(), telefonos.tamanio(), correos.elementos());
+    }
+
+    /**
+     * Reconstruye el filtro de correos cuando supera su capacidad, ya que el filtro
+     * no permite eliminar y su tasa de falsos positivos crece con cada correo agregado
+     */
+    @Scheduled(fixedDelayString = "${ciudadanos.indice-unicidad.revision:10m}")
+    public void revisarCapacidad() {
+        if (!listo || correos.elementos() <= capacidadCorreos) {
+            return;
+        }
+        Long totalCorreos = jdbcTemplate.queryForObject("select count(*) from credencial_ciudadana", Long.class);
+        reconstruirCorreos(totalCorreos);
+    }
+
+    // VERIFICACIONES
+
+    /**
+     * Indica si el RUN ya está registrado, consultando la base de datos solo si el índice no lo descarta
+     * @param run RUN a verificar
+     * @param consulta Consulta a la base de datos
+     * @return true si el RUN existe
+     */
+    public boolean existeRun(long run, LongPredicate consulta) {
+        return verificar(puedeExistirRun(run), () -> consulta.test(run));
+    }
+
+    /**
+     * Indica si el telefono ya está registrado, consultando la base de datos solo si el índice no lo descarta
+     * @param telefono Telefono a verificar
+     * @param consulta Consulta a la base de datos
+     * @return true si el telefono existe
+     */
+    public boolean existeTelefono(long telefono, LongPredicate consulta) {
+        return verificar(puedeExistirTelefono(telefono), () -> consulta.test(telefono));
+    }
+
+    /**
+     * Indica si el correo ya está registrado, consultando la base de datos solo si el filtro no lo descarta
+     * @param correo Correo a verificar
+     * @param consulta Consulta a la base de datos
+     * @return true si el correo existe
+     */
+    public boolean existeCorreo(String correo, Predicate<String> consulta) {
+        return verificar(puedeExistirCorreo(correo), () -> consulta.test(correo));
+    }
+
+    /**
+     * Indica si el RUN puede estar registrado según el índice
+     * @param run RUN a verificar
+     * @return false si el RUN con certeza no existe
+     */
+    public boolean puedeExistirRun(long run) {
+        synchronized (candado) {
+            return !listo || runs.contiene(run);
+        }
+    }
+
+    /**
+     * Indica si el telefono puede estar registrado según el índice
+     * @param telefono Telefono a verificar
+     * @return false si el telefono con certeza no existe
+     */
+    public boolean puedeExistirTelefono(long telefono) {
+        synchronized (candado) {
+            return !listo || telefonos.contiene(telefono);
+        }
+    }
+
+    /**
+     * Indica si el correo puede estar registrado según el índice
+     * @param correo Correo a verificar
+     * @return false si el correo con certeza no existe
+     */
+    public boolean puedeExistirCorreo(String correo) {
+        synchronized (candado) {
+            return !listo || correos.puedeContener(normalizar(correo));
+        }
+    }
+
+    // BÚSQUEDAS POR CLAVE NATURAL
+
+    /**
+     * Obtiene el ID del ciudadano registrado con el RUN
+     * @param run RUN a buscar
+     * @return ID según el índice, o {@link MapaLongInt#AUSENTE} si el RUN no está en el índice
+     */
+    public int idPorRun(long run) {
+        synchronized (candado) {
+            return runs.obtener(run);
+        }
+    }
+
+    /**
+     * Obtiene el ID del ciudadano registrado con el telefono
+     * @param telefono Telefono a buscar
+     * @return ID según el índice, o {@link MapaLongInt#AUSENTE} si el telefono no está en el índice
+     */
+    public int idPorTelefono(long telefono) {
+        synchronized (candado) {
+            return telefonos.obtener(telefono);
+        }
+    }
+
+    /**
+     * Registra cómo se resolvió una búsqueda por RUN o telefono
+     * @param consultada true si el índice no tenía un ID vigente y se buscó por la clave en la base de datos
+     */
+    public void registrarBusqueda(boolean consultada) {
+        (consultada ? busquedasConsultadas : busquedasResueltas).incrementAndGet();
+    }
+
+    // MANTENCIÓN DEL ÍNDICE
+
+    /**
+     * Registra el RUN y el telefono de un ciudadano guardado, asociados a su ID.
+     * El correo de la credencial se registra aparte con {@link #registrarCorreo(String)}.
+     * @param ciudadano Ciudadano guardado
+     */
+    public void registrarCiudadano(Ciudadano ciudadano) {
+        synchronized (candado) {
+            if (ciudadano.getRun() != null) {
+                runs.poner(ciudadano.getRun(), ciudadano.getId());
+            }
+            if (ciudadano.getTelefono() != null) {
+                telefonos.poner(ciudadano.getTelefono(), ciudadano.getId());
+            }
+        }
+    }
+
+    /**
+     * Registra el correo de una credencial guardada
+     * @param correo Correo guardado
+     */
+    public void registrarCorreo(String correo) {
+        if (correo == null) {
+            return;
+        }
+        String normalizado = normalizar(correo);
+        synchronized (candado) {
+            correos.agregar(normalizado);
+            if (correosEnReconstruccion != null) {
+                correosEnReconstruccion.agregar(normalizado);
+            }
+        }
+    }
+
+    /**
+     * Elimina del índice un RUN y un telefono liberados.
+     * Si hay una transacción activa se eliminan solo al confirmarla, para no descartar
+     * valores que siguen en la base de datos si la transacción se revierte.
+     * @param run RUN liberado, puede ser nulo
+     * @param telefono Telefono liberado, puede ser nulo
+     */
+    public void liberar(Long run, Long telefono) {
+        Runnable eliminar = () -> {
+            synchronized (candado) {
+                if (run != null) {
+                    runs.eliminar(run);
+                }
+                if (telefono != null) {
+                    telefonos.eliminar(telefono);
+                }
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eliminar.run();
+                }
+            });
+        } else {
+            eliminar.run();
+        }
+    }
+
+    /**
+     * Registra el resultado de una verificación resuelta fuera del índice, para
+     * mantener los contadores de consultas omitidas y falsos positivos
+     * @param consultada true si se consultó la base de datos
+     * @param existe true si la consulta encontró el valor
+     */
+    public void registrarVerificacion(boolean consultada, boolean existe) {
+        if (!consultada) {
+            consultasOmitidas.incrementAndGet();
+        } else if (listo) {
+            consultasRealizadas.incrementAndGet();
+            if (!existe) {
+                falsosPositivos.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Obtiene el uso de memoria y la efectividad del índice
+     * @return Tamaños, bytes usados, consultas omitidas y tasas de falsos positivos
+     */
+    public Map<String, Object> estadisticas() {
+        Map<String, Object> estadisticas = new LinkedHashMap<>();
+        synchronized (candado) {
+            estadisticas.put("listo", listo);
+            estadisticas.put("runs", runs.tamanio());
+            estadisticas.put("telefonos", telefonos.tamanio());
+            estadisticas.put("correos", correos.elementos());
+            estadisticas.put("bytesRuns", runs.bytesUsados());
+            estadisticas.put("bytesTelefonos", telefonos.bytesUsados());
+            estadisticas.put("bytesCorreos", correos.bytesUsados());
+            estadisticas.put("bytesTotal", runs.bytesUsados() + telefonos.bytesUsados() + correos.bytesUsados());
+            estadisticas.put("tasaFalsosPositivosEstimadaCorreos", correos.tasaFalsosPositivosEstimada());
+        }
+        long realizadas = consultasRealizadas.get();
+        estadisticas.put("consultasOmitidas", consultasOmitidas.get());
+        estadisticas.put("consultasRealizadas", realizadas);
+        estadisticas.put("falsosPositivos", falsosPositivos.get());
+        estadisticas.put("tasaFalsosPositivosObservada",
+                realizadas == 0 ? 0.0 : (double) falsosPositivos.get() / realizadas);
+        estadisticas.put("busquedasResueltas", busquedasResueltas.get());
+        estadisticas.put("busquedasConsultadas", busquedasConsultadas.get());
+        return estadisticas;
+    }
+
+    // MÉTODOS PRIVADOS
+
+    /**
+     * Resuelve una verificación de unicidad y actualiza los contadores
+     * @param puedeExistir Resultado del índice
+     * @param consulta Consulta a la base de datos
+     * @return true si el valor existe
+     */
+    private boolean verificar(boolean puedeExistir, BooleanSupplier consulta) {
+        if (!puedeExistir) {
+            registrarVerificacion(false, false);
+            return false;
+        }
+        boolean existe = consulta.getAsBoolean();
+        registrarVerificacion(true, existe);
+        return existe;
+    }
+
+    /**
+     * Crea un nuevo filtro de correos con capacidad para el doble de los existentes y lo llena
+     * desde la base de datos. Mientras se llena, el filtro anterior sigue respondiendo y los
+     * correos registrados en ese lapso se agregan a ambos filtros.
+     * @param totalCorreos Cantidad actual de correos
+     */
+    private void reconstruirCorreos(long totalCorreos) {
+        long capacidad = Math.max(capacidadInicial, totalCorreos * 2);
+        FiltroBloom nuevo = new FiltroBloom(capacidad, tasaFalsosPositivos);
+        synchronized (candado) {
+            correosEnReconstruccion = nuevo;
+        }
+        try {
+            jdbcTemplate.query("select correo from credencial_ciudadana", fila -> {
+                String correo = normalizar(fila.getString(1));
+                synchronized (candado) {
+                    nuevo.agregar(correo);
+                }
+            });
+            synchronized (candado) {
+                correos = nuevo;
+                capacidadCorreos = capacidad;
+            }
+        } finally {
+            synchronized (candado) {
+                correosEnReconstruccion = null;
+            }
+        }
+    }
+
+    /**
+     * Normaliza un correo para compararlo sin distinguir mayúsculas
+     * @param correo Correo a normalizar
+     * @return Correo sin espacios exteriores y en minúsculas
+     */
+    private String normalizar(String correo) {
+        return correo.trim().toLowerCase(Locale.ROOT);
+    }
+
+}
@@ -0,0 +1,173 @@
+package com.SAFE_Rescue.API_Ciudadano.service;
+
+import com.SAFE_Rescue.API_Ciudadano.util.CubetaTokens;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limita la frecuencia de inicios de sesión por IP de origen y por correo, con una cubeta de tokens por llave.
+ * Se consulta antes de verificar la credencial, de modo que una ráfaga de intentos (por ejemplo, relleno
+ * de credenciales) se rechaza sin leer el cache ni la base de datos y no agota el pool de conexiones.
+ * Las cubetas se guardan en caches acotados por cantidad: ante llaves aleatorias la memoria no crece,
+ * y la admisión por frecuencia de Caffeine evita que las llaves nuevas desplacen a las que se usan seguido.
+ * Una cubeta sin uso durante el tiempo que tarda en llenarse equivale a una nueva y se descarta.
+ */
+@Component
+public class LimitadorLogin {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${credenciales.login.limite.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${credenciales.login.limite.ip.capacidad:30}")
+    private int capacidadIp;
+
+    @Value("${credenciales.login.limite.ip.intervalo:1s}")
+    private Duration intervaloIp;
+
+    @Value("${credenciales.login.limite.correo.capacidad:5}")
+    private int capacidadCorreo;
+
+    @Value("${credenciales.login.limite.correo.intervalo:10s}")
+    private Duration intervaloCorreo;
+
+    @Value("${credenciales.login.limite.llaves-maximas:100000}")
+    private long llavesMaximas;
+
+    private Cache<String, CubetaTokens> cubetasIp;
+    private Cache<String, CubetaTokens> cubetasCorreo;
+
+    // MÉTRICAS
+    private Counter permitidas;
+    private Counter rechazadasIp;
+    private Counter rechazadasCorreo;
+
+    @PostConstruct
+    void iniciar() {
+        cubetasIp = crearCache(capacidadIp, intervaloIp);
+        cubetasCorreo = crearCache(capacidadCorreo, intervaloCorreo);
+
+        permitidas = contador("permitida", "ninguna");
+        rechazadasIp = contador("rechazada", "ip");
+        rechazadasCorreo = contador("rechazada", "correo");
+        Gauge.builder("credenciales.login.limite.llaves", cubetasIp, Cache::estimatedSize)
+                .description("Cubetas de tokens en memoria por tipo de llave")
+                .tag("llave", "ip")
+                .register(meterRegistry);
+        Gauge.builder("credenciales.login.limite.llaves", cubetasCorreo, Cache::estimatedSize)
+                .description("Cubetas de tokens en memoria por tipo de llave")
+                .tag("llave", "correo")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Toma un token de la cubeta de la IP y, si lo obtiene, de la del correo
+     * @param ip Dirección IP de origen de la solicitud
+     * @param correo Correo del inicio de sesión, puede ser nulo
+     * @return 0 si el intento se permite, o los segundos que faltan para reintentar
+     */
+    public long segundosEspera(String ip, String correo) {
+        return segundosEspera(ip, correo, System.nanoTime());
+    }
+
+    /**
+     * Igual que {@link #segundosEspera(String, String)}, en un instante dado
+     * @param ip Dirección IP de origen de la solicitud
+     * @param correo Correo del inicio de sesión, puede ser nulo
+     * @param ahora Instante actual según System.nanoTime()
+     * @return 0 si el intento se permite, o los segundos que faltan para reintentar
+     */
+    long segundosEspera(String ip, String correo, long ahora) {
+        if (!habilitado) {
+            return 0;
+        }
+        long espera = tomar(cubetasIp, ip, capacidadIp, intervaloIp, ahora);
+        if (espera > 0) {
+            rechazadasIp.increment();
+            return segundos(espera);
+        }
+        if (correo != null) {
+            espera = tomar(cubetasCorreo, correo.trim().toLowerCase(Locale.ROOT), capacidadCorreo, intervaloCorreo, ahora);
+            if (espera > 0) {
+                rechazadasCorreo.increment();
+                return segundos(espera);
+            }
+        }
+        permitidas.increment();
+        return 0;
+    }
+
+    /**
+     * Obtiene las decisiones tomadas y la cantidad de cubetas en memoria
+     * @return Contadores del limitador
+     */
+    public Map<String, Object> estadisticas() {
+        Map<String, Object> estadisticas = new LinkedHashMap<>();
+        estadisticas.put("habilitado", habilitado);
+        estadisticas.put("permitidas", (long) permitidas.count());
+        estadisticas.put("rechazadasPorIp", (long) rechazadasIp.count());
+        estadisticas.put("rechazadasPorCorreo", (long) rechazadasCorreo.count());
+        estadisticas.put("llavesIp", cubetasIp.estimatedSize());
+        estadisticas.put("llavesCorreo", cubetasCorreo.estimatedSize());
+        return estadisticas;
+    }
+
+    // MÉTODOS PRIVADOS
+
+    /**
+     * Crea el cache de cubetas de un tipo de llave
+     * @param capacidad Tokens de cada cubeta
+     * @param intervalo Tiempo en reponer un token
+     * @return Cache acotado que descarta las cubetas que ya se habrían llenado
+     */
+    private Cache<String, CubetaTokens> crearCache(int capacidad, Duration intervalo) {
+        return Caffeine.newBuilder()
+                .maximumSize(llavesMaximas)
+                .expireAfterAccess(intervalo.multipliedBy(capacidad))
+                .build();
+    }
+
+    /**
+     * Toma un token de la cubeta de una llave, creándola llena si no existe
+     */
+    private long tomar(Cache<String, CubetaTokens> cubetas, String llave, int capacidad, Duration intervalo, long ahora) {
+        return cubetas.get(llave, k -> new CubetaTokens(capacidad, intervalo.toNanos())).tomar(ahora);
+    }
+
+    /**
+     * Convierte una espera en nanosegundos a segundos enteros para Retry-After, redondeando hacia arriba
+     */
+    private static long segundos(long nanos) {
+        return Math.max(1, (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * Crea el contador de decisiones del limitador
+     * @param decision permitida o rechazada
+     * @param llave Tipo de llave que rechazó el intento, ninguna si se permitió
+     * @return Contador registrado
+     */
+    private Counter contador(String decision, String llave) {
+        return Counter.builder("credenciales.login.limite")
+                .description("Decisiones del limitador de frecuencia de inicios de sesión")
+                .tag("decision", decision)
+                .tag("llave", llave)
+                .register(meterRegistry);
+    }
+
+}
@@ -0,0 +1,200 @@
+package com.SAFE_Rescue.API_Ciudadano.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Consultas de ciudadanos que seleccionan solo los campos pedidos con ?fields=.
+ * Cada campo corresponde a una columna; la consulta devuelve tuplas escalares, por lo que
+ * no se crean entidades ni se registran en el contexto de persistencia, y la tabla
+ * credencial_ciudadana solo se une cuando se pide algún campo de la credencial.
+ * Los campos se nombran igual que en el JSON completo del ciudadano y la contraseña nunca es seleccionable.
+ */
+@Component
+public class ProyeccionCiudadanos {
+
+    /**
+     * Prefijo de los campos de la credencial, que se agrupan en un objeto anidado
+     */
+    private static final String PREFIJO_CREDENCIAL = "credencial.";
+
+    /**
+     * Campos permitidos y su ruta JPQL, en el orden del JSON completo
+     */
+    private static final Map<String, String> CAMPOS = new LinkedHashMap<>();
+
+    static {
+        CAMPOS.put("id", "c.id");
+        CAMPOS.put("run", "c.run");
+        CAMPOS.put("dv", "c.dv");
+        CAMPOS.put("nombre", "c.nombre");
+        CAMPOS.put("fechaRegistro", "c.fechaRegistro");
+        CAMPOS.put("telefono", "c.telefono");
+        CAMPOS.put("credencial.id", "cr.id");
+        CAMPOS.put("credencial.correo", "cr.correo");
+        CAMPOS.put("credencial.intentosFallidos", "cr.intentosFallidos");
+        CAMPOS.put("credencial.activo", "cr.activo");
+        CAMPOS.put("credencial.bloqueadoHasta", "cr.bloqueadoHasta");
+        CAMPOS.put("apaterno", "c.aPaterno");
+        CAMPOS.put("amaterno", "c.aMaterno");
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Interpreta el parámetro fields
+     * "credencial" equivale a todos los campos de la credencial
+     * @param campos Nombres separados por coma
+     * @return Campos pedidos sin repetir, en el orden del JSON completo
+     * @throws IllegalArgumentException Si no se pide ningún campo o alguno no existe
+     */
+    public List<String> interpretar(String campos) {
+        Set<String> pedidos = new LinkedHashSet<>();
+        for (String campo : campos.split(",")) {
+            String nombre = campo.trim();
+            if (nombre.isEmpty()) {
+                continue;
+            }
+            if (nombre.equals("credencial")) {
+                CAMPOS.keySet().stream().filter(c -> c.startsWith(PREFIJO_CREDENCIAL)).forEach(pedidos::add);
+            } else if (CAMPOS.containsKey(nombre)) {
+                pedidos.add(nombre);
+            } else {
+                throw new IllegalArgumentException("Campo no válido: " + nombre
+                        + ". Campos permitidos: " + String.join(", ", CAMPOS.keySet()) + ", credencial");
+            }
+        }
+        if (pedidos.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos un campo");
+        }
+
+        List<String> ordenados = new ArrayList<>(CAMPOS.keySet());
+        ordenados.retainAll(pedidos);
+        return ordenados;
+    }
+
+    /**
+     * Obtiene los campos pedidos de un ciudadano
+     * @param id ID del ciudadano
+     * @param campos Campos interpretados con {@link #interpretar(String)}
+     * @return Campos del ciudadano, null si no existe
+     */
+    public Map<String, Object> buscarPorId(int id, List<String> campos) {
+        List<Tuple> filas = consulta(campos, "c.id = :id", 1)
+                .setParameter("id", id)
+                .getResultList();
+        return filas.isEmpty() ? null : aMapa(filas.get(0), campos);
+    }
+
+    /**
+     * Obtiene los campos pedidos de varios ciudadanos en una consulta
+     * @param ids IDs de los ciudadanos
+     * @param campos Campos interpretados con {@link #interpretar(String)}
+     * @return Campos de cada ciudadano encontrado por su ID; los IDs inexistentes no se incluyen
+     */
+    public Map<Integer, Map<String, Object>> buscarPorIds(Collection<Integer> ids, List<String> campos) {
+        Map<Integer, Map<String, Object>> resultado = new HashMap<>();
+        if (ids.isEmpty()) {
+            return resultado;
+        }
+        List<Tuple> filas = consulta(campos, "c.id in :ids", ids.size())
+                .setParameter("ids", ids)
+                .getResultList();
+        for (Tuple fila : filas) {
+            resultado.put(fila.get("idCursor", Integer.class), aMapa(fila, campos));
+        }
+        return resultado;
+    }
+
+    /**
+     * Obtiene los campos pedidos de una página de ciudadanos, ordenada por ID
+     * @param despuesDe ID del último ciudadano de la página anterior (exclusivo)
+     * @param desde Fecha de registro mínima (inclusiva), puede ser nula
+     * @param hasta Fecha de registro máxima (exclusiva), puede ser nula
+     * @param limite Cantidad máxima de filas a leer
+     * @param campos Campos interpretados con {@link #interpretar(String)}
+     * @return Campos de cada ciudadano y su ID, para calcular el cursor de la siguiente página
+     */
+    public List<Map.Entry<Integer, Map<String, Object>>> buscarPagina(int despuesDe, Date desde, Date hasta,
+                                                                       int limite, List<String> campos) {
+        List<Tuple> filas = consulta(campos, "c.id > :despuesDe " +
+                "and (:desde is null or c.fechaRegistro >= :desde) " +
+                "and (:hasta is null or c.fechaRegistro < :hasta)", limite)
+                .setParameter("despuesDe", despuesDe)
+                .setParameter("desde", desde)
+                .setParameter("hasta", hasta)
+                .getResultList();
+
+        List<Map.Entry<Integer, Map<String, Object>>> resultado = new ArrayList<>(filas.size());
+        for (Tuple fila : filas) {
+            resultado.add(Map.entry(fila.get("idCursor", Integer.class), aMapa(fila, campos)));
+        }
+        return resultado;
+    }
+
+    /**
+     * Construye la consulta de tuplas con los campos pedidos y el ID para el orden y el cursor
+     * @param campos Campos a seleccionar
+     * @param condicion Condición JPQL sobre el alias c
+     * @param limite Cantidad máxima de filas
+     * @return Consulta lista para asignar los parámetros de la condición
+     */
+    private TypedQuery<Tuple> consulta(List<String> campos, String condicion, int limite) {
+        StringBuilder jpql = new StringBuilder("select c.id as idCursor");
+        for (int i = 0; i < campos.size(); i++) {
+            jpql.append(", ").append(CAMPOS.get(campos.get(i))).append(" as campo").append(i);
+        }
+        boolean conCredencial = campos.stream().anyMatch(campo -> campo.startsWith(PREFIJO_CREDENCIAL));
+        if (conCredencial) {
+            // Con la unión externa, un ID de credencial nulo indica que el ciudadano no tiene credencial
+            jpql.append(", cr.id as idCredencial");
+        }
+        jpql.append(" from Ciudadano c");
+        if (conCredencial) {
+            jpql.append(" left join c.credencial cr");
+        }
+        jpql.append(" where ").append(condicion).append(" order by c.id");
+
+        return entityManager.createQuery(jpql.toString(), Tuple.class).setMaxResults(limite);
+    }
+
+    /**
+     * Convierte una tupla en el JSON del ciudadano, con los campos de la credencial anidados
+     * @param fila Tupla leída
+     * @param campos Campos seleccionados, en el orden de la tupla
+     * @return Mapa con los campos pedidos; credencial es nula si el ciudadano no tiene credencial
+     */
+    private Map<String, Object> aMapa(Tuple fila, List<String> campos) {
+        Map<String, Object> ciudadano = new LinkedHashMap<>();
+        Map<String, Object> credencial = null;
+        for (int i = 0; i < campos.size(); i++) {
+            String campo = campos.get(i);
+            Object valor = fila.get("campo" + i);
+            if (!campo.startsWith(PREFIJO_CREDENCIAL)) {
+                ciudadano.put(campo, valor);
+            } else if (!ciudadano.containsKey("credencial")) {
+                credencial = fila.get("idCredencial") == null ? null : new LinkedHashMap<>();
+                ciudadano.put("credencial", credencial);
+            }
+            if (credencial != null && campo.startsWith(PREFIJO_CREDENCIAL)) {
+                credencial.put(campo.substring(PREFIJO_CREDENCIAL.length()), valor);
+            }
+        }
+        return ciudadano;
+    }
+
+}
@@ -0,0 +1,199 @@
+package com.SAFE_Rescue.API_Ciudadano.service;
+
+import com.SAFE_Rescue.API_Ciudadano.modelo.Ciudadano;
+import com.SAFE_Rescue.API_Ciudadano.modelo.Credencial;
+import com.SAFE_Rescue.API_Ciudadano.modelo.EventoCambio;
+import com.SAFE_Rescue.API_Ciudadano.modelo.PaginaCambios;
+import com.SAFE_Rescue.API_Ciudadano.repository.EventoCambioRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.support.DataAccessUtils;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Registra los cambios de ciudadanos y credenciales en la tabla de salida (outbox) y entrega
+ * la lectura incremental de los cambios publicados.
+ * Los servicios registran cada cambio dentro de su transacción; los eventos se acumulan y se
+ * insertan en un solo lote JDBC justo antes de confirmarla, después de escribir las entidades,
+ * por lo que el evento incluye la versión y el JSON finales y se revierte junto al cambio.
+ */
+@Service
+public class RegistroCambios {
+
+    private static final String INSERTAR = "insert into evento_cambio " +
+            "(entidad, entidad_id, operacion, version, datos, fecha) values (?, ?, ?, ?, ?, ?)";
+
+    /**
+     * Traduce las excepciones del flush anticipado igual que lo haría la confirmación de la transacción
+     */
+    private static final HibernateJpaDialect DIALECTO = new HibernateJpaDialect();
+
+    @Autowired
+    private EventoCambioRepository eventoCambioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${cambios.consulta.limite-defecto:100}")
+    private int limiteDefecto;
+
+    @Value("${cambios.consulta.limite-maximo:1000}")
+    private int limiteMaximo;
+
+    /**
+     * Cambio registrado en la transacción en curso, pendiente de insertar
+     * @param entidad ciudadano o credencial
+     * @param operacion creado, actualizado o eliminado
+     * @param objeto Entidad modificada, de la que se leen la versión y el JSON al confirmar
+     * @param id ID de la entidad
+     * @param version Versión de la entidad eliminada; se ignora en las demás operaciones
+     */
+    private record CambioPendiente(String entidad, String operacion, Object objeto, int id, long version) {
+    }
+
+    // REGISTRO DE CAMBIOS
+
+    /**
+     * Registra un cambio de un ciudadano en la transacción en curso
+     * @param operacion creado, actualizado o eliminado
+     * @param ciudadano Ciudadano modificado
+     * @throws IllegalStateException Si no hay una transacción en curso
+     */
+    public void ciudadano(String operacion, Ciudadano ciudadano) {
+        registrar(new CambioPendiente(EventoCambio.CIUDADANO, operacion, ciudadano, ciudadano.getId(), ciudadano.getVersion()));
+    }
+
+    /**
+     * Registra un cambio de una credencial en la transacción en curso
+     * @param operacion creado, actualizado o eliminado
+     * @param credencial Credencial modificada
+     * @throws IllegalStateException Si no hay una transacción en curso
+     */
+    public void credencial(String operacion, Credencial credencial) {
+        registrar(new CambioPendiente(EventoCambio.CREDENCIAL, operacion, credencial, credencial.getId(), credencial.getVersion()));
+    }
+
+    // LECTURA INCREMENTAL
+
+    /**
+     * Obtiene los cambios publicados después de una posición
+     * @param desde Posición del último cambio leído, 0 para leer desde el primero que se conserva
+     * @param limite Cantidad máxima de cambios, opcional
+     * @return Página de cambios con la posición desde la que seguir leyendo
+     * @throws IllegalArgumentException Si la posición o el límite no son válidos
+     * @throws IllegalStateException Si los cambios siguientes a la posición ya se eliminaron por antigüedad
+     */
+    @Transactional(readOnly = true)
+    public PaginaCambios consultar(long desde, Integer limite) {
+        if (desde < 0) {
+            throw new IllegalArgumentException("La posición desde no puede ser negativa");
+        }
+        int tamanio = limite == null ? limiteDefecto : limite;
+        if (tamanio < 1 || tamanio > limiteMaximo) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + limiteMaximo);
+        }
+
+        List<EventoCambio> eventos = eventoCambioRepository.findByPosicionGreaterThanOrderByPosicion(desde, Limit.of(tamanio + 1));
+        // Las posiciones no tienen saltos: si la primera no es la siguiente, las intermedias se eliminaron
+        if (desde > 0 && !eventos.isEmpty() && eventos.get(0).getPosicion() > desde + 1) {
+            Long minima = eventoCambioRepository.findPosicionMinima();
+            if (minima != null && minima > desde + 1) {
+                throw new IllegalStateException("Los cambios posteriores a la posición " + desde
+                        + " ya no se conservan; vuelva a leer los ciudadanos y continúe desde la posición " + (minima - 1));
+            }
+        }
+
+        boolean hayMas = eventos.size() > tamanio;
+        if (hayMas) {
+            eventos = eventos.subList(0, tamanio);
+        }
+        long siguienteDesde = eventos.isEmpty() ? desde : eventos.get(eventos.size() - 1).getPosicion();
+        return new PaginaCambios(eventos, siguienteDesde, hayMas);
+    }
+
+    // MÉTODOS PRIVADOS
+
+    /**
+     * Agrega el cambio a los pendientes de la transacción en curso, creándolos con el primer cambio
+     */
+    private void registrar(CambioPendiente cambio) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Los cambios se registran dentro de la transacción que los produce");
+        }
+        Pendientes pendientes = (Pendientes) TransactionSynchronizationManager.getResource(this);
+        if (pendientes == null) {
+            pendientes = new Pendientes();
+            TransactionSynchronizationManager.bindResource(this, pendientes);
+            TransactionSynchronizationManager.registerSynchronization(pendientes);
+        }
+        pendientes.cambios.add(cambio);
+    }
+
+    /**
+     * Cambios de una transacción, insertados antes de confirmarla
+     */
+    private final class Pendientes implements TransactionSynchronization {
+
+        private final List<CambioPendiente> cambios = new ArrayList<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            // Escribe las entidades antes que los eventos: así el evento lleva la versión final y su ID
+            // queda después del de cualquier transacción anterior sobre la misma fila.
+            // Un conflicto de versión llega como ObjectOptimisticLockingFailureException, como sin eventos
+            try {
+                entityManager.flush();
+            } catch (RuntimeException e) {
+                throw DataAccessUtils.translateIfNecessary(e, DIALECTO);
+            }
+
+            Timestamp fecha = new Timestamp(System.currentTimeMillis());
+            List<Object[]> filas = new ArrayList<>(cambios.size());
+            for (CambioPendiente cambio : cambios) {
+                boolean eliminado = EventoCambio.ELIMINADO.equals(cambio.operacion());
+                filas.add(new Object[]{cambio.entidad(), cambio.id(), cambio.operacion(),
+                        eliminado ? cambio.version() : version(cambio.objeto()),
+                        eliminado ? null : json(cambio.objeto()), fecha});
+            }
+            jdbcTemplate.batchUpdate(INSERTAR, filas);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(RegistroCambios.this);
+        }
+
+        private long version(Object objeto) {
+            return objeto instanceof Ciudadano ciudadano ? ciudadano.getVersion() : ((Credencial) objeto).getVersion();
+        }
+
+        private String json(Object objeto) {
+            try {
+                return objectMapper.writeValueAsString(objeto);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("No se pudo serializar el cambio: " + e.getOriginalMessage(), e);
+            }
+        }
+    }
+
+}
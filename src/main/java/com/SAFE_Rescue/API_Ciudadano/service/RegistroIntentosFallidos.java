@@ -0,0 +1,282 @@
+package com.SAFE_Rescue.API_Ciudadano.service;
+
+import com.SAFE_Rescue.API_Ciudadano.modelo.Credencial;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Registro en memoria de los intentos fallidos de inicio de sesión.
+ * Cuenta los fallos por credencial sin bloqueos (contadores atómicos sobre un
+ * ConcurrentHashMap), aplica el bloqueo temporal al superar el máximo de intentos
+ * y escribe los cambios en la tabla de credenciales en lotes periódicos, en vez de
+ * un UPDATE por cada intento fallido.
+ * Cada escritura suma los fallos registrados desde la anterior y conserva el bloqueo más tardío,
+ * para no pisar los fallos ni el bloqueo que otra instancia escribió mientras tanto. Solo un
+ * reinicio del conteo (un inicio de sesión exitoso o un bloqueo expirado) escribe valores absolutos.
+ */
+@Component
+public class RegistroIntentosFallidos {
+
+    private static final Logger log = LoggerFactory.getLogger(RegistroIntentosFallidos.class);
+
+    private static final String SQL_INCREMENTO = "update credencial_ciudadana set intentos_fallidos = intentos_fallidos + ?, " +
+            "bloqueado_hasta = greatest(coalesce(bloqueado_hasta, ?), coalesce(?, bloqueado_hasta)), version = version + 1 where id = ?";
+
+    private static final String SQL_REINICIO =
+            "update credencial_ciudadana set intentos_fallidos = ?, bloqueado_hasta = ?, version = version + 1 where id = ?";
+
+    /**
+     * Estado de los intentos fallidos de una credencial
+     */
+    static final class EstadoIntentos {
+        final String correo;
+        final AtomicInteger intentos;
+        final AtomicLong bloqueadoHasta;
+        final AtomicInteger fallosPendientes = new AtomicInteger();
+        final AtomicBoolean reinicioPendiente = new AtomicBoolean();
+        final AtomicBoolean pendiente = new AtomicBoolean();
+        volatile long ultimoCambio;
+
+        EstadoIntentos(String correo, int intentos, long bloqueadoHasta) {
+            this.correo = correo;
+            this.intentos = new AtomicInteger(intentos);
+            this.bloqueadoHasta = new AtomicLong(bloqueadoHasta);
+        }
+    }
+
+    /**
+     * Cambios de una credencial tomados para una escritura
+     */
+    private record Escritura(int id, EstadoIntentos estado, boolean reinicio, int fallos, long bloqueadoHasta) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CacheCredenciales cacheCredenciales;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${credenciales.bloqueo.intentos-maximos:5}")
+    private int intentosMaximos;
+
+    @Value("${credenciales.bloqueo.duracion:15m}")
+    private Duration duracionBloqueo;
+
+    private final Map<Integer, EstadoIntentos> estados = new ConcurrentHashMap<>();
+
+    /**
+     * Indica si la credencial está bloqueada por intentos fallidos.
+     * Se usa el bloqueo más tardío entre el registrado en memoria y el leído de la base de datos,
+     * que puede venir de otra instancia.
+     * @param credencial Credencial obtenida del cache
+     * @return true si el bloqueo sigue vigente
+     */
+    public boolean estaBloqueada(CacheCredenciales.CredencialCacheada credencial) {
+        EstadoIntentos estado = estados.get(credencial.id());
+        long hasta = estado != null
+                ? Math.max(estado.bloqueadoHasta.get(), credencial.bloqueadoHasta()) : credencial.bloqueadoHasta();
+        return hasta > System.currentTimeMillis();
+    }
+
+    /**
+     * Registra un intento fallido y bloquea la credencial al alcanzar el máximo de intentos.
+     * Si un bloqueo anterior ya expiró, el conteo vuelve a comenzar desde cero.
+     * @param credencial Credencial obtenida del cache
+     */
+    public void registrarFallo(CacheCredenciales.CredencialCacheada credencial) {
+        EstadoIntentos estado = obtenerEstado(credencial);
+        long ahora = System.currentTimeMillis();
+
+        long hasta = estado.bloqueadoHasta.get();
+        if (hasta != 0 && hasta <= ahora && estado.bloqueadoHasta.compareAndSet(hasta, 0)) {
+            estado.intentos.set(0);
+            reiniciar(estado);
+        }
+
+        estado.fallosPendientes.incrementAndGet();
+        if (estado.intentos.incrementAndGet() >= intentosMaximos) {
+            estado.bloqueadoHasta.compareAndSet(0, ahora + duracionBloqueo.toMillis());
+        }
+        marcarPendiente(estado, ahora);
+    }
+
+    /**
+     * Registra un inicio de sesión exitoso, reiniciando el conteo de intentos fallidos
+     * @param credencial Credencial obtenida del cache
+     */
+    public void registrarExito(CacheCredenciales.CredencialCacheada credencial) {
+        EstadoIntentos estado = estados.get(credencial.id());
+        if (estado == null && credencial.intentosFallidos() == 0 && credencial.bloqueadoHasta() == 0) {
+            return;
+        }
+        estado = obtenerEstado(credencial);
+        if (estado.intentos.getAndSet(0) != 0 | estado.bloqueadoHasta.getAndSet(0) != 0) {
+            reiniciar(estado);
+            marcarPendiente(estado, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Escribe en la base de datos los contadores modificados desde la última escritura,
+     * con un UPDATE por lotes para los incrementos y otro para los reinicios. Luego descarta
+     * los estados sin cambios que llevan inactivos más que la duración del bloqueo.
+     */
+    @Scheduled(fixedDelayString = "${credenciales.intentos.intervalo-escritura:5s}")
+    public void escribirPendientes() {
+        List<Escritura> incrementos = new ArrayList<>();
+        List<Escritura> reinicios = new ArrayList<>();
+
+        for (Map.Entry<Integer, EstadoIntentos> entrada : estados.entrySet()) {
+            EstadoIntentos estado = entrada.getValue();
+            if (estado.pendiente.compareAndSet(true, false)) {
+                // El reinicio se toma antes que los fallos: reiniciar(...) descarta los fallos anteriores
+                // antes de marcarse, así los fallos tomados junto a un reinicio son todos posteriores a él
+                boolean reinicio = estado.reinicioPendiente.getAndSet(false);
+                Escritura escritura = new Escritura(entrada.getKey(), estado, reinicio,
+                        estado.fallosPendientes.getAndSet(0), estado.bloqueadoHasta.get());
+                (reinicio ? reinicios : incrementos).add(escritura);
+            }
+        }
+
+        escribir(SQL_INCREMENTO, incrementos, e -> new Object[]{
+                e.fallos(), timestamp(e.bloqueadoHasta()), timestamp(e.bloqueadoHasta()), e.id()});
+        escribir(SQL_REINICIO, reinicios, e -> new Object[]{e.fallos(), timestamp(e.bloqueadoHasta()), e.id()});
+
+        descartarInactivos();
+    }
+
+    /**
+     * Escribe los contadores pendientes antes de detener la aplicación
+     */
+    @PreDestroy
+    void detener() {
+        escribirPendientes();
+    }
+
+    /**
+     * Cantidad de credenciales con estado en memoria
+     * @return Tamaño del registro
+     */
+    public int tamanio() {
+        return estados.size();
+    }
+
+    // MÉTODOS PRIVADOS
+
+    /**
+     * Obtiene el estado de la credencial, creándolo con los valores leídos de la base de datos
+     * @param credencial Credencial obtenida del cache
+     * @return Estado en memoria de la credencial
+     */
+    private EstadoIntentos obtenerEstado(CacheCredenciales.CredencialCacheada credencial) {
+        return estados.computeIfAbsent(credencial.id(), id -> new EstadoIntentos(
+                credencial.correo(), credencial.intentosFallidos(), credencial.bloqueadoHasta()));
+    }
+
+    /**
+     * Marca que el conteo de la credencial volvió a cero, para que la siguiente escritura reemplace
+     * los valores de la base de datos en vez de sumarles los fallos
+     * @param estado Estado reiniciado
+     */
+    private void reiniciar(EstadoIntentos estado) {
+        estado.fallosPendientes.set(0);
+        estado.reinicioPendiente.set(true);
+    }
+
+    /**
+     * Ejecuta un UPDATE por lotes con las escrituras indicadas y desaloja sus credenciales del cache
+     * de segundo nivel. Si falla, devuelve los cambios a sus estados para la siguiente escritura.
+     * @param sql UPDATE a ejecutar
+     * @param escrituras Cambios a escribir
+     * @param parametros Parámetros del UPDATE para cada cambio
+     */
+    private void escribir(String sql, List<Escritura> escrituras, Function<Escritura, Object[]> parametros) {
+        if (escrituras.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(sql, escrituras.stream().map(parametros).toList());
+        } catch (RuntimeException e) {
+            for (Escritura escritura : escrituras) {
+                EstadoIntentos estado = escritura.estado();
+                // Un reinicio posterior ya descartó estos cambios
+                if (!estado.reinicioPendiente.get()) {
+                    if (escritura.reinicio()) {
+                        estado.reinicioPendiente.set(true);
+                    }
+                    estado.fallosPendientes.addAndGet(escritura.fallos());
+                }
+                estado.pendiente.set(true);
+            }
+            log.warn("No se pudieron escribir {} contadores de intentos fallidos: {}", escrituras.size(), e.getMessage());
+            return;
+        }
+        // El UPDATE no pasa por Hibernate, que no desaloja por sí solo las credenciales del cache de segundo nivel
+        Cache cacheSegundoNivel = entityManagerFactory.getCache();
+        for (Escritura escritura : escrituras) {
+            cacheSegundoNivel.evict(Credencial.class, escritura.id());
+        }
+    }
+
+    /**
+     * Convierte un instante en milisegundos a un valor de columna
+     * @param milisegundos Instante, 0 si no hay
+     * @return Timestamp del instante o null
+     */
+    private static Timestamp timestamp(long milisegundos) {
+        return milisegundos == 0 ? null : new Timestamp(milisegundos);
+    }
+
+    /**
+     * Marca el estado para ser escrito en la siguiente escritura por lotes
+     * @param estado Estado modificado
+     * @param ahora Momento del cambio en milisegundos
+     */
+    private void marcarPendiente(EstadoIntentos estado, long ahora) {
+        estado.ultimoCambio = ahora;
+        estado.pendiente.set(true);
+    }
+
+    /**
+     * Elimina los estados ya escritos, sin bloqueo vigente e inactivos.
+     * Al eliminarlos se invalida la credencial en cache para que la siguiente
+     * carga lea desde la base de datos los valores escritos.
+     */
+    private void descartarInactivos() {
+        long ahora = System.currentTimeMillis();
+        long limite = ahora - duracionBloqueo.toMillis();
+
+        Iterator<EstadoIntentos> iterador = estados.values().iterator();
+        while (iterador.hasNext()) {
+            EstadoIntentos estado = iterador.next();
+            if (!estado.pendiente.get() && estado.ultimoCambio < limite && estado.bloqueadoHasta.get() <= ahora) {
+                iterador.remove();
+                cacheCredenciales.invalidar(estado.correo);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,182 @@
+package com.SAFE_Rescue.API_Ciudadano.service;
+
+import com.SAFE_Rescue.API_Ciudadano.modelo.EventoCambio;
+import com.SAFE_Rescue.API_Ciudadano.repository.EventoCambioRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Relevo de la tabla de salida de cambios: publica por lotes, en el orden en que se registraron,
+ * los eventos aún sin posición.
+ * Cada lote se publica en una transacción que bloquea la fila evento_cambio de secuencia_id, de modo
+ * que con varias instancias solo una publica a la vez y las posiciones quedan consecutivas y en el
+ * orden de publicación. Dentro de la transacción se asignan las posiciones, se envía el lote al
+ * destino configurado y se guarda la última posición; si el destino falla, el lote se revierte y se
+ * reintenta en la siguiente ejecución.
+ * También elimina los eventos publicados más antiguos que la retención configurada.
+ */
+@Component
+public class RelevoCambios {
+
+    private static final Logger log = LoggerFactory.getLogger(RelevoCambios.class);
+
+    /**
+     * Fila de secuencia_id con la última posición publicada
+     */
+    static final String SECUENCIA_POSICION = "evento_cambio";
+
+    @Autowired
+    private EventoCambioRepository eventoCambioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectProvider<DestinoCambios> destino;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${cambios.relevo.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${cambios.relevo.tamanio-lote:500}")
+    private int tamanioLote;
+
+    @Value("${cambios.retencion.duracion:7d}")
+    private Duration retencion;
+
+    private TransactionTemplate transaccion;
+
+    // MÉTRICAS
+    private Counter publicados;
+    private Counter fallidos;
+    private Counter eliminados;
+
+    @PostConstruct
+    void iniciar() {
+        transaccion = new TransactionTemplate(transactionManager);
+        publicados = contador("publicado");
+        fallidos = contador("fallido");
+        eliminados = contador("eliminado");
+    }
+
+    /**
+     * Publica los eventos pendientes en lotes hasta vaciar la tabla de salida
+     */
+    @Scheduled(fixedDelayString = "${cambios.relevo.intervalo:1s}")
+    public void relevar() {
+        if (!habilitado) {
+            return;
+        }
+        try {
+            while (publicarLote() == tamanioLote) {
+                // Quedan eventos pendientes
+            }
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron publicar los cambios, se reintentará: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Publica un lote de eventos pendientes
+     * @return Cantidad de eventos publicados
+     * @throws RuntimeException Si el destino o la base de datos fallan; el lote queda pendiente
+     */
+    public int publicarLote() {
+        try {
+            int cantidad = transaccion.execute(estado -> {
+                long ultimaPosicion = bloquearPosicion();
+                List<EventoCambio> eventos = eventoCambioRepository.findByPosicionIsNullOrderById(Limit.of(tamanioLote));
+                if (eventos.isEmpty()) {
+                    return 0;
+                }
+                for (EventoCambio evento : eventos) {
+                    evento.setPosicion(++ultimaPosicion);
+                }
+                DestinoCambios destinoCambios = destino.getIfAvailable();
+                if (destinoCambios != null) {
+                    destinoCambios.publicar(eventos);
+                }
+                jdbcTemplate.update("update secuencia_id set valor = ? where nombre = ?", ultimaPosicion, SECUENCIA_POSICION);
+                return eventos.size();
+            });
+            publicados.increment(cantidad);
+            return cantidad;
+        } catch (RuntimeException e) {
+            fallidos.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Elimina por bloques los eventos publicados hasta la última posición anterior a la retención.
+     * Se elimina por posición y no por fecha para que las posiciones conservadas sigan sin saltos
+     */
+    @Scheduled(fixedDelayString = "${cambios.retencion.revision:10m}")
+    public void eliminarAntiguos() {
+        if (!habilitado) {
+            return;
+        }
+        Long hasta = jdbcTemplate.queryForObject(
+                "select max(posicion) from evento_cambio where posicion is not null and fecha < ?", Long.class,
+                new Timestamp(System.currentTimeMillis() - retencion.toMillis()));
+        if (hasta == null) {
+            return;
+        }
+        int filas;
+        do {
+            filas = jdbcTemplate.update("delete from evento_cambio where posicion <= ? limit ?", hasta, tamanioLote);
+            eliminados.increment(filas);
+        } while (filas == tamanioLote);
+    }
+
+    // MÉTODOS PRIVADOS
+
+    /**
+     * Bloquea la fila con la última posición publicada hasta el fin de la transacción, creándola si no existe
+     * @return Última posición publicada
+     */
+    private long bloquearPosicion() {
+        List<Long> valor = jdbcTemplate.queryForList(
+                "select valor from secuencia_id where nombre = ? for update", Long.class, SECUENCIA_POSICION);
+        if (valor.isEmpty()) {
+            // Base de datos creada con ddl-auto, sin la fila de la migración
+            jdbcTemplate.update("insert into secuencia_id (nombre, valor) values (?, 0)", SECUENCIA_POSICION);
+            return 0;
+        }
+        return valor.get(0) == null ? 0 : valor.get(0);
+    }
+
+    /**
+     * Crea el contador del relevo
+     * @param resultado publicado, fallido (lotes que no se pudieron publicar) o eliminado
+     * @return Contador registrado
+     */
+    private Counter contador(String resultado) {
+        return Counter.builder("cambios.relevo")
+                .description("Eventos publicados y eliminados de la tabla de salida, y lotes que no se pudieron publicar")
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.SAFE_Rescue.API_Ciudadano.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.math.BigInteger;
+import java.util.Map;
+
+/**
+ * Convierte el cuerpo de un PATCH en una entidad con solo los campos recibidos.
+ * Cada campo se verifica contra la lista de campos modificables y su tipo, de modo que
+ * un campo desconocido, nulo o con un valor del tipo equivocado se rechaza antes de leer la entidad.
+ */
+public final class CambiosParciales {
+
+    private CambiosParciales() {
+    }
+
+    /**
+     * Verifica y convierte los cambios recibidos
+     * @param objectMapper Mapper para convertir los valores y la entidad
+     * @param cambios Campos recibidos con sus valores, con los nombres del JSON de la entidad
+     * @param modificables Campos que se pueden modificar y su tipo
+     * @param tipo Clase de la entidad
+     * @return Entidad con los campos recibidos; el resto queda con su valor por defecto
+     * @throws IllegalArgumentException Si no hay cambios o algún campo no es modificable, es nulo o no tiene el tipo esperado
+     */
+    public static <T> T interpretar(ObjectMapper objectMapper, Map<String, Object> cambios,
+                                    Map<String, Class<?>> modificables, Class<T> tipo) {
+        if (cambios == null || cambios.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos un campo");
+        }
+        for (Map.Entry<String, Object> cambio : cambios.entrySet()) {
+            String campo = cambio.getKey();
+            Class<?> tipoCampo = modificables.get(campo);
+            if (tipoCampo == null) {
+                throw new IllegalArgumentException("Campo no modificable: " + campo
+                        + ". Campos permitidos: " + String.join(", ", modificables.keySet()));
+            }
+            if (cambio.getValue() == null) {
+                throw new IllegalArgumentException("El campo " + campo + " no puede ser nulo");
+            }
+            if (!tipoJsonValido(cambio.getValue(), tipoCampo)) {
+                throw new IllegalArgumentException("Valor no válido para el campo " + campo);
+            }
+            try {
+                objectMapper.convertValue(cambio.getValue(), tipoCampo);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Valor no válido para el campo " + campo);
+            }
+        }
+        return objectMapper.convertValue(cambios, tipo);
+    }
+
+    /**
+     * Verifica que el valor tenga el tipo JSON del campo, ya que convertValue acepta coerciones
+     * como "123" o 1.5 para un campo Long, o 123 para un campo String.
+     * Los campos de otros tipos, como las fechas, se verifican solo al convertirlos.
+     * @param valor Valor recibido, tal como lo leyó Jackson
+     * @param tipoCampo Tipo del campo
+     * @return true si el tipo JSON del valor corresponde al del campo
+     */
+    private static boolean tipoJsonValido(Object valor, Class<?> tipoCampo) {
+        if (tipoCampo == Long.class || tipoCampo == Integer.class || tipoCampo == Short.class || tipoCampo == Byte.class) {
+            return valor instanceof Integer || valor instanceof Long || valor instanceof BigInteger;
+        }
+        if (Number.class.isAssignableFrom(tipoCampo)) {
+            return valor instanceof Number;
+        }
+        if (tipoCampo == String.class) {
+            return valor instanceof String;
+        }
+        if (tipoCampo == Boolean.class) {
+            return valor instanceof Boolean;
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.SAFE_Rescue.API_Ciudadano.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cubeta de tokens sin bloqueos para limitar la frecuencia de solicitudes.
+ * En lugar de guardar los tokens y la última recarga, guarda en un solo long el instante teórico
+ * en que la cubeta vuelve a estar llena (algoritmo GCRA), que es equivalente y se actualiza con
+ * una sola operación compareAndSet. Una cubeta nueva comienza llena.
+ * Es segura para uso concurrente.
+ */
+public class CubetaTokens {
+
+    private final long intervalo;
+    private final long rafaga;
+    private final AtomicLong llena = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Crea una cubeta llena
+     * @param capacidad Cantidad máxima de tokens, es decir, solicitudes seguidas permitidas
+     * @param intervaloNanos Nanosegundos que tarda en reponerse un token
+     */
+    public CubetaTokens(int capacidad, long intervaloNanos) {
+        if (capacidad < 1 || intervaloNanos < 1) {
+            throw new IllegalArgumentException("La capacidad y el intervalo de la cubeta deben ser mayores que cero");
+        }
+        this.intervalo = intervaloNanos;
+        this.rafaga = capacidad * intervaloNanos;
+    }
+
+    /**
+     * Intenta tomar un token
+     * @param ahora Instante actual según System.nanoTime()
+     * @return 0 si se tomó el token, o los nanosegundos que faltan para que haya uno disponible
+     */
+    public long tomar(long ahora) {
+        while (true) {
+            long actual = llena.get();
+            long siguiente = Math.max(actual, ahora) + intervalo;
+            long espera = siguiente - ahora - rafaga;
+            if (espera > 0) {
+                return espera;
+            }
+            if (llena.compareAndSet(actual, siguiente)) {
+                return 0;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.SAFE_Rescue.API_Ciudadano.util;
+
+/**
+ * Filtro de Bloom para textos.
+ * Responde "no está" con certeza y "puede estar" con una tasa de falsos positivos
+ * que depende de la cantidad de elementos agregados respecto de la capacidad.
+ * No permite eliminar elementos. No es seguro para uso concurrente.
+ */
+public class FiltroBloom {
+
+    private final long[] bits;
+    private final long cantidadBits;
+    private final int cantidadHashes;
+    private long bitsEncendidos;
+    private long elementos;
+
+    /**
+     * Crea un filtro dimensionado para la capacidad y tasa de falsos positivos indicadas
+     * @param capacidad Cantidad esperada de elementos
+     * @param tasaFalsosPositivos Tasa de falsos positivos objetivo al llegar a la capacidad, entre 0 y 1
+     */
+    public FiltroBloom(long capacidad, double tasaFalsosPositivos) {
+        long n = Math.max(1, capacidad);
+        long m = (long) Math.ceil(-n * Math.log(tasaFalsosPositivos) / (Math.log(2) * Math.log(2)));
+        m = Math.max(64, ((m + 63) / 64) * 64);
+        bits = new long[(int) (m / 64)];
+        cantidadBits = m;
+        cantidadHashes = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+    }
+
+    /**
+     * Agrega un texto al filtro
+     * @param texto Texto a agregar
+     */
+    public void agregar(CharSequence texto) {
+        long hash = Hash.texto(texto);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < cantidadHashes; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % cantidadBits;
+            int palabra = (int) (bit >>> 6);
+            long mascara = 1L << bit;
+            if ((bits[palabra] & mascara) == 0) {
+                bits[palabra] |= mascara;
+                bitsEncendidos++;
+            }
+        }
+        elementos++;
+    }
+
+    /**
+     * Indica si el texto puede estar en el filtro
+     * @param texto Texto a buscar
+     * @return false si el texto con certeza no fue agregado
+     */
+    public boolean puedeContener(CharSequence texto) {
+        long hash = Hash.texto(texto);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < cantidadHashes; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % cantidadBits;
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tasa de falsos positivos estimada según la proporción de bits encendidos
+     * @return Probabilidad de que un texto no agregado responda "puede estar"
+     */
+    public double tasaFalsosPositivosEstimada() {
+        return Math.pow((double) bitsEncendidos / cantidadBits, cantidadHashes);
+    }
+
+    /**
+     * Cantidad de elementos agregados, incluidos los repetidos
+     * @return Elementos agregados
+     */
+    public long elementos() {
+        return elementos;
+    }
+
+    /**
+     * Memoria usada por el arreglo de bits
+     * @return Bytes reservados
+     */
+    public long bytesUsados() {
+        return (long) bits.length * Long.BYTES;
+    }
+
+}
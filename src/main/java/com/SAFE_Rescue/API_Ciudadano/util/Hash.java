@@ -0,0 +1,40 @@
+package com.SAFE_Rescue.API_Ciudadano.util;
+
+/**
+ * Funciones de hash de 64 bits usadas por las estructuras en memoria
+ */
+public final class Hash {
+
+    private Hash() {
+    }
+
+    /**
+     * Mezcla los bits de un valor (finalizador de MurmurHash3) para repartir
+     * valores consecutivos, como RUN o telefonos, en todo el rango
+     * @param valor Valor a mezclar
+     * @return Hash de 64 bits
+     */
+    public static long mezclar(long valor) {
+        valor ^= valor >>> 33;
+        valor *= 0xff51afd7ed558ccdL;
+        valor ^= valor >>> 33;
+        valor *= 0xc4ceb9fe1a85ec53L;
+        valor ^= valor >>> 33;
+        return valor;
+    }
+
+    /**
+     * Hash de 64 bits de un texto (FNV-1a sobre sus caracteres, luego mezclado)
+     * @param texto Texto a procesar
+     * @return Hash de 64 bits
+     */
+    public static long texto(CharSequence texto) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < texto.length(); i++) {
+            hash ^= texto.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mezclar(hash);
+    }
+
+}
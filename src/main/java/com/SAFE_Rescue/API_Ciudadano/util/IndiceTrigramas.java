@@ -0,0 +1,394 @@
+package com.SAFE_Rescue.API_Ciudadano.util;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Índice invertido de trigramas para buscar textos por similitud.
+ * Los textos se normalizan (minúsculas, sin tildes, solo letras y dígitos) y cada palabra
+ * se divide en trigramas con dos espacios al inicio y uno al final. Cada trigrama se codifica
+ * como un entero y tiene una lista de los documentos que lo contienen, en arreglos primitivos.
+ * No guarda los textos: solo el ID y la cantidad de trigramas de cada documento.
+ * Las eliminaciones marcan el documento y {@link #compactar()} lo quita de las listas.
+ * No es seguro para uso concurrente: quien lo use debe sincronizar el acceso.
+ */
+public class IndiceTrigramas {
+
+    /**
+     * Símbolos posibles en un trigrama: espacio, a-z y 0-9
+     */
+    private static final int ALFABETO = 37;
+    private static final int TRIGRAMAS = ALFABETO * ALFABETO * ALFABETO;
+
+    /**
+     * Trigramas máximos considerados de una búsqueda
+     */
+    private static final int MAXIMO_TRIGRAMAS_BUSQUEDA = 64;
+
+    private final int[][] listas = new int[TRIGRAMAS][];
+    private final int[] largos = new int[TRIGRAMAS];
+
+    private int[] idPorDocumento;
+    private short[] trigramasPorDocumento;
+    private int[] documentoPorId = new int[0];
+    private int documentos;
+    private int eliminados;
+    private long entradas;
+
+    /**
+     * Resultado de una búsqueda
+     * @param id ID del documento
+     * @param similitud Proporción de los trigramas buscados presentes en el documento, entre 0 y 1
+     */
+    public record Coincidencia(int id, double similitud) {
+    }
+
+    /**
+     * Crea un índice vacío con capacidad para la cantidad de documentos indicada sin redimensionar
+     * @param capacidadInicial Cantidad esperada de documentos
+     */
+    public IndiceTrigramas(int capacidadInicial) {
+        idPorDocumento = new int[Math.max(16, capacidadInicial)];
+        trigramasPorDocumento = new short[idPorDocumento.length];
+    }
+
+    /**
+     * Agrega o reemplaza el texto de un ID
+     * @param id ID no negativo del documento
+     * @param texto Texto a indexar; si no tiene letras ni dígitos solo se elimina el anterior
+     */
+    public void agregar(int id, String texto) {
+        eliminar(id);
+        int[] trigramas = trigramas(texto, true);
+        if (trigramas.length == 0) {
+            return;
+        }
+
+        if (documentos == idPorDocumento.length) {
+            int capacidad = documentos + (documentos >> 1);
+            idPorDocumento = Arrays.copyOf(idPorDocumento, capacidad);
+            trigramasPorDocumento = Arrays.copyOf(trigramasPorDocumento, capacidad);
+        }
+        int documento = documentos++;
+        idPorDocumento[documento] = id;
+        trigramasPorDocumento[documento] = (short) Math.min(trigramas.length, Short.MAX_VALUE);
+
+        if (id >= documentoPorId.length) {
+            documentoPorId = Arrays.copyOf(documentoPorId, Math.max(id + 1, documentoPorId.length + (documentoPorId.length >> 1)));
+        }
+        documentoPorId[id] = documento + 1;
+
+        for (int trigrama : trigramas) {
+            int[] lista = listas[trigrama];
+            if (lista == null) {
+                lista = listas[trigrama] = new int[4];
+            } else if (largos[trigrama] == lista.length) {
+                // Las listas recortadas al compactar pueden tener largo 1: crecen al menos en uno
+                lista = listas[trigrama] = Arrays.copyOf(lista, lista.length + Math.max(1, lista.length >> 1));
+            }
+            lista[largos[trigrama]++] = documento;
+        }
+        entradas += trigramas.length;
+    }
+
+    /**
+     * Indica si el ID tiene un texto indexado
+     * @param id ID del documento
+     * @return true si el ID está en el índice
+     */
+    public boolean contiene(int id) {
+        return id >= 0 && id < documentoPorId.length && documentoPorId[id] != 0;
+    }
+
+    /**
+     * Marca como eliminado el texto de un ID; se quita de las listas al compactar
+     * @param id ID del documento
+     */
+    public void eliminar(int id) {
+        if (!contiene(id)) {
+            return;
+        }
+        trigramasPorDocumento[documentoPorId[id] - 1] = 0;
+        documentoPorId[id] = 0;
+        eliminados++;
+    }
+
+    /**
+     * Busca los documentos más parecidos al texto.
+     * La similitud es la proporción de los trigramas del texto buscado que contiene el documento:
+     * una palabra incompleta coincide con las que empiezan igual, y un error de tipeo
+     * solo cambia los trigramas cercanos a la letra equivocada. A igual similitud se prefieren
+     * los documentos con menos trigramas (más parecidos en largo) y luego el ID menor.
+     * @param texto Texto a buscar
+     * @param similitudMinima Similitud mínima de los resultados, entre 0 y 1
+     * @param limite Cantidad máxima de resultados
+     * @return Coincidencias ordenadas de mayor a menor similitud
+     */
+    public Coincidencia[] buscar(String texto, double similitudMinima, int limite) {
+        int[] consulta = trigramas(texto, false);
+        if (consulta.length > MAXIMO_TRIGRAMAS_BUSQUEDA) {
+            consulta = Arrays.copyOf(consulta, MAXIMO_TRIGRAMAS_BUSQUEDA);
+        }
+        if (consulta.length == 0 || limite <= 0) {
+            return new Coincidencia[0];
+        }
+
+        // Cuenta los trigramas compartidos por cada documento que aparece en alguna lista
+        byte[] compartidos = new byte[documentos];
+        int[] tocados = new int[64];
+        int cantidadTocados = 0;
+        for (int trigrama : consulta) {
+            int[] lista = listas[trigrama];
+            for (int i = 0, largo = largos[trigrama]; i < largo; i++) {
+                int documento = lista[i];
+                if (compartidos[documento]++ == 0) {
+                    if (cantidadTocados == tocados.length) {
+                        tocados = Arrays.copyOf(tocados, cantidadTocados << 1);
+                    }
+                    tocados[cantidadTocados++] = documento;
+                }
+            }
+        }
+
+        // Conserva los mejores en un montículo de mínimos de tamaño limite
+        int minimoCompartidos = Math.max(1, (int) Math.ceil(similitudMinima * consulta.length - 1e-9));
+        int[] monticulo = new int[Math.min(limite, Math.max(1, cantidadTocados))];
+        int tamanio = 0;
+        for (int i = 0; i < cantidadTocados; i++) {
+            int documento = tocados[i];
+            if (compartidos[documento] < minimoCompartidos || trigramasPorDocumento[documento] == 0) {
+                continue;
+            }
+            if (tamanio < monticulo.length) {
+                monticulo[tamanio] = documento;
+                subir(monticulo, tamanio++, compartidos);
+            } else if (mejor(documento, monticulo[0], compartidos)) {
+                monticulo[0] = documento;
+                bajar(monticulo, tamanio, compartidos);
+            }
+        }
+
+        Coincidencia[] resultado = new Coincidencia[tamanio];
+        for (int i = tamanio - 1; i >= 0; i--) {
+            int documento = monticulo[0];
+            resultado[i] = new Coincidencia(idPorDocumento[documento], (double) compartidos[documento] / consulta.length);
+            monticulo[0] = monticulo[i];
+            bajar(monticulo, i, compartidos);
+        }
+        return resultado;
+    }
+
+    /**
+     * Quita de las listas los documentos eliminados y renumera los restantes
+     */
+    public void compactar() {
+        if (eliminados == 0) {
+            return;
+        }
+        int[] nuevoNumero = new int[documentos];
+        int vigentes = 0;
+        for (int documento = 0; documento < documentos; documento++) {
+            if (trigramasPorDocumento[documento] == 0) {
+                nuevoNumero[documento] = -1;
+            } else {
+                nuevoNumero[documento] = vigentes;
+                idPorDocumento[vigentes] = idPorDocumento[documento];
+                trigramasPorDocumento[vigentes] = trigramasPorDocumento[documento];
+                documentoPorId[idPorDocumento[vigentes]] = vigentes + 1;
+                vigentes++;
+            }
+        }
+
+        entradas = 0;
+        for (int trigrama = 0; trigrama < TRIGRAMAS; trigrama++) {
+            int[] lista = listas[trigrama];
+            if (lista == null) {
+                continue;
+            }
+            int largo = 0;
+            for (int i = 0; i < largos[trigrama]; i++) {
+                int numero = nuevoNumero[lista[i]];
+                if (numero >= 0) {
+                    lista[largo++] = numero;
+                }
+            }
+            largos[trigrama] = largo;
+            listas[trigrama] = largo == 0 ? null : Arrays.copyOf(lista, largo);
+            entradas += largo;
+        }
+        Arrays.fill(trigramasPorDocumento, vigentes, documentos, (short) 0);
+        documentos = vigentes;
+        eliminados = 0;
+    }
+
+    /**
+     * Documentos vigentes en el índice
+     * @return Cantidad de documentos sin eliminar
+     */
+    public int tamanio() {
+        return documentos - eliminados;
+    }
+
+    /**
+     * Documentos eliminados que aún ocupan las listas
+     * @return Cantidad de documentos por compactar
+     */
+    public int eliminados() {
+        return eliminados;
+    }
+
+    /**
+     * Memoria aproximada usada por los arreglos del índice
+     * @return Bytes usados
+     */
+    public long bytesUsados() {
+        long bytes = (long) TRIGRAMAS * (4 + 8) + 4L * documentoPorId.length + 6L * idPorDocumento.length;
+        for (int[] lista : listas) {
+            if (lista != null) {
+                bytes += 16 + 4L * lista.length;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Normaliza un texto para indexarlo o buscarlo: minúsculas y sin tildes,
+     * con cualquier carácter que no sea letra o dígito convertido en espacio
+     * @param texto Texto original, puede ser nulo
+     * @return Palabras normalizadas separadas por un espacio
+     */
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String descompuesto = Normalizer.normalize(texto, Normalizer.Form.NFD).toLowerCase(Locale.ROOT);
+        StringBuilder normalizado = new StringBuilder(descompuesto.length());
+        boolean espacio = true;
+        for (int i = 0; i < descompuesto.length(); i++) {
+            char c = descompuesto.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (codigo(c) > 0) {
+                normalizado.append(c);
+                espacio = false;
+            } else if (!espacio) {
+                normalizado.append(' ');
+                espacio = true;
+            }
+        }
+        int largo = normalizado.length();
+        return largo > 0 && normalizado.charAt(largo - 1) == ' '
+                ? normalizado.substring(0, largo - 1) : normalizado.toString();
+    }
+
+    /**
+     * Obtiene los trigramas distintos de un texto.
+     * Las palabras de un documento se rellenan con un espacio al final; las de una búsqueda no,
+     * para que una palabra incompleta coincida con el inicio de las palabras indexadas
+     * @param texto Texto original
+     * @param documento true para un texto a indexar, false para una búsqueda
+     * @return Códigos de trigramas ordenados y sin repetir
+     */
+    private static int[] trigramas(String texto, boolean documento) {
+        String normalizado = normalizar(texto);
+        int[] codigos = new int[normalizado.length() * 2 + 4];
+        int cantidad = 0;
+        int inicio = 0;
+        while (inicio < normalizado.length()) {
+            int fin = normalizado.indexOf(' ', inicio);
+            if (fin < 0) {
+                fin = normalizado.length();
+            }
+            // Relleno: dos espacios al inicio y, en documentos, uno al final
+            int a = 0;
+            int b = 0;
+            for (int i = inicio; i < fin; i++) {
+                int c = codigo(normalizado.charAt(i));
+                codigos[cantidad++] = (a * ALFABETO + b) * ALFABETO + c;
+                a = b;
+                b = c;
+            }
+            if (documento) {
+                codigos[cantidad++] = (a * ALFABETO + b) * ALFABETO;
+            }
+            inicio = fin + 1;
+        }
+
+        Arrays.sort(codigos, 0, cantidad);
+        int distintos = 0;
+        for (int i = 0; i < cantidad; i++) {
+            if (distintos == 0 || codigos[distintos - 1] != codigos[i]) {
+                codigos[distintos++] = codigos[i];
+            }
+        }
+        return Arrays.copyOf(codigos, distintos);
+    }
+
+    /**
+     * Código de un carácter normalizado dentro del alfabeto del trigrama
+     * @param c Carácter
+     * @return 1-26 para a-z, 27-36 para 0-9, 0 para cualquier otro
+     */
+    private static int codigo(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 1;
+        }
+        if (c >= '0' && c <= '9') {
+            return c - '0' + 27;
+        }
+        return 0;
+    }
+
+    /**
+     * Indica si un documento va antes que otro en los resultados
+     */
+    private boolean mejor(int a, int b, byte[] compartidos) {
+        if (compartidos[a] != compartidos[b]) {
+            return compartidos[a] > compartidos[b];
+        }
+        if (trigramasPorDocumento[a] != trigramasPorDocumento[b]) {
+            return trigramasPorDocumento[a] < trigramasPorDocumento[b];
+        }
+        return idPorDocumento[a] < idPorDocumento[b];
+    }
+
+    private void subir(int[] monticulo, int posicion, byte[] compartidos) {
+        while (posicion > 0) {
+            int padre = (posicion - 1) >> 1;
+            if (!mejor(monticulo[padre], monticulo[posicion], compartidos)) {
+                break;
+            }
+            intercambiar(monticulo, padre, posicion);
+            posicion = padre;
+        }
+    }
+
+    private void bajar(int[] monticulo, int tamanio, byte[] compartidos) {
+        int posicion = 0;
+        while (true) {
+            int peor = posicion;
+            int izquierdo = 2 * posicion + 1;
+            int derecho = izquierdo + 1;
+            if (izquierdo < tamanio && mejor(monticulo[peor], monticulo[izquierdo], compartidos)) {
+                peor = izquierdo;
+            }
+            if (derecho < tamanio && mejor(monticulo[peor], monticulo[derecho], compartidos)) {
+                peor = derecho;
+            }
+            if (peor == posicion) {
+                return;
+            }
+            intercambiar(monticulo, posicion, peor);
+            posicion = peor;
+        }
+    }
+
+    private static void intercambiar(int[] arreglo, int i, int j) {
+        int temporal = arreglo[i];
+        arreglo[i] = arreglo[j];
+        arreglo[j] = temporal;
+    }
+
+}
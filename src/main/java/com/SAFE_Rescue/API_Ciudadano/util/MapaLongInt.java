@@ -0,0 +1,186 @@
+package com.SAFE_Rescue.API_Ciudadano.util;
+
+/**
+ * Mapa de claves long a valores int con direccionamiento abierto y sondeo lineal.
+ * Guarda claves y valores en dos arreglos primitivos paralelos, sin objetos Long ni Integer por elemento.
+ * La clave 0 se usa para marcar posiciones vacías y se registra aparte.
+ * No es seguro para uso concurrente: quien lo use debe sincronizar el acceso.
+ */
+public class MapaLongInt {
+
+    /**
+     * Valor devuelto cuando la clave no está en el mapa
+     */
+    public static final int AUSENTE = -1;
+
+    private static final float CARGA_MAXIMA = 0.6f;
+
+    private long[] claves;
+    private int[] valores;
+    private int mascara;
+    private int tamanio;
+    private boolean contieneCero;
+    private int valorCero;
+
+    /**
+     * Crea un mapa con capacidad para la cantidad de elementos indicada sin redimensionar
+     * @param capacidadInicial Cantidad esperada de elementos
+     */
+    public MapaLongInt(int capacidadInicial) {
+        int capacidad = Integer.highestOneBit(Math.max(4, (int) (capacidadInicial / CARGA_MAXIMA)) - 1) << 1;
+        claves = new long[capacidad];
+        valores = new int[capacidad];
+        mascara = capacidad - 1;
+    }
+
+    /**
+     * Asocia un valor a la clave, reemplazando el anterior si existía
+     * @param clave Clave
+     * @param valor Valor, distinto de {@link #AUSENTE}
+     * @return Valor anterior, o {@link #AUSENTE} si la clave no estaba en el mapa
+     */
+    public int poner(long clave, int valor) {
+        if (clave == 0) {
+            int anterior = contieneCero ? valorCero : AUSENTE;
+            if (!contieneCero) {
+                contieneCero = true;
+                tamanio++;
+            }
+            valorCero = valor;
+            return anterior;
+        }
+        int posicion = posicion(clave);
+        while (claves[posicion] != 0) {
+            if (claves[posicion] == clave) {
+                int anterior = valores[posicion];
+                valores[posicion] = valor;
+                return anterior;
+            }
+            posicion = (posicion + 1) & mascara;
+        }
+        claves[posicion] = clave;
+        valores[posicion] = valor;
+        if (++tamanio > claves.length * CARGA_MAXIMA) {
+            redimensionar(claves.length << 1);
+        }
+        return AUSENTE;
+    }
+
+    /**
+     * Obtiene el valor asociado a la clave
+     * @param clave Clave a buscar
+     * @return Valor asociado, o {@link #AUSENTE} si la clave no está en el mapa
+     */
+    public int obtener(long clave) {
+        if (clave == 0) {
+            return contieneCero ? valorCero : AUSENTE;
+        }
+        int posicion = posicion(clave);
+        while (claves[posicion] != 0) {
+            if (claves[posicion] == clave) {
+                return valores[posicion];
+            }
+            posicion = (posicion + 1) & mascara;
+        }
+        return AUSENTE;
+    }
+
+    /**
+     * Indica si la clave está en el mapa
+     * @param clave Clave a buscar
+     * @return true si la clave tiene un valor asociado
+     */
+    public boolean contiene(long clave) {
+        return obtener(clave) != AUSENTE;
+    }
+
+    /**
+     * Elimina una clave del mapa, desplazando hacia atrás las claves
+     * de la misma secuencia de sondeo para no dejar marcas de borrado
+     * @param clave Clave a eliminar
+     * @return Valor que tenía la clave, o {@link #AUSENTE} si no estaba en el mapa
+     */
+    public int eliminar(long clave) {
+        if (clave == 0) {
+            int anterior = contieneCero ? valorCero : AUSENTE;
+            if (contieneCero) {
+                contieneCero = false;
+                tamanio--;
+            }
+            return anterior;
+        }
+        int posicion = posicion(clave);
+        while (claves[posicion] != clave) {
+            if (claves[posicion] == 0) {
+                return AUSENTE;
+            }
+            posicion = (posicion + 1) & mascara;
+        }
+        int anterior = valores[posicion];
+
+        int vacia = posicion;
+        int siguiente = (posicion + 1) & mascara;
+        while (claves[siguiente] != 0) {
+            int ideal = posicion(claves[siguiente]);
+            // Se mueve la clave si su posición ideal no está entre la vacía y la actual (de forma circular)
+            if (((siguiente - ideal) & mascara) >= ((siguiente - vacia) & mascara)) {
+                claves[vacia] = claves[siguiente];
+                valores[vacia] = valores[siguiente];
+                vacia = siguiente;
+            }
+            siguiente = (siguiente + 1) & mascara;
+        }
+        claves[vacia] = 0;
+        tamanio--;
+        return anterior;
+    }
+
+    /**
+     * Cantidad de claves en el mapa
+     * @return Tamaño del mapa
+     */
+    public int tamanio() {
+        return tamanio;
+    }
+
+    /**
+     * Memoria aproximada usada por los arreglos de claves y valores
+     * @return Bytes reservados
+     */
+    public long bytesUsados() {
+        return (long) claves.length * (Long.BYTES + Integer.BYTES);
+    }
+
+    /**
+     * Posición ideal de la clave en el arreglo
+     * @param clave Clave distinta de 0
+     * @return Posición inicial de sondeo
+     */
+    private int posicion(long clave) {
+        return (int) Hash.mezclar(clave) & mascara;
+    }
+
+    /**
+     * Duplica los arreglos y reinserta todas las claves
+     * @param capacidad Nueva capacidad, potencia de 2
+     */
+    private void redimensionar(int capacidad) {
+        long[] clavesAnteriores = claves;
+        int[] valoresAnteriores = valores;
+        claves = new long[capacidad];
+        valores = new int[capacidad];
+        mascara = capacidad - 1;
+        for (int i = 0; i < clavesAnteriores.length; i++) {
+            long clave = clavesAnteriores[i];
+            if (clave != 0) {
+                int posicion = posicion(clave);
+                while (claves[posicion] != 0) {
+                    posicion = (posicion + 1) & mascara;
+                }
+                claves[posicion] = clave;
+                valores[posicion] = valoresAnteriores[i];
+            }
+        }
+    }
+
+}
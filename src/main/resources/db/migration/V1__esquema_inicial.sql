@@ -0,0 +1,45 @@
+-- Esquema inicial de la API de ciudadanos, equivalente al que generaba spring.jpa.hibernate.ddl-auto=update.
+-- Las migraciones se aplican fuera del arranque de la aplicación (./mvnw -P migraciones flyway:migrate),
+-- y la aplicación solo valida el esquema o no lo revisa (perfil arranque-rapido).
+-- Solo se ejecuta sobre un esquema vacío: una base de datos existente, creada con ddl-auto=update, no se
+-- migra con este archivo sino que se registra en la versión 1 (baselineOnMigrate en el perfil migraciones).
+-- Cada cambio a las entidades se agrega como una nueva migración V<n>__<descripcion>.sql.
+
+create table secuencia_id (
+    nombre varchar(255) not null,
+    valor bigint,
+    primary key (nombre)
+) engine=InnoDB;
+
+insert into secuencia_id (nombre, valor) values ('credencial_ciudadana', 0);
+insert into secuencia_id (nombre, valor) values ('ciudadano', 0);
+
+create table credencial_ciudadana (
+    id integer not null,
+    version bigint not null,
+    correo varchar(80) not null,
+    contrasenia varchar(60) not null,
+    intentos_fallidos integer,
+    activo bit not null,
+    bloqueado_hasta datetime(6),
+    primary key (id),
+    constraint uk_credencial_correo unique (correo)
+) engine=InnoDB;
+
+create table ciudadano (
+    id integer not null,
+    version bigint not null,
+    run bigint not null,
+    dv varchar(1) not null,
+    nombre varchar(50) not null,
+    a_paterno varchar(50) not null,
+    a_materno varchar(50) not null,
+    fecha_registro datetime(6) not null,
+    telefono bigint not null,
+    credenciales_id integer,
+    primary key (id),
+    constraint uk_ciudadano_run unique (run),
+    constraint uk_ciudadano_telefono unique (telefono),
+    constraint uk_ciudadano_credencial unique (credenciales_id),
+    constraint fk_ciudadano_credencial foreign key (credenciales_id) references credencial_ciudadana (id)
+) engine=InnoDB;
@@ -0,0 +1,17 @@
+-- Tabla de salida (outbox) de cambios de ciudadanos y credenciales, y la fila de secuencia_id
+-- con la última posición publicada por el relevo de cambios.
+
+create table evento_cambio (
+    id bigint not null auto_increment,
+    posicion bigint,
+    entidad varchar(20) not null,
+    entidad_id integer not null,
+    operacion varchar(20) not null,
+    version bigint not null,
+    datos varchar(2000),
+    fecha datetime(6) not null,
+    primary key (id),
+    constraint uk_evento_cambio_posicion unique (posicion)
+) engine=InnoDB;
+
+insert into secuencia_id (nombre, valor) values ('evento_cambio', 0);
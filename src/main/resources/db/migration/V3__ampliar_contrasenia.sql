@@ -0,0 +1,7 @@
+-- Amplía credencial_ciudadana.contrasenia para guardar hashes BCrypt (60 caracteres).
+-- Las bases creadas con ddl-auto=update antes del hash tienen la columna con 16 caracteres, y
+-- ddl-auto=update no cambia el largo de las columnas existentes. En una columna que ya tiene
+-- 60 caracteres la sentencia no cambia nada. Las contraseñas en texto plano se mantienen y se
+-- codifican en su próximo inicio de sesión.
+
+alter table credencial_ciudadana modify contrasenia varchar(60) not null;
@@ -0,0 +1,47 @@
+package com.SAFE_Rescue.API_Ciudadano;
+
+import com.SAFE_Rescue.API_Ciudadano.modelo.Ciudadano;
+import com.SAFE_Rescue.API_Ciudadano.modelo.Credencial;
+
+import java.util.Date;
+
+/**
+ * Datos de prueba compartidos por las pruebas que registran ciudadanos
+ */
+public final class CiudadanosPrueba {
+
+	/**
+	 * Contraseña de las credenciales creadas por {@link #ciudadano(String, long, long)}
+	 */
+	public static final String CONTRASENIA = "clave1";
+
+	private CiudadanosPrueba() {
+	}
+
+	/**
+	 * Crea un ciudadano sin guardar, con una credencial activa nueva.
+	 * Cada prueba usa su propio rango de RUN y telefono para no chocar con las demás.
+	 * @param prefijoCorreo Parte local del correo, que queda como prefijoCorreo@correo.cl
+	 * @param run RUN del ciudadano
+	 * @param telefono Telefono del ciudadano
+	 * @return Ciudadano listo para guardar con CiudadanoService.save
+	 */
+	public static Ciudadano ciudadano(String prefijoCorreo, long run, long telefono) {
+		Credencial credencial = new Credencial();
+		credencial.setCorreo(prefijoCorreo + "@correo.cl");
+		credencial.setContrasenia(CONTRASENIA);
+		credencial.setActivo(true);
+
+		Ciudadano ciudadano = new Ciudadano();
+		ciudadano.setRun(run);
+		ciudadano.setDv("k");
+		ciudadano.setNombre("Nombre");
+		ciudadano.setAPaterno("Paterno");
+		ciudadano.setAMaterno("Materno");
+		ciudadano.setFechaRegistro(new Date());
+		ciudadano.setTelefono(telefono);
+		ciudadano.setCredencial(credencial);
+		return ciudadano;
+	}
+
+}
@@ -0,0 +1,88 @@
+package com.SAFE_Rescue.API_Ciudadano;
+
+import com.SAFE_Rescue.API_Ciudadano.service.CiudadanoService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.SAFE_Rescue.API_Ciudadano.CiudadanosPrueba.ciudadano;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifica que las migraciones de db/migration crean el esquema que esperan las entidades:
+ * aplica las migraciones antes de iniciar la aplicación, como se haría fuera de banda, y la inicia
+ * con el perfil arranque-rapido y ddl-auto=validate, que falla si falta una tabla o columna.
+ * La validación lee los metadatos JDBC, que el perfil desactiva, por lo que se vuelven a habilitar.
+ * También verifica que V3 amplíe la columna contrasenia de una base anterior al hash sin perder datos,
+ * y que se pueda volver a aplicar.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=" + MigracionesTests.URL,
+		"spring.jpa.hibernate.ddl-auto=validate",
+		"spring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access=true"
+})
+@ActiveProfiles({"test", "arranque-rapido"})
+class MigracionesTests {
+
+	static final String URL = "jdbc:h2:mem:migraciones;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+	static {
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(URL, "sa", ""));
+		for (String migracion : migraciones()) {
+			jdbcTemplate.execute("runscript from 'classpath:db/migration/" + migracion + "'");
+		}
+	}
+
+	@Autowired
+	private CiudadanoService ciudadanoService;
+
+	@Test
+	void lasEntidadesSeGuardanYLeenSobreElEsquemaMigrado() {
+		int id = ciudadanoService.save(ciudadano("migracion", 50_000_000L, 950_000_000L)).getId();
+
+		assertEquals("migracion@correo.cl", ciudadanoService.findByID(id).getCredencial().getCorreo());
+	}
+
+	@Test
+	void v3AmpliaLaContraseniaDeUnaBaseAnteriorAlHash() {
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+				"jdbc:h2:mem:contrasenia16;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", ""));
+		jdbcTemplate.execute("create table credencial_ciudadana (id integer not null, contrasenia varchar(16) not null, primary key (id))");
+		jdbcTemplate.update("insert into credencial_ciudadana (id, contrasenia) values (1, 'clave1')");
+
+		for (int i = 0; i < 2; i++) {
+			jdbcTemplate.execute("runscript from 'classpath:db/migration/V3__ampliar_contrasenia.sql'");
+			assertEquals(60, jdbcTemplate.queryForObject("select character_maximum_length from information_schema.columns "
+					+ "where table_name = 'credencial_ciudadana' and column_name = 'contrasenia'", Integer.class));
+			assertEquals("NO", jdbcTemplate.queryForObject("select is_nullable from information_schema.columns "
+					+ "where table_name = 'credencial_ciudadana' and column_name = 'contrasenia'", String.class));
+		}
+		assertEquals("clave1", jdbcTemplate.queryForObject("select contrasenia from credencial_ciudadana where id = 1", String.class));
+	}
+
+	/**
+	 * Obtiene los nombres de las migraciones V&lt;n&gt;__&lt;descripcion&gt;.sql en el orden de su versión
+	 */
+	static List<String> migraciones() {
+		try {
+			return Arrays.stream(new PathMatchingResourcePatternResolver().getResources("classpath:db/migration/V*__*.sql"))
+					.map(Resource::getFilename)
+					.sorted(Comparator.comparingInt(nombre -> Integer.parseInt(nombre.substring(1, nombre.indexOf("__")))))
+					.toList();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
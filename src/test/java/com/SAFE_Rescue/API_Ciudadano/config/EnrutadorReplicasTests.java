@@ -0,0 +1,170 @@
+package com.SAFE_Rescue.API_Ciudadano.config;
+
+import com.SAFE_Rescue.API_Ciudadano.CiudadanosPrueba;
+import com.SAFE_Rescue.API_Ciudadano.service.CiudadanoService;
+import com.SAFE_Rescue.API_Ciudadano.service.CredencialService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static com.SAFE_Rescue.API_Ciudadano.CiudadanosPrueba.ciudadano;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica el enrutamiento a réplicas con dos bases de datos H2 en memoria: la primaria y una réplica
+ * que solo recibe los datos cuando la prueba los copia, lo que permite saber a cuál fue cada lectura.
+ * Una segunda réplica que no existe debe quedar fuera del reparto, y la credencial que se guarda en el
+ * cache de inicio de sesión se lee de la primaria.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=" + EnrutadorReplicasTests.URL_PRIMARIA,
+		"replicas.habilitado=true",
+		"replicas.urls=" + EnrutadorReplicasTests.URL_REPLICA + ",jdbc:h2:mem:replica_caida;IFEXISTS=TRUE",
+		"replicas.ventana-lectura-escrituras=1m"
+})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class EnrutadorReplicasTests {
+
+	static final String URL_PRIMARIA = "jdbc:h2:mem:primaria_replicas;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+	static final String URL_REPLICA = "jdbc:h2:mem:replica_replicas;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+	private final JdbcTemplate primaria = new JdbcTemplate(new DriverManagerDataSource(URL_PRIMARIA, "sa", ""));
+	private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(URL_REPLICA, "sa", ""));
+
+	private int siguiente;
+
+	@Autowired
+	private CiudadanoService ciudadanoService;
+
+	@Autowired
+	private CredencialService credencialService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@BeforeAll
+	void replicarEsquema() {
+		replicar();
+	}
+
+	@BeforeEach
+	void vaciarCacheSegundoNivel() {
+		entityManagerFactory.getCache().evictAll();
+	}
+
+	@AfterEach
+	void terminarSolicitud() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Test
+	void lasLecturasReadOnlyVanALaReplicaYLasEscriturasALaPrimaria() {
+		solicitudDesde("10.0.0.3");
+		int id = registrar();
+		entityManagerFactory.getCache().evictAll();
+		solicitudDesde("10.0.0.4");
+
+		assertEquals(1, primaria.queryForObject("select count(*) from ciudadano where id = ?", Integer.class, id));
+		assertThrows(NoSuchElementException.class, () -> ciudadanoService.findByID(id));
+
+		replicar();
+		assertEquals(id, ciudadanoService.findByID(id).getId());
+	}
+
+	@Test
+	void trasUnaEscrituraElMismoClienteLeeDeLaPrimaria() {
+		solicitudDesde("10.0.0.1");
+		int id = registrar();
+		entityManagerFactory.getCache().evictAll();
+		assertEquals(id, ciudadanoService.findByID(id).getId());
+
+		entityManagerFactory.getCache().evictAll();
+		solicitudDesde("10.0.0.2");
+		assertThrows(NoSuchElementException.class, () -> ciudadanoService.findByID(id));
+	}
+
+	@Test
+	void elInicioDeSesionLeeLaCredencialDeLaPrimaria() {
+		solicitudDesde("10.0.0.5");
+		registrar();
+		// También se descarta el cache de consultas, que guarda el ID encontrado por correo
+		entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+		solicitudDesde("10.0.0.6");
+		double forzadas = meterRegistry.get("replicas.lecturas").tag("motivo", "forzada").counter().count();
+
+		// La réplica aún no tiene la credencial: aunque quien llama abra una transacción readOnly,
+		// leída de la réplica el inicio de sesión fallaría
+		TransactionTemplate soloLectura = new TransactionTemplate(transactionManager);
+		soloLectura.setReadOnly(true);
+		assertEquals(true, soloLectura.execute(estado ->
+				credencialService.verificarCredenciales("replica" + siguiente + "@correo.cl", CiudadanosPrueba.CONTRASENIA)));
+		assertTrue(meterRegistry.get("replicas.lecturas").tag("motivo", "forzada").counter().count() > forzadas);
+	}
+
+	@Test
+	void laReplicaCaidaQuedaFueraDelRepartoConMetricasPorPool() {
+		for (int i = 0; i < 4; i++) {
+			ciudadanoService.findAll();
+		}
+
+		assertEquals(1.0, meterRegistry.get("replicas.disponible").tag("replica", "replica-1").gauge().value());
+		assertEquals(0.0, meterRegistry.get("replicas.disponible").tag("replica", "replica-2").gauge().value());
+		assertEquals(0.0, meterRegistry.get("replicas.lecturas").tag("destino", "replica-2").counter().count());
+		assertEquals(0.0, meterRegistry.get("replicas.lecturas").tag("motivo", "sin-replicas").counter().count());
+		assertNotNull(meterRegistry.find("hikaricp.connections").tag("pool", "ciudadano").gauge());
+		assertNotNull(meterRegistry.find("hikaricp.connections").tag("pool", "replica-1").gauge());
+	}
+
+	/**
+	 * Copia el esquema y los datos de la primaria a la réplica, como lo haría la replicación de MySQL
+	 */
+	private void replicar() {
+		List<String> sentencias = primaria.queryForList("script nopasswords nosettings", String.class);
+		replica.execute("drop all objects");
+		sentencias.forEach(replica::execute);
+	}
+
+	/**
+	 * Simula una solicitud HTTP desde la IP indicada en el hilo de la prueba, que reemplaza
+	 * a la solicitud de prueba que Spring crea para cada método
+	 */
+	private void solicitudDesde(String ip) {
+		MockHttpServletRequest solicitud = new MockHttpServletRequest();
+		solicitud.setRemoteAddr(ip);
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(solicitud));
+	}
+
+	private int registrar() {
+		siguiente++;
+		return ciudadanoService.save(ciudadano("replica" + siguiente, 40_000_000L + siguiente, 940_000_000L + siguiente)).getId();
+	}
+
+}
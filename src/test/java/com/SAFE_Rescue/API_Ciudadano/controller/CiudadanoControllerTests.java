@@ -0,0 +1,188 @@
+package com.SAFE_Rescue.API_Ciudadano.controller;
+
+import com.SAFE_Rescue.API_Ciudadano.config.ContadorSentenciasSql;
+import com.SAFE_Rescue.API_Ciudadano.service.CiudadanoService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static com.SAFE_Rescue.API_Ciudadano.CiudadanosPrueba.ciudadano;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica que el ETag de una consulta de ciudadano por ID sea el de la versión entregada en el cuerpo,
+ * aunque el ciudadano cambie entre la lectura del ETag y la del cuerpo.
+ * También verifica que un PATCH actualice solo las columnas que cambian, que uno sin cambios no ejecute
+ * sentencias y que un campo desconocido, nulo o de otro tipo se rechace con 400, igual que una búsqueda
+ * por varios IDs sobre el máximo configurado.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:ciudadanoController;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"ciudadanos.batch-get.maximo-ids=3"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CiudadanoControllerTests {
+
+	private static final String URL = "/api-ciudadano/v1/ciudadanos/";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockitoSpyBean
+	private CiudadanoService ciudadanoService;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@MockitoSpyBean
+	private ContadorSentenciasSql contadorSentenciasSql;
+
+	@Test
+	void elEtagEsElDeLaVersionSerializadaAunqueCambieEntreLecturas() throws Exception {
+		int id = ciudadanoService.save(ciudadano("etag", 70_000_001L, 970_000_001L)).getId();
+		String inicial = ciudadanoService.obtenerEtag(id);
+
+		// Una escritura se confirma después de leer el ETag y antes de leer el cuerpo
+		TransactionTemplate nuevaTransaccion = new TransactionTemplate(transactionManager);
+		nuevaTransaccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		AtomicBoolean escrito = new AtomicBoolean();
+		doAnswer(invocacion -> {
+			Object etag = invocacion.callRealMethod();
+			if (escrito.compareAndSet(false, true)) {
+				nuevaTransaccion.executeWithoutResult(estado -> ciudadanoService.patch(Map.of("nombre", "Cambiado"), id));
+			}
+			return etag;
+		}).when(ciudadanoService).obtenerEtag(id);
+
+		MvcResult resultado = mockMvc.perform(get(URL + id))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.nombre").value("Cambiado"))
+				.andReturn();
+		String actual = ciudadanoService.obtenerEtag(id);
+		assertNotEquals(inicial, actual);
+		assertEquals(List.of("\"" + actual + "\""), resultado.getResponse().getHeaders(HttpHeaders.ETAG));
+
+		mockMvc.perform(get(URL + id).header(HttpHeaders.IF_NONE_MATCH, "\"" + actual + "\""))
+				.andExpect(status().isNotModified());
+		mockMvc.perform(get(URL + id).header(HttpHeaders.IF_NONE_MATCH, "\"" + inicial + "\""))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.nombre").value("Cambiado"));
+		ciudadanoService.delete(id);
+	}
+
+	@Test
+	void unPatchActualizaSoloLasColumnasQueCambian() throws Exception {
+		int id = ciudadanoService.save(ciudadano("patch", 70_000_011L, 970_000_011L)).getId();
+
+		List<String> sentencias = capturarSentencias();
+		mockMvc.perform(patch(URL + id).contentType(MediaType.APPLICATION_JSON)
+						.content("{\"nombre\":\"Cambiado\",\"telefono\":970000012}"))
+				.andExpect(status().isOk());
+
+		List<String> updates = sentencias.stream().filter(sql -> sql.startsWith("update ciudadano ")).toList();
+		assertEquals(1, updates.size());
+		assertEquals(Set.of("nombre", "telefono", "version"), columnasModificadas(updates.get(0)));
+		assertEquals("Cambiado", ciudadanoService.findByID(id).getNombre());
+		assertEquals(970_000_012L, ciudadanoService.findByID(id).getTelefono());
+		ciudadanoService.delete(id);
+	}
+
+	@Test
+	void unPatchSinCambiosNoEjecutaSentencias() throws Exception {
+		int id = ciudadanoService.save(ciudadano("sincambios", 70_000_021L, 970_000_021L)).getId();
+		long version = ciudadanoService.findByID(id).getVersion();
+
+		List<String> sentencias = capturarSentencias();
+		mockMvc.perform(patch(URL + id).contentType(MediaType.APPLICATION_JSON)
+						.content("{\"nombre\":\"Nombre\",\"apaterno\":\"Paterno\"}"))
+				.andExpect(status().isOk());
+
+		assertEquals(List.of(), sentencias);
+		assertEquals(version, ciudadanoService.findByID(id).getVersion());
+		ciudadanoService.delete(id);
+	}
+
+	@Test
+	void unPatchConUnCampoDesconocidoNuloODeOtroTipoResponde400() throws Exception {
+		int id = ciudadanoService.save(ciudadano("invalido", 70_000_031L, 970_000_031L)).getId();
+
+		for (String cuerpo : List.of("{}", "{\"desconocido\":\"x\"}", "{\"id\":5}", "{\"nombre\":null}",
+				"{\"run\":\"70000032\"}", "{\"run\":70000032.5}", "{\"telefono\":true}", "{\"nombre\":123}",
+				"{\"dv\":[\"k\"]}", "{\"fechaRegistro\":\"no es una fecha\"}")) {
+			mockMvc.perform(patch(URL + id).contentType(MediaType.APPLICATION_JSON).content(cuerpo))
+					.andExpect(status().isBadRequest());
+		}
+		assertEquals(70_000_031L, ciudadanoService.findByID(id).getRun());
+		assertEquals(0, ciudadanoService.findByID(id).getVersion());
+		ciudadanoService.delete(id);
+	}
+
+	@Test
+	void unaBusquedaPorVariosIdsSobreElMaximoResponde400() throws Exception {
+		int id = ciudadanoService.save(ciudadano("batchget", 70_000_041L, 970_000_041L)).getId();
+
+		mockMvc.perform(post(URL + "batch-get").contentType(MediaType.APPLICATION_JSON)
+						.content("[" + id + ",0," + id + "]"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].estado").value("ENCONTRADO"))
+				.andExpect(jsonPath("$[1].estado").value("NO_ENCONTRADO"))
+				.andExpect(jsonPath("$[2].id").value(id));
+		mockMvc.perform(post(URL + "batch-get").contentType(MediaType.APPLICATION_JSON)
+						.content("[" + id + ",0," + id + ",1]"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(post(URL + "batch-get").contentType(MediaType.APPLICATION_JSON).content("[]"))
+				.andExpect(status().isBadRequest());
+		ciudadanoService.delete(id);
+	}
+
+	/**
+	 * Guarda las sentencias que Hibernate prepara desde ahora en el hilo de la prueba, que es el que
+	 * atiende las solicitudes de MockMvc; las tareas programadas corren en otros hilos
+	 */
+	private List<String> capturarSentencias() {
+		List<String> sentencias = new CopyOnWriteArrayList<>();
+		Thread hilo = Thread.currentThread();
+		doAnswer(invocacion -> {
+			if (Thread.currentThread() == hilo) {
+				sentencias.add(invocacion.getArgument(0));
+			}
+			return invocacion.callRealMethod();
+		}).when(contadorSentenciasSql).inspect(anyString());
+		return sentencias;
+	}
+
+	private Set<String> columnasModificadas(String update) {
+		String asignaciones = update.substring(update.indexOf(" set ") + 5, update.indexOf(" where "));
+		return Arrays.stream(asignaciones.split(","))
+				.map(asignacion -> asignacion.substring(0, asignacion.indexOf('=')).trim())
+				.collect(Collectors.toSet());
+	}
+
+}
@@ -0,0 +1,269 @@
+package com.SAFE_Rescue.API_Ciudadano.controller;
+
+import com.SAFE_Rescue.API_Ciudadano.config.ContadorSentenciasSql;
+import com.SAFE_Rescue.API_Ciudadano.modelo.Credencial;
+import com.SAFE_Rescue.API_Ciudadano.modelo.EventoCambio;
+import com.SAFE_Rescue.API_Ciudadano.repository.CredencialRepository;
+import com.SAFE_Rescue.API_Ciudadano.service.CacheCredenciales;
+import com.SAFE_Rescue.API_Ciudadano.service.CredencialService;
+import com.SAFE_Rescue.API_Ciudadano.service.RegistroCambios;
+import com.SAFE_Rescue.API_Ciudadano.service.RegistroIntentosFallidos;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica que una modificación de credencial que coincide con la escritura periódica de los intentos
+ * fallidos responda 409 en vez de un error genérico, y que al reintentarla se aplique.
+ * También verifica que un hash enviado por el cliente se trate como contraseña y no se guarde tal cual,
+ * y que el ETag de una consulta por ID sea el de la versión entregada aunque cambie entre lecturas.
+ * Por último verifica que un PATCH actualice solo las columnas que cambian, que uno sin cambios no ejecute
+ * sentencias y que un campo desconocido, nulo o de otro tipo se rechace con 400.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:conflictos;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"credenciales.intentos.intervalo-escritura=1h"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CredencialControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockitoSpyBean
+	private CredencialService credencialService;
+
+	@Autowired
+	private CredencialRepository credencialRepository;
+
+	@Autowired
+	private CacheCredenciales cacheCredenciales;
+
+	@Autowired
+	private RegistroIntentosFallidos registroIntentosFallidos;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@MockitoSpyBean
+	private RegistroCambios registroCambios;
+
+	@MockitoSpyBean
+	private ContadorSentenciasSql contadorSentenciasSql;
+
+	@Test
+	void laEscrituraDeIntentosFallidosDuranteUnPatchRespondeConflicto() throws Exception {
+		Credencial credencial = new Credencial();
+		credencial.setCorreo("conflicto@correo.cl");
+		credencial.setContrasenia("clave1");
+		credencial.setActivo(true);
+		int id = credencialService.save(credencial).getId();
+
+		registroIntentosFallidos.registrarFallo(cacheCredenciales.obtener("conflicto@correo.cl", credencialRepository::findByCorreo));
+
+		// La escritura por lotes de los contadores se confirma entre la lectura y el UPDATE del PATCH
+		TransactionTemplate nuevaTransaccion = new TransactionTemplate(transactionManager);
+		nuevaTransaccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		AtomicBoolean escrito = new AtomicBoolean();
+		doAnswer(invocacion -> {
+			if (escrito.compareAndSet(false, true)) {
+				nuevaTransaccion.executeWithoutResult(estado -> registroIntentosFallidos.escribirPendientes());
+			}
+			return invocacion.callRealMethod();
+		}).when(registroCambios).credencial(eq(EventoCambio.ACTUALIZADO), any());
+
+		mockMvc.perform(patch("/api-ciudadano/v1/credenciales/" + id)
+						.contentType(MediaType.APPLICATION_JSON).content("{\"activo\":false}"))
+				.andExpect(status().isConflict());
+		assertEquals(1, credencialService.findByID(id).getIntentosFallidos());
+
+		mockMvc.perform(patch("/api-ciudadano/v1/credenciales/" + id)
+						.contentType(MediaType.APPLICATION_JSON).content("{\"activo\":false}"))
+				.andExpect(status().isOk());
+		assertFalse(credencialService.findByID(id).isActivo());
+		credencialService.delete(id);
+	}
+
+	@Test
+	void unHashEnviadoPorElClienteNoSeGuardaComoContrasenia() throws Exception {
+		Credencial credencial = new Credencial();
+		credencial.setCorreo("hash@correo.cl");
+		credencial.setContrasenia("clave1");
+		credencial.setActivo(true);
+		int id = credencialService.save(credencial).getId();
+		String hashCliente = new BCryptPasswordEncoder(4).encode("intrusa");
+
+		mockMvc.perform(patch("/api-ciudadano/v1/credenciales/" + id)
+						.contentType(MediaType.APPLICATION_JSON).content("{\"contrasenia\":\"" + hashCliente + "\"}"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(put("/api-ciudadano/v1/credenciales/" + id)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"correo\":\"hash@correo.cl\",\"contrasenia\":\"" + hashCliente + "\",\"activo\":true}"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(post("/api-ciudadano/v1/credenciales")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"correo\":\"hash2@correo.cl\",\"contrasenia\":\"" + hashCliente + "\",\"activo\":true}"))
+				.andExpect(status().isBadRequest());
+		iniciarSesion("intrusa").andExpect(status().isUnauthorized());
+
+		mockMvc.perform(patch("/api-ciudadano/v1/credenciales/" + id)
+						.contentType(MediaType.APPLICATION_JSON).content("{\"contrasenia\":\"nueva1\"}"))
+				.andExpect(status().isOk());
+		iniciarSesion("nueva1").andExpect(status().isOk());
+		credencialService.delete(id);
+	}
+
+	@Test
+	void elEtagEsElDeLaVersionEntregadaAunqueCambieEntreLecturas() throws Exception {
+		Credencial credencial = new Credencial();
+		credencial.setCorreo("etag@correo.cl");
+		credencial.setContrasenia("clave1");
+		credencial.setActivo(true);
+		int id = credencialService.save(credencial).getId();
+		String inicial = credencialService.obtenerEtag(id);
+
+		// Una escritura se confirma después de leer el ETag y antes de leer la credencial
+		TransactionTemplate nuevaTransaccion = new TransactionTemplate(transactionManager);
+		nuevaTransaccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		AtomicBoolean escrito = new AtomicBoolean();
+		doAnswer(invocacion -> {
+			Object etag = invocacion.callRealMethod();
+			if (escrito.compareAndSet(false, true)) {
+				nuevaTransaccion.executeWithoutResult(estado -> credencialService.patch(Map.of("activo", false), id));
+			}
+			return etag;
+		}).when(credencialService).obtenerEtag(id);
+
+		MvcResult resultado = mockMvc.perform(get("/api-ciudadano/v1/credenciales/" + id))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.activo").value(false))
+				.andReturn();
+		String actual = credencialService.obtenerEtag(id);
+		assertNotEquals(inicial, actual);
+		assertEquals(List.of("\"" + actual + "\""), resultado.getResponse().getHeaders(HttpHeaders.ETAG));
+
+		mockMvc.perform(get("/api-ciudadano/v1/credenciales/" + id).header(HttpHeaders.IF_NONE_MATCH, "\"" + actual + "\""))
+				.andExpect(status().isNotModified());
+		credencialService.delete(id);
+	}
+
+	private ResultActions iniciarSesion(String contrasenia) throws Exception {
+		return mockMvc.perform(post("/api-ciudadano/v1/credenciales/login")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"correo\":\"hash@correo.cl\",\"contrasenia\":\"" + contrasenia + "\"}"));
+	}
+
+	@Test
+	void unPatchActualizaSoloLasColumnasQueCambian() throws Exception {
+		int id = registrar("columnas@correo.cl");
+
+		List<String> sentencias = capturarSentencias();
+		mockMvc.perform(patch("/api-ciudadano/v1/credenciales/" + id)
+						.contentType(MediaType.APPLICATION_JSON).content("{\"activo\":false}"))
+				.andExpect(status().isOk());
+
+		List<String> updates = sentencias.stream().filter(sql -> sql.startsWith("update credencial_ciudadana ")).toList();
+		assertEquals(1, updates.size());
+		assertEquals(Set.of("activo", "version"), columnasModificadas(updates.get(0)));
+		assertFalse(credencialService.findByID(id).isActivo());
+		credencialService.delete(id);
+	}
+
+	@Test
+	void unPatchSinCambiosNoEjecutaSentencias() throws Exception {
+		int id = registrar("sincambios@correo.cl");
+		long version = credencialService.findByID(id).getVersion();
+
+		List<String> sentencias = capturarSentencias();
+		mockMvc.perform(patch("/api-ciudadano/v1/credenciales/" + id)
+						.contentType(MediaType.APPLICATION_JSON).content("{\"activo\":true,\"correo\":\"sincambios@correo.cl\"}"))
+				.andExpect(status().isOk());
+
+		assertEquals(List.of(), sentencias);
+		assertEquals(version, credencialService.findByID(id).getVersion());
+		credencialService.delete(id);
+	}
+
+	@Test
+	void unPatchConUnCampoDesconocidoNuloODeOtroTipoResponde400() throws Exception {
+		int id = registrar("invalido@correo.cl");
+
+		for (String cuerpo : List.of("{}", "{\"intentosFallidos\":0}", "{\"bloqueadoHasta\":null}", "{\"correo\":null}",
+				"{\"activo\":\"false\"}", "{\"activo\":0}", "{\"correo\":5}", "{\"contrasenia\":123456}",
+				"{\"contrasenia\":{\"hash\":\"x\"}}")) {
+			mockMvc.perform(patch("/api-ciudadano/v1/credenciales/" + id)
+							.contentType(MediaType.APPLICATION_JSON).content(cuerpo))
+					.andExpect(status().isBadRequest());
+		}
+		assertEquals(true, credencialService.findByID(id).isActivo());
+		assertEquals(0, credencialService.findByID(id).getVersion());
+		credencialService.delete(id);
+	}
+
+	private int registrar(String correo) {
+		Credencial credencial = new Credencial();
+		credencial.setCorreo(correo);
+		credencial.setContrasenia("clave1");
+		credencial.setActivo(true);
+		return credencialService.save(credencial).getId();
+	}
+
+	/**
+	 * Guarda las sentencias que Hibernate prepara desde ahora en el hilo de la prueba, que es el que
+	 * atiende las solicitudes de MockMvc; las tareas programadas corren en otros hilos
+	 */
+	private List<String> capturarSentencias() {
+		List<String> sentencias = new CopyOnWriteArrayList<>();
+		Thread hilo = Thread.currentThread();
+		doAnswer(invocacion -> {
+			if (Thread.currentThread() == hilo) {
+				sentencias.add(invocacion.getArgument(0));
+			}
+			return invocacion.callRealMethod();
+		}).when(contadorSentenciasSql).inspect(anyString());
+		return sentencias;
+	}
+
+	private Set<String> columnasModificadas(String update) {
+		String asignaciones = update.substring(update.indexOf(" set ") + 5, update.indexOf(" where "));
+		return Arrays.stream(asignaciones.split(","))
+				.map(asignacion -> asignacion.substring(0, asignacion.indexOf('=')).trim())
+				.collect(Collectors.toSet());
+	}
+
+}
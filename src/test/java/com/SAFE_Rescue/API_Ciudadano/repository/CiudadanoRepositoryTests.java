@@ -0,0 +1,87 @@
+package com.SAFE_Rescue.API_Ciudadano.repository;
+
+import com.SAFE_Rescue.API_Ciudadano.modelo.Ciudadano;
+import com.SAFE_Rescue.API_Ciudadano.service.CiudadanoService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Set;
+
+import static com.SAFE_Rescue.API_Ciudadano.CiudadanosPrueba.ciudadano;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifica que la consulta de conflictos de unicidad detecte un RUN, telefono o correo de otro ciudadano,
+ * que ignore los parámetros nulos y que al modificar un ciudadano excluya sus propios valores
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:conflictosRepositorio;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CiudadanoRepositoryTests {
+
+	private static final long RUN = 90_000_001L;
+	private static final long TELEFONO = 990_000_001L;
+	private static final String CORREO = "conflicto1@correo.cl";
+
+	@Autowired
+	private CiudadanoRepository ciudadanoRepository;
+
+	@Autowired
+	private CiudadanoService ciudadanoService;
+
+	private Ciudadano registrado;
+	private Ciudadano otro;
+
+	@BeforeAll
+	void registrarCiudadanos() {
+		registrado = ciudadanoService.save(ciudadano("conflicto1", RUN, TELEFONO));
+		otro = ciudadanoService.save(ciudadano("conflicto2", 90_000_002L, 990_000_002L));
+	}
+
+	@AfterAll
+	void eliminarCiudadanos() {
+		ciudadanoService.delete(registrado.getId());
+		ciudadanoService.delete(otro.getId());
+	}
+
+	@Test
+	void detectaElConflictoDeCadaCampoConOtroCiudadano() {
+		assertEquals(List.of("run"), ciudadanoRepository.buscarConflictos(0, RUN, 990_000_009L, "libre@correo.cl", 0));
+		assertEquals(List.of("telefono"), ciudadanoRepository.buscarConflictos(0, 90_000_009L, TELEFONO, "libre@correo.cl", 0));
+		assertEquals(List.of("correo"), ciudadanoRepository.buscarConflictos(0, 90_000_009L, 990_000_009L, CORREO, 0));
+		assertEquals(Set.of("run", "telefono", "correo"),
+				Set.copyOf(ciudadanoRepository.buscarConflictos(0, RUN, TELEFONO, CORREO, 0)));
+		assertEquals(List.of(), ciudadanoRepository.buscarConflictos(0, 90_000_009L, 990_000_009L, "libre@correo.cl", 0));
+	}
+
+	@Test
+	void losParametrosNulosNoSeVerifican() {
+		assertEquals(List.of(), ciudadanoRepository.buscarConflictos(0, null, null, null, 0));
+		assertEquals(List.of("telefono"), ciudadanoRepository.buscarConflictos(0, null, TELEFONO, null, 0));
+	}
+
+	@Test
+	void alModificarSeExcluyenLosValoresDelPropioCiudadano() {
+		int id = registrado.getId();
+		int credencialId = registrado.getCredencial().getId();
+		assertEquals(List.of(), ciudadanoRepository.buscarConflictos(id, RUN, TELEFONO, CORREO, credencialId));
+
+		// Los valores de otro ciudadano siguen en conflicto aunque se excluya el propio
+		assertEquals(Set.of("run", "telefono", "correo"), Set.copyOf(ciudadanoRepository.buscarConflictos(
+				id, otro.getRun(), otro.getTelefono(), otro.getCredencial().getCorreo(), credencialId)));
+
+		// Excluir solo al ciudadano no excluye su credencial, y al revés
+		assertEquals(List.of("correo"), ciudadanoRepository.buscarConflictos(id, RUN, TELEFONO, CORREO, 0));
+		assertEquals(Set.of("run", "telefono"),
+				Set.copyOf(ciudadanoRepository.buscarConflictos(0, RUN, TELEFONO, CORREO, credencialId)));
+	}
+
+}
@@ -0,0 +1,161 @@
+package com.SAFE_Rescue.API_Ciudadano.service;
+
+import com.SAFE_Rescue.API_Ciudadano.CiudadanosPrueba;
+import com.SAFE_Rescue.API_Ciudadano.modelo.Ciudadano;
+import com.SAFE_Rescue.API_Ciudadano.modelo.ResultadoCargaMasiva;
+import com.SAFE_Rescue.API_Ciudadano.modelo.ResultadoFila;
+import com.SAFE_Rescue.API_Ciudadano.repository.CiudadanoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static com.SAFE_Rescue.API_Ciudadano.CiudadanosPrueba.ciudadano;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Verifica la carga masiva con lotes de dos filas: la misma carga como arreglo JSON y como NDJSON,
+ * los repetidos dentro de la carga, los conflictos con ciudadanos ya registrados y que el resultado
+ * de cada fila quede en su posición. También verifica que un lote que falla al insertarse se reintente
+ * fila por fila y rechace solo la fila en conflicto, con su causa.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:cargaMasiva;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"ciudadanos.carga-masiva.tamanio-lote=2"
+})
+@ActiveProfiles("test")
+class CargaMasivaServiceTests {
+
+	@Autowired
+	private CargaMasivaService cargaMasivaService;
+
+	@Autowired
+	private CiudadanoService ciudadanoService;
+
+	@Autowired
+	private CiudadanoRepository ciudadanoRepository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void unArregloJsonYUnFlujoNdjsonEntreganElMismoResultado() throws Exception {
+		List<String> arreglo = List.of(fila("arreglo1", 80_000_001L, 980_000_001L), fila("arreglo2", 80_000_002L, 980_000_002L),
+				fila("arreglo3", 80_000_003L, 980_000_003L));
+		List<String> ndjson = List.of(fila("ndjson1", 80_000_011L, 980_000_011L), fila("ndjson2", 80_000_012L, 980_000_012L),
+				fila("ndjson3", 80_000_013L, 980_000_013L));
+
+		ResultadoCargaMasiva resultadoArreglo = importar("[" + String.join(",", arreglo) + "]");
+		ResultadoCargaMasiva resultadoNdjson = importar(String.join("\n", ndjson) + "\n");
+
+		for (ResultadoCargaMasiva resultado : List.of(resultadoArreglo, resultadoNdjson)) {
+			assertEquals(3, resultado.getTotal());
+			assertEquals(3, resultado.getCreados());
+			assertEquals(0, resultado.getRechazados());
+			for (int i = 0; i < 3; i++) {
+				ResultadoFila fila = resultado.getFilas().get(i);
+				assertEquals(i + 1, fila.getFila());
+				assertEquals(ResultadoFila.CREADO, fila.getEstado());
+				assertNotNull(fila.getId());
+			}
+		}
+		assertEquals(80_000_003L, ciudadanoService.findByID(resultadoArreglo.getFilas().get(2).getId()).getRun());
+		assertEquals(80_000_011L, ciudadanoService.findByID(resultadoNdjson.getFilas().get(0).getId()).getRun());
+	}
+
+	@Test
+	void cadaFilaRechazadaQuedaEnSuPosicionConSuMotivo() throws Exception {
+		ciudadanoService.save(ciudadano("existente", 80_000_101L, 980_000_101L));
+		ObjectNode sinDv = (ObjectNode) objectMapper.readTree(fila("sindv", 80_000_106L, 980_000_106L));
+		sinDv.remove("dv");
+		ObjectNode runTexto = (ObjectNode) objectMapper.readTree(fila("texto", 80_000_107L, 980_000_107L));
+		runTexto.put("run", "no es un numero");
+
+		ResultadoCargaMasiva resultado = importar("[" + String.join(",",
+				fila("nuevo1", 80_000_102L, 980_000_102L),
+				fila("runexistente", 80_000_101L, 980_000_103L),
+				fila("telefonoexistente", 80_000_104L, 980_000_101L),
+				fila("existente", 80_000_105L, 980_000_105L),
+				sinDv.toString(),
+				runTexto.toString(),
+				fila("repetido1", 80_000_108L, 980_000_108L),
+				fila("repetido2", 80_000_108L, 980_000_109L),
+				fila("repetido3", 80_000_110L, 980_000_110L),
+				fila("repetido4", 80_000_111L, 980_000_110L),
+				fila("repetido5", 80_000_112L, 980_000_112L),
+				fila("REPETIDO5", 80_000_113L, 980_000_113L),
+				fila("nuevo2", 80_000_114L, 980_000_114L)) + "]");
+
+		// Con lotes de dos filas, cada par de repetidos queda en el mismo lote
+		assertEquals(13, resultado.getTotal());
+		assertEquals(5, resultado.getCreados());
+		assertEquals(8, resultado.getRechazados());
+		List<ResultadoFila> filas = resultado.getFilas();
+		for (int i = 0; i < filas.size(); i++) {
+			assertEquals(i + 1, filas.get(i).getFila());
+		}
+		assertEquals("El RUN ya existe", filas.get(1).getMensaje());
+		assertEquals("El Telefono ya existe", filas.get(2).getMensaje());
+		assertEquals("El correo ya está en uso", filas.get(3).getMensaje());
+		assertEquals("El DV del ciudadano es requerido", filas.get(4).getMensaje());
+		assertEquals(true, filas.get(5).getMensaje().startsWith("Fila con formato inválido"));
+		assertEquals("El RUN está repetido en la carga", filas.get(7).getMensaje());
+		assertEquals("El Telefono está repetido en la carga", filas.get(9).getMensaje());
+		assertEquals("El Correo está repetido en la carga", filas.get(11).getMensaje());
+		for (int creada : new int[]{0, 6, 8, 10, 12}) {
+			assertEquals(ResultadoFila.CREADO, filas.get(creada).getEstado());
+			assertNotNull(filas.get(creada).getId());
+		}
+		for (int rechazada : new int[]{1, 2, 3, 4, 5, 7, 9, 11}) {
+			assertEquals(ResultadoFila.RECHAZADO, filas.get(rechazada).getEstado());
+			assertEquals(null, filas.get(rechazada).getId());
+		}
+		assertEquals(80_000_114L, ciudadanoService.findByID(filas.get(12).getId()).getRun());
+	}
+
+	@Test
+	void unLoteQueFallaAlInsertarseSeReintentaFilaPorFila() throws Exception {
+		// Registrado sin pasar por el servicio, como lo haría otra instancia: el índice de unicidad
+		// no lo conoce y la verificación del lote no lo consulta
+		Ciudadano otraInstancia = ciudadano("otrainstancia", 80_000_201L, 980_000_201L);
+		otraInstancia.getCredencial().setContrasenia("$2a$10$" + "x".repeat(53));
+		ciudadanoRepository.saveAndFlush(otraInstancia);
+
+		ResultadoCargaMasiva resultado = importar("[" + String.join(",",
+				fila("fallback1", 80_000_202L, 980_000_202L),
+				fila("fallback2", 80_000_201L, 980_000_203L),
+				fila("fallback3", 80_000_204L, 980_000_204L)) + "]");
+
+		List<ResultadoFila> filas = resultado.getFilas();
+		assertEquals(2, resultado.getCreados());
+		assertEquals(ResultadoFila.CREADO, filas.get(0).getEstado());
+		assertEquals(ResultadoFila.RECHAZADO, filas.get(1).getEstado());
+		assertEquals("El RUN ya existe", filas.get(1).getMensaje());
+		assertEquals(ResultadoFila.CREADO, filas.get(2).getEstado());
+		assertEquals(80_000_202L, ciudadanoService.findByID(filas.get(0).getId()).getRun());
+		assertEquals("fallback1@correo.cl", ciudadanoService.findByID(filas.get(0).getId()).getCredencial().getCorreo());
+	}
+
+	private ResultadoCargaMasiva importar(String contenido) throws Exception {
+		return cargaMasivaService.importar(new ByteArrayInputStream(contenido.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * Serializa un ciudadano de prueba como fila de la carga, con la contraseña que la serialización omite
+	 */
+	private String fila(String prefijoCorreo, long run, long telefono) throws Exception {
+		ObjectNode fila = objectMapper.valueToTree(ciudadano(prefijoCorreo, run, telefono));
+		fila.remove("id");
+		((ObjectNode) fila.get("credencial")).remove("id");
+		((ObjectNode) fila.get("credencial")).put("contrasenia", CiudadanosPrueba.CONTRASENIA);
+		return objectMapper.writeValueAsString(fila);
+	}
+
+}
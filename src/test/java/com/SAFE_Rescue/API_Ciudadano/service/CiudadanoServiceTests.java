@@ -0,0 +1,243 @@
+package com.SAFE_Rescue.API_Ciudadano.service;
+
+import com.SAFE_Rescue.API_Ciudadano.config.ContadorSentenciasSql;
+import com.SAFE_Rescue.API_Ciudadano.modelo.Ciudadano;
+import com.SAFE_Rescue.API_Ciudadano.modelo.ResultadoBusquedaId;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static com.SAFE_Rescue.API_Ciudadano.CiudadanosPrueba.ciudadano;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica que los listados de ciudadanos obtengan las credenciales sin una consulta por ciudadano
+ * y que las búsquedas por RUN y telefono no dependan de que el índice de unicidad tenga el valor.
+ * También verifica que un RUN repetido que el índice no detecta se informe con el mensaje del servicio,
+ * y que la búsqueda por varios IDs responda en el orden pedido con una consulta por bloque de IDs distintos.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CiudadanoServiceTests {
+
+	private static final int CIUDADANOS = 20;
+
+	@Autowired
+	private CiudadanoService ciudadanoService;
+
+	@Autowired
+	private ContadorSentenciasSql contadorSentenciasSql;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private IndiceUnicidad indiceUnicidad;
+
+	private final List<Integer> registrados = new ArrayList<>();
+
+	@BeforeAll
+	void registrarCiudadanos() {
+		for (int i = 1; i <= CIUDADANOS; i++) {
+			registrados.add(ciudadanoService.save(ciudadano("listado" + i, 30_000_000L + i, 930_000_000L + i)).getId());
+		}
+	}
+
+	@AfterAll
+	void eliminarCiudadanos() {
+		registrados.forEach(ciudadanoService::delete);
+	}
+
+	@BeforeEach
+	void vaciarCacheSegundoNivel() {
+		entityManagerFactory.getCache().evictAll();
+	}
+
+	@Test
+	void findAllObtieneCiudadanosYCredencialesEnUnaConsulta() throws Exception {
+		contadorSentenciasSql.iniciar();
+		List<Ciudadano> ciudadanos = ciudadanoService.findAll();
+		String json = objectMapper.writeValueAsString(ciudadanos);
+		int sentencias = contadorSentenciasSql.terminar();
+
+		assertEquals(1, sentencias);
+		assertTrue(ciudadanos.size() >= CIUDADANOS);
+		ciudadanos.forEach(ciudadano -> assertNotNull(ciudadano.getCredencial().getCorreo()));
+		assertTrue(json.contains("listado" + CIUDADANOS + "@correo.cl"));
+	}
+
+	@Test
+	void findPaginaObtieneCiudadanosYCredencialesEnUnaConsulta() throws Exception {
+		contadorSentenciasSql.iniciar();
+		List<Ciudadano> ciudadanos = ciudadanoService.findPagina(null, CIUDADANOS, null, null).getCiudadanos();
+		objectMapper.writeValueAsString(ciudadanos);
+		int sentencias = contadorSentenciasSql.terminar();
+
+		assertEquals(1, sentencias);
+		assertEquals(CIUDADANOS, ciudadanos.size());
+	}
+
+	@Test
+	void findByIdSeObtieneDelCacheSegundoNivel() throws Exception {
+		int id = registrados.get(0);
+
+		contadorSentenciasSql.iniciar();
+		String primera = objectMapper.writeValueAsString(ciudadanoService.findByID(id));
+		int sentenciasPrimera = contadorSentenciasSql.terminar();
+
+		contadorSentenciasSql.iniciar();
+		String segunda = objectMapper.writeValueAsString(ciudadanoService.findByID(id));
+		int sentenciasSegunda = contadorSentenciasSql.terminar();
+
+		assertEquals(2, sentenciasPrimera);
+		assertEquals(0, sentenciasSegunda);
+		assertEquals(primera, segunda);
+		assertTrue(segunda.contains("listado1@correo.cl"));
+	}
+
+	@Test
+	void losIdsFueraDelRangoDeLaColumnaNoSeTruncanAlDeOtroCiudadano() throws Exception {
+		int id = registrados.get(0);
+		long truncable = id + (1L << 32);
+		String etag = ciudadanoService.obtenerEtag(id);
+		ciudadanoService.findJsonByID(id);
+		assertNotNull(ciudadanoService.findJsonCacheado(id, etag));
+
+		assertThrows(NoSuchElementException.class, () -> ciudadanoService.obtenerEtag(truncable));
+		assertThrows(NoSuchElementException.class, () -> ciudadanoService.obtenerEtag(-id));
+		assertThrows(NoSuchElementException.class, () -> ciudadanoService.findJsonCacheado(truncable, etag));
+		assertThrows(NoSuchElementException.class, () -> ciudadanoService.findByIDCampos(truncable, "nombre"));
+	}
+
+	@Test
+	void lasBusquedasPorRunYTelefonoConsultanLaBaseSiElIndiceNoLasTiene() {
+		int id = registrados.get(1);
+		long run = 30_000_002L;
+		long telefono = 930_000_002L;
+		// Simula un índice que aún no recibe el ciudadano, como el de otra instancia
+		indiceUnicidad.liberar(run, telefono);
+		assertTrue(!indiceUnicidad.puedeExistirRun(run) && !indiceUnicidad.puedeExistirTelefono(telefono));
+
+		assertEquals(id, ciudadanoService.findIdPorRun(run));
+		assertEquals(id, ciudadanoService.findIdPorTelefono(telefono));
+		assertTrue(indiceUnicidad.puedeExistirRun(run) && indiceUnicidad.puedeExistirTelefono(telefono));
+		assertThrows(NoSuchElementException.class, () -> ciudadanoService.findIdPorRun(39_999_999L));
+	}
+
+	@Test
+	void unRunRegistradoPorOtraInstanciaSeInformaConElMensajeDelServicio() {
+		long run = 30_000_003L;
+		// Simula un ciudadano guardado por otra instancia, que el índice aún no conoce y no se consulta
+		indiceUnicidad.liberar(run, null);
+
+		RuntimeException error = assertThrows(RuntimeException.class,
+				() -> ciudadanoService.save(ciudadano("duplicado", run, 939_999_999L)));
+		assertEquals("Error: el RUN o el telefono ya está en uso.", error.getMessage());
+		assertThrows(NoSuchElementException.class, () -> ciudadanoService.findIdPorTelefono(939_999_999L));
+		indiceUnicidad.registrarCiudadano(ciudadanoService.findByID(registrados.get(2)));
+	}
+
+	@Test
+	void findByIdsRespondeEnElOrdenPedidoEInformaLosIdsQueNoPuedenExistir() {
+		int primero = registrados.get(0);
+		int quinto = registrados.get(4);
+		int tercero = registrados.get(2);
+		List<Long> ids = Arrays.asList((long) quinto, (long) primero, (long) quinto, null, -1L, 0L,
+				primero + (1L << 32), 999_999_999L, (long) tercero);
+
+		List<ResultadoBusquedaId> resultado = ciudadanoService.findByIDs(ids, null);
+
+		assertEquals(ids.size(), resultado.size());
+		long[] esperados = {quinto, primero, quinto, 0, -1, 0, primero + (1L << 32), 999_999_999L, tercero};
+		for (int i = 0; i < resultado.size(); i++) {
+			assertEquals(esperados[i], resultado.get(i).getId());
+		}
+		for (int encontrado : new int[]{0, 1, 2, 8}) {
+			assertEquals(ResultadoBusquedaId.ENCONTRADO, resultado.get(encontrado).getEstado());
+			assertEquals(resultado.get(encontrado).getId(), ((Ciudadano) resultado.get(encontrado).getCiudadano()).getId());
+		}
+		assertEquals("listado5@correo.cl", ((Ciudadano) resultado.get(2).getCiudadano()).getCredencial().getCorreo());
+		for (int noEncontrado : new int[]{3, 4, 5, 6, 7}) {
+			assertEquals(ResultadoBusquedaId.NO_ENCONTRADO, resultado.get(noEncontrado).getEstado());
+			assertEquals(null, resultado.get(noEncontrado).getCiudadano());
+		}
+
+		List<ResultadoBusquedaId> campos = ciudadanoService.findByIDs(ids, "nombre");
+		assertEquals(Map.of("nombre", "Nombre"), campos.get(2).getCiudadano());
+		assertEquals(ResultadoBusquedaId.NO_ENCONTRADO, campos.get(6).getEstado());
+	}
+
+	@Test
+	void findByIdsConsultaUnBloquePorCadaTamanioBloqueDeIdsDistintos() {
+		CiudadanoService servicio = AopTestUtils.getTargetObject(ciudadanoService);
+		int tamanioBloque = (int) ReflectionTestUtils.getField(servicio, "tamanioBloqueIds");
+		ReflectionTestUtils.setField(servicio, "tamanioBloqueIds", 3);
+		try {
+			List<Long> ids = registrados.stream().map(Long::valueOf).toList();
+			assertEquals(1, sentenciasFindByIds(ids.subList(0, 3), null));
+			assertEquals(2, sentenciasFindByIds(ids.subList(0, 4), null));
+			assertEquals(2, sentenciasFindByIds(ids.subList(0, 6), null));
+			assertEquals(3, sentenciasFindByIds(ids.subList(0, 7), null));
+			assertEquals(3, sentenciasFindByIds(ids.subList(0, 7), "nombre,telefono"));
+
+			// Los repetidos y los que no pueden existir no ocupan lugar en los bloques
+			List<Long> repetidos = new ArrayList<>(Collections.nCopies(5, ids.get(0)));
+			repetidos.addAll(Arrays.asList(ids.get(1), null, 0L, ids.get(1), ids.get(2), Long.MAX_VALUE));
+			assertEquals(1, sentenciasFindByIds(repetidos, null));
+			assertEquals(0, sentenciasFindByIds(Arrays.asList(null, -5L, Long.MAX_VALUE), null));
+		} finally {
+			ReflectionTestUtils.setField(servicio, "tamanioBloqueIds", tamanioBloque);
+		}
+	}
+
+	@Test
+	void findByIdsRechazaUnaBusquedaVaciaOSobreElMaximo() {
+		CiudadanoService servicio = AopTestUtils.getTargetObject(ciudadanoService);
+		int maximo = (int) ReflectionTestUtils.getField(servicio, "maximoIdsPorBusqueda");
+		ReflectionTestUtils.setField(servicio, "maximoIdsPorBusqueda", 5);
+		try {
+			List<Long> cinco = Collections.nCopies(5, (long) registrados.get(0));
+			assertEquals(5, ciudadanoService.findByIDs(cinco, null).size());
+
+			List<Long> seis = Collections.nCopies(6, (long) registrados.get(0));
+			IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+					() -> ciudadanoService.findByIDs(seis, null));
+			assertEquals("Se pueden buscar como máximo 5 IDs por solicitud", error.getMessage());
+			assertThrows(IllegalArgumentException.class, () -> ciudadanoService.findByIDs(List.of(), null));
+			assertThrows(IllegalArgumentException.class, () -> ciudadanoService.findByIDs(null, null));
+		} finally {
+			ReflectionTestUtils.setField(servicio, "maximoIdsPorBusqueda", maximo);
+		}
+	}
+
+	private int sentenciasFindByIds(List<Long> ids, String campos) {
+		entityManagerFactory.getCache().evictAll();
+		contadorSentenciasSql.iniciar();
+		ciudadanoService.findByIDs(ids, campos);
+		return contadorSentenciasSql.terminar();
+	}
+
+}
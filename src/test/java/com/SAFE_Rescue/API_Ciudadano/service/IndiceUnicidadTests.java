@@ -0,0 +1,143 @@
+package com.SAFE_Rescue.API_Ciudadano.service;
+
+import com.SAFE_Rescue.API_Ciudadano.modelo.Ciudadano;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Verifica el índice de unicidad sin contexto de Spring, sobre una base H2 con solo las columnas que lee:
+ * la consulta a la base mientras no termina la carga, la reconstrucción del filtro de correos al
+ * superar su capacidad y la liberación de valores solo al confirmar la transacción.
+ */
+class IndiceUnicidadTests {
+
+	private static final int CAPACIDAD_INICIAL = 16;
+
+	private JdbcTemplate jdbcTemplate;
+	private TransactionTemplate transactionTemplate;
+	private IndiceUnicidad indice;
+
+	@BeforeEach
+	void crearIndice() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:indiceUnicidad;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		jdbcTemplate.execute("create table ciudadano (id int primary key, run bigint, telefono bigint)");
+		jdbcTemplate.execute("create table credencial_ciudadana (id int auto_increment primary key, correo varchar(80))");
+
+		indice = new IndiceUnicidad();
+		ReflectionTestUtils.setField(indice, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(indice, "capacidadInicial", CAPACIDAD_INICIAL);
+		ReflectionTestUtils.setField(indice, "tasaFalsosPositivos", 0.01);
+		indice.iniciar();
+	}
+
+	@AfterEach
+	void eliminarTablas() {
+		jdbcTemplate.execute("drop table ciudadano");
+		jdbcTemplate.execute("drop table credencial_ciudadana");
+	}
+
+	@Test
+	void antesDeCargarSiempreConsultaLaBaseDeDatos() {
+		jdbcTemplate.update("insert into ciudadano values (1, 11111111, 911111111)");
+
+		assertTrue(indice.puedeExistirRun(22222222));
+		assertTrue(indice.puedeExistirTelefono(922222222));
+		assertTrue(indice.puedeExistirCorreo("nadie@correo.cl"));
+		assertTrue(indice.existeRun(11111111, run -> true));
+
+		indice.cargar();
+
+		assertTrue(indice.puedeExistirRun(11111111));
+		assertEquals(1, indice.idPorRun(11111111));
+		assertFalse(indice.existeRun(22222222, run -> fail("Con el índice cargado no se consulta un RUN ausente")));
+		assertFalse(indice.existeTelefono(922222222, telefono -> fail("Con el índice cargado no se consulta un telefono ausente")));
+		assertFalse(indice.existeCorreo("nadie@correo.cl", correo -> fail("Con el índice cargado no se consulta un correo ausente")));
+
+		Map<String, Object> estadisticas = indice.estadisticas();
+		assertEquals(true, estadisticas.get("listo"));
+		assertEquals(3L, estadisticas.get("consultasOmitidas"));
+		assertEquals(0L, estadisticas.get("consultasRealizadas"));
+	}
+
+	@Test
+	void elFiltroDeCorreosSeReconstruyeAlSuperarSuCapacidad() {
+		indice.cargar();
+		long bytesIniciales = (long) indice.estadisticas().get("bytesCorreos");
+
+		for (int i = 0; i < CAPACIDAD_INICIAL; i++) {
+			registrarCorreo("Correo" + i + "@Correo.cl");
+		}
+		indice.revisarCapacidad();
+		assertEquals(bytesIniciales, indice.estadisticas().get("bytesCorreos"));
+
+		for (int i = CAPACIDAD_INICIAL; i < CAPACIDAD_INICIAL * 3; i++) {
+			registrarCorreo("Correo" + i + "@Correo.cl");
+		}
+		// Un correo de una transacción revertida queda en el filtro hasta reconstruirlo desde la base
+		indice.registrarCorreo("revertido@correo.cl");
+		assertTrue(indice.puedeExistirCorreo("revertido@correo.cl"));
+
+		indice.revisarCapacidad();
+
+		Map<String, Object> estadisticas = indice.estadisticas();
+		assertEquals((long) CAPACIDAD_INICIAL * 3, estadisticas.get("correos"));
+		assertTrue((long) estadisticas.get("bytesCorreos") > bytesIniciales);
+		for (int i = 0; i < CAPACIDAD_INICIAL * 3; i++) {
+			assertTrue(indice.puedeExistirCorreo(" correo" + i + "@correo.CL"));
+		}
+		assertFalse(indice.puedeExistirCorreo("revertido@correo.cl"));
+	}
+
+	@Test
+	void losValoresLiberadosSeEliminanSoloAlConfirmar() {
+		indice.cargar();
+		indice.registrarCiudadano(ciudadano(7, 33333333L, 933333333L));
+
+		transactionTemplate.executeWithoutResult(estado -> {
+			indice.liberar(33333333L, 933333333L);
+			estado.setRollbackOnly();
+		});
+		assertTrue(indice.puedeExistirRun(33333333));
+		assertTrue(indice.puedeExistirTelefono(933333333));
+
+		transactionTemplate.executeWithoutResult(estado -> {
+			indice.liberar(33333333L, null);
+			assertTrue(indice.puedeExistirRun(33333333));
+		});
+		assertFalse(indice.puedeExistirRun(33333333));
+		assertTrue(indice.puedeExistirTelefono(933333333));
+
+		indice.liberar(null, 933333333L);
+		assertFalse(indice.puedeExistirTelefono(933333333));
+	}
+
+	private void registrarCorreo(String correo) {
+		jdbcTemplate.update("insert into credencial_ciudadana (correo) values (?)", correo);
+		indice.registrarCorreo(correo);
+	}
+
+	private Ciudadano ciudadano(int id, Long run, Long telefono) {
+		Ciudadano ciudadano = new Ciudadano();
+		ciudadano.setId(id);
+		ciudadano.setRun(run);
+		ciudadano.setTelefono(telefono);
+		return ciudadano;
+	}
+
+}
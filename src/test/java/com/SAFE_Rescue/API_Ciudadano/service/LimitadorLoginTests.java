@@ -0,0 +1,79 @@
+package com.SAFE_Rescue.API_Ciudadano.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifica el limitador de inicios de sesión sin contexto de Spring y con instantes fijos:
+ * el orden de las cubetas (primero la IP, luego el correo) y el redondeo hacia arriba de Retry-After
+ */
+class LimitadorLoginTests {
+
+	private static final long SEGUNDO = Duration.ofSeconds(1).toNanos();
+	private static final long INICIO = 1_000 * SEGUNDO;
+
+	private LimitadorLogin limitador;
+
+	@BeforeEach
+	void crearLimitador() {
+		limitador = new LimitadorLogin();
+		ReflectionTestUtils.setField(limitador, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(limitador, "habilitado", true);
+		ReflectionTestUtils.setField(limitador, "capacidadIp", 2);
+		ReflectionTestUtils.setField(limitador, "intervaloIp", Duration.ofSeconds(1));
+		ReflectionTestUtils.setField(limitador, "capacidadCorreo", 3);
+		ReflectionTestUtils.setField(limitador, "intervaloCorreo", Duration.ofSeconds(10));
+		ReflectionTestUtils.setField(limitador, "llavesMaximas", 100L);
+		limitador.iniciar();
+	}
+
+	@Test
+	void unRechazoPorIpNoConsumeTokensDelCorreo() {
+		assertEquals(0, limitador.segundosEspera("10.0.0.1", "victima@correo.cl", INICIO));
+		assertEquals(0, limitador.segundosEspera("10.0.0.1", "victima@correo.cl", INICIO));
+		assertEquals(1, limitador.segundosEspera("10.0.0.1", "victima@correo.cl", INICIO));
+		assertEquals(1, limitador.segundosEspera("10.0.0.1", "victima@correo.cl", INICIO));
+
+		// El correo solo gastó los dos intentos que la IP dejó pasar; se normaliza antes de usarlo como llave
+		assertEquals(0, limitador.segundosEspera("10.0.0.2", " Victima@Correo.CL ", INICIO));
+		assertEquals(10, limitador.segundosEspera("10.0.0.3", "victima@correo.cl", INICIO));
+
+		// Un rechazo por correo sí consumió el token de la IP
+		assertEquals(0, limitador.segundosEspera("10.0.0.3", null, INICIO));
+		assertEquals(1, limitador.segundosEspera("10.0.0.3", null, INICIO));
+
+		Map<String, Object> estadisticas = limitador.estadisticas();
+		assertEquals(4L, estadisticas.get("permitidas"));
+		assertEquals(3L, estadisticas.get("rechazadasPorIp"));
+		assertEquals(1L, estadisticas.get("rechazadasPorCorreo"));
+	}
+
+	@Test
+	void retryAfterRedondeaHaciaArribaLaEsperaRestante() {
+		for (int i = 0; i < 3; i++) {
+			assertEquals(0, limitador.segundosEspera("10.0.0." + i, "lento@correo.cl", INICIO));
+		}
+		assertEquals(10, limitador.segundosEspera("10.0.1.1", "lento@correo.cl", INICIO));
+		assertEquals(10, limitador.segundosEspera("10.0.1.2", "lento@correo.cl", INICIO + 1));
+		assertEquals(1, limitador.segundosEspera("10.0.1.3", "lento@correo.cl", INICIO + 9 * SEGUNDO + SEGUNDO / 2));
+		assertEquals(1, limitador.segundosEspera("10.0.1.4", "lento@correo.cl", INICIO + 10 * SEGUNDO - 1));
+		assertEquals(0, limitador.segundosEspera("10.0.1.5", "lento@correo.cl", INICIO + 10 * SEGUNDO));
+		assertEquals(10, limitador.segundosEspera("10.0.1.6", "lento@correo.cl", INICIO + 10 * SEGUNDO));
+	}
+
+	@Test
+	void deshabilitadoPermiteTodo() {
+		ReflectionTestUtils.setField(limitador, "habilitado", false);
+		for (int i = 0; i < 10; i++) {
+			assertEquals(0, limitador.segundosEspera("10.0.0.1", "victima@correo.cl", INICIO));
+		}
+	}
+
+}
@@ -0,0 +1,129 @@
+package com.SAFE_Rescue.API_Ciudadano.service;
+
+import com.SAFE_Rescue.API_Ciudadano.modelo.Credencial;
+import com.SAFE_Rescue.API_Ciudadano.repository.CredencialRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Verifica que la escritura por lotes de los intentos fallidos sume los fallos a los que otra instancia
+ * escribió mientras tanto y conserve el bloqueo más tardío, que solo un reinicio escriba valores absolutos
+ * y que un bloqueo leído de la base de datos se respete aunque el registro en memoria no lo tenga
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:intentosFallidos;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"credenciales.intentos.intervalo-escritura=1h"
+})
+@ActiveProfiles("test")
+class RegistroIntentosFallidosTests {
+
+	private static final long MINUTO = Duration.ofMinutes(1).toMillis();
+
+	@Autowired
+	private RegistroIntentosFallidos registroIntentosFallidos;
+
+	@Autowired
+	private CredencialService credencialService;
+
+	@Autowired
+	private CredencialRepository credencialRepository;
+
+	@Autowired
+	private CacheCredenciales cacheCredenciales;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void laEscrituraSumaLosFallosYConservaElBloqueoDeOtraInstancia() {
+		int id = registrar("suma@correo.cl");
+		CacheCredenciales.CredencialCacheada cacheada = cacheCredenciales.obtener("suma@correo.cl", credencialRepository::findByCorreo);
+		registroIntentosFallidos.registrarFallo(cacheada);
+		registroIntentosFallidos.registrarFallo(cacheada);
+
+		// Otra instancia escribe sus propios fallos y un bloqueo antes de la escritura de esta
+		long bloqueoOtraInstancia = System.currentTimeMillis() + 10 * MINUTO;
+		jdbcTemplate.update("update credencial_ciudadana set intentos_fallidos = 5, bloqueado_hasta = ? where id = ?",
+				new Timestamp(bloqueoOtraInstancia), id);
+		registroIntentosFallidos.escribirPendientes();
+
+		Map<String, Object> fila = leer(id);
+		assertEquals(7, ((Number) fila.get("intentos_fallidos")).intValue());
+		assertEquals(bloqueoOtraInstancia, ((Timestamp) fila.get("bloqueado_hasta")).getTime());
+
+		// El registro en memoria no tiene el bloqueo, pero la credencial leída de la base de datos sí
+		assertEquals(true, registroIntentosFallidos.estaBloqueada(
+				new CacheCredenciales.CredencialCacheada(id, cacheada.correo(), cacheada.contrasenia(), 7, bloqueoOtraInstancia)));
+		assertFalse(registroIntentosFallidos.estaBloqueada(cacheada));
+		credencialService.delete(id);
+	}
+
+	@Test
+	void elBloqueoMasTardioEsElQueQueda() {
+		int id = registrar("tardio@correo.cl");
+		CacheCredenciales.CredencialCacheada cacheada = cacheCredenciales.obtener("tardio@correo.cl", credencialRepository::findByCorreo);
+		for (int i = 0; i < 5; i++) {
+			registroIntentosFallidos.registrarFallo(cacheada);
+		}
+		assertEquals(true, registroIntentosFallidos.estaBloqueada(cacheada));
+
+		// La otra instancia bloqueó antes, con un bloqueo que termina antes que el de esta
+		long bloqueoOtraInstancia = System.currentTimeMillis() + MINUTO;
+		jdbcTemplate.update("update credencial_ciudadana set intentos_fallidos = 5, bloqueado_hasta = ? where id = ?",
+				new Timestamp(bloqueoOtraInstancia), id);
+		registroIntentosFallidos.escribirPendientes();
+
+		Map<String, Object> fila = leer(id);
+		assertEquals(10, ((Number) fila.get("intentos_fallidos")).intValue());
+		assertEquals(true, ((Timestamp) fila.get("bloqueado_hasta")).getTime() > bloqueoOtraInstancia + 10 * MINUTO);
+		credencialService.delete(id);
+	}
+
+	@Test
+	void unInicioExitosoReemplazaLosValoresYLosFallosPosterioresSeSuman() {
+		int id = registrar("reinicio@correo.cl");
+		CacheCredenciales.CredencialCacheada cacheada = cacheCredenciales.obtener("reinicio@correo.cl", credencialRepository::findByCorreo);
+		registroIntentosFallidos.registrarFallo(cacheada);
+		registroIntentosFallidos.registrarFallo(cacheada);
+		registroIntentosFallidos.escribirPendientes();
+		assertEquals(2, ((Number) leer(id).get("intentos_fallidos")).intValue());
+
+		jdbcTemplate.update("update credencial_ciudadana set intentos_fallidos = 4 where id = ?", id);
+		registroIntentosFallidos.registrarExito(cacheada);
+		registroIntentosFallidos.registrarFallo(cacheada);
+		registroIntentosFallidos.escribirPendientes();
+
+		Map<String, Object> fila = leer(id);
+		assertEquals(1, ((Number) fila.get("intentos_fallidos")).intValue());
+		assertNull(fila.get("bloqueado_hasta"));
+
+		registroIntentosFallidos.registrarFallo(cacheada);
+		registroIntentosFallidos.escribirPendientes();
+		assertEquals(2, ((Number) leer(id).get("intentos_fallidos")).intValue());
+		credencialService.delete(id);
+	}
+
+	private int registrar(String correo) {
+		Credencial credencial = new Credencial();
+		credencial.setCorreo(correo);
+		credencial.setContrasenia("clave1");
+		credencial.setActivo(true);
+		return credencialService.save(credencial).getId();
+	}
+
+	private Map<String, Object> leer(int id) {
+		return jdbcTemplate.queryForMap("select intentos_fallidos, bloqueado_hasta from credencial_ciudadana where id = ?", id);
+	}
+
+}
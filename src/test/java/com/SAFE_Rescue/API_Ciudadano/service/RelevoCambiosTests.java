@@ -0,0 +1,126 @@
+package com.SAFE_Rescue.API_Ciudadano.service;
+
+import com.SAFE_Rescue.API_Ciudadano.modelo.EventoCambio;
+import com.SAFE_Rescue.API_Ciudadano.modelo.PaginaCambios;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.SAFE_Rescue.API_Ciudadano.CiudadanosPrueba.ciudadano;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica que las escrituras de los servicios registren sus cambios en la tabla de salida, que el
+ * relevo los publique en orden con posiciones consecutivas y que la lectura incremental los entregue.
+ * El relevo programado se ejecuta solo al iniciar; las pruebas lo invocan directamente.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:cambios;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"cambios.destino.tipo=memoria",
+		"cambios.relevo.intervalo=1h"
+})
+@ActiveProfiles("test")
+class RelevoCambiosTests {
+
+	@Autowired
+	private CiudadanoService ciudadanoService;
+
+	@Autowired
+	private RelevoCambios relevoCambios;
+
+	@Autowired
+	private RegistroCambios registroCambios;
+
+	@Autowired
+	private DestinoCambiosMemoria destino;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private static int siguiente;
+
+	@BeforeEach
+	void publicarAnteriores() {
+		relevoCambios.relevar();
+		destino.limpiar();
+	}
+
+	@Test
+	void lasEscriturasSePublicanEnOrdenConPosicionesConsecutivas() {
+		int id = registrar();
+		ciudadanoService.patch(Map.of("nombre", "Renombrado"), id);
+		ciudadanoService.delete(id);
+
+		assertEquals(5, relevoCambios.publicarLote());
+
+		List<EventoCambio> eventos = destino.eventos();
+		assertEquals(List.of("credencial creado", "ciudadano creado", "ciudadano actualizado",
+						"ciudadano eliminado", "credencial eliminado"),
+				eventos.stream().map(evento -> evento.getEntidad() + " " + evento.getOperacion()).toList());
+		for (int i = 1; i < eventos.size(); i++) {
+			assertEquals(eventos.get(i - 1).getPosicion() + 1, eventos.get(i).getPosicion());
+		}
+
+		EventoCambio creado = eventos.get(1);
+		EventoCambio actualizado = eventos.get(2);
+		assertEquals(id, creado.getEntidadId());
+		assertEquals(creado.getVersion() + 1, actualizado.getVersion());
+		assertTrue(actualizado.getDatos().contains("\"nombre\":\"Renombrado\""));
+		assertFalse(creado.getDatos().contains("contrasenia"));
+		assertNull(eventos.get(3).getDatos());
+	}
+
+	@Test
+	void unaEscrituraRevertidaNoRegistraCambios() {
+		int id = registrar();
+		relevoCambios.relevar();
+		destino.limpiar();
+
+		new TransactionTemplate(transactionManager).executeWithoutResult(estado -> {
+			ciudadanoService.patch(Map.of("nombre", "Revertido"), id);
+			estado.setRollbackOnly();
+		});
+
+		assertEquals(0, relevoCambios.publicarLote());
+		assertEquals("Nombre", ciudadanoService.findByID(id).getNombre());
+		ciudadanoService.delete(id);
+	}
+
+	@Test
+	void laLecturaIncrementalContinuaDesdeLaUltimaPosicion() {
+		long desde = registroCambios.consultar(0, 1000).getSiguienteDesde();
+		int id = registrar();
+		ciudadanoService.patch(Map.of("nombre", "Otro"), id);
+		relevoCambios.relevar();
+
+		PaginaCambios primera = registroCambios.consultar(desde, 2);
+		assertEquals(2, primera.getEventos().size());
+		assertTrue(primera.isHayMas());
+
+		PaginaCambios segunda = registroCambios.consultar(primera.getSiguienteDesde(), 2);
+		assertEquals(1, segunda.getEventos().size());
+		assertEquals(EventoCambio.ACTUALIZADO, segunda.getEventos().get(0).getOperacion());
+		assertFalse(segunda.isHayMas());
+
+		PaginaCambios vacia = registroCambios.consultar(segunda.getSiguienteDesde(), 2);
+		assertTrue(vacia.getEventos().isEmpty());
+		assertEquals(segunda.getSiguienteDesde(), vacia.getSiguienteDesde());
+		ciudadanoService.delete(id);
+	}
+
+	private int registrar() {
+		siguiente++;
+		return ciudadanoService.save(ciudadano("cambios" + siguiente, 60_000_000L + siguiente, 960_000_000L + siguiente)).getId();
+	}
+
+}
@@ -0,0 +1,68 @@
+package com.SAFE_Rescue.API_Ciudadano.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Verifica la aritmética GCRA de la cubeta de tokens con instantes fijos: la ráfaga inicial,
+ * la reposición de un token por intervalo, la espera informada y que la cubeta no acumule más que su capacidad
+ */
+class CubetaTokensTests {
+
+	private static final long INTERVALO = 1_000;
+
+	@Test
+	void permiteLaRafagaYLuegoUnTokenPorIntervalo() {
+		CubetaTokens cubeta = new CubetaTokens(3, INTERVALO);
+		long inicio = 5_000_000;
+
+		assertEquals(0, cubeta.tomar(inicio));
+		assertEquals(0, cubeta.tomar(inicio));
+		assertEquals(0, cubeta.tomar(inicio));
+		assertEquals(INTERVALO, cubeta.tomar(inicio));
+		// Un intento rechazado no consume tokens ni aleja la reposición
+		assertEquals(INTERVALO, cubeta.tomar(inicio));
+		assertEquals(1, cubeta.tomar(inicio + INTERVALO - 1));
+
+		assertEquals(0, cubeta.tomar(inicio + INTERVALO));
+		assertEquals(INTERVALO, cubeta.tomar(inicio + INTERVALO));
+		assertEquals(INTERVALO / 2, cubeta.tomar(inicio + INTERVALO + INTERVALO / 2));
+
+		// Tras dos intervalos sin uso se reponen dos tokens
+		long despues = inicio + 3 * INTERVALO;
+		assertEquals(0, cubeta.tomar(despues));
+		assertEquals(0, cubeta.tomar(despues));
+		assertEquals(INTERVALO, cubeta.tomar(despues));
+	}
+
+	@Test
+	void noAcumulaMasTokensQueSuCapacidad() {
+		CubetaTokens cubeta = new CubetaTokens(2, INTERVALO);
+		assertEquals(0, cubeta.tomar(0));
+
+		long despues = 1_000 * INTERVALO;
+		assertEquals(0, cubeta.tomar(despues));
+		assertEquals(0, cubeta.tomar(despues));
+		assertEquals(INTERVALO, cubeta.tomar(despues));
+	}
+
+	@Test
+	void aceptaInstantesNegativosDeNanoTime() {
+		CubetaTokens cubeta = new CubetaTokens(2, INTERVALO);
+		long inicio = -9_000_000_000_000L;
+
+		assertEquals(0, cubeta.tomar(inicio));
+		assertEquals(0, cubeta.tomar(inicio));
+		assertEquals(INTERVALO, cubeta.tomar(inicio));
+		assertEquals(0, cubeta.tomar(inicio + INTERVALO));
+	}
+
+	@Test
+	void rechazaCapacidadOIntervaloNoPositivos() {
+		assertThrows(IllegalArgumentException.class, () -> new CubetaTokens(0, INTERVALO));
+		assertThrows(IllegalArgumentException.class, () -> new CubetaTokens(1, 0));
+	}
+
+}
@@ -0,0 +1,35 @@
+package com.SAFE_Rescue.API_Ciudadano.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica que el filtro de Bloom no tenga falsos negativos y que al llegar a su capacidad
+ * mantenga la tasa de falsos positivos cerca de la configurada
+ */
+class FiltroBloomTests {
+
+	@Test
+	void noTieneFalsosNegativosYRespetaLaTasaDeFalsosPositivos() {
+		FiltroBloom filtro = new FiltroBloom(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filtro.agregar("agregado" + i + "@correo.cl");
+		}
+		for (int i = 0; i < 10_000; i++) {
+			assertTrue(filtro.puedeContener("agregado" + i + "@correo.cl"));
+		}
+
+		int falsosPositivos = 0;
+		for (int i = 0; i < 100_000; i++) {
+			if (filtro.puedeContener("ausente" + i + "@correo.cl")) {
+				falsosPositivos++;
+			}
+		}
+		assertEquals(10_000, filtro.elementos());
+		assertTrue(falsosPositivos < 2_000, "Falsos positivos: " + falsosPositivos);
+		assertTrue(filtro.tasaFalsosPositivosEstimada() < 0.02);
+	}
+
+}
@@ -0,0 +1,165 @@
+package com.SAFE_Rescue.API_Ciudadano.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica el orden de los resultados del índice de trigramas, la tolerancia a tildes y errores
+ * de tipeo, la similitud mínima y que eliminar, reemplazar y compactar no dejen resultados huérfanos
+ */
+class IndiceTrigramasTests {
+
+	@Test
+	void ordenaPorSimilitudLuegoPorLargoYLuegoPorId() {
+		IndiceTrigramas indice = new IndiceTrigramas(16);
+		indice.agregar(5, "Juan Perez");
+		indice.agregar(2, "Juan Perez Soto");
+		indice.agregar(3, "Juana Perez");
+		indice.agregar(4, "Pedro Soto");
+		indice.agregar(1, "Juan Perez");
+
+		assertArrayEquals(new int[]{1, 5, 3, 2, 4}, ids(indice.buscar("juan perez", 0, 10)));
+		assertArrayEquals(new int[]{1, 5}, ids(indice.buscar("juan perez", 0, 2)));
+
+		IndiceTrigramas.Coincidencia[] resultado = indice.buscar("juan perez", 0, 10);
+		assertEquals(1.0, resultado[3].similitud());
+		assertEquals(2.0 / 9, resultado[4].similitud(), 1e-9);
+	}
+
+	@Test
+	void elMonticuloEntregaElMismoPrefijoQueElOrdenCompleto() {
+		String[] nombres = {"ana", "andres", "antonia", "bruno", "carla", "carlos", "diego", "elena", "maria", "mario"};
+		String[] apellidos = {"rojas", "rojo", "soto", "sotomayor", "munoz", "nunez", "perez", "pereira", "diaz", "silva"};
+		Random aleatorio = new Random(17);
+		IndiceTrigramas indice = new IndiceTrigramas(16);
+		for (int id = 1; id <= 2_000; id++) {
+			indice.agregar(id, nombres[aleatorio.nextInt(nombres.length)] + " "
+					+ apellidos[aleatorio.nextInt(apellidos.length)] + " " + apellidos[aleatorio.nextInt(apellidos.length)]);
+		}
+
+		for (String consulta : new String[]{"carlos soto", "mari pere", "rojas", "elena nunez diaz"}) {
+			IndiceTrigramas.Coincidencia[] completo = indice.buscar(consulta, 0, Integer.MAX_VALUE);
+			for (int i = 1; i < completo.length; i++) {
+				assertTrue(completo[i - 1].similitud() >= completo[i].similitud());
+			}
+			for (int limite : new int[]{1, 7, 50}) {
+				assertArrayEquals(Arrays.copyOf(completo, limite), indice.buscar(consulta, 0, limite), consulta + " " + limite);
+			}
+		}
+	}
+
+	@Test
+	void toleraTildesMayusculasYErroresDeTipeo() {
+		IndiceTrigramas indice = new IndiceTrigramas(16);
+		indice.agregar(1, "José Muñoz Pérez");
+		indice.agregar(2, "Josefa Núñez");
+
+		assertEquals("jose munoz perez", IndiceTrigramas.normalizar("  JOSÉ  Muñoz-Pérez! "));
+		IndiceTrigramas.Coincidencia[] resultado = indice.buscar("jose munoz", 0.5, 10);
+		assertEquals(1, resultado[0].id());
+		assertEquals(1.0, resultado[0].similitud());
+
+		resultado = indice.buscar("MUNOS", 0.5, 10);
+		assertEquals(1, resultado.length);
+		assertEquals(1, resultado[0].id());
+		assertEquals(0.8, resultado[0].similitud(), 1e-9);
+
+		assertArrayEquals(new int[]{2, 1}, ids(indice.buscar("jose", 0.5, 10)));
+		assertArrayEquals(new int[]{2}, ids(indice.buscar("josef", 0.9, 10)));
+	}
+
+	@Test
+	void laSimilitudMinimaDescartaLosResultadosBajoElCorte() {
+		IndiceTrigramas indice = new IndiceTrigramas(16);
+		indice.agregar(1, "munoz");
+		indice.agregar(2, "mundo");
+
+		// "munos" comparte 4 de sus 5 trigramas con "munoz" y 3 con "mundo"
+		assertArrayEquals(new int[]{1, 2}, ids(indice.buscar("munos", 0.6, 10)));
+		assertArrayEquals(new int[]{1}, ids(indice.buscar("munos", 0.61, 10)));
+		assertArrayEquals(new int[]{1}, ids(indice.buscar("munos", 0.8, 10)));
+		assertArrayEquals(new int[0], ids(indice.buscar("munos", 0.81, 10)));
+		assertArrayEquals(new int[0], ids(indice.buscar("xyz", 0, 10)));
+		assertArrayEquals(new int[0], ids(indice.buscar("!!!", 0, 10)));
+	}
+
+	@Test
+	void eliminarYCompactarConservaLosDocumentosVigentes() {
+		IndiceTrigramas indice = new IndiceTrigramas(4);
+		for (int id = 1; id <= 50; id++) {
+			indice.agregar(id, "Nombre" + id + " Apellido");
+		}
+		for (int id = 2; id <= 50; id += 2) {
+			indice.eliminar(id);
+		}
+		assertEquals(25, indice.tamanio());
+		assertEquals(25, indice.eliminados());
+
+		int[] antes = ids(indice.buscar("apellido", 0, 100));
+		assertEquals(25, antes.length);
+		assertTrue(Arrays.stream(antes).allMatch(id -> id % 2 == 1));
+
+		indice.compactar();
+		assertEquals(25, indice.tamanio());
+		assertEquals(0, indice.eliminados());
+		assertArrayEquals(antes, ids(indice.buscar("apellido", 0, 100)));
+		assertArrayEquals(new int[]{7}, ids(indice.buscar("nombre7 apellido", 1, 100)));
+		assertFalse(indice.contiene(8));
+		assertArrayEquals(new int[0], ids(indice.buscar("nombre8 apellido", 1, 100)));
+
+		indice.agregar(8, "Nombre8 Apellido");
+		indice.eliminar(7);
+		indice.compactar();
+		assertArrayEquals(new int[]{8}, ids(indice.buscar("nombre8 apellido", 1, 100)));
+		assertArrayEquals(new int[0], ids(indice.buscar("nombre7 apellido", 1, 100)));
+		assertEquals(25, indice.tamanio());
+	}
+
+	@Test
+	void volverAAgregarUnIdReemplazaSuTexto() {
+		IndiceTrigramas indice = new IndiceTrigramas(16);
+		indice.agregar(100_000, "Ana Rojas");
+		indice.agregar(100_000, "Beatriz Lagos");
+
+		assertEquals(1, indice.tamanio());
+		assertEquals(1, indice.eliminados());
+		assertArrayEquals(new int[0], ids(indice.buscar("ana rojas", 0.5, 10)));
+		assertArrayEquals(new int[]{100_000}, ids(indice.buscar("beatriz lagos", 1, 10)));
+
+		indice.compactar();
+		assertArrayEquals(new int[]{100_000}, ids(indice.buscar("beatriz lagos", 1, 10)));
+
+		// Un texto sin letras ni dígitos solo elimina el anterior
+		indice.agregar(100_000, "--");
+		assertFalse(indice.contiene(100_000));
+		assertEquals(0, indice.tamanio());
+		assertArrayEquals(new int[0], ids(indice.buscar("beatriz lagos", 0.5, 10)));
+	}
+
+	@Test
+	void lasListasRecortadasAlCompactarVuelvenACrecer() {
+		IndiceTrigramas indice = new IndiceTrigramas(16);
+		indice.agregar(1, "Xavier");
+		indice.agregar(2, "Otro");
+		indice.eliminar(2);
+		indice.compactar();
+
+		// Cada trigrama de "xavier" quedó con una lista de largo 1
+		indice.agregar(3, "Xavier");
+		indice.agregar(4, "Xavier");
+		indice.agregar(1, "Xavier Soto");
+		assertArrayEquals(new int[]{3, 4, 1}, ids(indice.buscar("xavier", 1, 10)));
+	}
+
+	private int[] ids(IndiceTrigramas.Coincidencia[] coincidencias) {
+		return Arrays.stream(coincidencias).mapToInt(IndiceTrigramas.Coincidencia::id).toArray();
+	}
+
+}
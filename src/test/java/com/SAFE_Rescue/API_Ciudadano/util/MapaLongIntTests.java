@@ -0,0 +1,165 @@
+package com.SAFE_Rescue.API_Ciudadano.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica el borrado con desplazamiento hacia atrás del mapa long a int en secuencias de sondeo
+ * que colisionan y dan la vuelta al arreglo, la clave 0 y que redimensionar conserve las claves
+ */
+class MapaLongIntTests {
+
+	/**
+	 * Capacidad inicial que deja 16 posiciones, que se redimensionan al superar 9 claves
+	 */
+	private static final int CAPACIDAD = 8;
+	private static final int MASCARA = 15;
+
+	@Test
+	void eliminarDesplazaLasClavesQueDanLaVueltaAlArreglo() {
+		long[] en15 = clavesConPosicion(15, 2);
+		long a = en15[0];
+		long b = en15[1];
+		long c = clavesConPosicion(1, 1)[0];
+		long d = clavesConPosicion(0, 1)[0];
+
+		// a y b ocupan 15 y 0, c su posición ideal 1 y d, cuya posición ideal es 0, termina en 2
+		MapaLongInt mapa = new MapaLongInt(CAPACIDAD);
+		assertEquals(MapaLongInt.AUSENTE, mapa.poner(a, 1));
+		mapa.poner(b, 2);
+		mapa.poner(c, 3);
+		mapa.poner(d, 4);
+
+		// b vuelve a 15 y d a 0, pero c no debe quedar antes de su posición ideal
+		assertEquals(1, mapa.eliminar(a));
+		assertEquals(MapaLongInt.AUSENTE, mapa.obtener(a));
+		assertEquals(2, mapa.obtener(b));
+		assertEquals(3, mapa.obtener(c));
+		assertEquals(4, mapa.obtener(d));
+		assertEquals(3, mapa.tamanio());
+
+		assertEquals(2, mapa.eliminar(b));
+		assertEquals(3, mapa.obtener(c));
+		assertEquals(4, mapa.obtener(d));
+		assertEquals(MapaLongInt.AUSENTE, mapa.eliminar(b));
+
+		assertEquals(4, mapa.eliminar(d));
+		assertEquals(3, mapa.obtener(c));
+		assertEquals(1, mapa.tamanio());
+
+		assertEquals(MapaLongInt.AUSENTE, mapa.poner(a, 5));
+		assertEquals(5, mapa.obtener(a));
+		assertEquals(3, mapa.obtener(c));
+	}
+
+	@Test
+	void coincideConHashMapEnSecuenciasQueColisionan() {
+		List<Long> claves = new ArrayList<>();
+		claves.add(0L);
+		for (int posicion : new int[]{13, 14, 15, 0, 1}) {
+			for (long clave : clavesConPosicion(posicion, 4)) {
+				claves.add(clave);
+			}
+		}
+
+		Random aleatorio = new Random(18);
+		MapaLongInt mapa = new MapaLongInt(CAPACIDAD);
+		long bytesIniciales = mapa.bytesUsados();
+		Map<Long, Integer> esperado = new HashMap<>();
+		for (int operacion = 0; operacion < 50_000; operacion++) {
+			long clave = claves.get(aleatorio.nextInt(claves.size()));
+			// Con hasta 9 claves el mapa no se redimensiona y las secuencias siguen agrupadas
+			if (aleatorio.nextBoolean() && (esperado.size() < 9 || esperado.containsKey(clave))) {
+				int valor = aleatorio.nextInt(1_000);
+				assertEquals(esperado.getOrDefault(clave, MapaLongInt.AUSENTE), mapa.poner(clave, valor));
+				esperado.put(clave, valor);
+			} else {
+				Integer anterior = esperado.remove(clave);
+				assertEquals(anterior == null ? MapaLongInt.AUSENTE : anterior, mapa.eliminar(clave));
+			}
+			assertEquals(esperado.size(), mapa.tamanio());
+			for (long buscada : claves) {
+				assertEquals(esperado.getOrDefault(buscada, MapaLongInt.AUSENTE), mapa.obtener(buscada));
+			}
+		}
+		assertEquals(bytesIniciales, mapa.bytesUsados());
+	}
+
+	@Test
+	void laClaveCeroSeGuardaAparte() {
+		MapaLongInt mapa = new MapaLongInt(CAPACIDAD);
+		assertFalse(mapa.contiene(0));
+		assertEquals(MapaLongInt.AUSENTE, mapa.eliminar(0));
+
+		assertEquals(MapaLongInt.AUSENTE, mapa.poner(0, 5));
+		assertEquals(5, mapa.poner(0, 6));
+		assertTrue(mapa.contiene(0));
+		assertEquals(1, mapa.tamanio());
+
+		long enCero = clavesConPosicion(0, 1)[0];
+		mapa.poner(enCero, 7);
+		assertEquals(6, mapa.eliminar(0));
+		assertEquals(MapaLongInt.AUSENTE, mapa.obtener(0));
+		assertEquals(7, mapa.obtener(enCero));
+		assertEquals(1, mapa.tamanio());
+	}
+
+	@Test
+	void redimensionarConservaLasClaves() {
+		MapaLongInt mapa = new MapaLongInt(1);
+		long bytesIniciales = mapa.bytesUsados();
+		for (int i = 0; i < 10_000; i++) {
+			assertEquals(MapaLongInt.AUSENTE, mapa.poner(clave(i), i));
+		}
+		assertEquals(10_000, mapa.tamanio());
+		assertTrue(mapa.bytesUsados() >= (long) (10_000 / 0.6) * (Long.BYTES + Integer.BYTES));
+		assertTrue(mapa.bytesUsados() > bytesIniciales);
+
+		for (int i = 0; i < 10_000; i++) {
+			assertEquals(i, mapa.obtener(clave(i)));
+		}
+		for (int i = 0; i < 10_000; i += 2) {
+			assertEquals(i, mapa.eliminar(clave(i)));
+		}
+		for (int i = 0; i < 10_000; i++) {
+			assertEquals(i % 2 == 0 ? MapaLongInt.AUSENTE : i, mapa.obtener(clave(i)));
+		}
+		assertEquals(5_000, mapa.tamanio());
+		assertEquals(1, mapa.poner(clave(1), 100));
+		assertEquals(5_000, mapa.tamanio());
+	}
+
+	/**
+	 * Clave de prueba que incluye el 0, RUN consecutivos y valores negativos
+	 */
+	private long clave(int i) {
+		return i % 3 == 0 ? -i : 10_000_000L + i;
+	}
+
+	/**
+	 * Busca claves cuya posición ideal en un arreglo de 16 posiciones sea la indicada
+	 * @param posicion Posición ideal buscada
+	 * @param cantidad Cantidad de claves
+	 * @return Claves distintas de 0 con esa posición ideal
+	 */
+	private long[] clavesConPosicion(int posicion, int cantidad) {
+		long[] claves = new long[cantidad];
+		int encontradas = 0;
+		for (long clave = 1; encontradas < cantidad; clave++) {
+			if (((int) Hash.mezclar(clave) & MASCARA) == posicion) {
+				claves[encontradas++] = clave;
+			}
+		}
+		return claves;
+	}
+
+}